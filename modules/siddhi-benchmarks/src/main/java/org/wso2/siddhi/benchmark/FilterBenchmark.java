@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of filter queries with a single condition, a compound condition, and an arithmetic condition
+ * with computed projections, both with the interpreted executors and with the expressions compiled into bytecode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark extends SiddhiAppBenchmark {
+
+    @Param({"simple", "compound", "arithmetic"})
+    public String filter;
+
+    @Param({"interpreted", "compiled"})
+    public String executor;
+
+    @Override
+    protected String getSiddhiApp(String inputStreamAnnotations) {
+        String condition;
+        String selection = "symbol, price";
+        if ("simple".equals(filter)) {
+            condition = "price < 700";
+        } else if ("compound".equals(filter)) {
+            condition = "price < 700 and volume > 10 and (symbol == 'WSO2' or price * 2 > 100)";
+        } else {
+            condition = "(price * volume) / (volume + 1) < 700 and volume % 3 != 0 and not (price - 60 > volume)";
+            selection = "symbol, price * 1.1 + volume as adjusted, volume * volume - 1 as squared";
+        }
+        return "" +
+                ("compiled".equals(executor) ? "@app:compile " : "") +
+                inputStreamAnnotations +
+                "define stream InputStream (symbol string, price double, volume long); " +
+                "" +
+                "from InputStream[" + condition + "] " +
+                "select " + selection + " " +
+                "insert into OutputStream;";
+    }
+
+    @Override
+    protected Object[][] createEvents() {
+        Object[][] events = new Object[1000][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Object[]{i % 10 == 0 ? "WSO2" : "IBM", 55.6 + i, (long) i};
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void filter() throws InterruptedException {
+        sendNextBatch();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of joining a stream with a length window holding the latest quotes of each symbol, with
+ * different symbol cardinalities.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinBenchmark extends SiddhiAppBenchmark {
+
+    @Param({"100", "10000"})
+    public int keys;
+
+    @Override
+    protected String getSiddhiApp(String inputStreamAnnotations) {
+        return "" +
+                inputStreamAnnotations +
+                "define stream InputStream (symbol string, price double, volume long); " +
+                "define stream QuoteStream (symbol string, quote double); " +
+                "define window QuoteWindow (symbol string, quote double) length(" + keys + "); " +
+                "" +
+                "from QuoteStream " +
+                "insert into QuoteWindow; " +
+                "" +
+                "from InputStream join QuoteWindow " +
+                "    on InputStream.symbol == QuoteWindow.symbol " +
+                "select InputStream.symbol, InputStream.price, QuoteWindow.quote " +
+                "insert into OutputStream;";
+    }
+
+    @Override
+    protected void init() throws InterruptedException {
+        InputHandler quoteStream = siddhiAppRuntime.getInputHandler("QuoteStream");
+        for (int i = 0; i < keys; i++) {
+            quoteStream.send(new Object[]{"SYMBOL" + i, 55.6 + i});
+        }
+    }
+
+    @Override
+    protected Object[][] createEvents() {
+        Object[][] events = new Object[Math.max(keys, 1000)][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Object[]{"SYMBOL" + (i % keys), 55.6 + i % 100, (long) i};
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void join() throws InterruptedException {
+        sendNextBatch();
+    }
+}
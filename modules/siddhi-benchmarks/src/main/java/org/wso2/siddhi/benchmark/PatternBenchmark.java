@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a pattern correlating consecutive events of the same symbol, with different symbol
+ * cardinalities, hence different numbers of pending partial matches.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternBenchmark extends SiddhiAppBenchmark {
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Override
+    protected String getSiddhiApp(String inputStreamAnnotations) {
+        return "" +
+                inputStreamAnnotations +
+                "define stream InputStream (symbol string, price double, volume long); " +
+                "" +
+                "from every e1=InputStream[price < 65] -> " +
+                "    e2=InputStream[symbol == e1.symbol and price > e1.price] within 1 sec " +
+                "select e1.symbol, e1.price as price1, e2.price as price2 " +
+                "insert into OutputStream;";
+    }
+
+    @Override
+    protected Object[][] createEvents() {
+        Object[][] events = new Object[keys * 2][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Object[]{"SYMBOL" + (i % keys), (i / keys) % 2 == 0 ? 60.0 : 70.0, (long) i};
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void pattern() throws InterruptedException {
+        sendNextBatch();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+
+/**
+ * Base of the benchmarks sending events into a Siddhi App through its {@code InputStream}, and consuming the events
+ * of its {@code OutputStream} when defined.
+ * <p>
+ * The events are sent in batches of {@link #batchSize} events, to measure the engine under low and high event rates
+ * per call, and the input stream is made asynchronous when {@link #asyncBufferSize} is set.
+ */
+@State(Scope.Benchmark)
+public abstract class SiddhiAppBenchmark {
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    @Param({"0", "1024"})
+    public int asyncBufferSize;
+
+    protected SiddhiManager siddhiManager;
+    protected SiddhiAppRuntime siddhiAppRuntime;
+    private InputHandler inputHandler;
+    private Event[][] batches;
+    private int index;
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws InterruptedException {
+        String inputStreamAnnotations = asyncBufferSize > 0 ? "@Async(buffer.size='" + asyncBufferSize + "') " : "";
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(getSiddhiApp(inputStreamAnnotations));
+        if (siddhiAppRuntime.getStreamDefinitionMap().containsKey("OutputStream")) {
+            siddhiAppRuntime.addCallback("OutputStream", new StreamCallback() {
+                @Override
+                public void receive(Event[] events) {
+                    blackhole.consume(events);
+                }
+            });
+        }
+        inputHandler = siddhiAppRuntime.getInputHandler("InputStream");
+        siddhiAppRuntime.start();
+        init();
+
+        Object[][] events = createEvents();
+        int batchCount = Math.max(1, events.length / batchSize);
+        batches = new Event[batchCount][batchSize];
+        for (int i = 0; i < batchCount; i++) {
+            for (int j = 0; j < batchSize; j++) {
+                batches[i][j] = new Event(0, events[(i * batchSize + j) % events.length]);
+            }
+        }
+        timestamp = System.currentTimeMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+
+    /**
+     * @param inputStreamAnnotations annotations to be added to the definition of the {@code InputStream}
+     * @return the Siddhi App to be benchmarked
+     */
+    protected abstract String getSiddhiApp(String inputStreamAnnotations);
+
+    /**
+     * @return the data of the events to be sent in a round robin manner
+     */
+    protected abstract Object[][] createEvents();
+
+    /**
+     * Prepare the state of the Siddhi App, such as the content of its tables, after it is started.
+     *
+     * @throws InterruptedException if interrupted while sending the events
+     */
+    protected void init() throws InterruptedException {
+    }
+
+    /**
+     * Send the next batch of events into the {@code InputStream}, with increasing timestamps.
+     *
+     * @throws InterruptedException if interrupted while sending the events
+     */
+    protected void sendNextBatch() throws InterruptedException {
+        Event[] batch = batches[index];
+        for (Event event : batch) {
+            event.setTimestamp(timestamp++);
+        }
+        inputHandler.send(batch);
+        if (++index == batches.length) {
+            index = 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.table.holder.IndexEventHolder;
+import org.wso2.siddhi.core.util.snapshot.codec.BinarySnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.codec.JavaSnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.codec.SnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encode/decode throughput and snapshot size of the {@link SnapshotCodec} implementations, using state
+ * shaped like the snapshot of a length window query and an indexed in-memory table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotCodecBenchmark {
+
+    @Benchmark
+    public byte[] encode(SnapshotHolder holder, SnapshotSize snapshotSize) throws IOException {
+        byte[] snapshot = holder.codec.encode(holder.state);
+        snapshotSize.snapshotBytes = snapshot.length;
+        return snapshot;
+    }
+
+    @Benchmark
+    public Object decode(SnapshotHolder holder) throws IOException, ClassNotFoundException {
+        return holder.codec.decode(holder.snapshot);
+    }
+
+    /**
+     * Snapshot state and the codec under test.
+     */
+    @State(Scope.Benchmark)
+    public static class SnapshotHolder {
+
+        @Param({"java", "binary", "binary-compressed"})
+        public String codecType;
+
+        @Param({"1000", "100000"})
+        public int events;
+
+        SnapshotCodec codec;
+        Map<String, Map<String, Object>> state;
+        byte[] snapshot;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            switch (codecType) {
+                case "java":
+                    codec = new JavaSnapshotCodec();
+                    break;
+                case "binary":
+                    codec = new BinarySnapshotCodec();
+                    break;
+                case "binary-compressed":
+                    codec = new BinarySnapshotCodec(true);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown codec type " + codecType);
+            }
+            String[] symbols = {"WSO2", "IBM", "ORACLE", "GOOGLE", "MICROSOFT"};
+
+            StreamEvent first = null;
+            StreamEvent last = null;
+            for (int i = 0; i < events; i++) {
+                StreamEvent streamEvent = new StreamEvent(0, 0, 4);
+                streamEvent.setOutputData(new Object[]{symbols[i % symbols.length], 55.6f + i, (long) i, i % 2 == 0});
+                streamEvent.setTimestamp(1500000000000L + i);
+                if (first == null) {
+                    first = streamEvent;
+                } else {
+                    last.setNext(streamEvent);
+                }
+                last = streamEvent;
+            }
+            Map<String, Object> windowState = new HashMap<>();
+            windowState.put("Count", events);
+            windowState.put("ExpiredEventQueue", new SnapshotState(first, false));
+
+            Map<Object, StreamEvent> primaryKeyData = new HashMap<>();
+            TreeMap<Object, Set<StreamEvent>> symbolIndex = new TreeMap<>();
+            for (StreamEvent streamEvent = first; streamEvent != null; streamEvent = streamEvent.getNext()) {
+                StreamEvent tableEvent = new StreamEvent(0, 0, 4);
+                tableEvent.setOutputData(streamEvent.getOutputData().clone());
+                primaryKeyData.put(tableEvent.getOutputData()[2], tableEvent);
+                symbolIndex.computeIfAbsent(tableEvent.getOutputData()[0], k -> new HashSet<>()).add(tableEvent);
+            }
+            Map<String, TreeMap<Object, Set<StreamEvent>>> indexData = new HashMap<>();
+            indexData.put("symbol", symbolIndex);
+            Map<String, Object> tableState = new HashMap<>();
+            tableState.put("EventHolder", new SnapshotState(new IndexEventHolder(primaryKeyData, indexData), false));
+
+            Map<String, Object> queryElements = new HashMap<>();
+            queryElements.put("LengthWindowProcessor-1", windowState);
+            Map<String, Object> tableElements = new HashMap<>();
+            tableElements.put("InMemoryTable-1", tableState);
+            state = new HashMap<>();
+            state.put("query1", queryElements);
+            state.put("StockTable", tableElements);
+
+            snapshot = codec.encode(state);
+        }
+    }
+
+    /**
+     * Reports the size of the encoded snapshot next to the throughput numbers.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SnapshotSize {
+        public long snapshotBytes;
+    }
+}
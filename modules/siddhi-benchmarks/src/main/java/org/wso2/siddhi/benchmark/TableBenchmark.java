@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of joining a stream with an in-memory table, without an index on the join attribute, with
+ * a primary key and with an index, over different table sizes, storing the rows on and off the heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark extends SiddhiAppBenchmark {
+
+    @Param({"none", "primaryKey", "index"})
+    public String index;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"heap", "offheap"})
+    public String store;
+
+    @Override
+    protected String getSiddhiApp(String inputStreamAnnotations) {
+        String tableAnnotations;
+        switch (index) {
+            case "primaryKey":
+                tableAnnotations = "@PrimaryKey('symbol') ";
+                break;
+            case "index":
+                tableAnnotations = "@Index('symbol') ";
+                break;
+            default:
+                tableAnnotations = "";
+        }
+        if ("offheap".equals(store)) {
+            tableAnnotations = "@Store(type='offheap') " + tableAnnotations;
+        }
+        return "" +
+                inputStreamAnnotations +
+                "define stream InputStream (symbol string, price double, volume long); " +
+                "define stream QuoteStream (symbol string, quote double); " +
+                tableAnnotations +
+                "define table QuoteTable (symbol string, quote double); " +
+                "" +
+                "from QuoteStream " +
+                "insert into QuoteTable; " +
+                "" +
+                "from InputStream join QuoteTable " +
+                "    on InputStream.symbol == QuoteTable.symbol " +
+                "select InputStream.symbol, InputStream.price, QuoteTable.quote " +
+                "insert into OutputStream;";
+    }
+
+    @Override
+    protected void init() throws InterruptedException {
+        InputHandler quoteStream = siddhiAppRuntime.getInputHandler("QuoteStream");
+        for (int i = 0; i < rows; i++) {
+            quoteStream.send(new Object[]{"SYMBOL" + i, 55.6 + i});
+        }
+    }
+
+    @Override
+    protected Object[][] createEvents() {
+        Object[][] events = new Object[1000][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Object[]{"SYMBOL" + (i * 7919 % rows), 55.6 + i % 100, (long) i};
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void tableJoin() throws InterruptedException {
+        sendNextBatch();
+    }
+}
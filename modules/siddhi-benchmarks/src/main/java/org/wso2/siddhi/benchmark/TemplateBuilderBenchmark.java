@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.util.transport.TemplateBuilder;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building sink payloads with the compiled {@link TemplateBuilder} against formatting them with
+ * {@link MessageFormat}, which the template builder used before, for a text and a JSON template.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemplateBuilderBenchmark {
+
+    private static final int EVENTS = 1024;
+
+    @Param({"messageFormat", "compiled"})
+    public String implementation;
+
+    @Param({"text", "json"})
+    public String template;
+
+    private boolean useMessageFormat;
+    private MessageFormat messageFormat;
+    private TemplateBuilder templateBuilder;
+    private Event[] events;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StreamDefinition streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.FLOAT)
+                .attribute("volume", Attribute.Type.LONG);
+        switch (template) {
+            case "text":
+                templateBuilder = new TemplateBuilder(streamDefinition,
+                        "Stock {{symbol}} traded {{volume}} at {{price}}");
+                messageFormat = new MessageFormat("Stock {0} traded {2} at {1}");
+                break;
+            case "json":
+                templateBuilder = new TemplateBuilder(streamDefinition,
+                        "{\"symbol\":\"{{symbol}}\", \"price\":{{price}}, \"volume\":{{volume}}}");
+                messageFormat = new MessageFormat("' {' \"symbol\":\"{0}\", \"price\":{1}, \"volume\":{2}' }' ");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown template " + template);
+        }
+        useMessageFormat = implementation.equals("messageFormat");
+        String[] symbols = {"WSO2", "IBM", "ORACLE", "GOOGLE", "MICROSOFT"};
+        events = new Event[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = new Event(i, new Object[]{symbols[i % symbols.length], 55.6f + i, (long) i * 997});
+        }
+    }
+
+    @Benchmark
+    public Object build() {
+        Event event = events[next];
+        next = (next + 1) % EVENTS;
+        if (useMessageFormat) {
+            return messageFormat.format(event.getData());
+        }
+        return templateBuilder.build(event);
+    }
+}
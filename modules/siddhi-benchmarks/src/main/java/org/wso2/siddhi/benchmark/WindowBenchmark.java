@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of group by aggregations over the windows, with different group cardinalities.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowBenchmark extends SiddhiAppBenchmark {
+
+    @Param({"length", "time", "lengthBatch", "timeBatch", "session", "sort"})
+    public String window;
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Override
+    protected String getSiddhiApp(String inputStreamAnnotations) {
+        String windowDefinition;
+        switch (window) {
+            case "length":
+                windowDefinition = "length(1000)";
+                break;
+            case "time":
+                windowDefinition = "time(1 sec)";
+                break;
+            case "lengthBatch":
+                windowDefinition = "lengthBatch(1000)";
+                break;
+            case "timeBatch":
+                windowDefinition = "timeBatch(1 sec)";
+                break;
+            case "session":
+                windowDefinition = "session(1 sec, symbol)";
+                break;
+            case "sort":
+                windowDefinition = "sort(1000, price, 'asc')";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown window '" + window + "'");
+        }
+        return "" +
+                inputStreamAnnotations +
+                "define stream InputStream (symbol string, price double, volume long); " +
+                "" +
+                "from InputStream#window." + windowDefinition + " " +
+                "select symbol, avg(price) as avgPrice, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutputStream;";
+    }
+
+    @Override
+    protected Object[][] createEvents() {
+        Object[][] events = new Object[Math.max(keys, 1000)][];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Object[]{"SYMBOL" + (i % keys), 55.6 + i % 100, (long) i};
+        }
+        return events;
+    }
+
+    @Benchmark
+    public void window() throws InterruptedException {
+        sendNextBatch();
+    }
+}
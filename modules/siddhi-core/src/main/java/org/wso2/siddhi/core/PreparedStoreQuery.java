@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core;
+
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.execution.query.StoreQuery;
+
+/**
+ * Store query prepared by {@link SiddhiAppRuntime#prepareStoreQuery(String)}, which can be executed multiple times
+ * with different values bound to its parameters. Parameters are denoted by '?' in the store query, and they are
+ * bound in the order they appear in the query.
+ * <p>
+ * Prepared store queries are thread safe, and concurrent executions run in parallel.
+ */
+public class PreparedStoreQuery {
+
+    private final SiddhiAppRuntime siddhiAppRuntime;
+    private final StoreQuery storeQuery;
+    private final String storeQueryString;
+
+    PreparedStoreQuery(SiddhiAppRuntime siddhiAppRuntime, StoreQuery storeQuery, String storeQueryString) {
+        this.siddhiAppRuntime = siddhiAppRuntime;
+        this.storeQuery = storeQuery;
+        this.storeQueryString = storeQueryString;
+    }
+
+    /**
+     * Execute the store query with the given parameter values.
+     *
+     * @param parameters values of the parameters, in the order the parameters appear in the store query
+     * @return events returned by the store query
+     */
+    public Event[] execute(Object... parameters) {
+        return siddhiAppRuntime.query(storeQuery, storeQueryString, parameters);
+    }
+
+    public StoreQuery getStoreQuery() {
+        return storeQuery;
+    }
+}
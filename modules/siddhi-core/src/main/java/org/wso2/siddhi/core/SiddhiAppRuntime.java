@@ -31,12 +31,15 @@ import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.core.exception.StoreQueryCreationException;
 import org.wso2.siddhi.core.partition.PartitionRuntime;
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.query.StoreQueryParameters;
+import org.wso2.siddhi.core.query.StoreQueryPlanCache;
 import org.wso2.siddhi.core.query.StoreQueryRuntime;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.output.callback.OutputCallback;
 import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.stream.StreamJunctionLane;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.input.InputManager;
 import org.wso2.siddhi.core.stream.input.source.Source;
@@ -49,17 +52,20 @@ import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.table.record.RecordTableHandler;
 import org.wso2.siddhi.core.table.record.RecordTableHandlerManager;
 import org.wso2.siddhi.core.util.ExceptionUtil;
-import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.StringUtil;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.parser.StoreQueryParser;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
 import org.wso2.siddhi.core.util.snapshot.PersistenceReference;
 import org.wso2.siddhi.core.util.statistics.BufferedEventsTracker;
+import org.wso2.siddhi.core.util.statistics.EventBufferHolder;
+import org.wso2.siddhi.core.util.statistics.LatencyHistogram;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.core.util.statistics.MemoryUsageTracker;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.window.Window;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.AggregationDefinition;
@@ -71,11 +77,13 @@ import org.wso2.siddhi.query.api.exception.SiddhiAppContextException;
 import org.wso2.siddhi.query.api.execution.query.StoreQuery;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +98,8 @@ import java.util.stream.Collectors;
  */
 public class SiddhiAppRuntime {
     private static final Logger log = Logger.getLogger(SiddhiAppRuntime.class);
+    private static final int STORE_QUERY_PLAN_CACHE_SIZE = 50;
+    private static final Object[] NO_PARAMETERS = new Object[0];
     private final Map<String, Window> windowMap;
     private final Map<String, List<Source>> sourceMap;
     private final Map<String, List<Sink>> sinkMap;
@@ -114,8 +124,8 @@ public class SiddhiAppRuntime {
     private Map<String, Table> tableMap = new ConcurrentHashMap<String, Table>(); // Contains event tables.
     private Map<String, PartitionRuntime> partitionMap =
             new ConcurrentHashMap<String, PartitionRuntime>(); // Contains partitions.
-    private LinkedHashMap<StoreQuery, StoreQueryRuntime> storeQueryRuntimeMap =
-            new LinkedHashMap<>(); // Contains partitions.
+    private StoreQueryPlanCache storeQueryPlanCache =
+            new StoreQueryPlanCache(STORE_QUERY_PLAN_CACHE_SIZE); // Contains store query runtimes.
     private SiddhiAppContext siddhiAppContext;
     private Map<String, SiddhiAppRuntime> siddhiAppRuntimeMap;
     private MemoryUsageTracker memoryUsageTracker;
@@ -163,6 +173,8 @@ public class SiddhiAppRuntime {
             monitorBufferedEvents();
             storeQueryLatencyTracker = QueryParserHelper.createLatencyTracker(siddhiAppContext, "query",
                     SiddhiConstants.METRIC_INFIX_STORE_QUERIES, null);
+            siddhiAppContext.getSnapshotService().setPauseLatencyTracker(QueryParserHelper.createLatencyTracker(
+                    siddhiAppContext, "pause", SiddhiConstants.METRIC_INFIX_SNAPSHOTS, null));
         }
 
         for (Map.Entry<String, List<Sink>> sinkEntries : sinkMap.entrySet()) {
@@ -268,37 +280,48 @@ public class SiddhiAppRuntime {
     }
 
     public Event[] query(String storeQuery) {
-        return query(SiddhiCompiler.parseStoreQuery(storeQuery), storeQuery);
+        return query(SiddhiCompiler.parseStoreQuery(storeQuery), storeQuery, NO_PARAMETERS);
     }
 
     public Event[] query(StoreQuery storeQuery) {
-        return query(storeQuery, null);
+        return query(storeQuery, null, NO_PARAMETERS);
     }
 
-    private Event[] query(StoreQuery storeQuery, String storeQueryString) {
+    /**
+     * Prepare a store query, whose parameters denoted by '?' are bound with values each time it is executed, such as
+     * {@code from StockTable on symbol == ? select price}. Executions share the plan of the query as long as the types
+     * of the bound values do not change.
+     *
+     * @param storeQuery store query with parameters
+     * @return the prepared store query
+     */
+    public PreparedStoreQuery prepareStoreQuery(String storeQuery) {
+        return new PreparedStoreQuery(this, SiddhiCompiler.parseStoreQuery(storeQuery), storeQuery);
+    }
+
+    Event[] query(StoreQuery storeQuery, String storeQueryString, Object[] parameters) {
         try {
             if (siddhiAppContext.isStatsEnabled() && storeQueryLatencyTracker != null) {
                 storeQueryLatencyTracker.markIn();
             }
-            StoreQueryRuntime storeQueryRuntime;
-            synchronized (this) {
-                storeQueryRuntime = storeQueryRuntimeMap.remove(storeQuery);
-                if (storeQueryRuntime == null) {
-                    storeQueryRuntime = StoreQueryParser.parse(storeQuery, siddhiAppContext, tableMap, windowMap,
-                            aggregationMap);
-                } else {
+            Attribute.Type[] parameterTypes = StoreQueryParameters.getTypes(parameters);
+            StoreQueryPlanCache.Plan plan = storeQueryPlanCache.getPlan(storeQuery, parameterTypes);
+            StoreQueryRuntime storeQueryRuntime = plan.borrowRuntime();
+            boolean reused = storeQueryRuntime != null;
+            if (!reused) {
+                storeQueryRuntime = StoreQueryParser.parse(storeQuery, parameterTypes, siddhiAppContext, tableMap,
+                        windowMap, aggregationMap);
+            }
+            try {
+                storeQueryRuntime.setParameterValues(parameters);
+                if (reused) {
                     storeQueryRuntime.reset();
                 }
-                storeQueryRuntimeMap.put(storeQuery, storeQueryRuntime);
-                if (storeQueryRuntimeMap.size() > 50) {
-                    Iterator i = storeQueryRuntimeMap.entrySet().iterator();
-                    if (i.hasNext()) {
-                        i.next();
-                        i.remove();
-                    }
-                }
+                return storeQueryRuntime.execute();
+            } finally {
+                storeQueryRuntime.setParameterValues(null);
+                plan.releaseRuntime(storeQueryRuntime);
             }
-            return storeQueryRuntime.execute();
         } catch (RuntimeException e) {
             if (e instanceof SiddhiAppContextException) {
                 throw new StoreQueryCreationException(((SiddhiAppContextException) e).getMessageWithOutContext(), e,
@@ -331,12 +354,13 @@ public class SiddhiAppRuntime {
      */
     private Attribute[] getStoreQueryOutputAttributes(StoreQuery storeQuery, String storeQueryString) {
         try {
-            StoreQueryRuntime storeQueryRuntime = storeQueryRuntimeMap.get(storeQuery);
+            StoreQueryPlanCache.Plan plan = storeQueryPlanCache.getPlan(storeQuery, new Attribute.Type[0]);
+            StoreQueryRuntime storeQueryRuntime = plan.borrowRuntime();
             if (storeQueryRuntime == null) {
-                storeQueryRuntime = StoreQueryParser.parse(storeQuery, siddhiAppContext, tableMap, windowMap,
-                        aggregationMap);
-                storeQueryRuntimeMap.put(storeQuery, storeQueryRuntime);
+                storeQueryRuntime = StoreQueryParser.parse(storeQuery, new Attribute.Type[0], siddhiAppContext,
+                        tableMap, windowMap, aggregationMap);
             }
+            plan.releaseRuntime(storeQueryRuntime);
             return storeQueryRuntime.getStoreQueryOutputAttributes();
         } catch (RuntimeException e) {
             if (e instanceof SiddhiAppContextException) {
@@ -393,6 +417,9 @@ public class SiddhiAppRuntime {
                 }
                 for (List<Sink> sinks : sinkMap.values()) {
                     for (Sink sink : sinks) {
+                        if (sink.getBuffer() != null) {
+                            sink.getBuffer().start();
+                        }
                         sink.connectWithRetry();
                     }
                 }
@@ -402,11 +429,17 @@ public class SiddhiAppRuntime {
                 for (StreamJunction streamJunction : streamJunctionMap.values()) {
                     streamJunction.startProcessing();
                 }
+                for (PartitionRuntime partitionRuntime : partitionMap.values()) {
+                    partitionRuntime.startProcessing();
+                }
                 if (incrementalDataPurging) {
                     for (AggregationRuntime aggregationRuntime : aggregationMap.values()) {
                         aggregationRuntime.startPurging();
                     }
                 }
+                for (PartitionRuntime partitionRuntime : partitionMap.values()) {
+                    partitionRuntime.startPurging();
+                }
                 runningWithoutSources = true;
             } catch (Throwable t) {
                 log.error("Error starting Siddhi App '" + siddhiAppContext.getName() + "', " +
@@ -544,6 +577,9 @@ public class SiddhiAppRuntime {
                 for (StreamJunction streamJunction : streamJunctionMap.values()) {
                     streamJunction.stopProcessing();
                 }
+                for (PartitionRuntime partitionRuntime : partitionMap.values()) {
+                    partitionRuntime.stopProcessing();
+                }
                 try {
                     Thread.sleep(1000);
                 } catch (InterruptedException e) {
@@ -596,8 +632,14 @@ public class SiddhiAppRuntime {
             sourceMap.values().forEach(list -> list.forEach(Source::pause));
             // take snapshots of execution units
             if (siddhiAppContext.getSiddhiContext().getPersistenceStore() != null) {
-                return PersistenceHelper.persist(siddhiAppContext.getSnapshotService().fullSnapshot(),
+                return PersistenceHelper.persist(siddhiAppContext.getSnapshotService().captureFullSnapshot(),
                         siddhiAppContext);
+            } else if (siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore()
+                    instanceof StreamingIncrementalPersistenceStore) {
+                return PersistenceHelper.persistIncrementalState(
+                        siddhiAppContext.getSnapshotService().captureIncrementalSnapshot(),
+                        (StreamingIncrementalPersistenceStore) siddhiAppContext.getSiddhiContext()
+                                .getIncrementalPersistenceStore(), siddhiAppContext);
             } else {
                 return PersistenceHelper.persist(siddhiAppContext.getSnapshotService().incrementalSnapshot(),
                         siddhiAppContext);
@@ -620,6 +662,36 @@ public class SiddhiAppRuntime {
         }
     }
 
+    /**
+     * Take a full snapshot and write it element by element into the given stream.
+     *
+     * @param outputStream stream to write the snapshot to, which is not closed
+     * @throws IOException when writing to the stream fails
+     */
+    public void snapshot(OutputStream outputStream) throws IOException {
+        try {
+            // first, pause all the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::pause));
+            // take snapshots of execution units
+            siddhiAppContext.getSnapshotService().fullSnapshot(outputStream);
+        } finally {
+            // at the end, resume the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::resume));
+        }
+    }
+
+    public void restore(InputStream snapshot) throws CannotRestoreSiddhiAppStateException {
+        try {
+            // first, pause all the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::pause));
+            // start the restoring process
+            siddhiAppContext.getSnapshotService().restore(snapshot);
+        } finally {
+            // at the end, resume the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::resume));
+        }
+    }
+
     public void restore(byte[] snapshot) throws CannotRestoreSiddhiAppStateException {
         try {
             // first, pause all the event sources
@@ -658,6 +730,13 @@ public class SiddhiAppRuntime {
         return revision;
     }
 
+    /**
+     * @return time in nanoseconds the event processing was held to capture the state during the last snapshot
+     */
+    public long getLastSnapshotPauseTime() {
+        return siddhiAppContext.getSnapshotService().getLastPauseTime();
+    }
+
     private void monitorQueryMemoryUsage() {
         memoryUsageTracker = siddhiAppContext
                 .getSiddhiContext()
@@ -692,25 +771,43 @@ public class SiddhiAppRuntime {
                 .getFactory()
                 .createBufferSizeTracker(siddhiAppContext.getStatisticsManager());
         for (Map.Entry<String, StreamJunction> entry : streamJunctionMap.entrySet()) {
-            registerForBufferedEvents(entry);
+            registerForBufferedEvents(entry.getValue(), SiddhiConstants.METRIC_INFIX_STREAMS, entry.getKey());
+            StreamJunctionLane[] lanes = entry.getValue().getLanes();
+            if (lanes != null) {
+                for (int i = 0; i < lanes.length; i++) {
+                    registerForBufferedEvents(lanes[i], SiddhiConstants.METRIC_INFIX_STREAMS, entry.getKey() +
+                            SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_LANES + i);
+                }
+            }
+        }
+        for (Map.Entry<String, List<Sink>> entry : sinkMap.entrySet()) {
+            for (Sink sink : entry.getValue()) {
+                if (sink.getBuffer() != null) {
+                    registerForBufferedEvents(sink.getBuffer(), SiddhiConstants.METRIC_INFIX_SINKS,
+                            entry.getKey() + SiddhiConstants.METRIC_DELIMITER + sink.getType());
+                }
+            }
         }
         for (Map.Entry entry : partitionMap.entrySet()) {
-            ConcurrentMap<String, StreamJunction> streamJunctionMap = ((PartitionRuntime) entry.getValue())
-                    .getLocalStreamJunctionMap();
+            PartitionRuntime partitionRuntime = (PartitionRuntime) entry.getValue();
+            ConcurrentMap<String, StreamJunction> streamJunctionMap = partitionRuntime.getLocalStreamJunctionMap();
             for (Map.Entry<String, StreamJunction> streamJunctionEntry : streamJunctionMap.entrySet()) {
-                registerForBufferedEvents(streamJunctionEntry);
+                registerForBufferedEvents(streamJunctionEntry.getValue(), SiddhiConstants.METRIC_INFIX_STREAMS,
+                        streamJunctionEntry.getKey());
             }
+            registerForBufferedEvents(partitionRuntime, SiddhiConstants.METRIC_INFIX_PARTITIONS,
+                    partitionRuntime.getPartitionId());
         }
     }
 
-    private void registerForBufferedEvents(Map.Entry<String, StreamJunction> entry) {
-        if (entry.getValue().containsBufferedEvents()) {
+    private void registerForBufferedEvents(EventBufferHolder eventBufferHolder, String type, String name) {
+        if (eventBufferHolder.containsBufferedEvents()) {
             String metricName = siddhiAppContext.getSiddhiContext().getStatisticsConfiguration().getMetricPrefix() +
                     SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_SIDDHI_APPS +
                     SiddhiConstants.METRIC_DELIMITER + getName() + SiddhiConstants.METRIC_DELIMITER +
                     SiddhiConstants.METRIC_INFIX_SIDDHI + SiddhiConstants.METRIC_DELIMITER +
-                    SiddhiConstants.METRIC_INFIX_STREAMS + SiddhiConstants.METRIC_DELIMITER +
-                    entry.getKey() + SiddhiConstants.METRIC_DELIMITER + "size";
+                    type + SiddhiConstants.METRIC_DELIMITER +
+                    name + SiddhiConstants.METRIC_DELIMITER + "size";
             boolean matchExist = false;
             for (String regex : siddhiAppContext.getIncludedMetrics()) {
                 if (metricName.matches(regex)) {
@@ -719,7 +816,7 @@ public class SiddhiAppRuntime {
                 }
             }
             if (matchExist) {
-                bufferedEventsTracker.registerEventBufferHolder(entry.getValue(), metricName);
+                bufferedEventsTracker.registerEventBufferHolder(eventBufferHolder, metricName);
             }
         }
     }
@@ -737,6 +834,24 @@ public class SiddhiAppRuntime {
         return siddhiAppContext.isStatsEnabled();
     }
 
+    /**
+     * Latency histograms of the processing stages, such as the queueing of async streams and the filter, window,
+     * join, selector and rate limiter of the queries, recorded when the Siddhi App is annotated with
+     * {@code @app:statistics(latency.breakdown = 'true')}. The latency of a stage excludes the time of the stages
+     * it calls.
+     *
+     * @return latency histograms in nanoseconds by stage names, such as {@code Queries.query1.filter}
+     */
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        Map<String, LatencyHistogram> latencyHistograms = new LinkedHashMap<>();
+        synchronized (siddhiAppContext.getStageLatencyTrackers()) {
+            for (StageLatencyTracker stageLatencyTracker : siddhiAppContext.getStageLatencyTrackers().values()) {
+                latencyHistograms.put(stageLatencyTracker.getName(), stageLatencyTracker.getHistogram());
+            }
+        }
+        return latencyHistograms;
+    }
+
     /**
      * To enable and disable Siddhi App statistics on runtime.
      *
@@ -767,9 +882,7 @@ public class SiddhiAppRuntime {
     public void enablePlayBack(boolean playBackEnabled, Long idleTime, Long incrementInMilliseconds) {
         this.siddhiAppContext.setPlayback(playBackEnabled);
         if (!playBackEnabled) {
-            for (Scheduler scheduler : siddhiAppContext.getSchedulerList()) {
-                scheduler.switchToLiveMode();
-            }
+            siddhiAppContext.getTimingWheel().switchToLiveMode();
         } else {
             if (idleTime != null && incrementInMilliseconds != null) {
                 //Only use if both values are present. Else defaults will be used which got assigned when creating
@@ -778,9 +891,7 @@ public class SiddhiAppRuntime {
                 this.siddhiAppContext.getTimestampGenerator().setIncrementInMilliseconds(incrementInMilliseconds);
             }
 
-            for (Scheduler scheduler : siddhiAppContext.getSchedulerList()) {
-                scheduler.switchToPlayBackMode();
-            }
+            siddhiAppContext.getTimingWheel().switchToPlayBackMode();
         }
     }
 }
@@ -29,6 +29,7 @@ import org.wso2.siddhi.core.util.config.ConfigManager;
 import org.wso2.siddhi.core.util.parser.SiddhiAppParser;
 import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.codec.SnapshotCodec;
 import org.wso2.siddhi.query.api.SiddhiApp;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
@@ -110,6 +111,18 @@ public class SiddhiManager {
         this.siddhiContext.setPersistenceStore(persistenceStore);
     }
 
+    /**
+     * Method to set the codec used to encode the snapshots handed over to the persistence stores.
+     * {@link org.wso2.siddhi.core.util.snapshot.codec.BinarySnapshotCodec} is used by default, and
+     * {@link org.wso2.siddhi.core.util.snapshot.codec.JavaSnapshotCodec} can be set to keep using Java serialization.
+     * Snapshots persisted using Java serialization can be restored irrespective of the codec in use.
+     *
+     * @param snapshotCodec Snapshot Codec implementation to be used.
+     */
+    public void setSnapshotCodec(SnapshotCodec snapshotCodec) {
+        this.siddhiContext.setSnapshotCodec(snapshotCodec);
+    }
+
     /**
      * Method to set sink handler manager that would create sink handlers for each sink
      *
@@ -43,7 +43,7 @@ public class IncrementalDataAggregator {
     private final List<TimePeriod.Duration> incrementalDurations;
     private final TimePeriod.Duration aggregateForDuration;
     private final BaseIncrementalValueStore baseIncrementalValueStore;
-    private final Map<String, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap;
+    private final Map<Object, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap;
 
     public IncrementalDataAggregator(List<TimePeriod.Duration> incrementalDurations,
                                      TimePeriod.Duration aggregateForDuration, long oldestEventTimeStamp,
@@ -65,35 +65,41 @@ public class IncrementalDataAggregator {
             TimePeriod.Duration duration = incrementalDurations.get(i);
             IncrementalExecutor incrementalExecutor = incrementalExecutorMap.get(duration);
 
-            Map<String, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap =
-                    incrementalExecutor.getBaseIncrementalValueStoreGroupByMap();
-            BaseIncrementalValueStore baseIncrementalValueStore = incrementalExecutor.getBaseIncrementalValueStore();
+            synchronized (incrementalExecutor) {
+                List<Map<Object, BaseIncrementalValueStore>> baseIncrementalValueStoreGroupByMaps =
+                        incrementalExecutor.getBaseIncrementalValueStoreGroupByMaps();
+                BaseIncrementalValueStore baseIncrementalValueStore =
+                        incrementalExecutor.getBaseIncrementalValueStore();
 
-            if (baseIncrementalValueStoreGroupByMap != null) {
-                for (Map.Entry<String, BaseIncrementalValueStore> entry :
-                        baseIncrementalValueStoreGroupByMap.entrySet()) {
-                    BaseIncrementalValueStore aBaseIncrementalValueStore = entry.getValue();
-                    if (aBaseIncrementalValueStore.isProcessed()) {
-                        processInMemoryAggregates(aBaseIncrementalValueStore.createStreamEvent(),
-                                aBaseIncrementalValueStore.getTimestamp(), entry.getKey());
+                if (baseIncrementalValueStoreGroupByMaps != null) {
+                    for (Map<Object, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap :
+                            baseIncrementalValueStoreGroupByMaps) {
+                        for (Map.Entry<String, BaseIncrementalValueStore> entry :
+                                baseIncrementalValueStoreGroupByMap.entrySet()) {
+                            BaseIncrementalValueStore aBaseIncrementalValueStore = entry.getValue();
+                            if (aBaseIncrementalValueStore.isProcessed()) {
+                                processInMemoryAggregates(aBaseIncrementalValueStore.createStreamEvent(),
+                                        aBaseIncrementalValueStore.getTimestamp(), entry.getKey());
+                            }
+                        }
                     }
+                } else if (baseIncrementalValueStore.isProcessed()) {
+                    processInMemoryAggregates(baseIncrementalValueStore.createStreamEvent(),
+                            baseIncrementalValueStore.getTimestamp(), null);
                 }
-            } else if (baseIncrementalValueStore.isProcessed()) {
-                processInMemoryAggregates(baseIncrementalValueStore.createStreamEvent(),
-                        baseIncrementalValueStore.getTimestamp(), null);
             }
         }
         return createEventChunkFromAggregatedData();
     }
 
-    private void processInMemoryAggregates(StreamEvent streamEvent, long timestamp, String groupByKey) {
+    private void processInMemoryAggregates(StreamEvent streamEvent, long timestamp, Object groupByKey) {
         long startTimeOfAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(timestamp,
                 aggregateForDuration);
         synchronized (this) {
             if (groupByKey != null) {
                 BaseIncrementalValueStore aBaseIncrementalValueStore =
                         this.baseIncrementalValueStoreGroupByMap.computeIfAbsent(
-                                groupByKey, k -> baseIncrementalValueStore.cloneStore(k, startTimeOfAggregates));
+                                groupByKey, k -> baseIncrementalValueStore.cloneStore(k.toString(), startTimeOfAggregates));
                 process(streamEvent, aBaseIncrementalValueStore);
             } else {
                 process(streamEvent, this.baseIncrementalValueStore);
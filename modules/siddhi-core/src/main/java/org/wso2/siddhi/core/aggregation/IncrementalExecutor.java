@@ -25,6 +25,7 @@ import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.GroupByKeyGenerator;
@@ -35,15 +36,32 @@ import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.query.api.aggregation.TimePeriod;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Incremental executor class which is responsible for performing incremental aggregation.
+ * <p>
+ * The group by state of the executor is split into shards by the hash of the group by key. When there are more than
+ * one shard, the events of a chunk are routed to the shards of their keys, and the shards process them in parallel
+ * before the chunk is completed, hence the events of a key are still processed in arrival order. The aggregates of all
+ * the shards are emitted together when the duration elapses, such that the next executor and the table receive the
+ * same aggregates as without sharding.
+ * <p>
+ * Only the aggregation of the events is done in parallel, and only for chunks of at least
+ * {@value #MIN_EVENTS_TO_PROCESS_IN_PARALLEL} events of the same duration. Constructing the group by keys and creating
+ * the value stores of new keys are done serially on the receiving thread, and smaller chunks, such as the single
+ * events sent via {@code InputHandler.send(Object[])}, are processed serially as well.
  */
 public class IncrementalExecutor implements Executor, Snapshotable {
     private static final Logger LOG = Logger.getLogger(IncrementalExecutor.class);
+    private static final int MIN_EVENTS_TO_PROCESS_IN_PARALLEL = 64;
 
     private final StreamEvent resetEvent;
     private final ExpressionExecutor timestampExpressionExecutor;
@@ -62,13 +80,24 @@ public class IncrementalExecutor implements Executor, Snapshotable {
     private boolean isProcessingExecutor;
 
     private BaseIncrementalValueStore baseIncrementalValueStore = null;
-    private Map<String, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap = null;
+    private Shard[] shards = null;
+    private int shardedEvents = 0;
+    private ExecutorService executorService;
 
     public IncrementalExecutor(TimePeriod.Duration duration, List<ExpressionExecutor> processExpressionExecutors,
                                GroupByKeyGenerator groupByKeyGenerator, MetaStreamEvent metaStreamEvent,
                                IncrementalExecutor child, boolean isRoot, Table table,
                                SiddhiAppContext siddhiAppContext, String aggregatorName,
                                ExpressionExecutor shouldUpdateExpressionExecutor) {
+        this(duration, processExpressionExecutors, groupByKeyGenerator, metaStreamEvent, child, isRoot, table,
+                siddhiAppContext, aggregatorName, shouldUpdateExpressionExecutor, 1);
+    }
+
+    public IncrementalExecutor(TimePeriod.Duration duration, List<ExpressionExecutor> processExpressionExecutors,
+                               GroupByKeyGenerator groupByKeyGenerator, MetaStreamEvent metaStreamEvent,
+                               IncrementalExecutor child, boolean isRoot, Table table,
+                               SiddhiAppContext siddhiAppContext, String aggregatorName,
+                               ExpressionExecutor shouldUpdateExpressionExecutor, int shardCount) {
         this.duration = duration;
         this.next = child;
         this.isRoot = isRoot;
@@ -82,7 +111,11 @@ public class IncrementalExecutor implements Executor, Snapshotable {
         if (groupByKeyGenerator != null) {
             this.isGroupBy = true;
             this.groupByKeyGenerator = groupByKeyGenerator;
-            this.baseIncrementalValueStoreGroupByMap = new HashMap<>();
+            this.shards = new Shard[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new Shard();
+            }
+            this.executorService = siddhiAppContext.getExecutorService();
         } else {
             this.isGroupBy = false;
         }
@@ -105,23 +138,27 @@ public class IncrementalExecutor implements Executor, Snapshotable {
     @Override
     public void execute(ComplexEventChunk streamEventChunk) {
         LOG.debug("Event Chunk received by " + this.duration + " incremental executor: " + streamEventChunk.toString());
-        streamEventChunk.reset();
-        while (streamEventChunk.hasNext()) {
-            StreamEvent streamEvent = (StreamEvent) streamEventChunk.next();
-            streamEventChunk.remove();
+        synchronized (this) {
+            streamEventChunk.reset();
+            while (streamEventChunk.hasNext()) {
+                StreamEvent streamEvent = (StreamEvent) streamEventChunk.next();
+                streamEventChunk.remove();
 
-            long timestamp = getTimestamp(streamEvent);
+                long timestamp = getTimestamp(streamEvent);
 
-            startTimeOfAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(timestamp, duration);
+                startTimeOfAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(timestamp, duration);
 
-            if (timestamp >= nextEmitTime) {
-                nextEmitTime = IncrementalTimeConverterUtil.getNextEmitTime(timestamp, duration, null);
-                dispatchAggregateEvents(startTimeOfAggregates);
-                sendTimerEvent();
-            }
-            if (streamEvent.getType() == ComplexEvent.Type.CURRENT) {
-                processAggregates(streamEvent);
+                if (timestamp >= nextEmitTime) {
+                    processShardedEvents();
+                    nextEmitTime = IncrementalTimeConverterUtil.getNextEmitTime(timestamp, duration, null);
+                    dispatchAggregateEvents(startTimeOfAggregates);
+                    sendTimerEvent();
+                }
+                if (streamEvent.getType() == ComplexEvent.Type.CURRENT) {
+                    processAggregates(streamEvent);
+                }
             }
+            processShardedEvents();
         }
     }
 
@@ -169,12 +206,19 @@ public class IncrementalExecutor implements Executor, Snapshotable {
         synchronized (this) {
             if (isGroupBy) {
                 try {
-                    String groupedByKey = groupByKeyGenerator.constructEventKey(streamEvent);
+                    Object groupedByKey = groupByKeyGenerator.constructEventKey(streamEvent);
+                    Shard shard = shards.length == 1 ? shards[0] :
+                            shards[(groupedByKey.hashCode() & Integer.MAX_VALUE) % shards.length];
                     GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupedByKey);
-                    BaseIncrementalValueStore aBaseIncrementalValueStore = baseIncrementalValueStoreGroupByMap
+                    BaseIncrementalValueStore aBaseIncrementalValueStore = shard.baseIncrementalValueStoreGroupByMap
                             .computeIfAbsent(groupedByKey,
-                                    k -> baseIncrementalValueStore.cloneStore(k, startTimeOfAggregates));
-                    process(streamEvent, aBaseIncrementalValueStore);
+                                    k -> baseIncrementalValueStore.cloneStore(k.toString(), startTimeOfAggregates));
+                    if (shards.length == 1) {
+                        process(streamEvent, aBaseIncrementalValueStore);
+                    } else {
+                        shard.add(streamEvent, groupedByKey, aBaseIncrementalValueStore);
+                        shardedEvents++;
+                    }
                 } finally {
                     GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
                 }
@@ -184,6 +228,50 @@ public class IncrementalExecutor implements Executor, Snapshotable {
         }
     }
 
+    /**
+     * Process the events routed to the shards, in parallel when there are enough events to amortize handing them
+     * over to the other threads. This must be done before the aggregates are dispatched.
+     */
+    private void processShardedEvents() {
+        if (shardedEvents == 0) {
+            return;
+        }
+        if (shardedEvents < MIN_EVENTS_TO_PROCESS_IN_PARALLEL) {
+            for (Shard shard : shards) {
+                shard.run();
+            }
+        } else {
+            List<Future<?>> futures = new ArrayList<>(shards.length);
+            Shard localShard = null;
+            for (Shard shard : shards) {
+                if (!shard.events.isEmpty()) {
+                    if (localShard == null) {
+                        localShard = shard;
+                    } else {
+                        futures.add(executorService.submit(shard));
+                    }
+                }
+            }
+            localShard.run();
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SiddhiAppRuntimeException("Interrupted while processing the events of " + duration +
+                        " incremental executor", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new SiddhiAppRuntimeException("Error when processing the events of " + duration +
+                        " incremental executor", e.getCause());
+            }
+        }
+        shardedEvents = 0;
+    }
+
     private void process(StreamEvent streamEvent, BaseIncrementalValueStore baseIncrementalValueStore) {
         List<ExpressionExecutor> expressionExecutors = baseIncrementalValueStore.getExpressionExecutors();
         boolean shouldUpdate = true;
@@ -209,7 +297,7 @@ public class IncrementalExecutor implements Executor, Snapshotable {
 
     private void dispatchAggregateEvents(long startTimeOfNewAggregates) {
         if (isGroupBy) {
-            dispatchEvents(baseIncrementalValueStoreGroupByMap);
+            dispatchEvents();
         } else {
             dispatchEvent(startTimeOfNewAggregates, baseIncrementalValueStore);
         }
@@ -231,13 +319,19 @@ public class IncrementalExecutor implements Executor, Snapshotable {
         cleanBaseIncrementalValueStore(startTimeOfNewAggregates, aBaseIncrementalValueStore);
     }
 
-    private void dispatchEvents(Map<String, BaseIncrementalValueStore> baseIncrementalValueGroupByStore) {
-        int noOfEvents = baseIncrementalValueGroupByStore.size();
+    private void dispatchEvents() {
+        int noOfEvents = 0;
+        for (Shard shard : shards) {
+            noOfEvents += shard.baseIncrementalValueStoreGroupByMap.size();
+        }
         if (noOfEvents > 0) {
             ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<>(true);
-            for (BaseIncrementalValueStore aBaseIncrementalValueStore : baseIncrementalValueGroupByStore.values()) {
-                StreamEvent streamEvent = aBaseIncrementalValueStore.createStreamEvent();
-                eventChunk.add(streamEvent);
+            for (Shard shard : shards) {
+                for (BaseIncrementalValueStore aBaseIncrementalValueStore :
+                        shard.baseIncrementalValueStoreGroupByMap.values()) {
+                    StreamEvent streamEvent = aBaseIncrementalValueStore.createStreamEvent();
+                    eventChunk.add(streamEvent);
+                }
             }
             LOG.debug("Event dispatched by " + this.duration + " incremental executor: " + eventChunk.toString());
             if (isProcessingExecutor) {
@@ -247,7 +341,9 @@ public class IncrementalExecutor implements Executor, Snapshotable {
                 next.execute(eventChunk);
             }
         }
-        baseIncrementalValueGroupByStore.clear();
+        for (Shard shard : shards) {
+            shard.baseIncrementalValueStoreGroupByMap.clear();
+        }
     }
 
     private void cleanBaseIncrementalValueStore(long startTimeOfNewAggregates,
@@ -261,8 +357,19 @@ public class IncrementalExecutor implements Executor, Snapshotable {
     }
 
 
-    Map<String, BaseIncrementalValueStore> getBaseIncrementalValueStoreGroupByMap() {
-        return baseIncrementalValueStoreGroupByMap;
+    /**
+     * @return the group by stores of each shard, or null if the aggregation is not grouped
+     */
+    List<Map<Object, BaseIncrementalValueStore>> getBaseIncrementalValueStoreGroupByMaps() {
+        if (shards == null) {
+            return null;
+        }
+        List<Map<Object, BaseIncrementalValueStore>> baseIncrementalValueStoreGroupByMaps =
+                new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            baseIncrementalValueStoreGroupByMaps.add(shard.baseIncrementalValueStoreGroupByMap);
+        }
+        return baseIncrementalValueStoreGroupByMaps;
     }
 
     BaseIncrementalValueStore getBaseIncrementalValueStore() {
@@ -291,7 +398,9 @@ public class IncrementalExecutor implements Executor, Snapshotable {
 
     public void clearExecutor() {
         if (isGroupBy) {
-            this.baseIncrementalValueStoreGroupByMap.clear();
+            for (Shard shard : shards) {
+                shard.baseIncrementalValueStoreGroupByMap.clear();
+            }
         } else {
             cleanBaseIncrementalValueStore(-1, this.baseIncrementalValueStore);
         }
@@ -318,4 +427,41 @@ public class IncrementalExecutor implements Executor, Snapshotable {
     public String getElementId() {
         return elementId;
     }
+
+    /**
+     * Group by stores of the keys hashed onto a shard, and the events routed to the shard that are yet to be
+     * processed. The stores are created by the routing thread, hence the shard only updates the stores of its keys.
+     */
+    private class Shard implements Runnable {
+        private final Map<Object, BaseIncrementalValueStore> baseIncrementalValueStoreGroupByMap = new HashMap<>();
+        private final List<StreamEvent> events = new ArrayList<>();
+        private final List<Object> keys = new ArrayList<>();
+        private BaseIncrementalValueStore[] stores = new BaseIncrementalValueStore[16];
+
+        private void add(StreamEvent streamEvent, Object key, BaseIncrementalValueStore store) {
+            int index = events.size();
+            if (index == stores.length) {
+                stores = Arrays.copyOf(stores, index << 1);
+            }
+            events.add(streamEvent);
+            keys.add(key);
+            stores[index] = store;
+        }
+
+        @Override
+        public void run() {
+            int size = events.size();
+            try {
+                for (int i = 0; i < size; i++) {
+                    GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(keys.get(i));
+                    process(events.get(i), stores[i]);
+                }
+            } finally {
+                GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
+                events.clear();
+                keys.clear();
+                Arrays.fill(stores, 0, size, null);
+            }
+        }
+    }
 }
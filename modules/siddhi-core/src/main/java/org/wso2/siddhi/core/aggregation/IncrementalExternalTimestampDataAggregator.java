@@ -38,7 +38,7 @@ public class IncrementalExternalTimestampDataAggregator {
 
     private final GroupByKeyGenerator groupByKeyGenerator;
     private final BaseIncrementalValueStore baseIncrementalValueStore;
-    private final Map<String, BaseIncrementalValueStore> baseIncrementalValueGroupByStore;
+    private final Map<Object, BaseIncrementalValueStore> baseIncrementalValueGroupByStore;
 
     public IncrementalExternalTimestampDataAggregator(List<ExpressionExecutor> baseExecutors,
                                      GroupByKeyGenerator groupByKeyGenerator,
@@ -58,10 +58,10 @@ public class IncrementalExternalTimestampDataAggregator {
 
         while (retrievedData.hasNext()) {
             StreamEvent streamEvent = retrievedData.next();
-            String groupByKey = groupByKeyGenerator.constructEventKey(streamEvent);
+            Object groupByKey = groupByKeyGenerator.constructEventKey(streamEvent);
             BaseIncrementalValueStore baseIncrementalValueStore = baseIncrementalValueGroupByStore
                     .computeIfAbsent(
-                            groupByKey, k -> this.baseIncrementalValueStore.cloneStore(k, -1)
+                            groupByKey, k -> this.baseIncrementalValueStore.cloneStore(k.toString(), -1)
                     );
             process(streamEvent, baseIncrementalValueStore);
         }
@@ -21,16 +21,19 @@ package org.wso2.siddhi.core.config;
 import com.lmax.disruptor.ExceptionHandler;
 import org.wso2.siddhi.core.function.Script;
 import org.wso2.siddhi.core.util.ElementIdGenerator;
-import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.ThreadBarrier;
+import org.wso2.siddhi.core.util.TimingWheel;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotCompactor;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.util.statistics.StatisticsManager;
 import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +50,10 @@ public class SiddhiAppContext {
     private boolean playback;
     private boolean enforceOrder;
     private boolean statsEnabled = false;
+    private boolean compileExpressions;
+    private int restoreParallelism = Runtime.getRuntime().availableProcessors();
+    private boolean lazyRestore;
+    private IncrementalSnapshotCompactor incrementalSnapshotCompactor;
     private StatisticsManager statisticsManager = null;
 
     private ExecutorService executorService;
@@ -56,6 +63,7 @@ public class SiddhiAppContext {
 
     private ThreadBarrier threadBarrier = null;
     private TimestampGenerator timestampGenerator = null;
+    private TimingWheel timingWheel = null;
     private ElementIdGenerator elementIdGenerator;
     private Map<String, Script> scriptFunctionMap;
     private ExceptionHandler<Object> disruptorExceptionHandler;
@@ -63,12 +71,14 @@ public class SiddhiAppContext {
     private String siddhiAppString;
     private List<String> includedMetrics;
     private boolean transportChannelCreationEnabled;
-    private List<Scheduler> schedulerList;
+    private boolean latencyBreakdownEnabled;
+    private int latencySamplingInterval = 1;
+    private Map<String, StageLatencyTracker> stageLatencyTrackers;
 
     public SiddhiAppContext() {
         this.eternalReferencedHolders = Collections.synchronizedList(new LinkedList<>());
+        this.stageLatencyTrackers = Collections.synchronizedMap(new LinkedHashMap<>());
         this.scriptFunctionMap = new HashMap<String, Script>();
-        this.schedulerList = new ArrayList<Scheduler>();
     }
 
     public SiddhiContext getSiddhiContext() {
@@ -111,6 +121,47 @@ public class SiddhiAppContext {
         this.statsEnabled = statsEnabled;
     }
 
+    public boolean isCompileExpressions() {
+        return compileExpressions;
+    }
+
+    public void setCompileExpressions(boolean compileExpressions) {
+        this.compileExpressions = compileExpressions;
+    }
+
+    /**
+     * @return maximum number of threads used to restore the state of the processing elements
+     */
+    public int getRestoreParallelism() {
+        return restoreParallelism;
+    }
+
+    public void setRestoreParallelism(int restoreParallelism) {
+        this.restoreParallelism = restoreParallelism;
+    }
+
+    /**
+     * @return true if the state of partition instances is only restored when their partition key is first seen
+     */
+    public boolean isLazyRestore() {
+        return lazyRestore;
+    }
+
+    public void setLazyRestore(boolean lazyRestore) {
+        this.lazyRestore = lazyRestore;
+    }
+
+    /**
+     * @return compactor of the incremental snapshot chains, or null when the chains are not compacted
+     */
+    public IncrementalSnapshotCompactor getIncrementalSnapshotCompactor() {
+        return incrementalSnapshotCompactor;
+    }
+
+    public void setIncrementalSnapshotCompactor(IncrementalSnapshotCompactor incrementalSnapshotCompactor) {
+        this.incrementalSnapshotCompactor = incrementalSnapshotCompactor;
+    }
+
     public StatisticsManager getStatisticsManager() {
         return statisticsManager;
     }
@@ -159,6 +210,14 @@ public class SiddhiAppContext {
         this.timestampGenerator = timestampGenerator;
     }
 
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+
+    public void setTimingWheel(TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
     public SnapshotService getSnapshotService() {
         return snapshotService;
     }
@@ -231,11 +290,26 @@ public class SiddhiAppContext {
         this.transportChannelCreationEnabled = transportChannelCreationEnabled;
     }
 
-    public void addScheduler(Scheduler scheduler) {
-        this.schedulerList.add(scheduler);
+    public boolean isLatencyBreakdownEnabled() {
+        return latencyBreakdownEnabled;
+    }
+
+    public void setLatencyBreakdownEnabled(boolean latencyBreakdownEnabled) {
+        this.latencyBreakdownEnabled = latencyBreakdownEnabled;
+    }
+
+    public int getLatencySamplingInterval() {
+        return latencySamplingInterval;
+    }
+
+    public void setLatencySamplingInterval(int latencySamplingInterval) {
+        this.latencySamplingInterval = latencySamplingInterval;
     }
 
-    public List<Scheduler> getSchedulerList() {
-        return schedulerList;
+    /**
+     * @return latency trackers of the processing stages, by their names
+     */
+    public Map<String, StageLatencyTracker> getStageLatencyTrackers() {
+        return stageLatencyTrackers;
     }
 }
@@ -31,12 +31,22 @@ public class SelectiveStreamEventConverter implements StreamEventConverter, Seri
 
     private static final long serialVersionUID = 5728843379822962369L;
     private List<ConversionMapping> conversionMappings;       //List to hold information needed for conversion
+    private int[] clearedOnAfterWindowDataPositions;          //Slots not filled from the input data
 
     public SelectiveStreamEventConverter(List<ConversionMapping> conversionMappings) {
+        this(conversionMappings, new int[0]);
+    }
+
+    public SelectiveStreamEventConverter(List<ConversionMapping> conversionMappings,
+                                         int[] clearedOnAfterWindowDataPositions) {
         this.conversionMappings = conversionMappings;
+        this.clearedOnAfterWindowDataPositions = clearedOnAfterWindowDataPositions;
     }
 
     public void convertData(long timestamp, Object[] data, StreamEvent.Type type, StreamEvent borrowedEvent) {
+        for (int position : clearedOnAfterWindowDataPositions) {
+            borrowedEvent.setOnAfterWindowData(null, position);
+        }
         for (ConversionMapping conversionMapping : conversionMappings) {
             int[] position = conversionMapping.getToPosition();
             int fromPosition = conversionMapping.getFromPosition();
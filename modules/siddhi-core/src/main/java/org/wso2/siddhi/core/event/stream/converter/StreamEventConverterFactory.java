@@ -38,7 +38,9 @@ public class StreamEventConverterFactory {
         List<StreamEventConverter.ConversionMapping> conversionMappings = getConversionElements(metaStreamEvent, size);
 
         if (beforeWindowDataSize + onAfterWindowDataSize > 0) {
-            return new SelectiveStreamEventConverter(conversionMappings);
+            return new SelectiveStreamEventConverter(conversionMappings,
+                    getClearedPositions(metaStreamEvent.getOnAfterWindowData(),
+                            metaStreamEvent.getInputDefinitions().get(0)));
         } else {
             if (metaStreamEvent.getLastInputDefinition().getAttributeList().size() == conversionMappings.size()) {
                 Boolean isPassThrough = true;
@@ -55,6 +57,25 @@ public class StreamEventConverterFactory {
         }
     }
 
+    /**
+     * Positions of the attributes that are not filled from the input data, such as the slots of shared
+     * sub-expressions, which should be cleared as the borrowed events may hold the values of earlier events.
+     */
+    private static int[] getClearedPositions(List<Attribute> attributes, AbstractDefinition inputDefinition) {
+        List<Integer> clearedPositions = new ArrayList<Integer>();
+        for (int i = 0; i < attributes.size(); i++) {
+            Attribute attribute = attributes.get(i);
+            if (attribute != null && !inputDefinition.getAttributeList().contains(attribute)) {
+                clearedPositions.add(i);
+            }
+        }
+        int[] positions = new int[clearedPositions.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = clearedPositions.get(i);
+        }
+        return positions;
+    }
+
     private static List<StreamEventConverter.ConversionMapping> getConversionElements(
             MetaStreamEvent metaStreamEvent, int size) {
 
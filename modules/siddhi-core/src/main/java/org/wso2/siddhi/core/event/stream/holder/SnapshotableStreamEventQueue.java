@@ -47,6 +47,7 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     private boolean forceFullSnapshot = true;
     private boolean isOperationLogEnabled = true;
     private int eventIndex = -1;
+    private transient ArrayList<StreamEventIndex> indexes;
 
     public SnapshotableStreamEventQueue(StreamEventClonerHolder eventClonerHolder) {
         this(eventClonerHolder, Integer.MAX_VALUE);
@@ -76,6 +77,13 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
             last.setNext(events);
         }
         last = getLastEvent(events);
+        if (indexes != null) {
+            for (StreamEvent event = events; event != null; event = event.getNext()) {
+                for (StreamEventIndex index : indexes) {
+                    index.add(event);
+                }
+            }
+        }
     }
 
     /**
@@ -96,6 +104,7 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         if (lastReturned == null) {
             throw new IllegalStateException();
         }
+        removeFromIndexes(lastReturned);
         if (previousToLastReturned != null) {
             previousToLastReturned.setNext(lastReturned.getNext());
         } else {
@@ -178,6 +187,11 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         first = null;
         last = null;
         eventIndex = -1;
+        if (indexes != null) {
+            for (StreamEventIndex index : indexes) {
+                index.clear();
+            }
+        }
     }
 
     public void reset() {
@@ -186,10 +200,46 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         eventIndex = -1;
     }
 
+    /**
+     * Get the hash index of the held events on the given attribute, creating it from the held events if it does not
+     * exist. The index is maintained on all the later changes of the queue.
+     *
+     * @param attributePosition position of the attribute in the held stream events
+     * @return the index on the attribute
+     */
+    public StreamEventIndex getIndex(int[] attributePosition) {
+        if (indexes == null) {
+            indexes = new ArrayList<>(1);
+        }
+        for (StreamEventIndex index : indexes) {
+            if (index.isIndexOf(attributePosition)) {
+                return index;
+            }
+        }
+        StreamEventIndex index = new StreamEventIndex(attributePosition);
+        for (StreamEvent event = first; event != null; event = event.getNext()) {
+            index.add(event);
+        }
+        indexes.add(index);
+        return index;
+    }
+
+    private void removeFromIndexes(StreamEvent streamEvent) {
+        if (indexes != null) {
+            for (StreamEventIndex index : indexes) {
+                index.remove(streamEvent);
+            }
+        }
+    }
+
     public StreamEvent getFirst() {
         return first;
     }
 
+    public int getOperationChangeLogThreshold() {
+        return operationChangeLogThreshold;
+    }
+
     public StreamEvent getLast() {
         return last;
     }
@@ -200,6 +250,7 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
             StreamEvent firstEvent = first;
             first = first.getNext();
             firstEvent.setNext(null);
+            removeFromIndexes(firstEvent);
 
             if (!isFullSnapshot()) {
                 if (isOperationLogEnabled) {
@@ -341,6 +392,18 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         this.isOperationLogEnabled = true;
     }
 
+    /**
+     * Apply the increments of the given snapshot state list on its full snapshot, without an active queue.
+     *
+     * @param snapshotStateList snapshot states starting with a full snapshot
+     * @return full snapshot of the resulting queue
+     */
+    public static SnapshotState compact(SnapshotStateList snapshotStateList) {
+        SnapshotableStreamEventQueue snapshotableStreamEventQueue = new SnapshotableStreamEventQueue(null);
+        snapshotableStreamEventQueue.restore(snapshotStateList);
+        return new SnapshotState(snapshotableStreamEventQueue.getFirst(), false);
+    }
+
     private StreamEvent copyEvents(StreamEvent events) {
 
         StreamEvent currentEvent = events;
@@ -357,6 +420,8 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     }
 
     public void overwrite(StreamEvent streamEvent) {
+        // The overwritten event may have been updated in place, hence the indexes are rebuilt on their next use
+        indexes = null;
         if (!isFullSnapshot()) {
             if (isOperationLogEnabled) {
                 operationChangeLog.add(new Operation(Operator.OVERWRITE,
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.event.stream.holder;
+
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.wso2.siddhi.core.util.SiddhiConstants.STREAM_ATTRIBUTE_INDEX_IN_TYPE;
+import static org.wso2.siddhi.core.util.SiddhiConstants.STREAM_ATTRIBUTE_TYPE_INDEX;
+
+/**
+ * Hash index on an attribute of the events held by a {@link SnapshotableStreamEventQueue}, mapping each attribute
+ * value to the events holding it in the order they were added to the queue. Events having null values are not
+ * indexed, as they never match an equality condition.
+ */
+public class StreamEventIndex {
+
+    private final int[] attributePosition;
+    private final Map<Object, ArrayDeque<StreamEvent>> eventMap = new HashMap<>();
+
+    public StreamEventIndex(int[] attributePosition) {
+        this.attributePosition = attributePosition;
+    }
+
+    /**
+     * @param attributePosition position of an attribute in the stream event
+     * @return true if this index is on the given attribute
+     */
+    public boolean isIndexOf(int[] attributePosition) {
+        return this.attributePosition[STREAM_ATTRIBUTE_TYPE_INDEX] == attributePosition[STREAM_ATTRIBUTE_TYPE_INDEX]
+                && this.attributePosition[STREAM_ATTRIBUTE_INDEX_IN_TYPE] ==
+                attributePosition[STREAM_ATTRIBUTE_INDEX_IN_TYPE];
+    }
+
+    /**
+     * @param value attribute value
+     * @return the indexed events having the given attribute value, in the order they were added
+     */
+    public Collection<StreamEvent> find(Object value) {
+        ArrayDeque<StreamEvent> events = eventMap.get(value);
+        if (events == null) {
+            return Collections.emptyList();
+        }
+        return events;
+    }
+
+    void add(StreamEvent streamEvent) {
+        Object value = streamEvent.getAttribute(attributePosition);
+        if (value != null) {
+            eventMap.computeIfAbsent(value, key -> new ArrayDeque<>(1)).addLast(streamEvent);
+        }
+    }
+
+    void remove(StreamEvent streamEvent) {
+        Object value = streamEvent.getAttribute(attributePosition);
+        if (value == null) {
+            return;
+        }
+        ArrayDeque<StreamEvent> events = eventMap.get(value);
+        if (events == null) {
+            return;
+        }
+        // Events are usually removed in the order they were added, hence the matching event is found at the head
+        Iterator<StreamEvent> iterator = events.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == streamEvent) {
+                iterator.remove();
+                break;
+            }
+        }
+        if (events.isEmpty()) {
+            eventMap.remove(value);
+        }
+    }
+
+    void clear() {
+        eventMap.clear();
+    }
+}
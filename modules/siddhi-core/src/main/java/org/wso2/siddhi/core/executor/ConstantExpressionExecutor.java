@@ -24,7 +24,7 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 /**
  * Executor class for Constant Siddhi expressions. Function execution logic is implemented in execute method.
  */
-public class ConstantExpressionExecutor implements ExpressionExecutor {
+public class ConstantExpressionExecutor implements PrimitiveExpressionExecutor {
     private Object value;
     private Attribute.Type type;
 
@@ -42,6 +42,12 @@ public class ConstantExpressionExecutor implements ExpressionExecutor {
         return type;
     }
 
+    @Override
+    public boolean isPrimitiveExecutable() {
+        return value instanceof Number && (type == Attribute.Type.INT || type == Attribute.Type.LONG
+                || type == Attribute.Type.FLOAT || type == Attribute.Type.DOUBLE);
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return this;
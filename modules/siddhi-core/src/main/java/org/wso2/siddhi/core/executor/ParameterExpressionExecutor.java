@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.query.StoreQueryParameters;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Executor class for the parameters of prepared store queries, returning the value bound to the parameter for the
+ * current execution of the store query.
+ */
+public class ParameterExpressionExecutor implements ExpressionExecutor {
+    private final StoreQueryParameters storeQueryParameters;
+    private final int index;
+    private final Attribute.Type type;
+
+    public ParameterExpressionExecutor(StoreQueryParameters storeQueryParameters, int index, Attribute.Type type) {
+        this.storeQueryParameters = storeQueryParameters;
+        this.index = index;
+        this.type = type;
+    }
+
+    @Override
+    public Object execute(ComplexEvent event) {
+        return storeQueryParameters.getValue(index);
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return type;
+    }
+
+    @Override
+    public ExpressionExecutor cloneExecutor(String key) {
+        return this;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
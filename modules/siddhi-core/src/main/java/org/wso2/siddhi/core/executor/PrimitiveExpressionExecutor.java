@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+
+/**
+ * Expression Executors that can produce their numeric results without boxing them.
+ * <p>
+ * Primitive execution is only used when {@link #isPrimitiveExecutable()} is true. As primitive results cannot
+ * represent null, the primitive execute methods set the given {@link NullFlag} instead when the result is null, in
+ * which case the returned value is meaningless. An executor overrides the primitive execute method of its return type
+ * and of the types it widens to, while the default methods unbox the result of {@link #execute(ComplexEvent)}.
+ */
+public interface PrimitiveExpressionExecutor extends ExpressionExecutor {
+
+    /**
+     * Check whether the given executor can be executed via the primitive execute methods.
+     *
+     * @param expressionExecutor expression executor
+     * @return true if primitive execution is supported
+     */
+    static boolean supportsPrimitiveExecution(ExpressionExecutor expressionExecutor) {
+        return expressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) expressionExecutor).isPrimitiveExecutable();
+    }
+
+    /**
+     * @return true if this executor and all its child executors support primitive execution
+     */
+    boolean isPrimitiveExecutable();
+
+    default int executeInt(ComplexEvent event, NullFlag nullFlag) {
+        Object value = execute(event);
+        if (value == null) {
+            nullFlag.set();
+            return 0;
+        }
+        return ((Number) value).intValue();
+    }
+
+    default long executeLong(ComplexEvent event, NullFlag nullFlag) {
+        Object value = execute(event);
+        if (value == null) {
+            nullFlag.set();
+            return 0L;
+        }
+        return ((Number) value).longValue();
+    }
+
+    default float executeFloat(ComplexEvent event, NullFlag nullFlag) {
+        Object value = execute(event);
+        if (value == null) {
+            nullFlag.set();
+            return 0.0f;
+        }
+        return ((Number) value).floatValue();
+    }
+
+    default double executeDouble(ComplexEvent event, NullFlag nullFlag) {
+        Object value = execute(event);
+        if (value == null) {
+            nullFlag.set();
+            return 0.0;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Executor of a sub-expression that repeats within a query. The value of the sub-expression is kept in a slot of the
+ * onAfterWindowData of the {@link StreamEvent}, hence it is only evaluated by the first occurrence executed for an
+ * event, and the other occurrences read it from the slot. All the occurrences of a sub-expression share the same
+ * slot, and the slot is cleared when an event is converted into the query.
+ */
+public class SharedExpressionExecutor implements PrimitiveExpressionExecutor {
+
+    private final ExpressionExecutor expressionExecutor;
+    private int slotPosition;
+
+    public SharedExpressionExecutor(ExpressionExecutor expressionExecutor, int slotPosition) {
+        this.expressionExecutor = expressionExecutor;
+        this.slotPosition = slotPosition;
+    }
+
+    @Override
+    public Object execute(ComplexEvent event) {
+        Object[] data = ((StreamEvent) event).getOnAfterWindowData();
+        Object value = data[slotPosition];
+        if (value == null) {
+            value = expressionExecutor.execute(event);
+            data[slotPosition] = value == null ? NullValue.NULL : value;
+            return value;
+        }
+        return value == NullValue.NULL ? null : value;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return expressionExecutor.getReturnType();
+    }
+
+    @Override
+    public boolean isPrimitiveExecutable() {
+        return PrimitiveExpressionExecutor.supportsPrimitiveExecution(expressionExecutor);
+    }
+
+    @Override
+    public ExpressionExecutor cloneExecutor(String key) {
+        return new SharedExpressionExecutor(expressionExecutor.cloneExecutor(key), slotPosition);
+    }
+
+    public ExpressionExecutor getExpressionExecutor() {
+        return expressionExecutor;
+    }
+
+    public int getSlotPosition() {
+        return slotPosition;
+    }
+
+    public void setSlotPosition(int slotPosition) {
+        this.slotPosition = slotPosition;
+    }
+
+    /**
+     * Marks a slot of a sub-expression that evaluated to null, as an empty slot means the sub-expression is not yet
+     * evaluated for the event.
+     */
+    private enum NullValue {
+        NULL
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor.compiler;
+
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Parent class of the Expression Executors generated by the {@link ExpressionCompiler}. The generated subclass
+ * evaluates the whole expression tree of the source executor in its {@link #execute} method, and uses the executors
+ * of the tree through {@link #executors} for the parts of the expression it does not compile.
+ */
+public abstract class CompiledExpressionExecutor implements ExpressionExecutor {
+
+    /**
+     * Executors of the source expression tree in the order given by {@link ExpressionCompiler#flatten}.
+     */
+    protected final ExpressionExecutor[] executors;
+    private final ExpressionExecutor sourceExecutor;
+
+    protected CompiledExpressionExecutor(ExpressionExecutor sourceExecutor, ExpressionExecutor[] executors) {
+        this.sourceExecutor = sourceExecutor;
+        this.executors = executors;
+    }
+
+    /**
+     * Create an instance of the generated class for another copy of the source expression tree.
+     *
+     * @param sourceExecutor root of the expression tree
+     * @param executors      executors of the tree in the order given by {@link ExpressionCompiler#flatten}
+     * @return the new instance
+     */
+    protected abstract CompiledExpressionExecutor newInstance(ExpressionExecutor sourceExecutor,
+                                                              ExpressionExecutor[] executors);
+
+    /**
+     * @return the interpreted expression tree this executor is compiled from
+     */
+    public ExpressionExecutor getSourceExecutor() {
+        return sourceExecutor;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return sourceExecutor.getReturnType();
+    }
+
+    @Override
+    public ExpressionExecutor cloneExecutor(String key) {
+        ExpressionExecutor clonedSourceExecutor = sourceExecutor.cloneExecutor(key);
+        return newInstance(clonedSourceExecutor, ExpressionCompiler.flatten(clonedSourceExecutor));
+    }
+}
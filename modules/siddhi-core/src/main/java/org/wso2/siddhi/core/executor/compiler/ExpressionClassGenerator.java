@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor.compiler;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.AndConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.BoolConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.IsNullConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.NotConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.OrConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.CompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.equal.EqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.greaterthan.GreaterThanCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.greaterthanequal
+        .GreaterThanEqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.lessthan.LessThanCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.lessthanequal.LessThanEqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.notequal.NotEqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorFloat;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorFloat;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.mod.ModExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.mod.ModExpressionExecutorFloat;
+import org.wso2.siddhi.core.executor.math.mod.ModExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.mod.ModExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.multiply.MultiplyExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.multiply.MultiplyExpressionExecutorFloat;
+import org.wso2.siddhi.core.executor.math.multiply.MultiplyExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.multiply.MultiplyExpressionExecutorLong;
+import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorFloat;
+import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorInt;
+import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorLong;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the {@link CompiledExpressionExecutor} class of an expression tree with ASM.
+ * <p>
+ * Intermediate values are kept in local variables rather than on the operand stack, hence the stack is empty whenever
+ * the generated code jumps, for example when a null operand short-circuits an operation.
+ */
+final class ExpressionClassGenerator implements Opcodes {
+
+    private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+    private static final String CLASS_NAME_PREFIX =
+            Type.getInternalName(CompiledExpressionExecutor.class).replace("CompiledExpressionExecutor",
+                    "GeneratedExpressionExecutor");
+    private static final String SUPER_CLASS = Type.getInternalName(CompiledExpressionExecutor.class);
+    private static final String EXPRESSION_EXECUTOR = Type.getInternalName(ExpressionExecutor.class);
+    private static final String STREAM_EVENT = Type.getInternalName(StreamEvent.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE,
+            Type.getType(ExpressionExecutor.class), Type.getType(ExpressionExecutor[].class));
+    private static final String NEW_INSTANCE_DESCRIPTOR = Type.getMethodDescriptor(
+            Type.getType(CompiledExpressionExecutor.class), Type.getType(ExpressionExecutor.class),
+            Type.getType(ExpressionExecutor[].class));
+    private static final String EXECUTE_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(Object.class),
+            Type.getType(ComplexEvent.class));
+    private static final Map<Class<? extends MathExpressionExecutor>, Integer> MATH_OPCODES = new HashMap<>();
+
+    static {
+        MATH_OPCODES.put(AddExpressionExecutorInt.class, IADD);
+        MATH_OPCODES.put(AddExpressionExecutorLong.class, IADD);
+        MATH_OPCODES.put(AddExpressionExecutorFloat.class, IADD);
+        MATH_OPCODES.put(AddExpressionExecutorDouble.class, IADD);
+        MATH_OPCODES.put(SubtractExpressionExecutorInt.class, ISUB);
+        MATH_OPCODES.put(SubtractExpressionExecutorLong.class, ISUB);
+        MATH_OPCODES.put(SubtractExpressionExecutorFloat.class, ISUB);
+        MATH_OPCODES.put(SubtractExpressionExecutorDouble.class, ISUB);
+        MATH_OPCODES.put(MultiplyExpressionExecutorInt.class, IMUL);
+        MATH_OPCODES.put(MultiplyExpressionExecutorLong.class, IMUL);
+        MATH_OPCODES.put(MultiplyExpressionExecutorFloat.class, IMUL);
+        MATH_OPCODES.put(MultiplyExpressionExecutorDouble.class, IMUL);
+        MATH_OPCODES.put(DivideExpressionExecutorInt.class, IDIV);
+        MATH_OPCODES.put(DivideExpressionExecutorLong.class, IDIV);
+        MATH_OPCODES.put(DivideExpressionExecutorFloat.class, IDIV);
+        MATH_OPCODES.put(DivideExpressionExecutorDouble.class, IDIV);
+        MATH_OPCODES.put(ModExpressionExecutorInt.class, IREM);
+        MATH_OPCODES.put(ModExpressionExecutorLong.class, IREM);
+        MATH_OPCODES.put(ModExpressionExecutorFloat.class, IREM);
+        MATH_OPCODES.put(ModExpressionExecutorDouble.class, IREM);
+    }
+
+    private final ExpressionExecutor sourceExecutor;
+    private final ExpressionExecutor[] executors;
+    private final Map<ExpressionExecutor, Integer> executorIndexes = new IdentityHashMap<>();
+    private MethodVisitor methodVisitor;
+    private int nextLocal;
+
+    ExpressionClassGenerator(ExpressionExecutor sourceExecutor) {
+        this.sourceExecutor = sourceExecutor;
+        this.executors = ExpressionCompiler.flatten(sourceExecutor);
+        for (int i = 0; i < executors.length; i++) {
+            executorIndexes.putIfAbsent(executors[i], i);
+        }
+    }
+
+    CompiledExpressionExecutor generate() {
+        String className = CLASS_NAME_PREFIX + CLASS_COUNTER.incrementAndGet();
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Values of different types never share a local variable, hence loading classes is not needed
+                return "java/lang/Object";
+            }
+        };
+        classWriter.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, SUPER_CLASS, null);
+
+        methodVisitor = classWriter.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(ALOAD, 0);
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitVarInsn(ALOAD, 2);
+        methodVisitor.visitMethodInsn(INVOKESPECIAL, SUPER_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        methodVisitor = classWriter.visitMethod(ACC_PROTECTED, "newInstance", NEW_INSTANCE_DESCRIPTOR, null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitTypeInsn(NEW, className);
+        methodVisitor.visitInsn(DUP);
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitVarInsn(ALOAD, 2);
+        methodVisitor.visitMethodInsn(INVOKESPECIAL, className, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+        methodVisitor.visitInsn(ARETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        methodVisitor = classWriter.visitMethod(ACC_PUBLIC, "execute", EXECUTE_DESCRIPTOR, null, null);
+        methodVisitor.visitCode();
+        nextLocal = 2;
+        emitObject(sourceExecutor);
+        methodVisitor.visitInsn(ARETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        classWriter.visitEnd();
+
+        byte[] classBytes = classWriter.toByteArray();
+        Class<?> generatedClass = new GeneratedClassLoader(CompiledExpressionExecutor.class.getClassLoader())
+                .define(className.replace('/', '.'), classBytes);
+        try {
+            return (CompiledExpressionExecutor) generatedClass
+                    .getConstructor(ExpressionExecutor.class, ExpressionExecutor[].class)
+                    .newInstance(sourceExecutor, executors);
+        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException("Cannot instantiate generated class " + className, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Cannot instantiate generated class " + className, e.getCause());
+        }
+    }
+
+    /**
+     * Emit the code pushing the result of the executor as an object, which can be null.
+     */
+    private void emitObject(ExpressionExecutor executor) {
+        if (executor instanceof VariableExpressionExecutor) {
+            emitVariable((VariableExpressionExecutor) executor);
+        } else if (executor instanceof MathExpressionExecutor) {
+            Label nullLabel = new Label();
+            Label endLabel = new Label();
+            Attribute.Type type = executor.getReturnType();
+            emitPrimitive(executor, type, nullLabel);
+            Type boxType = getBoxType(type);
+            methodVisitor.visitMethodInsn(INVOKESTATIC, boxType.getInternalName(), "valueOf",
+                    Type.getMethodDescriptor(boxType, getPrimitiveType(type)), false);
+            methodVisitor.visitJumpInsn(GOTO, endLabel);
+            methodVisitor.visitLabel(nullLabel);
+            methodVisitor.visitInsn(ACONST_NULL);
+            methodVisitor.visitLabel(endLabel);
+        } else if (ExpressionCompiler.isCompiled(executor)) {
+            Label falseLabel = new Label();
+            Label endLabel = new Label();
+            emitCondition(executor, falseLabel);
+            methodVisitor.visitFieldInsn(GETSTATIC, "java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
+            methodVisitor.visitJumpInsn(GOTO, endLabel);
+            methodVisitor.visitLabel(falseLabel);
+            methodVisitor.visitFieldInsn(GETSTATIC, "java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
+            methodVisitor.visitLabel(endLabel);
+        } else {
+            emitExecute(executor);
+        }
+    }
+
+    /**
+     * Emit the code reading an attribute, directly from the data arrays when the event is a stream event.
+     */
+    private void emitVariable(VariableExpressionExecutor executor) {
+        int[] position = executor.getPosition();
+        int attributeIndex = position[SiddhiConstants.STREAM_ATTRIBUTE_INDEX_IN_TYPE];
+        String dataGetter;
+        switch (position[SiddhiConstants.STREAM_ATTRIBUTE_TYPE_INDEX]) {
+            case SiddhiConstants.BEFORE_WINDOW_DATA_INDEX:
+                dataGetter = "getBeforeWindowData";
+                break;
+            case SiddhiConstants.ON_AFTER_WINDOW_DATA_INDEX:
+                dataGetter = "getOnAfterWindowData";
+                break;
+            case SiddhiConstants.OUTPUT_DATA_INDEX:
+                dataGetter = "getOutputData";
+                break;
+            default:
+                dataGetter = null;
+        }
+        if (dataGetter == null || attributeIndex < 0) {
+            emitExecute(executor);
+            return;
+        }
+        Label complexEventLabel = new Label();
+        Label endLabel = new Label();
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitTypeInsn(INSTANCEOF, STREAM_EVENT);
+        methodVisitor.visitJumpInsn(IFEQ, complexEventLabel);
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitTypeInsn(CHECKCAST, STREAM_EVENT);
+        methodVisitor.visitMethodInsn(INVOKEVIRTUAL, STREAM_EVENT, dataGetter, "()[Ljava/lang/Object;", false);
+        pushInt(attributeIndex);
+        methodVisitor.visitInsn(AALOAD);
+        methodVisitor.visitJumpInsn(GOTO, endLabel);
+        methodVisitor.visitLabel(complexEventLabel);
+        emitExecute(executor);
+        methodVisitor.visitLabel(endLabel);
+    }
+
+    /**
+     * Emit the code calling the execute method of the executor, which is used for the executors that are not
+     * compiled.
+     */
+    private void emitExecute(ExpressionExecutor executor) {
+        methodVisitor.visitVarInsn(ALOAD, 0);
+        methodVisitor.visitFieldInsn(GETFIELD, SUPER_CLASS, "executors", "[L" + EXPRESSION_EXECUTOR + ";");
+        pushInt(executorIndexes.get(executor));
+        methodVisitor.visitInsn(AALOAD);
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitMethodInsn(INVOKEINTERFACE, EXPRESSION_EXECUTOR, "execute", EXECUTE_DESCRIPTOR, true);
+    }
+
+    /**
+     * Emit the code evaluating a condition, which jumps to the false label when the condition is false or null and
+     * falls through otherwise.
+     */
+    private void emitCondition(ExpressionExecutor executor, Label falseLabel) {
+        if (executor instanceof AndConditionExpressionExecutor) {
+            emitCondition(((AndConditionExpressionExecutor) executor).getLeftConditionExecutor(), falseLabel);
+            emitCondition(((AndConditionExpressionExecutor) executor).getRightConditionExecutor(), falseLabel);
+        } else if (executor instanceof OrConditionExpressionExecutor) {
+            Label rightLabel = new Label();
+            Label trueLabel = new Label();
+            emitCondition(((OrConditionExpressionExecutor) executor).getLeftConditionExecutor(), rightLabel);
+            methodVisitor.visitJumpInsn(GOTO, trueLabel);
+            methodVisitor.visitLabel(rightLabel);
+            emitCondition(((OrConditionExpressionExecutor) executor).getRightConditionExecutor(), falseLabel);
+            methodVisitor.visitLabel(trueLabel);
+        } else if (executor instanceof NotConditionExpressionExecutor) {
+            Label trueLabel = new Label();
+            emitCondition(((NotConditionExpressionExecutor) executor).getConditionExecutor(), trueLabel);
+            methodVisitor.visitJumpInsn(GOTO, falseLabel);
+            methodVisitor.visitLabel(trueLabel);
+        } else if (executor instanceof BoolConditionExpressionExecutor) {
+            emitCondition(((BoolConditionExpressionExecutor) executor).getConditionExecutor(), falseLabel);
+        } else if (executor instanceof IsNullConditionExpressionExecutor) {
+            emitObject(((IsNullConditionExpressionExecutor) executor).getExpressionExecutor());
+            methodVisitor.visitJumpInsn(IFNONNULL, falseLabel);
+        } else if (executor instanceof CompareConditionExpressionExecutor && ExpressionCompiler.isCompiled(executor)) {
+            emitCompare((CompareConditionExpressionExecutor) executor, falseLabel);
+        } else if (executor instanceof ConstantExpressionExecutor) {
+            if (!Boolean.TRUE.equals(((ConstantExpressionExecutor) executor).getValue())) {
+                methodVisitor.visitJumpInsn(GOTO, falseLabel);
+            }
+        } else {
+            int result = storeObject(executor);
+            methodVisitor.visitVarInsn(ALOAD, result);
+            methodVisitor.visitJumpInsn(IFNULL, falseLabel);
+            methodVisitor.visitVarInsn(ALOAD, result);
+            methodVisitor.visitTypeInsn(CHECKCAST, "java/lang/Boolean");
+            methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
+            methodVisitor.visitJumpInsn(IFEQ, falseLabel);
+        }
+    }
+
+    private void emitCompare(CompareConditionExpressionExecutor executor, Label falseLabel) {
+        ExpressionExecutor left = executor.getLeftExpressionExecutor();
+        ExpressionExecutor right = executor.getRightExpressionExecutor();
+        Attribute.Type compareType = executor.getNumericCompareType();
+        // Not equal is true when either side is null, while the other comparisons are false
+        Label trueLabel = new Label();
+        Label nullLabel = executor instanceof NotEqualCompareConditionExpressionExecutor ? trueLabel : falseLabel;
+        if (compareType == null) {
+            // String or bool equality
+            int leftResult = storeObject(left);
+            int rightResult = storeObject(right);
+            emitNullCheck(leftResult, rightResult, nullLabel);
+            methodVisitor.visitVarInsn(ALOAD, leftResult);
+            methodVisitor.visitVarInsn(ALOAD, rightResult);
+            methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Object", "equals", "(Ljava/lang/Object;)Z",
+                    false);
+            methodVisitor.visitJumpInsn(executor instanceof EqualCompareConditionExpressionExecutor ? IFEQ : IFNE,
+                    falseLabel);
+            methodVisitor.visitLabel(trueLabel);
+            return;
+        }
+        Type type = getPrimitiveType(compareType);
+        int[] operands = storeOperands(left, right, compareType, nullLabel);
+        methodVisitor.visitVarInsn(type.getOpcode(ILOAD), operands[0]);
+        methodVisitor.visitVarInsn(type.getOpcode(ILOAD), operands[1]);
+        boolean lessThan = executor instanceof LessThanCompareConditionExpressionExecutor ||
+                executor instanceof LessThanEqualCompareConditionExpressionExecutor;
+        if (compareType == Attribute.Type.INT) {
+            methodVisitor.visitJumpInsn(getFalseJumpOpcode(executor) - IFEQ + IF_ICMPEQ, falseLabel);
+            methodVisitor.visitLabel(trueLabel);
+            return;
+        } else if (compareType == Attribute.Type.LONG) {
+            methodVisitor.visitInsn(LCMP);
+        } else if (compareType == Attribute.Type.FLOAT) {
+            // NaN makes all the comparisons false, except not equal
+            methodVisitor.visitInsn(lessThan ? FCMPG : FCMPL);
+        } else {
+            methodVisitor.visitInsn(lessThan ? DCMPG : DCMPL);
+        }
+        methodVisitor.visitJumpInsn(getFalseJumpOpcode(executor), falseLabel);
+        methodVisitor.visitLabel(trueLabel);
+    }
+
+    /**
+     * @return the opcode comparing the result of a compare instruction with zero, which jumps when the compare
+     * condition is false
+     */
+    private int getFalseJumpOpcode(CompareConditionExpressionExecutor executor) {
+        if (executor instanceof EqualCompareConditionExpressionExecutor) {
+            return IFNE;
+        } else if (executor instanceof NotEqualCompareConditionExpressionExecutor) {
+            return IFEQ;
+        } else if (executor instanceof GreaterThanCompareConditionExpressionExecutor) {
+            return IFLE;
+        } else if (executor instanceof GreaterThanEqualCompareConditionExpressionExecutor) {
+            return IFLT;
+        } else if (executor instanceof LessThanCompareConditionExpressionExecutor) {
+            return IFGE;
+        } else if (executor instanceof LessThanEqualCompareConditionExpressionExecutor) {
+            return IFGT;
+        }
+        throw new IllegalStateException("Unsupported compare executor " + executor.getClass().getName());
+    }
+
+    /**
+     * Emit the code pushing the result of the executor as a primitive of the given type, which jumps to the null
+     * label when the result is null.
+     */
+    private void emitPrimitive(ExpressionExecutor executor, Attribute.Type type, Label nullLabel) {
+        if (executor instanceof ConstantExpressionExecutor &&
+                ((ConstantExpressionExecutor) executor).getValue() instanceof Number) {
+            Number value = (Number) ((ConstantExpressionExecutor) executor).getValue();
+            switch (type) {
+                case INT:
+                    pushInt(value.intValue());
+                    break;
+                case LONG:
+                    methodVisitor.visitLdcInsn(value.longValue());
+                    break;
+                case FLOAT:
+                    methodVisitor.visitLdcInsn(value.floatValue());
+                    break;
+                default:
+                    methodVisitor.visitLdcInsn(value.doubleValue());
+            }
+        } else if (executor instanceof MathExpressionExecutor) {
+            MathExpressionExecutor mathExecutor = (MathExpressionExecutor) executor;
+            Attribute.Type operationType = executor.getReturnType();
+            Type operationPrimitiveType = getPrimitiveType(operationType);
+            int opcode = MATH_OPCODES.get(mathExecutor.getClass());
+            int[] operands = storeOperands(mathExecutor.getLeftExpressionExecutor(),
+                    mathExecutor.getRightExpressionExecutor(), operationType, nullLabel);
+            if (opcode == IDIV || opcode == IREM) {
+                // Division by zero results in null
+                methodVisitor.visitVarInsn(operationPrimitiveType.getOpcode(ILOAD), operands[1]);
+                switch (operationType) {
+                    case INT:
+                        break;
+                    case LONG:
+                        methodVisitor.visitInsn(LCONST_0);
+                        methodVisitor.visitInsn(LCMP);
+                        break;
+                    case FLOAT:
+                        methodVisitor.visitInsn(FCONST_0);
+                        methodVisitor.visitInsn(FCMPL);
+                        break;
+                    default:
+                        methodVisitor.visitInsn(DCONST_0);
+                        methodVisitor.visitInsn(DCMPL);
+                }
+                methodVisitor.visitJumpInsn(IFEQ, nullLabel);
+            }
+            methodVisitor.visitVarInsn(operationPrimitiveType.getOpcode(ILOAD), operands[0]);
+            methodVisitor.visitVarInsn(operationPrimitiveType.getOpcode(ILOAD), operands[1]);
+            methodVisitor.visitInsn(operationPrimitiveType.getOpcode(opcode));
+            emitWidening(operationType, type);
+        } else {
+            int result = storeObject(executor);
+            methodVisitor.visitVarInsn(ALOAD, result);
+            methodVisitor.visitJumpInsn(IFNULL, nullLabel);
+            emitUnboxing(result, type);
+        }
+    }
+
+    /**
+     * Evaluate both operands of an operation into local variables as primitives of the given type. Pure operands are
+     * evaluated lazily, while the others are both evaluated before checking for nulls as the interpreted executors
+     * do.
+     *
+     * @return the local variables holding the left and right operands
+     */
+    private int[] storeOperands(ExpressionExecutor left, ExpressionExecutor right, Attribute.Type type,
+                                Label nullLabel) {
+        Type primitiveType = getPrimitiveType(type);
+        int leftOperand;
+        int rightOperand;
+        if (ExpressionCompiler.isPure(left) && ExpressionCompiler.isPure(right)) {
+            emitPrimitive(left, type, nullLabel);
+            leftOperand = newLocal(primitiveType);
+            methodVisitor.visitVarInsn(primitiveType.getOpcode(ISTORE), leftOperand);
+            emitPrimitive(right, type, nullLabel);
+        } else {
+            int leftResult = storeObject(left);
+            int rightResult = storeObject(right);
+            emitNullCheck(leftResult, rightResult, nullLabel);
+            emitUnboxing(leftResult, type);
+            leftOperand = newLocal(primitiveType);
+            methodVisitor.visitVarInsn(primitiveType.getOpcode(ISTORE), leftOperand);
+            emitUnboxing(rightResult, type);
+        }
+        rightOperand = newLocal(primitiveType);
+        methodVisitor.visitVarInsn(primitiveType.getOpcode(ISTORE), rightOperand);
+        return new int[]{leftOperand, rightOperand};
+    }
+
+    private int storeObject(ExpressionExecutor executor) {
+        emitObject(executor);
+        int local = newLocal(Type.getType(Object.class));
+        methodVisitor.visitVarInsn(ASTORE, local);
+        return local;
+    }
+
+    private void emitNullCheck(int leftResult, int rightResult, Label nullLabel) {
+        methodVisitor.visitVarInsn(ALOAD, leftResult);
+        methodVisitor.visitJumpInsn(IFNULL, nullLabel);
+        methodVisitor.visitVarInsn(ALOAD, rightResult);
+        methodVisitor.visitJumpInsn(IFNULL, nullLabel);
+    }
+
+    private void emitUnboxing(int local, Attribute.Type type) {
+        methodVisitor.visitVarInsn(ALOAD, local);
+        methodVisitor.visitTypeInsn(CHECKCAST, "java/lang/Number");
+        methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Number", getPrimitiveType(type).getClassName() +
+                "Value", Type.getMethodDescriptor(getPrimitiveType(type)), false);
+    }
+
+    private void emitWidening(Attribute.Type from, Attribute.Type to) {
+        if (from == to) {
+            return;
+        }
+        if (from == Attribute.Type.INT && to == Attribute.Type.LONG) {
+            methodVisitor.visitInsn(I2L);
+        } else if (from == Attribute.Type.INT && to == Attribute.Type.FLOAT) {
+            methodVisitor.visitInsn(I2F);
+        } else if (from == Attribute.Type.INT && to == Attribute.Type.DOUBLE) {
+            methodVisitor.visitInsn(I2D);
+        } else if (from == Attribute.Type.LONG && to == Attribute.Type.FLOAT) {
+            methodVisitor.visitInsn(L2F);
+        } else if (from == Attribute.Type.LONG && to == Attribute.Type.DOUBLE) {
+            methodVisitor.visitInsn(L2D);
+        } else if (from == Attribute.Type.FLOAT && to == Attribute.Type.DOUBLE) {
+            methodVisitor.visitInsn(F2D);
+        } else {
+            throw new IllegalStateException("Cannot convert " + from + " to " + to);
+        }
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            methodVisitor.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            methodVisitor.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            methodVisitor.visitIntInsn(SIPUSH, value);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    private int newLocal(Type type) {
+        int local = nextLocal;
+        nextLocal += type.getSize();
+        return local;
+    }
+
+    private static Type getPrimitiveType(Attribute.Type type) {
+        switch (type) {
+            case INT:
+                return Type.INT_TYPE;
+            case LONG:
+                return Type.LONG_TYPE;
+            case FLOAT:
+                return Type.FLOAT_TYPE;
+            case DOUBLE:
+                return Type.DOUBLE_TYPE;
+            default:
+                throw new IllegalStateException(type + " is not a numeric type");
+        }
+    }
+
+    private static Type getBoxType(Attribute.Type type) {
+        switch (type) {
+            case INT:
+                return Type.getType(Integer.class);
+            case LONG:
+                return Type.getType(Long.class);
+            case FLOAT:
+                return Type.getType(Float.class);
+            case DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                throw new IllegalStateException(type + " is not a numeric type");
+        }
+    }
+
+    /**
+     * Class loader defining a generated class, which allows the class to be unloaded with its executors.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        private GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String name, byte[] classBytes) {
+            return defineClass(name, classBytes, 0, classBytes.length);
+        }
+    }
+}
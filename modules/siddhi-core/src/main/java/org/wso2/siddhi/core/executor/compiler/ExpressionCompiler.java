@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor.compiler;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.AndConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.BoolConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.IsNullConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.NotConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.OrConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.CompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.equal.EqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.notequal.NotEqualCompareConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles expression executor trees into a single generated {@link CompiledExpressionExecutor} class.
+ * <p>
+ * Conditions, comparisons, math operations, constants and event attributes are compiled into the generated code,
+ * where numeric values are processed as primitives and the attributes of stream events are read from their data
+ * arrays directly. All the other executors, such as functions and aggregators, are called from the generated code as
+ * they are. The generated code evaluates the same sub expressions as the interpreted executors would, hence stateful
+ * executors observe the same sequence of events.
+ */
+public class ExpressionCompiler {
+
+    private static final Logger log = Logger.getLogger(ExpressionCompiler.class);
+    private static volatile boolean compilerAvailable = true;
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compile the given expression tree. As the attribute positions are read by the generated code, this should only
+     * be done after the positions of the variables of the tree are finalized.
+     *
+     * @param expressionExecutor root of the expression tree
+     * @return the compiled executor, or the given executor if the expression has nothing worth compiling or if it
+     * cannot be compiled
+     */
+    public static ExpressionExecutor compile(ExpressionExecutor expressionExecutor) {
+        if (!compilerAvailable || expressionExecutor instanceof CompiledExpressionExecutor ||
+                !isCompiled(expressionExecutor)) {
+            return expressionExecutor;
+        }
+        try {
+            CompiledExpressionExecutor compiledExpressionExecutor =
+                    new ExpressionClassGenerator(expressionExecutor).generate();
+            if (log.isDebugEnabled()) {
+                log.debug("Compiled expression executor " + expressionExecutor + " into " +
+                        compiledExpressionExecutor.getClass().getName());
+            }
+            return compiledExpressionExecutor;
+        } catch (NoClassDefFoundError e) {
+            compilerAvailable = false;
+            log.warn("Expression compilation is disabled as the bytecode generation library is not available, " +
+                    "hence expressions will be interpreted: " + e.getMessage());
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Error when compiling expression executor " + expressionExecutor + ", hence it will be " +
+                    "interpreted", e);
+        }
+        return expressionExecutor;
+    }
+
+    /**
+     * @param expressionExecutor executor to check
+     * @return the interpreted expression tree of the executor if it is a compiled executor, else the executor itself
+     */
+    public static ExpressionExecutor getSourceExecutor(ExpressionExecutor expressionExecutor) {
+        if (expressionExecutor instanceof CompiledExpressionExecutor) {
+            return ((CompiledExpressionExecutor) expressionExecutor).getSourceExecutor();
+        }
+        return expressionExecutor;
+    }
+
+    /**
+     * Collect the executors of an expression tree in pre-order, without descending into the executors that are not
+     * compiled. The generated code refers to the executors by their index in this order.
+     *
+     * @param expressionExecutor root of the expression tree
+     * @return the executors of the tree
+     */
+    static ExpressionExecutor[] flatten(ExpressionExecutor expressionExecutor) {
+        List<ExpressionExecutor> executors = new ArrayList<>();
+        flatten(expressionExecutor, executors);
+        return executors.toArray(new ExpressionExecutor[executors.size()]);
+    }
+
+    private static void flatten(ExpressionExecutor expressionExecutor, List<ExpressionExecutor> executors) {
+        executors.add(expressionExecutor);
+        for (ExpressionExecutor operand : getOperands(expressionExecutor)) {
+            flatten(operand, executors);
+        }
+    }
+
+    /**
+     * @param expressionExecutor executor to check
+     * @return true if the logic of the executor itself is compiled into the generated code, rather than the
+     * generated code calling the executor
+     */
+    static boolean isCompiled(ExpressionExecutor expressionExecutor) {
+        if (expressionExecutor instanceof AndConditionExpressionExecutor ||
+                expressionExecutor instanceof OrConditionExpressionExecutor ||
+                expressionExecutor instanceof NotConditionExpressionExecutor ||
+                expressionExecutor instanceof BoolConditionExpressionExecutor ||
+                expressionExecutor instanceof IsNullConditionExpressionExecutor ||
+                expressionExecutor instanceof MathExpressionExecutor) {
+            return true;
+        } else if (expressionExecutor instanceof CompareConditionExpressionExecutor) {
+            CompareConditionExpressionExecutor compareExecutor =
+                    (CompareConditionExpressionExecutor) expressionExecutor;
+            if (compareExecutor.getNumericCompareType() != null) {
+                return true;
+            }
+            Attribute.Type leftType = compareExecutor.getLeftExpressionExecutor().getReturnType();
+            Attribute.Type rightType = compareExecutor.getRightExpressionExecutor().getReturnType();
+            return (compareExecutor instanceof EqualCompareConditionExpressionExecutor ||
+                    compareExecutor instanceof NotEqualCompareConditionExpressionExecutor) &&
+                    leftType == rightType && (leftType == Attribute.Type.STRING || leftType == Attribute.Type.BOOL);
+        }
+        return false;
+    }
+
+    /**
+     * @param expressionExecutor executor to check
+     * @return true if evaluating the expression has no side effects, hence it can be skipped or evaluated partially
+     */
+    static boolean isPure(ExpressionExecutor expressionExecutor) {
+        if (expressionExecutor instanceof VariableExpressionExecutor ||
+                expressionExecutor instanceof ConstantExpressionExecutor) {
+            return true;
+        } else if (isCompiled(expressionExecutor)) {
+            for (ExpressionExecutor operand : getOperands(expressionExecutor)) {
+                if (!isPure(operand)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param expressionExecutor executor
+     * @return the operands of the executor if it is compiled, else an empty array
+     */
+    static ExpressionExecutor[] getOperands(ExpressionExecutor expressionExecutor) {
+        if (!isCompiled(expressionExecutor)) {
+            return new ExpressionExecutor[0];
+        } else if (expressionExecutor instanceof AndConditionExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((AndConditionExpressionExecutor) expressionExecutor).getLeftConditionExecutor(),
+                    ((AndConditionExpressionExecutor) expressionExecutor).getRightConditionExecutor()};
+        } else if (expressionExecutor instanceof OrConditionExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((OrConditionExpressionExecutor) expressionExecutor).getLeftConditionExecutor(),
+                    ((OrConditionExpressionExecutor) expressionExecutor).getRightConditionExecutor()};
+        } else if (expressionExecutor instanceof NotConditionExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((NotConditionExpressionExecutor) expressionExecutor).getConditionExecutor()};
+        } else if (expressionExecutor instanceof BoolConditionExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((BoolConditionExpressionExecutor) expressionExecutor).getConditionExecutor()};
+        } else if (expressionExecutor instanceof IsNullConditionExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((IsNullConditionExpressionExecutor) expressionExecutor).getExpressionExecutor()};
+        } else if (expressionExecutor instanceof MathExpressionExecutor) {
+            return new ExpressionExecutor[]{
+                    ((MathExpressionExecutor) expressionExecutor).getLeftExpressionExecutor(),
+                    ((MathExpressionExecutor) expressionExecutor).getRightExpressionExecutor()};
+        } else {
+            return new ExpressionExecutor[]{
+                    ((CompareConditionExpressionExecutor) expressionExecutor).getLeftExpressionExecutor(),
+                    ((CompareConditionExpressionExecutor) expressionExecutor).getRightExpressionExecutor()};
+        }
+    }
+}
@@ -74,6 +74,14 @@ public class AndConditionExpressionExecutor extends ConditionExpressionExecutor
         return Boolean.FALSE;
     }
 
+    public ExpressionExecutor getLeftConditionExecutor() {
+        return leftConditionExecutor;
+    }
+
+    public ExpressionExecutor getRightConditionExecutor() {
+        return rightConditionExecutor;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new AndConditionExpressionExecutor(leftConditionExecutor.cloneExecutor(key), rightConditionExecutor
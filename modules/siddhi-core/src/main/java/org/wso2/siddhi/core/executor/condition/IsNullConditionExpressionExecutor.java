@@ -41,6 +41,10 @@ public class IsNullConditionExpressionExecutor extends ConditionExpressionExecut
         }
     }
 
+    public ExpressionExecutor getExpressionExecutor() {
+        return expressionExecutor;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new IsNullConditionExpressionExecutor(expressionExecutor.cloneExecutor(key));
@@ -49,6 +49,10 @@ public class NotConditionExpressionExecutor extends ConditionExpressionExecutor
         }
     }
 
+    public ExpressionExecutor getConditionExecutor() {
+        return conditionExecutor;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new NotConditionExpressionExecutor(conditionExecutor.cloneExecutor(key));
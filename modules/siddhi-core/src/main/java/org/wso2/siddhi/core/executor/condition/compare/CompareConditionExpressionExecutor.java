@@ -19,29 +19,140 @@ package org.wso2.siddhi.core.executor.condition.compare;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.NullFlag;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.ConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Parent Executor class for Compare conditions. common evaluation logic is implemented within executor.
+ * <p>
+ * When both sides are {@link PrimitiveExpressionExecutor}s, the values are compared as primitives of the type both
+ * sides are promoted to, without boxing the results of the child executors.
  */
 public abstract class CompareConditionExpressionExecutor extends ConditionExpressionExecutor {
 
     protected ExpressionExecutor leftExpressionExecutor;
     protected ExpressionExecutor rightExpressionExecutor;
+    private PrimitiveExpressionExecutor leftPrimitiveExecutor;
+    private PrimitiveExpressionExecutor rightPrimitiveExecutor;
+    private Attribute.Type primitiveCompareType;
+    private final NullFlag nullFlag = new NullFlag();
 
     public CompareConditionExpressionExecutor(ExpressionExecutor leftExpressionExecutor,
                                               ExpressionExecutor rightExpressionExecutor) {
         this.leftExpressionExecutor = leftExpressionExecutor;
         this.rightExpressionExecutor = rightExpressionExecutor;
+        if (PrimitiveExpressionExecutor.supportsPrimitiveExecution(leftExpressionExecutor)
+                && PrimitiveExpressionExecutor.supportsPrimitiveExecution(rightExpressionExecutor)) {
+            this.leftPrimitiveExecutor = (PrimitiveExpressionExecutor) leftExpressionExecutor;
+            this.rightPrimitiveExecutor = (PrimitiveExpressionExecutor) rightExpressionExecutor;
+            this.primitiveCompareType = getPrimitiveCompareType(leftExpressionExecutor.getReturnType(),
+                    rightExpressionExecutor.getReturnType());
+        }
     }
 
 
     public Boolean execute(ComplexEvent event) {
+        if (primitiveCompareType != null) {
+            return executePrimitive(event);
+        }
         Object left = leftExpressionExecutor.execute(event);
         Object right = rightExpressionExecutor.execute(event);
-        return !(left == null || right == null) && execute(left, right);
+        if (left == null || right == null) {
+            return getNullCompareResult();
+        }
+        return execute(left, right);
+    }
+
+    /**
+     * Compare both sides as primitives of the type they are promoted to.
+     *
+     * @param event event to be executed
+     * @return result of the compare, or the null compare result when either side is null
+     */
+    private boolean executePrimitive(ComplexEvent event) {
+        nullFlag.clear();
+        boolean result;
+        switch (primitiveCompareType) {
+            case INT:
+                result = execute(leftPrimitiveExecutor.executeInt(event, nullFlag),
+                        rightPrimitiveExecutor.executeInt(event, nullFlag));
+                break;
+            case LONG:
+                result = execute(leftPrimitiveExecutor.executeLong(event, nullFlag),
+                        rightPrimitiveExecutor.executeLong(event, nullFlag));
+                break;
+            case FLOAT:
+                result = execute(leftPrimitiveExecutor.executeFloat(event, nullFlag),
+                        rightPrimitiveExecutor.executeFloat(event, nullFlag));
+                break;
+            default:
+                result = execute(leftPrimitiveExecutor.executeDouble(event, nullFlag),
+                        rightPrimitiveExecutor.executeDouble(event, nullFlag));
+        }
+        return nullFlag.isSet() ? getNullCompareResult() : result;
     }
 
     protected abstract Boolean execute(Object left, Object right);
 
+    public ExpressionExecutor getLeftExpressionExecutor() {
+        return leftExpressionExecutor;
+    }
+
+    public ExpressionExecutor getRightExpressionExecutor() {
+        return rightExpressionExecutor;
+    }
+
+    /**
+     * @return the type both sides are converted to when they are compared as numbers, or null if the compare is not
+     * a numeric compare
+     */
+    public Attribute.Type getNumericCompareType() {
+        if (isNumeric(leftExpressionExecutor.getReturnType())
+                && isNumeric(rightExpressionExecutor.getReturnType())) {
+            return getPrimitiveCompareType(leftExpressionExecutor.getReturnType(),
+                    rightExpressionExecutor.getReturnType());
+        }
+        return null;
+    }
+
+    private static boolean isNumeric(Attribute.Type type) {
+        return type == Attribute.Type.INT || type == Attribute.Type.LONG || type == Attribute.Type.FLOAT
+                || type == Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * @return result of the compare operation when either side is null
+     */
+    protected boolean getNullCompareResult() {
+        return false;
+    }
+
+    /**
+     * Type both sides are converted to before comparing them as primitives, following Java numeric promotion.
+     *
+     * @param leftType  return type of the left executor
+     * @param rightType return type of the right executor
+     * @return the type to compare with
+     */
+    protected Attribute.Type getPrimitiveCompareType(Attribute.Type leftType, Attribute.Type rightType) {
+        if (leftType == Attribute.Type.DOUBLE || rightType == Attribute.Type.DOUBLE) {
+            return Attribute.Type.DOUBLE;
+        } else if (leftType == Attribute.Type.FLOAT || rightType == Attribute.Type.FLOAT) {
+            return Attribute.Type.FLOAT;
+        } else if (leftType == Attribute.Type.LONG || rightType == Attribute.Type.LONG) {
+            return Attribute.Type.LONG;
+        }
+        return Attribute.Type.INT;
+    }
+
+    protected abstract boolean execute(int left, int right);
+
+    protected abstract boolean execute(long left, long right);
+
+    protected abstract boolean execute(float left, float right);
+
+    protected abstract boolean execute(double left, double right);
+
 }
@@ -19,6 +19,7 @@ package org.wso2.siddhi.core.executor.condition.compare.equal;
 
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.compare.CompareConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Parent Executor class for Equal condition. Data type specific sub classes will extend this.
@@ -29,4 +30,33 @@ public abstract class EqualCompareConditionExpressionExecutor extends CompareCon
                                                    ExpressionExecutor rightExpressionExecutor) {
         super(leftExpressionExecutor, rightExpressionExecutor);
     }
+
+    @Override
+    protected Attribute.Type getPrimitiveCompareType(Attribute.Type leftType, Attribute.Type rightType) {
+        if ((leftType == Attribute.Type.FLOAT && rightType == Attribute.Type.LONG)
+                || (leftType == Attribute.Type.LONG && rightType == Attribute.Type.FLOAT)) {
+            return Attribute.Type.DOUBLE;
+        }
+        return super.getPrimitiveCompareType(leftType, rightType);
+    }
+
+    @Override
+    protected boolean execute(int left, int right) {
+        return left == right;
+    }
+
+    @Override
+    protected boolean execute(long left, long right) {
+        return left == right;
+    }
+
+    @Override
+    protected boolean execute(float left, float right) {
+        return left == right;
+    }
+
+    @Override
+    protected boolean execute(double left, double right) {
+        return left == right;
+    }
 }
@@ -29,4 +29,24 @@ public abstract class LessThanEqualCompareConditionExpressionExecutor extends Co
                                                            ExpressionExecutor rightExpressionExecutor) {
         super(leftExpressionExecutor, rightExpressionExecutor);
     }
+
+    @Override
+    protected boolean execute(int left, int right) {
+        return left <= right;
+    }
+
+    @Override
+    protected boolean execute(long left, long right) {
+        return left <= right;
+    }
+
+    @Override
+    protected boolean execute(float left, float right) {
+        return left <= right;
+    }
+
+    @Override
+    protected boolean execute(double left, double right) {
+        return left <= right;
+    }
 }
@@ -17,9 +17,9 @@
  */
 package org.wso2.siddhi.core.executor.condition.compare.notequal;
 
-import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.compare.CompareConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Parent Executor class for Not Equal condition. Data type specific sub classes will extend this.
@@ -31,9 +31,37 @@ public abstract class NotEqualCompareConditionExpressionExecutor extends Compare
         super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
-    public Boolean execute(ComplexEvent event) {
-        Object left = leftExpressionExecutor.execute(event);
-        Object right = rightExpressionExecutor.execute(event);
-        return left == null || right == null || execute(left, right);
+    @Override
+    protected boolean getNullCompareResult() {
+        return true;
+    }
+
+    @Override
+    protected Attribute.Type getPrimitiveCompareType(Attribute.Type leftType, Attribute.Type rightType) {
+        if ((leftType == Attribute.Type.FLOAT && rightType == Attribute.Type.LONG)
+                || (leftType == Attribute.Type.LONG && rightType == Attribute.Type.FLOAT)) {
+            return Attribute.Type.DOUBLE;
+        }
+        return super.getPrimitiveCompareType(leftType, rightType);
+    }
+
+    @Override
+    protected boolean execute(int left, int right) {
+        return left != right;
+    }
+
+    @Override
+    protected boolean execute(long left, long right) {
+        return left != right;
+    }
+
+    @Override
+    protected boolean execute(float left, float right) {
+        return left != right;
+    }
+
+    @Override
+    protected boolean execute(double left, double right) {
+        return left != right;
     }
 }
@@ -19,19 +19,25 @@ package org.wso2.siddhi.core.executor.math.add;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.NullFlag;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Integer Add function. Function execution logic is implemented in execute here.
  */
-public class AddExpressionExecutorInt implements ExpressionExecutor {
+public class AddExpressionExecutorInt implements MathExpressionExecutor {
     private ExpressionExecutor leftExpressionExecutor;
     private ExpressionExecutor rightExpressionExecutor;
+    private boolean primitiveExecutable;
 
     public AddExpressionExecutorInt(ExpressionExecutor leftExpressionExecutor,
                                     ExpressionExecutor rightExpressionExecutor) {
         this.leftExpressionExecutor = leftExpressionExecutor;
         this.rightExpressionExecutor = rightExpressionExecutor;
+        this.primitiveExecutable = PrimitiveExpressionExecutor.supportsPrimitiveExecution(leftExpressionExecutor)
+                && PrimitiveExpressionExecutor.supportsPrimitiveExecution(rightExpressionExecutor);
     }
 
     @Override
@@ -49,6 +55,42 @@ public class AddExpressionExecutorInt implements ExpressionExecutor {
         return Attribute.Type.INT;
     }
 
+    @Override
+    public boolean isPrimitiveExecutable() {
+        return primitiveExecutable;
+    }
+
+    @Override
+    public int executeInt(ComplexEvent event, NullFlag nullFlag) {
+        return ((PrimitiveExpressionExecutor) leftExpressionExecutor).executeInt(event, nullFlag) +
+                ((PrimitiveExpressionExecutor) rightExpressionExecutor).executeInt(event, nullFlag);
+    }
+
+    @Override
+    public long executeLong(ComplexEvent event, NullFlag nullFlag) {
+        return executeInt(event, nullFlag);
+    }
+
+    @Override
+    public float executeFloat(ComplexEvent event, NullFlag nullFlag) {
+        return executeInt(event, nullFlag);
+    }
+
+    @Override
+    public double executeDouble(ComplexEvent event, NullFlag nullFlag) {
+        return executeInt(event, nullFlag);
+    }
+
+    @Override
+    public ExpressionExecutor getLeftExpressionExecutor() {
+        return leftExpressionExecutor;
+    }
+
+    @Override
+    public ExpressionExecutor getRightExpressionExecutor() {
+        return rightExpressionExecutor;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new AddExpressionExecutorInt(leftExpressionExecutor.cloneExecutor(key), rightExpressionExecutor
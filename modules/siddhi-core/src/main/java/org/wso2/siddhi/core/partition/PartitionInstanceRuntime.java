@@ -18,8 +18,12 @@
 package org.wso2.siddhi.core.partition;
 
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class to represent each partition key instance. These will be created dynamically and will contain
@@ -28,6 +32,11 @@ import java.util.List;
 public class PartitionInstanceRuntime {
     private String key;
     private List<QueryRuntime> queryRuntimeList;
+    private Map<String, List<Snapshotable>> snapshotables;
+    private volatile long lastAccessTimestamp;
+    private final CountDownLatch connected = new CountDownLatch(1);
+    // Number of threads sending events into the instance, or -1 once the instance is being purged
+    private final AtomicInteger activeSenders = new AtomicInteger();
 
     public PartitionInstanceRuntime(String key, List<QueryRuntime> queryRuntimeList) {
         this.key = key;
@@ -42,6 +51,84 @@ public class PartitionInstanceRuntime {
         return key;
     }
 
-}
+    /**
+     * @return the snapshotable elements registered when creating this partition instance, grouped by query name
+     */
+    public Map<String, List<Snapshotable>> getSnapshotables() {
+        return snapshotables;
+    }
+
+    public void setSnapshotables(Map<String, List<Snapshotable>> snapshotables) {
+        this.snapshotables = snapshotables;
+    }
+
+    public long getLastAccessTimestamp() {
+        return lastAccessTimestamp;
+    }
 
+    public void setLastAccessTimestamp(long lastAccessTimestamp) {
+        this.lastAccessTimestamp = lastAccessTimestamp;
+    }
 
+    /**
+     * Mark the instance as connected to the stream junctions of its partition key, releasing the threads waiting
+     * in {@link #awaitConnected()}.
+     */
+    public void setConnected() {
+        connected.countDown();
+    }
+
+    /**
+     * Wait until the thread that added this instance connects it to the stream junctions of its partition key.
+     */
+    public void awaitConnected() {
+        boolean interrupted = false;
+        while (connected.getCount() > 0) {
+            try {
+                connected.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hold the instance from being purged while sending events into it.
+     *
+     * @return false if the instance is being purged, hence events can no longer be sent into it
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int senders = activeSenders.get();
+            if (senders < 0) {
+                return false;
+            }
+            if (activeSenders.compareAndSet(senders, senders + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        activeSenders.decrementAndGet();
+    }
+
+    /**
+     * Mark the instance as being purged, if no thread is sending events into it.
+     *
+     * @return true if the instance is marked, such that it can no longer be acquired
+     */
+    public boolean tryPurge() {
+        return activeSenders.compareAndSet(0, -1);
+    }
+
+    /**
+     * Revert {@link #tryPurge()}, when the instance turns out to be accessed in between.
+     */
+    public void cancelPurge() {
+        activeSenders.set(0);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.partition;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Worker lane of a {@link PartitionRuntime}. Each partition key is always routed to the same lane by all the
+ * {@link PartitionStreamReceiver}s of the partition, and a lane processes its events on a single thread in the order
+ * they were routed, hence events of a key are processed in order across the streams of the partition, and a partition
+ * instance is never processed by two lanes at once, while different keys are processed in parallel. The ring buffer
+ * slots of the lane act as its own event pool.
+ */
+public class PartitionLane {
+
+    private static final Logger log = Logger.getLogger(PartitionLane.class);
+    private final SiddhiAppContext siddhiAppContext;
+    private final int bufferSize;
+    private final int laneIndex;
+    private Disruptor<LaneEvent> disruptor;
+    private volatile RingBuffer<LaneEvent> ringBuffer;
+
+    public PartitionLane(SiddhiAppContext siddhiAppContext, int bufferSize, int laneIndex) {
+        this.siddhiAppContext = siddhiAppContext;
+        this.bufferSize = bufferSize;
+        this.laneIndex = laneIndex;
+    }
+
+    public synchronized void startProcessing() {
+        if (disruptor == null) {
+            disruptor = new Disruptor<LaneEvent>(LaneEvent::new, bufferSize, siddhiAppContext.getExecutorService(),
+                    ProducerType.MULTI, new BlockingWaitStrategy());
+            disruptor.handleExceptionsWith(siddhiAppContext.getDisruptorExceptionHandler());
+            disruptor.handleEventsWith(new LaneHandler());
+            ringBuffer = disruptor.start();
+        }
+    }
+
+    public synchronized void stopProcessing() {
+        if (disruptor != null) {
+            ringBuffer = null;
+            disruptor.shutdown();
+            disruptor = null;
+        }
+    }
+
+    /**
+     * Route an event of the given partition key to the lane. When the lane is not running, the event is sent into the
+     * partition on the calling thread.
+     *
+     * @param partitionStreamReceiver receiver of the stream the event belongs to
+     * @param key                     partition key, or null to send the event to all the keys of the lane
+     * @param streamEvent             event to be routed, which is copied into the lane
+     */
+    public void send(PartitionStreamReceiver partitionStreamReceiver, String key, StreamEvent streamEvent) {
+        RingBuffer<LaneEvent> currentRingBuffer = ringBuffer;
+        long sequenceId = currentRingBuffer != null ? next(currentRingBuffer) : -1;
+        if (sequenceId < 0) {
+            partitionStreamReceiver.sendInLane(key, streamEvent, laneIndex);
+            return;
+        }
+        try {
+            LaneEvent laneEvent = currentRingBuffer.get(sequenceId);
+            // The slot keeps a copy of each stream's events, as the streams of the partition differ in their layout
+            int receiverIndex = partitionStreamReceiver.getReceiverIndex();
+            if (receiverIndex >= laneEvent.streamEvents.length) {
+                laneEvent.streamEvents = Arrays.copyOf(laneEvent.streamEvents, receiverIndex + 1);
+            }
+            StreamEvent laneStreamEvent = laneEvent.streamEvents[receiverIndex];
+            if (laneStreamEvent == null) {
+                laneStreamEvent = partitionStreamReceiver.newRoutingEvent();
+                laneEvent.streamEvents[receiverIndex] = laneStreamEvent;
+            }
+            partitionStreamReceiver.copyRoutingEvent(streamEvent, laneStreamEvent);
+            laneEvent.partitionStreamReceiver = partitionStreamReceiver;
+            laneEvent.key = key;
+            laneEvent.streamEvent = laneStreamEvent;
+        } finally {
+            currentRingBuffer.publish(sequenceId);
+        }
+    }
+
+    /**
+     * Claim the next slot of the ring buffer, waiting while it is full unless the lane is stopped in between, as a
+     * stopped lane no longer frees its slots.
+     *
+     * @param currentRingBuffer ring buffer of the running lane
+     * @return sequence of the claimed slot, or -1 if the lane is stopped
+     */
+    private long next(RingBuffer<LaneEvent> currentRingBuffer) {
+        while (true) {
+            try {
+                return currentRingBuffer.tryNext();
+            } catch (InsufficientCapacityException e) {
+                if (ringBuffer != currentRingBuffer) {
+                    return -1;
+                }
+                LockSupport.parkNanos(1);
+            }
+        }
+    }
+
+    public long getBufferedEvents() {
+        RingBuffer<LaneEvent> currentRingBuffer = ringBuffer;
+        if (currentRingBuffer != null) {
+            return currentRingBuffer.getBufferSize() - currentRingBuffer.remainingCapacity();
+        }
+        return 0L;
+    }
+
+    /**
+     * Ring buffer slot of the lane, holding the copy of a routed event.
+     */
+    private static class LaneEvent {
+        private StreamEvent[] streamEvents = new StreamEvent[0];
+        private PartitionStreamReceiver partitionStreamReceiver;
+        private String key;
+        private StreamEvent streamEvent;
+    }
+
+    /**
+     * Sends the routed events into the partition instances of their keys.
+     */
+    private class LaneHandler implements EventHandler<LaneEvent> {
+
+        @Override
+        public void onEvent(LaneEvent laneEvent, long sequence, boolean endOfBatch) {
+            try {
+                laneEvent.partitionStreamReceiver.sendInLane(laneEvent.key, laneEvent.streamEvent, laneIndex);
+            } catch (Throwable t) {
+                log.error("Error in SiddhiApp '" + siddhiAppContext.getName() + "' when processing events of " +
+                        "partition key '" + laneEvent.key + "' from Stream '" +
+                        laneEvent.partitionStreamReceiver.getStreamId() + "', " + t.getMessage(), t);
+            } finally {
+                laneEvent.streamEvent.setNext(null);
+                laneEvent.partitionStreamReceiver = null;
+                laneEvent.key = null;
+                laneEvent.streamEvent = null;
+            }
+        }
+    }
+}
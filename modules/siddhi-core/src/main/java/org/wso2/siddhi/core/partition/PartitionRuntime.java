@@ -17,6 +17,7 @@
  */
 package org.wso2.siddhi.core.partition;
 
+import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.state.MetaStateEvent;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
@@ -24,17 +25,22 @@ import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.partition.executor.PartitionExecutor;
 import org.wso2.siddhi.core.query.QueryRuntime;
+import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.StateStreamRuntime;
 import org.wso2.siddhi.core.query.output.callback.InsertIntoStreamCallback;
 import org.wso2.siddhi.core.query.output.callback.InsertIntoWindowCallback;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.parser.helper.DefinitionParserHelper;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.core.util.snapshot.SnapshotService;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.statistics.EventBufferHolder;
 import org.wso2.siddhi.core.util.statistics.MemoryUsageTracker;
+import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
@@ -51,22 +57,31 @@ import org.wso2.siddhi.query.api.execution.query.input.stream.JoinInputStream;
 import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
 import org.wso2.siddhi.query.api.execution.query.input.stream.StateInputStream;
 import org.wso2.siddhi.query.api.execution.query.output.stream.InsertIntoStream;
+import org.wso2.siddhi.query.api.expression.Expression;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Runtime class to handle partitioning. It will hold all information regarding current partitions and wil create
- * partition dynamically during runtime.
+ * partition dynamically during runtime. When purging is enabled via the {@code @purge} annotation, the partition
+ * instances of keys that have not received events during the idle period are periodically removed, and when
+ * {@code @Async} is given, the partition keys are routed by a given number of worker lanes in parallel.
  */
-public class PartitionRuntime implements Snapshotable {
+public class PartitionRuntime implements Snapshotable, EventBufferHolder {
 
+    private static final Logger log = Logger.getLogger(PartitionRuntime.class);
+    private static final int DEFAULT_LANE_BUFFER_SIZE = 1024;
 
     private String partitionId;
     private String elementId;
@@ -81,10 +96,19 @@ public class PartitionRuntime implements Snapshotable {
     private ConcurrentMap<String, QueryRuntime> metaQueryRuntimeMap = new ConcurrentHashMap<String, QueryRuntime>();
     private ConcurrentMap<String, PartitionInstanceRuntime> partitionInstanceRuntimeMap = new
             ConcurrentHashMap<String, PartitionInstanceRuntime>();
+    private Set<String> pendingPartitionKeys = ConcurrentHashMap.newKeySet();
     private ConcurrentMap<String, PartitionStreamReceiver> partitionStreamReceivers = new ConcurrentHashMap<String,
             PartitionStreamReceiver>();
     private SiddhiAppContext siddhiAppContext;
     private MemoryUsageTracker memoryUsageTracker;
+    private boolean purgingEnabled = false;
+    private long purgeExecutionInterval;
+    private long purgeIdlePeriod;
+    private ScheduledFuture purgingTaskStatus;
+    private int laneCount = 0;
+    private int laneBufferSize = DEFAULT_LANE_BUFFER_SIZE;
+    private PartitionLane[] lanes;
+    private int laneReceiverCount = 0;
 
     public PartitionRuntime(ConcurrentMap<String, AbstractDefinition> streamDefinitionMap,
                             ConcurrentMap<String, AbstractDefinition> windowDefinitionMap,
@@ -113,6 +137,61 @@ public class PartitionRuntime implements Snapshotable {
         this.streamDefinitionMap = streamDefinitionMap;
         this.windowDefinitionMap = windowDefinitionMap;
         this.streamJunctionMap = streamJunctionMap;
+
+        Annotation async = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_ASYNC,
+                partition.getAnnotations());
+        if (async != null) {
+            String workers = async.getElement(SiddhiConstants.ANNOTATION_ELEMENT_WORKERS);
+            laneCount = workers == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(workers);
+            if (laneCount <= 0) {
+                throw new SiddhiAppCreationException("Annotation element '" +
+                        SiddhiConstants.ANNOTATION_ELEMENT_WORKERS + "' cannot be negative or zero, " +
+                        "but found, '" + laneCount + "'.", async.getQueryContextStartIndex(),
+                        async.getQueryContextEndIndex(), siddhiAppContext.getName(),
+                        siddhiAppContext.getSiddhiAppString());
+            }
+            String bufferSize = async.getElement(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE);
+            if (bufferSize != null) {
+                laneBufferSize = Integer.parseInt(bufferSize);
+                if (Integer.bitCount(laneBufferSize) != 1) {
+                    throw new SiddhiAppCreationException("Annotation element '" +
+                            SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + "' of partition needs to be a power " +
+                            "of 2, but found, '" + laneBufferSize + "'.", async.getQueryContextStartIndex(),
+                            async.getQueryContextEndIndex(), siddhiAppContext.getName(),
+                            siddhiAppContext.getSiddhiAppString());
+                }
+            }
+            lanes = new PartitionLane[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                lanes[i] = new PartitionLane(siddhiAppContext, laneBufferSize, i);
+            }
+        }
+
+        Annotation purge = AnnotationHelper.getAnnotation(SiddhiConstants.NAMESPACE_PURGE,
+                partition.getAnnotations());
+        if (purge != null) {
+            if (purge.getElement(SiddhiConstants.ANNOTATION_ELEMENT_ENABLE) != null) {
+                String purgeEnable = purge.getElement(SiddhiConstants.ANNOTATION_ELEMENT_ENABLE);
+                if (!("true".equalsIgnoreCase(purgeEnable) || "false".equalsIgnoreCase(purgeEnable))) {
+                    throw new SiddhiAppCreationException("Invalid value for enable: " + purgeEnable + "." +
+                            " Please use true or false");
+                } else {
+                    purgingEnabled = Boolean.parseBoolean(purgeEnable);
+                }
+            }
+            if (purgingEnabled) {
+                String interval = purge.getElement(SiddhiConstants.NAMESPACE_INTERVAL);
+                String idlePeriod = purge.getElement(SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD);
+                if (interval == null || idlePeriod == null) {
+                    throw new SiddhiAppCreationException("Partition purging requires both '" +
+                            SiddhiConstants.NAMESPACE_INTERVAL + "' and '" +
+                            SiddhiConstants.ANNOTATION_ELEMENT_IDLE_PERIOD + "' to be defined at @" +
+                            SiddhiConstants.NAMESPACE_PURGE + " of partition '" + partitionId + "'");
+                }
+                purgeExecutionInterval = Expression.Time.timeToLong(interval);
+                purgeIdlePeriod = Expression.Time.timeToLong(idlePeriod);
+            }
+        }
     }
 
     public QueryRuntime addQuery(QueryRuntime metaQueryRuntime) {
@@ -254,18 +333,85 @@ public class PartitionRuntime implements Snapshotable {
      * @param key partition key
      */
     public void cloneIfNotExist(String key) {
-        if (!partitionInstanceRuntimeMap.containsKey(key)) {
-            clonePartition(key);
+        releasePartitionInstance(acquirePartitionInstance(key));
+    }
+
+    /**
+     * Get the partition instance of the given key, cloning the queries of the partition if it does not exist. When
+     * purging is enabled, the instance is held from being purged until it is released via
+     * {@link #releasePartitionInstance(PartitionInstanceRuntime)}, such that the events sent into it in between are
+     * not lost.
+     *
+     * @param key partition key
+     * @return the connected partition instance of the key
+     */
+    public PartitionInstanceRuntime acquirePartitionInstance(String key) {
+        while (true) {
+            PartitionInstanceRuntime partitionInstance = partitionInstanceRuntimeMap.get(key);
+            if (partitionInstance == null) {
+                partitionInstance = clonePartition(key);
+            }
+            partitionInstance.awaitConnected();
+            if (!purgingEnabled) {
+                return partitionInstance;
+            }
+            if (partitionInstance.tryAcquire()) {
+                partitionInstance.setLastAccessTimestamp(siddhiAppContext.getTimestampGenerator().currentTime());
+                return partitionInstance;
+            }
+            // The instance is being purged, hence retry once it is removed from the map
+            Thread.yield();
         }
     }
 
-    private synchronized void clonePartition(String key) {
-        PartitionInstanceRuntime partitionInstance = this.partitionInstanceRuntimeMap.get(key);
+    public void releasePartitionInstance(PartitionInstanceRuntime partitionInstance) {
+        if (purgingEnabled) {
+            partitionInstance.release();
+        }
+    }
 
-        if (partitionInstance == null) {
-            List<QueryRuntime> queryRuntimeList = new ArrayList<QueryRuntime>();
-            List<QueryRuntime> partitionedQueryRuntimeList = new ArrayList<QueryRuntime>();
+    /**
+     * Clone the queries of the partition for the given key without holding a lock of the partition instance map, as
+     * cloning all the queries is costly and would otherwise block the threads routing the keys of the same map bin.
+     * When several threads clone the same key, only the instance added first is connected to the stream junctions,
+     * and the others are discarded before receiving any event.
+     *
+     * @param key partition key
+     * @return the partition instance of the key
+     */
+    private PartitionInstanceRuntime clonePartition(String key) {
+        List<QueryRuntime> partitionedQueryRuntimeList = new ArrayList<QueryRuntime>();
+        Map<StreamJunction.Receiver, StreamJunction> localStreamReceivers = new LinkedHashMap<>();
+        PartitionInstanceRuntime partitionInstance = createPartitionInstance(key, partitionedQueryRuntimeList,
+                localStreamReceivers);
+        PartitionInstanceRuntime existingPartitionInstance = partitionInstanceRuntimeMap.putIfAbsent(key,
+                partitionInstance);
+        if (existingPartitionInstance != null) {
+            discardPartitionInstance(partitionInstance);
+            return existingPartitionInstance;
+        }
+        try {
+            for (Map.Entry<StreamJunction.Receiver, StreamJunction> entry : localStreamReceivers.entrySet()) {
+                entry.getValue().subscribe(entry.getKey());
+            }
+            updatePartitionStreamReceivers(key, partitionedQueryRuntimeList);
+            if (pendingPartitionKeys.remove(key)) {
+                siddhiAppContext.getSnapshotService().restorePendingState(partitionInstance.getSnapshotables());
+            }
+        } finally {
+            partitionInstance.setConnected();
+        }
+        return partitionInstance;
+    }
 
+    private PartitionInstanceRuntime createPartitionInstance(String key, List<QueryRuntime> partitionedQueryRuntimeList,
+                                                             Map<StreamJunction.Receiver, StreamJunction>
+                                                                     localStreamReceivers) {
+        List<QueryRuntime> queryRuntimeList = new ArrayList<QueryRuntime>();
+        Map<String, List<Snapshotable>> snapshotables = new HashMap<>();
+        SnapshotService snapshotService = siddhiAppContext.getSnapshotService();
+        snapshotService.recordAddedSnapshotables(snapshotables);
+        try {
             for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
 
                 QueryRuntime clonedQueryRuntime = queryRuntime.clone(key, localStreamJunctionMap);
@@ -289,23 +435,118 @@ public class PartitionRuntime implements Snapshotable {
                         }
                         StreamJunction streamJunction = localStreamJunctionMap.get(streamId + key);
                         if (streamJunction == null) {
-                            streamJunction = new StreamJunction(streamDefinition, siddhiAppContext
-                                    .getExecutorService(),
+                            localStreamJunctionMap.putIfAbsent(streamId + key, new StreamJunction(streamDefinition,
+                                    siddhiAppContext.getExecutorService(),
                                     siddhiAppContext.getBufferSize(),
-                                    siddhiAppContext);
-                            localStreamJunctionMap.put(streamId + key, streamJunction);
+                                    siddhiAppContext));
+                            streamJunction = localStreamJunctionMap.get(streamId + key);
                         }
-                        streamJunction.subscribe(clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes().get
-                                (i).getProcessStreamReceiver());
+                        localStreamReceivers.put(clonedQueryRuntime.getStreamRuntime().getSingleStreamRuntimes()
+                                .get(i).getProcessStreamReceiver(), streamJunction);
                     }
                 } else {
                     partitionedQueryRuntimeList.add(clonedQueryRuntime);
                 }
             }
-            partitionInstanceRuntimeMap.putIfAbsent(key, new PartitionInstanceRuntime(key, queryRuntimeList));
-            updatePartitionStreamReceivers(key, partitionedQueryRuntimeList);
+        } finally {
+            snapshotService.recordAddedSnapshotables(null);
+        }
+        PartitionInstanceRuntime partitionInstance = new PartitionInstanceRuntime(key, queryRuntimeList);
+        partitionInstance.setSnapshotables(snapshotables);
+        partitionInstance.setLastAccessTimestamp(siddhiAppContext.getTimestampGenerator().currentTime());
+        return partitionInstance;
+    }
+
+    /**
+     * Start removing the partition instances that have been idle for the configured idle period, if purging is
+     * enabled for the partition.
+     */
+    public void startPurging() {
+        if (purgingEnabled) {
+            if (purgingTaskStatus != null) {
+                purgingTaskStatus.cancel(true);
+            }
+            purgingTaskStatus = siddhiAppContext.getScheduledExecutorService().scheduleWithFixedDelay(
+                    this::purgeIdlePartitionInstances, purgeExecutionInterval, purgeExecutionInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void purgeIdlePartitionInstances() {
+        try {
+            long purgeTime = siddhiAppContext.getTimestampGenerator().currentTime() - purgeIdlePeriod;
+            List<PartitionInstanceRuntime> idlePartitionInstances = new ArrayList<>();
+            for (PartitionInstanceRuntime partitionInstance : partitionInstanceRuntimeMap.values()) {
+                if (partitionInstance.getLastAccessTimestamp() < purgeTime) {
+                    idlePartitionInstances.add(partitionInstance);
+                }
+            }
+            if (idlePartitionInstances.isEmpty()) {
+                return;
+            }
+            siddhiAppContext.getThreadBarrier().lock();
+            try {
+                for (PartitionInstanceRuntime partitionInstance : idlePartitionInstances) {
+                    // Only instances without events being sent into them are purged, and the access time is checked
+                    // again as the instance may have been accessed after it was found idle
+                    if (partitionInstance.tryPurge()) {
+                        if (partitionInstance.getLastAccessTimestamp() < purgeTime) {
+                            // Removed from the map last, such that a new instance of the key does not get its
+                            // stream junctions removed
+                            removePartitionInstance(partitionInstance);
+                            partitionInstanceRuntimeMap.remove(partitionInstance.getKey(), partitionInstance);
+                        } else {
+                            partitionInstance.cancelPurge();
+                        }
+                    }
+                }
+            } finally {
+                siddhiAppContext.getThreadBarrier().unlock();
+            }
+        } catch (Throwable t) {
+            log.error("Error when purging idle partition instances of partition '" + partitionId + "' in Siddhi App '"
+                    + siddhiAppContext.getName() + "'", t);
         }
+    }
 
+    private void removePartitionInstance(PartitionInstanceRuntime partitionInstance) {
+        String key = partitionInstance.getKey();
+        for (PartitionStreamReceiver partitionStreamReceiver : partitionStreamReceivers.values()) {
+            partitionStreamReceiver.removeStreamJunction(key);
+            localStreamJunctionMap.remove(partitionStreamReceiver.getStreamId() + key);
+        }
+        for (String streamId : localStreamDefinitionMap.keySet()) {
+            localStreamJunctionMap.remove(streamId + key);
+        }
+        for (QueryRuntime queryRuntime : metaQueryRuntimeMap.values()) {
+            if (queryRuntime.isFromLocalStream()) {
+                StreamRuntime streamRuntime = queryRuntime.getStreamRuntime();
+                for (int i = 0; i < streamRuntime.getSingleStreamRuntimes().size(); i++) {
+                    localStreamJunctionMap.remove(streamRuntime.getSingleStreamRuntimes().get(i)
+                            .getProcessStreamReceiver().getStreamId() + key);
+                }
+            }
+        }
+        discardPartitionInstance(partitionInstance);
+    }
+
+    /**
+     * Release the state and the schedulers registered when creating the partition instance.
+     *
+     * @param partitionInstance partition instance that is no longer used
+     */
+    private void discardPartitionInstance(PartitionInstanceRuntime partitionInstance) {
+        siddhiAppContext.getSnapshotService().removeSnapshotables(partitionInstance.getSnapshotables());
+        for (List<Snapshotable> snapshotables : partitionInstance.getSnapshotables().values()) {
+            for (Snapshotable snapshotable : snapshotables) {
+                if (snapshotable instanceof Scheduler) {
+                    ((Scheduler) snapshotable).stop();
+                }
+            }
+        }
+        for (QueryRuntime queryRuntime : partitionInstance.getQueryRuntimeList()) {
+            queryRuntime.getOutputRateManager().stop();
+        }
     }
 
     private void updatePartitionStreamReceivers(String key, List<QueryRuntime> partitionedQueryRuntimeList) {
@@ -314,6 +555,63 @@ public class PartitionRuntime implements Snapshotable {
         }
     }
 
+    public void startProcessing() {
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                lane.startProcessing();
+            }
+        }
+    }
+
+    public void stopProcessing() {
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                lane.stopProcessing();
+            }
+        }
+    }
+
+    /**
+     * @return worker lanes shared by the receivers of all the streams of the partition, or null if the partition keys
+     * are routed on the receiving thread
+     */
+    public PartitionLane[] getLanes() {
+        return lanes;
+    }
+
+    /**
+     * @param key partition key
+     * @return index of the lane the key is routed to, which is the same for all the streams of the partition
+     */
+    public int getLaneIndex(String key) {
+        int hash = key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    synchronized int nextLaneReceiverIndex() {
+        return laneReceiverCount++;
+    }
+
+    @Override
+    public long getBufferedEvents() {
+        long bufferedEvents = 0;
+        if (lanes != null) {
+            for (PartitionLane lane : lanes) {
+                bufferedEvents += lane.getBufferedEvents();
+            }
+        }
+        return bufferedEvents;
+    }
+
+    @Override
+    public boolean containsBufferedEvents() {
+        return lanes != null;
+    }
+
+    public ConcurrentMap<String, PartitionStreamReceiver> getPartitionStreamReceivers() {
+        return partitionStreamReceivers;
+    }
+
     public void addStreamJunction(String key, StreamJunction streamJunction) {
         localStreamJunctionMap.put(key, streamJunction);
     }
@@ -351,8 +649,25 @@ public class PartitionRuntime implements Snapshotable {
     @Override
     public void restoreState(Map<String, Object> state) {
         List<String> partitionKeys = (List<String>) state.get("PartitionKeys");
+        pendingPartitionKeys.clear();
         for (String key : partitionKeys) {
-            clonePartition(key);
+            if (siddhiAppContext.isLazyRestore()) {
+                // the instance is created along with its state when the partition key is first seen
+                if (!partitionInstanceRuntimeMap.containsKey(key)) {
+                    pendingPartitionKeys.add(key);
+                }
+            } else {
+                cloneIfNotExist(key);
+            }
+        }
+    }
+
+    /**
+     * Create the partition instances which are still pending to be restored in the lazy restore mode.
+     */
+    public void restorePendingPartitionInstances() {
+        for (String key : new ArrayList<>(pendingPartitionKeys)) {
+            cloneIfNotExist(key);
         }
     }
 
@@ -23,6 +23,7 @@ import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventFactory;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
 import org.wso2.siddhi.core.event.stream.converter.StreamEventConverterFactory;
@@ -30,15 +31,21 @@ import org.wso2.siddhi.core.partition.executor.PartitionExecutor;
 import org.wso2.siddhi.core.query.QueryRuntime;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.core.util.statistics.ThroughputTracker;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Specific {@link StreamJunction.Receiver} implementation to pump events into partitions. This will send the event
- * to the matching partition.
+ * to the matching partition. When the partition has worker lanes, the partition keys are hashed onto the
+ * {@link PartitionLane}s of the partition, which are shared by the receivers of all its streams, and the lanes send
+ * the events into the matching partitions in parallel.
  */
 public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
@@ -51,7 +58,12 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
     private PartitionRuntime partitionRuntime;
     private List<PartitionExecutor> partitionExecutors;
     private Map<String, StreamJunction> cachedStreamJunctionMap = new ConcurrentHashMap<String, StreamJunction>();
-
+    private PartitionLane[] lanes;
+    private List<Map<String, StreamJunction>> laneStreamJunctionMaps;
+    private int receiverIndex;
+    private StreamEventFactory routingEventFactory;
+    private ThreadLocal<StreamEvent> routingEventThreadLocal;
+    private ThroughputTracker throughputTracker;
 
     public PartitionStreamReceiver(SiddhiAppContext siddhiAppContext, MetaStreamEvent metaStreamEvent,
                                    StreamDefinition streamDefinition,
@@ -64,7 +76,22 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         this.siddhiAppContext = siddhiAppContext;
         this.streamId = streamDefinition.getId();
         this.eventPool = new StreamEventPool(metaStreamEvent, 5);
-
+        lanes = partitionRuntime.getLanes();
+        if (lanes != null) {
+            laneStreamJunctionMaps = new ArrayList<Map<String, StreamJunction>>(lanes.length);
+            for (int i = 0; i < lanes.length; i++) {
+                laneStreamJunctionMaps.add(new ConcurrentHashMap<String, StreamJunction>());
+            }
+            receiverIndex = partitionRuntime.nextLaneReceiverIndex();
+            routingEventFactory = new StreamEventFactory(metaStreamEvent.getBeforeWindowData().size(),
+                    metaStreamEvent.getOnAfterWindowData().size(), metaStreamEvent.getOutputData().size());
+            routingEventThreadLocal = ThreadLocal.withInitial(routingEventFactory::newInstance);
+            if (siddhiAppContext.getStatisticsManager() != null) {
+                throughputTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext,
+                        partitionRuntime.getPartitionId() + SiddhiConstants.METRIC_DELIMITER + streamId,
+                        SiddhiConstants.METRIC_INFIX_PARTITIONS, null);
+            }
+        }
     }
 
     public void init() {
@@ -79,7 +106,14 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     @Override
     public void receive(ComplexEvent complexEvent) {
-
+        if (lanes != null) {
+            StreamEvent routingEvent = routingEventThreadLocal.get();
+            for (ComplexEvent aEvent = complexEvent; aEvent != null; aEvent = aEvent.getNext()) {
+                streamEventConverter.convertComplexEvent(aEvent, routingEvent);
+                route(routingEvent);
+            }
+            return;
+        }
         if (partitionExecutors.size() == 0) {
             StreamEvent borrowedEvent = borrowEvent();
             streamEventConverter.convertComplexEvent(complexEvent, borrowedEvent);
@@ -140,6 +174,12 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     @Override
     public void receive(Event event) {
+        if (lanes != null) {
+            StreamEvent routingEvent = routingEventThreadLocal.get();
+            streamEventConverter.convertEvent(event, routingEvent);
+            route(routingEvent);
+            return;
+        }
         StreamEvent borrowedEvent = borrowEvent();
         streamEventConverter.convertEvent(event, borrowedEvent);
         for (PartitionExecutor partitionExecutor : partitionExecutors) {
@@ -154,6 +194,12 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     @Override
     public void receive(long timestamp, Object[] data) {
+        if (lanes != null) {
+            StreamEvent routingEvent = routingEventThreadLocal.get();
+            streamEventConverter.convertData(timestamp, data, routingEvent);
+            route(routingEvent);
+            return;
+        }
         StreamEvent borrowedEvent = borrowEvent();
         streamEventConverter.convertData(timestamp, data, borrowedEvent);
         if (partitionExecutors.size() == 0) {
@@ -169,6 +215,14 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     @Override
     public void receive(Event[] events) {
+        if (lanes != null) {
+            StreamEvent routingEvent = routingEventThreadLocal.get();
+            for (Event event : events) {
+                streamEventConverter.convertEvent(event, routingEvent);
+                route(routingEvent);
+            }
+            return;
+        }
         if (partitionExecutors.size() == 0) {
             StreamEvent currentEvent;
             StreamEvent firstEvent = borrowEvent();
@@ -216,6 +270,14 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     @Override
     public void receive(List<Event> events) {
+        if (lanes != null) {
+            StreamEvent routingEvent = routingEventThreadLocal.get();
+            for (Event event : events) {
+                streamEventConverter.convertEvent(event, routingEvent);
+                route(routingEvent);
+            }
+            return;
+        }
         if (partitionExecutors.size() == 0) {
             StreamEvent firstEvent = null;
             StreamEvent currentEvent = null;
@@ -263,11 +325,96 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
 
     private void send(String key, ComplexEvent event) {
         if (key != null) {
-            partitionRuntime.cloneIfNotExist(key);
-            cachedStreamJunctionMap.get(streamId + key).sendEvent(event);
+            PartitionInstanceRuntime partitionInstance = partitionRuntime.acquirePartitionInstance(key);
+            try {
+                cachedStreamJunctionMap.get(streamId + key).sendEvent(event);
+            } finally {
+                partitionRuntime.releasePartitionInstance(partitionInstance);
+            }
+        }
+    }
+
+    /**
+     * Hand over an event to the lanes of its partition keys, or to all the lanes if the stream is not partitioned by
+     * this partition.
+     *
+     * @param streamEvent event to be routed, which is copied by the lanes
+     */
+    private void route(StreamEvent streamEvent) {
+        if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
+            throughputTracker.eventIn();
+        }
+        if (partitionExecutors.size() == 0) {
+            for (PartitionLane lane : lanes) {
+                lane.send(this, null, streamEvent);
+            }
+        } else {
+            for (PartitionExecutor partitionExecutor : partitionExecutors) {
+                String key = partitionExecutor.execute(streamEvent);
+                if (key != null) {
+                    lanes[partitionRuntime.getLaneIndex(key)].send(this, key, streamEvent);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send an event of a lane into the partition of the given key, or into all the partitions of the keys belonging to
+     * the lane if the key is null.
+     *
+     * @param key         partition key
+     * @param streamEvent event to be sent
+     * @param laneIndex   index of the lane
+     */
+    void sendInLane(String key, StreamEvent streamEvent, int laneIndex) {
+        if (key != null) {
+            send(key, streamEvent);
+        } else {
+            for (StreamJunction streamJunction : laneStreamJunctionMaps.get(laneIndex).values()) {
+                streamJunction.sendEvent(streamEvent);
+            }
         }
     }
 
+    /**
+     * @return index of this receiver among the receivers of the partition routing through its lanes
+     */
+    int getReceiverIndex() {
+        return receiverIndex;
+    }
+
+    /**
+     * @return a new event in the layout of the stream, to hold the copies of the events routed to a lane
+     */
+    StreamEvent newRoutingEvent() {
+        return routingEventFactory.newInstance();
+    }
+
+    /**
+     * Copy a routed event of the stream into an event created via {@link #newRoutingEvent()}.
+     *
+     * @param streamEvent     routed event
+     * @param laneStreamEvent event held by a lane
+     */
+    void copyRoutingEvent(StreamEvent streamEvent, StreamEvent laneStreamEvent) {
+        int beforeWindowDataSize = metaStreamEvent.getBeforeWindowData().size();
+        if (beforeWindowDataSize > 0) {
+            System.arraycopy(streamEvent.getBeforeWindowData(), 0, laneStreamEvent.getBeforeWindowData(), 0,
+                    beforeWindowDataSize);
+        }
+        int onAfterWindowDataSize = metaStreamEvent.getOnAfterWindowData().size();
+        if (onAfterWindowDataSize > 0) {
+            System.arraycopy(streamEvent.getOnAfterWindowData(), 0, laneStreamEvent.getOnAfterWindowData(), 0,
+                    onAfterWindowDataSize);
+        }
+        int outputDataSize = metaStreamEvent.getOutputData().size();
+        if (outputDataSize > 0) {
+            System.arraycopy(streamEvent.getOutputData(), 0, laneStreamEvent.getOutputData(), 0, outputDataSize);
+        }
+        laneStreamEvent.setType(streamEvent.getType());
+        laneStreamEvent.setTimestamp(streamEvent.getTimestamp());
+    }
+
     private void send(ComplexEvent event) {
         for (StreamJunction streamJunction : cachedStreamJunctionMap.values()) {
             streamJunction.sendEvent(event);
@@ -290,6 +437,9 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
                 partitionRuntime.addStreamJunction(streamId + key, streamJunction);
             }
             cachedStreamJunctionMap.put(streamId + key, streamJunction);
+            if (lanes != null) {
+                laneStreamJunctionMaps.get(partitionRuntime.getLaneIndex(key)).put(key, streamJunction);
+            }
         }
         for (QueryRuntime queryRuntime : queryRuntimeList) {
             StreamRuntime streamRuntime = queryRuntime.getStreamRuntime();
@@ -303,6 +453,18 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         }
     }
 
+    /**
+     * remove the local streamJunction of a purged partition key
+     *
+     * @param key partitioning key
+     */
+    public void removeStreamJunction(String key) {
+        cachedStreamJunctionMap.remove(streamId + key);
+        if (lanes != null) {
+            laneStreamJunctionMaps.get(partitionRuntime.getLaneIndex(key)).remove(key);
+        }
+    }
+
     private StreamJunction createStreamJunction() {
         return new StreamJunction(streamDefinition, siddhiAppContext.getExecutorService(),
                 siddhiAppContext.getBufferSize(), siddhiAppContext);
@@ -129,7 +129,8 @@ public class QueryRuntime implements MemoryCalculable {
         StreamRuntime clonedStreamRuntime = this.streamRuntime.clone(key);
         QuerySelector clonedSelector = this.selector.clone(key);
         OutputRateLimiter clonedOutputRateLimiter = outputRateLimiter.clone(key);
-        clonedOutputRateLimiter.init(siddhiAppContext, lockWrapper, queryId);
+        clonedOutputRateLimiter.init(siddhiAppContext, lockWrapper, queryId,
+                outputRateLimiter.getElementId() + "-" + key);
 
         QueryRuntime queryRuntime = new QueryRuntime(query, siddhiAppContext, clonedStreamRuntime, clonedSelector,
                 clonedOutputRateLimiter, outputCallback, this.metaComplexEvent,
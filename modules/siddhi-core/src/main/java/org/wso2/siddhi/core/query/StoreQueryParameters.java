@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query;
+
+import org.wso2.siddhi.core.exception.StoreQueryCreationException;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Parameters of a {@link StoreQueryRuntime}, which are bound before each execution of the runtime. The types of the
+ * parameters are fixed when the runtime is parsed, while their values change with each execution.
+ */
+public class StoreQueryParameters {
+
+    private final Attribute.Type[] types;
+    private Object[] values;
+    private int referencedCount = 0;
+
+    public StoreQueryParameters(Attribute.Type[] types) {
+        this.types = types;
+    }
+
+    /**
+     * Derive the parameter types from the values bound to a store query.
+     *
+     * @param values parameter values
+     * @return types of the parameters
+     */
+    public static Attribute.Type[] getTypes(Object[] values) {
+        Attribute.Type[] types = new Attribute.Type[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                throw new StoreQueryCreationException("Value of parameter " + i + " cannot be null, use " +
+                        "'is null' conditions to match null values");
+            } else if (value instanceof String) {
+                types[i] = Attribute.Type.STRING;
+            } else if (value instanceof Integer) {
+                types[i] = Attribute.Type.INT;
+            } else if (value instanceof Long) {
+                types[i] = Attribute.Type.LONG;
+            } else if (value instanceof Float) {
+                types[i] = Attribute.Type.FLOAT;
+            } else if (value instanceof Double) {
+                types[i] = Attribute.Type.DOUBLE;
+            } else if (value instanceof Boolean) {
+                types[i] = Attribute.Type.BOOL;
+            } else {
+                types[i] = Attribute.Type.OBJECT;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Get the type of a parameter referenced by the store query, while keeping track of the referenced parameters.
+     *
+     * @param index index of the parameter
+     * @return type of the parameter, or null if no value is bound to the parameter
+     */
+    public Attribute.Type reference(int index) {
+        if (index >= types.length) {
+            return null;
+        }
+        referencedCount = Math.max(referencedCount, index + 1);
+        return types[index];
+    }
+
+    /**
+     * @return number of parameters bound to the store query
+     */
+    public int getParameterCount() {
+        return types.length;
+    }
+
+    /**
+     * @return number of parameters referenced by the store query
+     */
+    public int getReferencedCount() {
+        return referencedCount;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public void setValues(Object[] values) {
+        this.values = values;
+    }
+}
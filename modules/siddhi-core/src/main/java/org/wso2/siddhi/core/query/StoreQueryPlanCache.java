@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query;
+
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.execution.query.StoreQuery;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of the plans of store queries, keyed by the store query and the types of its parameters, hence queries
+ * differing only by the values bound to their parameters share the same plan.
+ * <p>
+ * Lookups do not lock. Recency is tracked by stamping each plan with a logical clock on access, and when the cache
+ * grows beyond its capacity the least recently used plans are evicted by scanning the cache. A
+ * {@link StoreQueryRuntime} holds state of its current execution, hence each plan pools its idle runtimes and lends
+ * a runtime to one execution at a time, while concurrent executions of the same plan use separate runtimes.
+ */
+public class StoreQueryPlanCache {
+
+    private final int capacity;
+    private final ConcurrentMap<PlanKey, Plan> plans = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    public StoreQueryPlanCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the plan of a store query, creating an empty plan if the query is not cached.
+     *
+     * @param storeQuery     store query
+     * @param parameterTypes types of the parameters bound to the query
+     * @return plan of the query
+     */
+    public Plan getPlan(StoreQuery storeQuery, Attribute.Type[] parameterTypes) {
+        PlanKey planKey = new PlanKey(storeQuery, parameterTypes);
+        Plan plan = plans.get(planKey);
+        if (plan == null) {
+            Plan newPlan = new Plan(planKey, clock.incrementAndGet());
+            plan = plans.putIfAbsent(planKey, newPlan);
+            if (plan == null) {
+                evict();
+                return newPlan;
+            }
+        }
+        plan.lastAccessed = clock.incrementAndGet();
+        return plan;
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    private void evict() {
+        while (plans.size() > capacity) {
+            Plan leastRecentlyUsed = null;
+            for (Plan plan : plans.values()) {
+                if (leastRecentlyUsed == null || plan.lastAccessed < leastRecentlyUsed.lastAccessed) {
+                    leastRecentlyUsed = plan;
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                return;
+            }
+            plans.remove(leastRecentlyUsed.planKey, leastRecentlyUsed);
+        }
+    }
+
+    /**
+     * Cached plan of a store query, pooling the idle runtimes parsed for the query.
+     */
+    public static class Plan {
+        private final PlanKey planKey;
+        private final Queue<StoreQueryRuntime> idleRuntimes = new ConcurrentLinkedQueue<>();
+        private volatile long lastAccessed;
+
+        private Plan(PlanKey planKey, long lastAccessed) {
+            this.planKey = planKey;
+            this.lastAccessed = lastAccessed;
+        }
+
+        /**
+         * @return an idle runtime of the plan, which is not used by other executions till it is released, or null
+         * if the plan has no idle runtimes
+         */
+        public StoreQueryRuntime borrowRuntime() {
+            return idleRuntimes.poll();
+        }
+
+        /**
+         * Return a runtime to the plan once its execution is completed.
+         *
+         * @param storeQueryRuntime runtime of the plan
+         */
+        public void releaseRuntime(StoreQueryRuntime storeQueryRuntime) {
+            idleRuntimes.offer(storeQueryRuntime);
+        }
+    }
+
+    /**
+     * Key of a cached plan.
+     */
+    private static class PlanKey {
+        private final StoreQuery storeQuery;
+        private final Attribute.Type[] parameterTypes;
+        private final int hashCode;
+
+        private PlanKey(StoreQuery storeQuery, Attribute.Type[] parameterTypes) {
+            this.storeQuery = storeQuery;
+            this.parameterTypes = parameterTypes;
+            this.hashCode = 31 * storeQuery.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey that = (PlanKey) o;
+            return hashCode == that.hashCode && Arrays.equals(parameterTypes, that.parameterTypes) &&
+                    storeQuery.equals(that.storeQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
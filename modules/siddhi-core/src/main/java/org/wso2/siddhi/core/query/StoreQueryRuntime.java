@@ -40,6 +40,7 @@ public abstract class StoreQueryRuntime {
     StateEventPool stateEventPool;
     MetaStreamEvent metaStreamEvent;
     Attribute[] outputAttributes;
+    StoreQueryParameters storeQueryParameters;
 
     /**
      * This method initiates the execution of store query.
@@ -76,6 +77,26 @@ public abstract class StoreQueryRuntime {
         this.stateEventPool = stateEventPool;
     }
 
+    /**
+     * This method sets the parameters of the store query runtime.
+     *
+     * @param storeQueryParameters parameters referenced by the store query
+     */
+    public void setStoreQueryParameters(StoreQueryParameters storeQueryParameters) {
+        this.storeQueryParameters = storeQueryParameters;
+    }
+
+    /**
+     * This method binds the parameter values used by the next execution of the store query.
+     *
+     * @param parameterValues values of the parameters, in the order the parameters appear in the store query
+     */
+    public void setParameterValues(Object[] parameterValues) {
+        if (storeQueryParameters != null) {
+            storeQueryParameters.setValues(parameterValues);
+        }
+    }
+
     /**
      * This method sets the output attribute list of the given store query.
      *
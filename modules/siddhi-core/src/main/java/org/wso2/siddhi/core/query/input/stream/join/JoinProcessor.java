@@ -27,6 +27,7 @@ import org.wso2.siddhi.core.query.processor.stream.window.FindableProcessor;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 
 /**
  * Created on 12/8/14.
@@ -43,6 +44,7 @@ public class JoinProcessor implements Processor {
     private FindableProcessor findableProcessor;
     private Processor nextProcessor;
     private QuerySelector selector;
+    private StageLatencyTracker latencyTracker;
 
     public JoinProcessor(boolean leftJoinProcessor, boolean preJoinProcessor, boolean outerJoinProcessor,
             int matchingStreamIndex) {
@@ -60,65 +62,81 @@ public class JoinProcessor implements Processor {
     @Override
     public void process(ComplexEventChunk complexEventChunk) {
         if (trigger) {
-            ComplexEventChunk<StateEvent> returnEventChunk = new ComplexEventChunk<StateEvent>(true);
-            StateEvent joinStateEvent = new StateEvent(2, 0);
-            StreamEvent nextEvent = (StreamEvent) complexEventChunk.getFirst();
-            complexEventChunk.clear();
-            while (nextEvent != null) {
-
-                StreamEvent streamEvent = nextEvent;
-                nextEvent = streamEvent.getNext();
-                streamEvent.setNext(null);
+            boolean timed = latencyTracker != null && latencyTracker.markIn();
+            try {
+                join(complexEventChunk);
+            } finally {
+                if (timed) {
+                    latencyTracker.markOut();
+                }
+            }
+        } else {
+            if (preJoinProcessor) {
                 joinLockWrapper.lock();
                 try {
-                    ComplexEvent.Type eventType = streamEvent.getType();
-                    if (eventType == ComplexEvent.Type.TIMER) {
-                        continue;
-                    } else if (eventType == ComplexEvent.Type.RESET) {
-                        if (!leftJoinProcessor) {
+                    nextProcessor.process(complexEventChunk);
+                } finally {
+                    joinLockWrapper.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Join the events of the chunk with the events of the other side, and send the joined events to the selector.
+     *
+     * @param complexEventChunk event chunk to be joined
+     */
+    private void join(ComplexEventChunk complexEventChunk) {
+        ComplexEventChunk<StateEvent> returnEventChunk = new ComplexEventChunk<StateEvent>(true);
+        StateEvent joinStateEvent = new StateEvent(2, 0);
+        StreamEvent nextEvent = (StreamEvent) complexEventChunk.getFirst();
+        complexEventChunk.clear();
+        while (nextEvent != null) {
+
+            StreamEvent streamEvent = nextEvent;
+            nextEvent = streamEvent.getNext();
+            streamEvent.setNext(null);
+            joinLockWrapper.lock();
+            try {
+                ComplexEvent.Type eventType = streamEvent.getType();
+                if (eventType == ComplexEvent.Type.TIMER) {
+                    continue;
+                } else if (eventType == ComplexEvent.Type.RESET) {
+                    if (!leftJoinProcessor) {
+                        returnEventChunk.add(joinEventBuilder(null, streamEvent, eventType));
+                    } else {
+                        returnEventChunk.add(joinEventBuilder(streamEvent, null, eventType));
+                    }
+                } else {
+                    joinStateEvent.setEvent(matchingStreamIndex, streamEvent);
+                    StreamEvent foundStreamEvent = findableProcessor.find(joinStateEvent, compiledCondition);
+                    joinStateEvent.setEvent(matchingStreamIndex, null);
+                    if (foundStreamEvent == null) {
+                        if (outerJoinProcessor && !leftJoinProcessor) {
                             returnEventChunk.add(joinEventBuilder(null, streamEvent, eventType));
-                        } else {
+                        } else if (outerJoinProcessor && leftJoinProcessor) {
                             returnEventChunk.add(joinEventBuilder(streamEvent, null, eventType));
                         }
                     } else {
-                        joinStateEvent.setEvent(matchingStreamIndex, streamEvent);
-                        StreamEvent foundStreamEvent = findableProcessor.find(joinStateEvent, compiledCondition);
-                        joinStateEvent.setEvent(matchingStreamIndex, null);
-                        if (foundStreamEvent == null) {
-                            if (outerJoinProcessor && !leftJoinProcessor) {
-                                returnEventChunk.add(joinEventBuilder(null, streamEvent, eventType));
-                            } else if (outerJoinProcessor && leftJoinProcessor) {
-                                returnEventChunk.add(joinEventBuilder(streamEvent, null, eventType));
-                            }
-                        } else {
-                            while (foundStreamEvent != null) {
-                                StreamEvent nextFoundStreamEvent = foundStreamEvent.getNext();
-                                foundStreamEvent.setNext(null);
-                                if (!leftJoinProcessor) {
-                                    returnEventChunk.add(joinEventBuilder(foundStreamEvent, streamEvent, eventType));
-                                } else {
-                                    returnEventChunk.add(joinEventBuilder(streamEvent, foundStreamEvent, eventType));
-                                }
-                                foundStreamEvent = nextFoundStreamEvent;
+                        while (foundStreamEvent != null) {
+                            StreamEvent nextFoundStreamEvent = foundStreamEvent.getNext();
+                            foundStreamEvent.setNext(null);
+                            if (!leftJoinProcessor) {
+                                returnEventChunk.add(joinEventBuilder(foundStreamEvent, streamEvent, eventType));
+                            } else {
+                                returnEventChunk.add(joinEventBuilder(streamEvent, foundStreamEvent, eventType));
                             }
+                            foundStreamEvent = nextFoundStreamEvent;
                         }
                     }
-                } finally {
-                    joinLockWrapper.unlock();
-                }
-                if (returnEventChunk.getFirst() != null) {
-                    selector.process(returnEventChunk);
-                    returnEventChunk.clear();
                 }
+            } finally {
+                joinLockWrapper.unlock();
             }
-        } else {
-            if (preJoinProcessor) {
-                joinLockWrapper.lock();
-                try {
-                    nextProcessor.process(complexEventChunk);
-                } finally {
-                    joinLockWrapper.unlock();
-                }
+            if (returnEventChunk.getFirst() != null) {
+                selector.process(returnEventChunk);
+                returnEventChunk.clear();
             }
         }
     }
@@ -175,6 +193,7 @@ public class JoinProcessor implements Processor {
         JoinProcessor joinProcessor = new JoinProcessor(leftJoinProcessor, preJoinProcessor, outerJoinProcessor,
                 matchingStreamIndex);
         joinProcessor.setTrigger(trigger);
+        joinProcessor.latencyTracker = latencyTracker;
         if (trigger) {
             joinProcessor.setCompiledCondition(compiledCondition.cloneCompilation(key));
         }
@@ -197,6 +216,13 @@ public class JoinProcessor implements Processor {
         this.trigger = trigger;
     }
 
+    /**
+     * @param latencyTracker tracker of the join latency, excluding the time of the selector it calls
+     */
+    public void setLatencyTracker(StageLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
     public void setStateEventPool(StateEventPool stateEventPool) {
         this.stateEventPool = stateEventPool;
     }
@@ -25,21 +25,36 @@ import org.wso2.siddhi.core.event.state.StateEventPool;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.compiler.ExpressionCompiler;
+import org.wso2.siddhi.core.executor.condition.AndConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.equal.EqualCompareConditionExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.query.processor.filter.FilterProcessor;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.execution.query.input.stream.StateInputStream;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Created on 12/17/14.
+ * Pre processor of a stream state of a pattern or a sequence, matching the incoming events against the pending partial
+ * matches of the state.
+ * <p>
+ * For pattern states whose filter correlates the incoming event with an earlier state via an equality such as
+ * {@code e2.card == e1.card}, the pending partial matches are hash indexed by the value of the earlier state, hence
+ * only the partial matches with the same value are evaluated for an incoming event, and the partial matches exceeding
+ * the {@code within} time are removed in the order of their expiry.
  */
 public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable {
 
@@ -67,6 +82,13 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     protected StreamEventPool streamEventPool;
     protected String queryName;
     private boolean initialized;
+    private Set<Integer> indexableStateIds;
+    private boolean pendingStateIndexResolved;
+    private ExpressionExecutor pendingStateKeyExecutor;
+    private ExpressionExecutor incomingEventKeyExecutor;
+    private Map<Object, LinkedList<StateEvent>> pendingStateEventIndex;
+    private PriorityQueue<PendingStateExpiry> pendingStateExpiryQueue;
+    private StateEvent keyLookupStateEvent;
 
     public StreamPreStateProcessor(StateInputStream.Type stateType, List<Map.Entry<Long, Set<Integer>>> withinStates) {
         this.stateType = stateType;
@@ -204,6 +226,172 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         streamPreStateProcessor.streamEventCloner = this.streamEventCloner;
         streamPreStateProcessor.stateEventCloner = this.stateEventCloner;
         streamPreStateProcessor.streamEventPool = this.streamEventPool;
+        streamPreStateProcessor.indexableStateIds = this.indexableStateIds;
+    }
+
+    /**
+     * Allow the pending partial matches of the state to be indexed on an equality between the incoming event and one
+     * of the given states. Only the states whose events do not change while the partial match is pending in this
+     * state can be used.
+     *
+     * @param indexableStateIds ids of the states the pending partial matches can be indexed on
+     */
+    public void setIndexableStateIds(Set<Integer> indexableStateIds) {
+        this.indexableStateIds = indexableStateIds;
+    }
+
+    /**
+     * Resolve the executors of the pending state index from the filter of the state. As the positions of the variables
+     * are only assigned after the query is parsed, this is done lazily.
+     *
+     * @return true if the pending partial matches are indexed
+     */
+    private boolean isPendingStateIndexed() {
+        if (!pendingStateIndexResolved) {
+            pendingStateIndexResolved = true;
+            if (indexableStateIds != null && stateType == StateInputStream.Type.PATTERN &&
+                    nextProcessor instanceof FilterProcessor) {
+                resolvePendingStateKeyExecutors(ExpressionCompiler.getSourceExecutor(
+                        ((FilterProcessor) nextProcessor).getConditionExecutor()));
+                if (pendingStateKeyExecutor != null) {
+                    pendingStateEventIndex = new HashMap<>();
+                    for (StateEvent stateEvent : pendingStateEventList) {
+                        addToPendingStateIndex(stateEvent);
+                    }
+                    pendingStateEventList.clear();
+                }
+            }
+        }
+        return pendingStateEventIndex != null;
+    }
+
+    private void resolvePendingStateKeyExecutors(ExpressionExecutor conditionExecutor) {
+        if (conditionExecutor instanceof AndConditionExpressionExecutor) {
+            resolvePendingStateKeyExecutors(((AndConditionExpressionExecutor) conditionExecutor)
+                    .getLeftConditionExecutor());
+            if (pendingStateKeyExecutor == null) {
+                resolvePendingStateKeyExecutors(((AndConditionExpressionExecutor) conditionExecutor)
+                        .getRightConditionExecutor());
+            }
+        } else if (conditionExecutor instanceof EqualCompareConditionExpressionExecutor) {
+            ExpressionExecutor leftExecutor = ((EqualCompareConditionExpressionExecutor) conditionExecutor)
+                    .getLeftExpressionExecutor();
+            ExpressionExecutor rightExecutor = ((EqualCompareConditionExpressionExecutor) conditionExecutor)
+                    .getRightExpressionExecutor();
+            if (!(leftExecutor instanceof VariableExpressionExecutor) ||
+                    !(rightExecutor instanceof VariableExpressionExecutor) ||
+                    leftExecutor.getReturnType() != rightExecutor.getReturnType() ||
+                    leftExecutor.getReturnType() == Attribute.Type.DOUBLE ||
+                    leftExecutor.getReturnType() == Attribute.Type.FLOAT ||
+                    leftExecutor.getReturnType() == Attribute.Type.OBJECT) {
+                // Hash lookups are only equivalent to the comparison when both sides are of the same exact type
+                return;
+            }
+            int[] leftPosition = ((VariableExpressionExecutor) leftExecutor).getPosition();
+            int[] rightPosition = ((VariableExpressionExecutor) rightExecutor).getPosition();
+            if (isIncomingEventVariable(leftPosition) && isPendingStateVariable(rightPosition)) {
+                incomingEventKeyExecutor = leftExecutor;
+                pendingStateKeyExecutor = rightExecutor;
+            } else if (isIncomingEventVariable(rightPosition) && isPendingStateVariable(leftPosition)) {
+                incomingEventKeyExecutor = rightExecutor;
+                pendingStateKeyExecutor = leftExecutor;
+            }
+        }
+    }
+
+    private boolean isIncomingEventVariable(int[] position) {
+        return position[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX] == stateId &&
+                (position[SiddhiConstants.STREAM_EVENT_INDEX_IN_CHAIN] == 0 ||
+                        position[SiddhiConstants.STREAM_EVENT_INDEX_IN_CHAIN] == SiddhiConstants.CURRENT) &&
+                position[SiddhiConstants.STREAM_ATTRIBUTE_TYPE_INDEX] != SiddhiConstants.STATE_OUTPUT_DATA_INDEX;
+    }
+
+    private boolean isPendingStateVariable(int[] position) {
+        return position[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX] != stateId &&
+                indexableStateIds.contains(position[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX]) &&
+                position[SiddhiConstants.STREAM_ATTRIBUTE_TYPE_INDEX] != SiddhiConstants.STATE_OUTPUT_DATA_INDEX;
+    }
+
+    private void addToPendingStateIndex(StateEvent stateEvent) {
+        Object key = pendingStateKeyExecutor.execute(stateEvent);
+        pendingStateEventIndex.computeIfAbsent(key, k -> new LinkedList<>()).add(stateEvent);
+        if (withinStates.size() > 0) {
+            long expiryTime = getExpiryTime(stateEvent);
+            if (expiryTime != Long.MAX_VALUE) {
+                if (pendingStateExpiryQueue == null) {
+                    pendingStateExpiryQueue = new PriorityQueue<>(
+                            Comparator.comparingLong((PendingStateExpiry expiry) -> expiry.expiryTime));
+                }
+                pendingStateExpiryQueue.add(new PendingStateExpiry(expiryTime, key, stateEvent));
+            }
+        }
+    }
+
+    /**
+     * @return the time after which the pending state event is expired according to {@link #isExpired}, when
+     * processing events in timestamp order
+     */
+    private long getExpiryTime(StateEvent pendingStateEvent) {
+        long expiryTime = Long.MAX_VALUE;
+        for (Map.Entry<Long, Set<Integer>> withinEntry : withinStates) {
+            for (Integer withinStateId : withinEntry.getValue()) {
+                if (withinStateId == SiddhiConstants.ANY) {
+                    expiryTime = Math.min(expiryTime, pendingStateEvent.getTimestamp() + withinEntry.getKey());
+                } else {
+                    StreamEvent streamEvent = pendingStateEvent.getStreamEvent(withinStateId);
+                    if (streamEvent != null) {
+                        expiryTime = Math.min(expiryTime, streamEvent.getTimestamp() + withinEntry.getKey());
+                    }
+                }
+            }
+        }
+        return expiryTime;
+    }
+
+    private void removeExpiredPendingStates(long currentTimestamp) {
+        if (pendingStateExpiryQueue == null) {
+            return;
+        }
+        while (!pendingStateExpiryQueue.isEmpty() && pendingStateExpiryQueue.peek().expiryTime < currentTimestamp) {
+            PendingStateExpiry expiry = pendingStateExpiryQueue.poll();
+            LinkedList<StateEvent> pendingStateEvents = pendingStateEventIndex.get(expiry.key);
+            if (pendingStateEvents != null) {
+                for (Iterator<StateEvent> iterator = pendingStateEvents.iterator(); iterator.hasNext(); ) {
+                    StateEvent stateEvent = iterator.next();
+                    if (stateEvent == expiry.stateEvent) {
+                        // The same state event instance could have been matched and pending again since then
+                        if (isExpired(stateEvent, currentTimestamp)) {
+                            iterator.remove();
+                        }
+                        break;
+                    }
+                }
+                if (pendingStateEvents.isEmpty()) {
+                    pendingStateEventIndex.remove(expiry.key);
+                }
+            }
+        }
+    }
+
+    private void clearPendingStates() {
+        pendingStateEventList.clear();
+        if (pendingStateEventIndex != null) {
+            pendingStateEventIndex.clear();
+            if (pendingStateExpiryQueue != null) {
+                pendingStateExpiryQueue.clear();
+            }
+        }
+    }
+
+    private LinkedList<StateEvent> getPendingStateEvents() {
+        if (pendingStateEventIndex == null) {
+            return pendingStateEventList;
+        }
+        LinkedList<StateEvent> pendingStateEvents = new LinkedList<>();
+        for (LinkedList<StateEvent> stateEvents : pendingStateEventIndex.values()) {
+            pendingStateEvents.addAll(stateEvents);
+        }
+        return pendingStateEvents;
     }
 
     @Override
@@ -264,7 +452,7 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     public void resetState() {
         lock.lock();
         try {
-            pendingStateEventList.clear();
+            clearPendingStates();
             if (isStartState && newAndEveryStateEventList.isEmpty()) {
                 //        if (isStartState && stateType == StateInputStream.Type.SEQUENCE && newAndEveryStateEventList
                 // .isEmpty()) {
@@ -284,7 +472,13 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     public void updateState() {
         lock.lock();
         try {
-            pendingStateEventList.addAll(newAndEveryStateEventList);
+            if (isPendingStateIndexed()) {
+                for (StateEvent stateEvent : newAndEveryStateEventList) {
+                    addToPendingStateIndex(stateEvent);
+                }
+            } else {
+                pendingStateEventList.addAll(newAndEveryStateEventList);
+            }
             newAndEveryStateEventList.clear();
         } finally {
             lock.unlock();
@@ -298,6 +492,10 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         StreamEvent streamEvent = (StreamEvent) complexEventChunk.next(); //Sure only one will be sent
         lock.lock();
         try {
+            if (isPendingStateIndexed()) {
+                processIndexedPendingStates(streamEvent, returnEventChunk);
+                return returnEventChunk;
+            }
             for (Iterator<StateEvent> iterator = pendingStateEventList.iterator(); iterator.hasNext(); ) {
                 StateEvent stateEvent = iterator.next();
                 if (withinStates.size() > 0) {
@@ -352,6 +550,50 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         return returnEventChunk;
     }
 
+    /**
+     * Process the incoming event against the pending partial matches with the same index key, which are the only ones
+     * that can satisfy the filter of the state.
+     */
+    private void processIndexedPendingStates(StreamEvent streamEvent, ComplexEventChunk<StateEvent> returnEventChunk) {
+        removeExpiredPendingStates(streamEvent.getTimestamp());
+        if (keyLookupStateEvent == null) {
+            keyLookupStateEvent = stateEventPool.borrowEvent();
+        }
+        keyLookupStateEvent.setEvent(stateId, streamEvent);
+        Object key = incomingEventKeyExecutor.execute(keyLookupStateEvent);
+        keyLookupStateEvent.setEvent(stateId, null);
+        if (key == null) {
+            return;
+        }
+        LinkedList<StateEvent> pendingStateEvents = pendingStateEventIndex.get(key);
+        if (pendingStateEvents == null) {
+            return;
+        }
+        for (Iterator<StateEvent> iterator = pendingStateEvents.iterator(); iterator.hasNext(); ) {
+            StateEvent stateEvent = iterator.next();
+            if (withinStates.size() > 0) {
+                if (isExpired(stateEvent, streamEvent.getTimestamp())) {
+                    iterator.remove();
+                    continue;
+                }
+            }
+            stateEvent.setEvent(stateId, streamEventCloner.copyStreamEvent(streamEvent));
+            process(stateEvent);
+            if (this.thisLastProcessor.isEventReturned()) {
+                this.thisLastProcessor.clearProcessedEvent();
+                returnEventChunk.add(stateEvent);
+            }
+            if (stateChanged) {
+                iterator.remove();
+            } else {
+                stateEvent.setEvent(stateId, null);
+            }
+        }
+        if (pendingStateEvents.isEmpty()) {
+            pendingStateEventIndex.remove(key);
+        }
+    }
+
     @Override
     public int getStateId() {
         return stateId;
@@ -365,7 +607,7 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     public Map<String, Object> currentState() {
         Map<String, Object> state = new HashMap<>();
         state.put("FirstEvent", currentStateEventChunk.getFirst());
-        state.put("PendingStateEventList", pendingStateEventList);
+        state.put("PendingStateEventList", getPendingStateEvents());
         state.put("NewAndEveryStateEventList", newAndEveryStateEventList);
         return state;
     }
@@ -376,10 +618,35 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         currentStateEventChunk.add((StateEvent) state.get("FirstEvent"));
         pendingStateEventList = (LinkedList<StateEvent>) state.get("PendingStateEventList");
         newAndEveryStateEventList = (LinkedList<StateEvent>) state.get("NewAndEveryStateEventList");
+        if (pendingStateEventIndex != null) {
+            pendingStateEventIndex.clear();
+            if (pendingStateExpiryQueue != null) {
+                pendingStateExpiryQueue.clear();
+            }
+            for (StateEvent stateEvent : pendingStateEventList) {
+                addToPendingStateIndex(stateEvent);
+            }
+            pendingStateEventList = new LinkedList<>();
+        }
     }
 
     @Override
     public String getElementId() {
         return elementId;
     }
+
+    /**
+     * Expiry time of a pending state event in the pending state index.
+     */
+    private static class PendingStateExpiry {
+        private final long expiryTime;
+        private final Object key;
+        private final StateEvent stateEvent;
+
+        private PendingStateExpiry(long expiryTime, Object key, StateEvent stateEvent) {
+            this.expiryTime = expiryTime;
+            this.key = key;
+            this.stateEvent = stateEvent;
+        }
+    }
 }
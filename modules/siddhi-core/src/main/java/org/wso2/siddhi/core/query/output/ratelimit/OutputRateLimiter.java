@@ -27,6 +27,7 @@ import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +48,19 @@ public abstract class OutputRateLimiter implements EternalReferencedHolder, Snap
     private String elementId;
 
     public void init(SiddhiAppContext siddhiAppContext, LockWrapper lockWrapper, String queryName) {
+        init(siddhiAppContext, lockWrapper, queryName, null);
+    }
+
+    /**
+     * @param elementId element id of the rate limiter, derived from the partition key when cloned for a partition
+     *                  instance such that its state can be restored regardless of the order instances are created
+     *                  in; null to generate a new element id
+     */
+    public void init(SiddhiAppContext siddhiAppContext, LockWrapper lockWrapper, String queryName,
+                     String elementId) {
+        if (elementId != null) {
+            this.elementId = elementId;
+        }
         this.siddhiAppContext = siddhiAppContext;
         this.queryName = queryName;
         if (outputCallback != null && (outputCallback instanceof InsertIntoStreamCallback)) {
@@ -65,27 +79,35 @@ public abstract class OutputRateLimiter implements EternalReferencedHolder, Snap
         if (lockWrapper != null) {
             lockWrapper.unlock();
         }
-        if (!queryCallbacks.isEmpty()) {
-            for (QueryCallback callback : queryCallbacks) {
-                callback.receiveStreamEvent(complexEventChunk);
+        // The time spent in the callbacks is not part of the latency of the query stages
+        boolean excluded = siddhiAppContext.isLatencyBreakdownEnabled() && StageLatencyTracker.excludeIn();
+        try {
+            if (!queryCallbacks.isEmpty()) {
+                for (QueryCallback callback : queryCallbacks) {
+                    callback.receiveStreamEvent(complexEventChunk);
+                }
             }
-        }
-        if (outputCallback != null && complexEventChunk.getFirst() != null) {
-            complexEventChunk.reset();
-            int noOfEvents = 0;
-            while (complexEventChunk.hasNext()) {
-                ComplexEvent complexEvent = complexEventChunk.next();
-                if (complexEvent.getType() == ComplexEvent.Type.EXPIRED) {
-                    complexEvent.setType(ComplexEvent.Type.CURRENT);
-                    noOfEvents++;
-                } else if (complexEvent.getType() == ComplexEvent.Type.RESET) {
-                    complexEventChunk.remove();
-                } else {
-                    noOfEvents++;
+            if (outputCallback != null && complexEventChunk.getFirst() != null) {
+                complexEventChunk.reset();
+                int noOfEvents = 0;
+                while (complexEventChunk.hasNext()) {
+                    ComplexEvent complexEvent = complexEventChunk.next();
+                    if (complexEvent.getType() == ComplexEvent.Type.EXPIRED) {
+                        complexEvent.setType(ComplexEvent.Type.CURRENT);
+                        noOfEvents++;
+                    } else if (complexEvent.getType() == ComplexEvent.Type.RESET) {
+                        complexEventChunk.remove();
+                    } else {
+                        noOfEvents++;
+                    }
+                }
+                if (complexEventChunk.getFirst() != null) {
+                    outputCallback.send(complexEventChunk, noOfEvents);
                 }
             }
-            if (complexEventChunk.getFirst() != null) {
-                outputCallback.send(complexEventChunk, noOfEvents);
+        } finally {
+            if (excluded) {
+                StageLatencyTracker.excludeOut();
             }
         }
 
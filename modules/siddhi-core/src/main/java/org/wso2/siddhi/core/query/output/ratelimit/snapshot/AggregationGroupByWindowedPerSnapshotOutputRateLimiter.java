@@ -37,7 +37,7 @@ import java.util.concurrent.ScheduledExecutorService;
 public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends
                                                                     AggregationWindowedPerSnapshotOutputRateLimiter {
     private List<GroupedComplexEvent> eventList;
-    private Map<String, Map<Integer, Object>> groupByAggregateAttributeValueMap;
+    private Map<Object, Map<Integer, Object>> groupByAggregateAttributeValueMap;
 
     protected AggregationGroupByWindowedPerSnapshotOutputRateLimiter(String id, Long value, ScheduledExecutorService
             scheduledExecutorService, List<Integer> aggregateAttributePositionList, WrappedSnapshotOutputRateLimiter
@@ -47,7 +47,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends
         super(id, value, scheduledExecutorService, aggregateAttributePositionList, wrappedSnapshotOutputRateLimiter,
               siddhiAppContext, queryName);
         this.queryName = queryName;
-        groupByAggregateAttributeValueMap = new HashMap<String, Map<Integer, Object>>();
+        groupByAggregateAttributeValueMap = new HashMap<Object, Map<Integer, Object>>();
         eventList = new LinkedList<GroupedComplexEvent>();
     }
 
@@ -57,7 +57,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends
         List<ComplexEventChunk<ComplexEvent>> outputEventChunks = new ArrayList<ComplexEventChunk<ComplexEvent>>();
         synchronized (this) {
             complexEventChunk.reset();
-            String currentGroupByKey = null;
+            Object currentGroupByKey = null;
             Map<Integer, Object> currentAggregateAttributeValueMap = null;
             while (complexEventChunk.hasNext()) {
                 ComplexEvent event = complexEventChunk.next();
@@ -117,7 +117,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends
     private void constructOutputChunk(List<ComplexEventChunk<ComplexEvent>> outputEventChunks) {
         ComplexEventChunk<ComplexEvent> outputEventChunk = new ComplexEventChunk<ComplexEvent>(false);
         for (GroupedComplexEvent originalComplexEvent : eventList) {
-            String currentGroupByKey = originalComplexEvent.getGroupKey();
+            Object currentGroupByKey = originalComplexEvent.getGroupKey();
             Map<Integer, Object> currentAggregateAttributeValueMap = groupByAggregateAttributeValueMap.get
                     (currentGroupByKey);
             ComplexEvent eventCopy = cloneComplexEvent(originalComplexEvent.getComplexEvent());
@@ -142,7 +142,7 @@ public class AggregationGroupByWindowedPerSnapshotOutputRateLimiter extends
     @Override
     public synchronized void restoreState(Map<String, Object> state) {
         eventList = (List<GroupedComplexEvent>) state.get("EventList");
-        groupByAggregateAttributeValueMap = (Map<String, Map<Integer, Object>>) state.get
+        groupByAggregateAttributeValueMap = (Map<Object, Map<Integer, Object>>) state.get
                 ("GroupByAggregateAttributeValueMap");
     }
 
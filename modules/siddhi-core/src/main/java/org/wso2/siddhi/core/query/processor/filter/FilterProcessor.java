@@ -22,6 +22,7 @@ import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
@@ -31,6 +32,7 @@ public class FilterProcessor implements Processor {
 
     protected Processor next;
     private ExpressionExecutor conditionExecutor;
+    private StageLatencyTracker latencyTracker;
 
     public FilterProcessor(ExpressionExecutor conditionExecutor) {
         if (Attribute.Type.BOOL.equals(conditionExecutor.getReturnType())) {
@@ -43,17 +45,26 @@ public class FilterProcessor implements Processor {
     }
 
     public FilterProcessor cloneProcessor(String key) {
-        return new FilterProcessor(conditionExecutor.cloneExecutor(key));
+        FilterProcessor filterProcessor = new FilterProcessor(conditionExecutor.cloneExecutor(key));
+        filterProcessor.latencyTracker = latencyTracker;
+        return filterProcessor;
     }
 
     @Override
     public void process(ComplexEventChunk complexEventChunk) {
-        complexEventChunk.reset();
-        while (complexEventChunk.hasNext()) {
-            ComplexEvent complexEvent = complexEventChunk.next();
-            Object result = conditionExecutor.execute(complexEvent);
-            if (result == null || !(Boolean) result) {
-                complexEventChunk.remove();
+        boolean timed = latencyTracker != null && latencyTracker.markIn();
+        try {
+            complexEventChunk.reset();
+            while (complexEventChunk.hasNext()) {
+                ComplexEvent complexEvent = complexEventChunk.next();
+                Object result = conditionExecutor.execute(complexEvent);
+                if (result == null || !(Boolean) result) {
+                    complexEventChunk.remove();
+                }
+            }
+        } finally {
+            if (timed) {
+                latencyTracker.markOut();
             }
         }
         if (complexEventChunk.getFirst() != null) {
@@ -61,6 +72,18 @@ public class FilterProcessor implements Processor {
         }
     }
 
+    public ExpressionExecutor getConditionExecutor() {
+        return conditionExecutor;
+    }
+
+    public void setConditionExecutor(ExpressionExecutor conditionExecutor) {
+        this.conditionExecutor = conditionExecutor;
+    }
+
+    public void setLatencyTracker(StageLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
     @Override
     public Processor getNextProcessor() {
         return next;
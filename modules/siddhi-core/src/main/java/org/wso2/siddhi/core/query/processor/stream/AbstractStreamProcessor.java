@@ -34,6 +34,7 @@ import org.wso2.siddhi.core.util.ExceptionUtil;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.query.api.SiddhiElement;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
@@ -62,6 +63,7 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
     protected String queryName;
     private ConfigReader configReader;
     private boolean outputExpectsExpiredEvents;
+    private StageLatencyTracker latencyTracker;
 
     public AbstractDefinition initProcessor(AbstractDefinition inputDefinition,
                                             ExpressionExecutor[] attributeExpressionExecutors,
@@ -121,12 +123,17 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
 
     public void process(ComplexEventChunk streamEventChunk) {
         streamEventChunk.reset();
+        boolean timed = latencyTracker != null && latencyTracker.markIn();
         try {
             processEventChunk(streamEventChunk, nextProcessor, streamEventCloner, complexEventPopulater);
         } catch (RuntimeException e) {
             log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
                     " Dropping event chunk " + streamEventChunk + ", error in processing " + this.getClass()
                     .getCanonicalName() + ".", e);
+        } finally {
+            if (timed) {
+                latencyTracker.markOut();
+            }
         }
     }
 
@@ -146,6 +153,13 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
         return nextProcessor;
     }
 
+    /**
+     * @param latencyTracker tracker of the processing latency, excluding the time of the processors it calls
+     */
+    public void setLatencyTracker(StageLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
     public void setNextProcessor(Processor processor) {
         this.nextProcessor = processor;
     }
@@ -169,6 +183,7 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
             abstractStreamProcessor.configReader = configReader;
             abstractStreamProcessor.outputExpectsExpiredEvents = outputExpectsExpiredEvents;
             abstractStreamProcessor.queryName = queryName;
+            abstractStreamProcessor.latencyTracker = latencyTracker;
             abstractStreamProcessor.siddhiAppContext.getSnapshotService().addSnapshotable(queryName,
                     abstractStreamProcessor);
             abstractStreamProcessor.siddhiAppContext.addEternalReferencedHolder(abstractStreamProcessor);
@@ -41,11 +41,11 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.Expression;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Sample Query:
@@ -96,7 +96,8 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
     private static final String ASC = "asc";
     private static final String DESC = "desc";
     private int lengthToKeep;
-    private List<StreamEvent> sortedWindow = new ArrayList<StreamEvent>();
+    private TreeMap<SortKey, StreamEvent> sortedWindow;
+    private long sequence;
     private List<Object[]> parameterInfo;
     private EventComparator eventComparator;
 
@@ -111,6 +112,7 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
         }
         parameterInfo = new ArrayList<Object[]>();
         eventComparator = new EventComparator();
+        sortedWindow = new TreeMap<SortKey, StreamEvent>(new SortKeyComparator());
         for (int i = 1, parametersLength = attributeExpressionExecutors.length; i < parametersLength; i++) {
             if (!(attributeExpressionExecutors[i] instanceof VariableExpressionExecutor)) {
                 throw new UnsupportedOperationException("Required a variable, but found a string parameter");
@@ -158,10 +160,9 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                 streamEvent.setNext(null);
                 streamEventChunk.add(streamEvent);
 
-                sortedWindow.add(clonedEvent);
+                sortedWindow.put(new SortKey(clonedEvent, sequence++), clonedEvent);
                 if (sortedWindow.size() > lengthToKeep) {
-                    Collections.sort(sortedWindow, eventComparator);
-                    StreamEvent expiredEvent = sortedWindow.remove(sortedWindow.size() - 1);
+                    StreamEvent expiredEvent = sortedWindow.pollLastEntry().getValue();
                     expiredEvent.setTimestamp(currentTime);
                     streamEventChunk.add(expiredEvent);
                 }
@@ -186,7 +187,7 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
     public Map<String, Object> currentState() {
         Map<String, Object> state = new HashMap<>();
         synchronized (this) {
-            state.put("SortedWindow", sortedWindow);
+            state.put("SortedWindow", new ArrayList<StreamEvent>(sortedWindow.values()));
         }
         return state;
     }
@@ -194,12 +195,16 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
 
     @Override
     public synchronized void restoreState(Map<String, Object> state) {
-        sortedWindow = (List<StreamEvent>) state.get("SortedWindow");
+        sortedWindow.clear();
+        sequence = 0;
+        for (StreamEvent streamEvent : (List<StreamEvent>) state.get("SortedWindow")) {
+            sortedWindow.put(new SortKey(streamEvent, sequence++), streamEvent);
+        }
     }
 
     @Override
     public synchronized StreamEvent find(StateEvent matchingEvent, CompiledCondition compiledCondition) {
-        return ((Operator) compiledCondition).find(matchingEvent, sortedWindow, streamEventCloner);
+        return ((Operator) compiledCondition).find(matchingEvent, sortedWindow.values(), streamEventCloner);
     }
 
     @Override
@@ -207,10 +212,35 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                                                SiddhiAppContext siddhiAppContext,
                                                List<VariableExpressionExecutor> variableExpressionExecutors,
                                                Map<String, Table> tableMap, String queryName) {
-        return OperatorParser.constructOperator(sortedWindow, condition, matchingMetaInfoHolder,
+        return OperatorParser.constructOperator(sortedWindow.values(), condition, matchingMetaInfoHolder,
                 siddhiAppContext, variableExpressionExecutors, tableMap, this.queryName);
     }
 
+    /**
+     * Position of an event in the sorted window. Events having the same sort attribute values are ordered by their
+     * arrival, hence the latest of the events with the greatest values is expired first.
+     */
+    private static class SortKey {
+        private final StreamEvent streamEvent;
+        private final long sequence;
+
+        private SortKey(StreamEvent streamEvent, long sequence) {
+            this.streamEvent = streamEvent;
+            this.sequence = sequence;
+        }
+    }
+
+    private class SortKeyComparator implements Comparator<SortKey> {
+        @Override
+        public int compare(SortKey key1, SortKey key2) {
+            int comparisonResult = eventComparator.compare(key1.streamEvent, key2.streamEvent);
+            if (comparisonResult != 0) {
+                return comparisonResult;
+            }
+            return Long.compare(key1.sequence, key2.sequence);
+        }
+    }
+
     private class EventComparator implements Comparator<StreamEvent> {
         @Override
         public int compare(StreamEvent e1, StreamEvent e2) {
@@ -27,11 +27,19 @@ import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.parser.ExpressionParser;
 import org.wso2.siddhi.query.api.expression.Expression;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
- * Class to generate keys for GroupBy groups
+ * Class to generate keys for GroupBy groups.
+ * <p>
+ * Group keys are typed objects compared by value rather than Strings joined with a delimiter. Single attribute group
+ * bys use the attribute value itself as the key, hence generating their key does not allocate, while multi attribute
+ * group bys use a {@link CompositeKey} holding the values. Values other than Strings, boxed primitives and booleans
+ * are keyed by their String representation, as they may change after the group is created.
  */
 public class GroupByKeyGenerator {
 
@@ -58,15 +66,98 @@ public class GroupByKeyGenerator {
      * @param event complexEvent
      * @return GroupByKey
      */
-    public String constructEventKey(ComplexEvent event) {
+    public Object constructEventKey(ComplexEvent event) {
         if (groupByExecutors != null) {
-            StringBuilder sb = new StringBuilder();
-            for (ExpressionExecutor executor : groupByExecutors) {
-                sb.append(executor.execute(event)).append(SiddhiConstants.KEY_DELIMITER);
+            if (groupByExecutors.length == 1) {
+                Object value = groupByExecutors[0].execute(event);
+                if (value == null) {
+                    // null keys denote the absence of a group by
+                    return new CompositeKey(new Object[]{null});
+                }
+                return toKeyValue(value);
             }
-            return sb.toString();
+            Object[] values = new Object[groupByExecutors.length];
+            for (int i = 0; i < groupByExecutors.length; i++) {
+                values[i] = toKeyValue(groupByExecutors[i].execute(event));
+            }
+            return new CompositeKey(values);
         } else {
             return null;
         }
     }
+
+    /**
+     * String form of a group key as generated before the keys were typed, where the values are joined with
+     * {@link SiddhiConstants#KEY_DELIMITER}. Used to match the group states of snapshots taken with String keys.
+     *
+     * @param key group key generated by {@link #constructEventKey(ComplexEvent)}
+     * @return the String key of the group
+     */
+    public static String toLegacyKey(Object key) {
+        if (key instanceof CompositeKey) {
+            return key.toString();
+        }
+        return key + SiddhiConstants.KEY_DELIMITER;
+    }
+
+    private static Object toKeyValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> clazz = value.getClass();
+        if (clazz == String.class || clazz == Long.class || clazz == Integer.class || clazz == Double.class
+                || clazz == Float.class || clazz == Boolean.class) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Values of multiple group by attributes, compared by value.
+     */
+    public static final class CompositeKey implements Serializable {
+
+        private static final long serialVersionUID = 2956734587102893361L;
+        private final Object[] values;
+        private final int hashCode;
+
+        private CompositeKey(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CompositeKey)) {
+                return false;
+            }
+            CompositeKey other = (CompositeKey) o;
+            if (hashCode != other.hashCode || values.length != other.values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (!Objects.equals(values[i], other.values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Object value : values) {
+                sb.append(value).append(SiddhiConstants.KEY_DELIMITER);
+            }
+            return sb.toString();
+        }
+    }
 }
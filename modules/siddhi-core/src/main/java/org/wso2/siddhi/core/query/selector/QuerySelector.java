@@ -31,6 +31,7 @@ import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.selector.attribute.processor.AttributeProcessor;
 import org.wso2.siddhi.core.query.selector.attribute.processor.executor.GroupByAggregationAttributeExecutor;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.query.api.execution.query.selection.Selector;
 
 import java.util.ArrayList;
@@ -62,6 +63,8 @@ public class QuerySelector implements Processor {
     private boolean batchingEnabled = true;
     private long limit = SiddhiConstants.UNKNOWN_STATE;
     private long offset = SiddhiConstants.UNKNOWN_STATE;
+    private StageLatencyTracker latencyTracker;
+    private StageLatencyTracker rateLimiterLatencyTracker;
 
     public QuerySelector(String id, Selector selector, boolean currentOn, boolean expiredOn, SiddhiAppContext
             siddhiAppContext) {
@@ -79,23 +82,37 @@ public class QuerySelector implements Processor {
             log.trace("event is processed by selector " + id + this);
         }
         ComplexEventChunk outputComplexEventChunk = null;
-        if (complexEventChunk.isBatch() && batchingEnabled) {
-            if (isGroupBy) {
-                outputComplexEventChunk = processInBatchGroupBy(complexEventChunk);
-            } else if (containsAggregator) {
-                outputComplexEventChunk = processInBatchNoGroupBy(complexEventChunk);
+        boolean timed = latencyTracker != null && latencyTracker.markIn();
+        try {
+            if (complexEventChunk.isBatch() && batchingEnabled) {
+                if (isGroupBy) {
+                    outputComplexEventChunk = processInBatchGroupBy(complexEventChunk);
+                } else if (containsAggregator) {
+                    outputComplexEventChunk = processInBatchNoGroupBy(complexEventChunk);
+                } else {
+                    outputComplexEventChunk = processNoGroupBy(complexEventChunk);
+                }
             } else {
-                outputComplexEventChunk = processNoGroupBy(complexEventChunk);
+                if (isGroupBy) {
+                    outputComplexEventChunk = processGroupBy(complexEventChunk);
+                } else {
+                    outputComplexEventChunk = processNoGroupBy(complexEventChunk);
+                }
             }
-        } else {
-            if (isGroupBy) {
-                outputComplexEventChunk = processGroupBy(complexEventChunk);
-            } else {
-                outputComplexEventChunk = processNoGroupBy(complexEventChunk);
+        } finally {
+            if (timed) {
+                latencyTracker.markOut();
             }
         }
         if (outputComplexEventChunk != null) {
-            outputRateLimiter.process(outputComplexEventChunk);
+            timed = rateLimiterLatencyTracker != null && rateLimiterLatencyTracker.markIn();
+            try {
+                outputRateLimiter.process(outputComplexEventChunk);
+            } finally {
+                if (timed) {
+                    rateLimiterLatencyTracker.markOut();
+                }
+            }
         }
 
     }
@@ -182,7 +199,7 @@ public class QuerySelector implements Processor {
                     case CURRENT:
                     case EXPIRED:
                         eventPopulator.populateStateEvent(event);
-                        String groupedByKey = groupByKeyGenerator.constructEventKey(event);
+                        Object groupedByKey = groupByKeyGenerator.constructEventKey(event);
                         GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupedByKey);
 
                         for (AttributeProcessor attributeProcessor : attributeProcessorList) {
@@ -275,7 +292,7 @@ public class QuerySelector implements Processor {
     }
 
     private ComplexEventChunk processInBatchGroupBy(ComplexEventChunk complexEventChunk) {
-        Map<String, ComplexEvent> groupedEvents = new LinkedHashMap<String, ComplexEvent>();
+        Map<Object, ComplexEvent> groupedEvents = new LinkedHashMap<Object, ComplexEvent>();
         complexEventChunk.reset();
 
         synchronized (this) {
@@ -286,7 +303,7 @@ public class QuerySelector implements Processor {
                     case CURRENT:
                     case EXPIRED:
                         eventPopulator.populateStateEvent(event);
-                        String groupByKey = groupByKeyGenerator.constructEventKey(event);
+                        Object groupByKey = groupByKeyGenerator.constructEventKey(event);
                         GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupByKey);
 
                         for (AttributeProcessor attributeProcessor : attributeProcessorList) {
@@ -315,7 +332,7 @@ public class QuerySelector implements Processor {
 
         if (groupedEvents.size() != 0) {
             complexEventChunk.clear();
-            for (Map.Entry<String, ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
+            for (Map.Entry<Object, ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
                 complexEventChunk.add(new GroupedComplexEvent(groupedEventEntry.getKey(),
                         groupedEventEntry.getValue()));
             }
@@ -409,9 +426,22 @@ public class QuerySelector implements Processor {
         clonedQuerySelector.orderByEventComparator = orderByEventComparator;
         clonedQuerySelector.limit = limit;
         clonedQuerySelector.offset = offset;
+        clonedQuerySelector.latencyTracker = latencyTracker;
+        clonedQuerySelector.rateLimiterLatencyTracker = rateLimiterLatencyTracker;
         return clonedQuerySelector;
     }
 
+    /**
+     * @param latencyTracker            tracker of the selection latency
+     * @param rateLimiterLatencyTracker tracker of the output rate limiting latency, excluding the time of the
+     *                                  callbacks it calls
+     */
+    public void setLatencyTrackers(StageLatencyTracker latencyTracker,
+                                   StageLatencyTracker rateLimiterLatencyTracker) {
+        this.latencyTracker = latencyTracker;
+        this.rateLimiterLatencyTracker = rateLimiterLatencyTracker;
+    }
+
     public void setBatchingEnabled(boolean batchingEnabled) {
         this.batchingEnabled = batchingEnabled;
     }
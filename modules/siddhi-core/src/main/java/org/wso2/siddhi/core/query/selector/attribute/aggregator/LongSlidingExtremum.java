@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+/**
+ * Maintains the maximum or the minimum of a sliding window of long values in amortized O(1) time per event, see
+ * {@link SlidingExtremum}.
+ */
+public class LongSlidingExtremum extends SlidingExtremum {
+
+    private static final long serialVersionUID = 5367021948816303729L;
+
+    /**
+     * @param max true to maintain the maximum of the window, false to maintain the minimum
+     */
+    public LongSlidingExtremum(boolean max) {
+        super(max);
+    }
+
+    public void add(long value) {
+        addValue(value);
+    }
+
+    /**
+     * Remove a value from the window.
+     *
+     * @param value the expired value
+     * @return false if the value is not in the window
+     */
+    public boolean remove(long value) {
+        return removeValue(value);
+    }
+
+    /**
+     * @return the extremum of the window, only valid when the window is not empty
+     */
+    public long get() {
+        return getValue();
+    }
+
+    @Override
+    boolean isLessOrEqual(long value, long other) {
+        return value <= other;
+    }
+}
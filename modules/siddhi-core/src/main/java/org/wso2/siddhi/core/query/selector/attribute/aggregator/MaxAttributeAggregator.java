@@ -29,10 +29,7 @@ import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
@@ -154,7 +151,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
     class MaxAttributeAggregatorDouble extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> maxDeque = new LinkedList<Double>();
+        private DoubleSlidingExtremum maxWindow = new DoubleSlidingExtremum(true);
         private volatile Double maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -163,38 +160,38 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
+            maxWindow.add((Double) data);
+            return updateMaxValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            maxWindow.remove((Double) data);
+            return updateMaxValue();
+        }
+
+        private Double updateMaxValue() {
+            if (maxWindow.isEmpty()) {
+                maxValue = null;
+            } else {
+                double value = maxWindow.get();
+                if (maxValue == null || Double.compare(maxValue, value) != 0) {
+                    maxValue = value;
+                }
+            }
             return maxValue;
         }
 
         @Override
         public synchronized Object reset() {
-            maxDeque.clear();
+            maxWindow.clear();
             maxValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return maxDeque.size() == 0 && maxValue == null;
+            return maxWindow.isEmpty() && maxValue == null;
         }
 
         @Override
@@ -202,7 +199,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MaxValue", maxValue);
-                state.put("MaxDeque", maxDeque);
+                state.put("MaxWindow", maxWindow);
             }
             return state;
         }
@@ -210,7 +207,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Double) state.get("MaxValue");
-            maxDeque = (Deque<Double>) state.get("MaxDeque");
+            maxWindow = (DoubleSlidingExtremum) state.get("MaxWindow");
         }
 
         protected Object currentValue() {
@@ -221,7 +218,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
     class MaxAttributeAggregatorFloat extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> maxDeque = new LinkedList<Float>();
+        private DoubleSlidingExtremum maxWindow = new DoubleSlidingExtremum(true);
         private volatile Float maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -230,38 +227,38 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
+            maxWindow.add((Float) data);
+            return updateMaxValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            maxWindow.remove((Float) data);
+            return updateMaxValue();
+        }
+
+        private Float updateMaxValue() {
+            if (maxWindow.isEmpty()) {
+                maxValue = null;
+            } else {
+                float value = (float) maxWindow.get();
+                if (maxValue == null || Float.compare(maxValue, value) != 0) {
+                    maxValue = value;
+                }
+            }
             return maxValue;
         }
 
         @Override
         public synchronized Object reset() {
-            maxDeque.clear();
+            maxWindow.clear();
             maxValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return maxDeque.size() == 0 && maxValue == null;
+            return maxWindow.isEmpty() && maxValue == null;
         }
 
         @Override
@@ -269,7 +266,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MaxValue", maxValue);
-                state.put("MaxDeque", maxDeque);
+                state.put("MaxWindow", maxWindow);
             }
             return state;
         }
@@ -277,19 +274,18 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Float) state.get("MaxValue");
-            maxDeque = (Deque<Float>) state.get("MaxDeque");
+            maxWindow = (DoubleSlidingExtremum) state.get("MaxWindow");
         }
 
         protected Object currentValue() {
             return maxValue;
         }
-
     }
 
     class MaxAttributeAggregatorInt extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> maxDeque = new LinkedList<Integer>();
+        private LongSlidingExtremum maxWindow = new LongSlidingExtremum(true);
         private volatile Integer maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -298,38 +294,38 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
+            maxWindow.add((Integer) data);
+            return updateMaxValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            maxWindow.remove((Integer) data);
+            return updateMaxValue();
+        }
+
+        private Integer updateMaxValue() {
+            if (maxWindow.isEmpty()) {
+                maxValue = null;
+            } else {
+                int value = (int) maxWindow.get();
+                if (maxValue == null || maxValue != value) {
+                    maxValue = value;
+                }
+            }
             return maxValue;
         }
 
         @Override
         public synchronized Object reset() {
-            maxDeque.clear();
+            maxWindow.clear();
             maxValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return maxDeque.size() == 0 && maxValue == null;
+            return maxWindow.isEmpty() && maxValue == null;
         }
 
         @Override
@@ -337,7 +333,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MaxValue", maxValue);
-                state.put("MaxDeque", maxDeque);
+                state.put("MaxWindow", maxWindow);
             }
             return state;
         }
@@ -345,19 +341,18 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Integer) state.get("MaxValue");
-            maxDeque = (Deque<Integer>) state.get("MaxDeque");
+            maxWindow = (LongSlidingExtremum) state.get("MaxWindow");
         }
 
         protected Object currentValue() {
             return maxValue;
         }
-
     }
 
     class MaxAttributeAggregatorLong extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> maxDeque = new LinkedList<Long>();
+        private LongSlidingExtremum maxWindow = new LongSlidingExtremum(true);
         private volatile Long maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -366,38 +361,38 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
-            }
-            return maxValue;
+            maxWindow.add((Long) data);
+            return updateMaxValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            maxWindow.remove((Long) data);
+            return updateMaxValue();
+        }
+
+        private Long updateMaxValue() {
+            if (maxWindow.isEmpty()) {
+                maxValue = null;
+            } else {
+                long value = maxWindow.get();
+                if (maxValue == null || maxValue != value) {
+                    maxValue = value;
+                }
+            }
             return maxValue;
         }
 
         @Override
         public synchronized Object reset() {
-            maxDeque.clear();
+            maxWindow.clear();
             maxValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return maxDeque.size() == 0 && maxValue == null;
+            return maxWindow.isEmpty() && maxValue == null;
         }
 
         @Override
@@ -405,7 +400,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MaxValue", maxValue);
-                state.put("MaxDeque", maxDeque);
+                state.put("MaxWindow", maxWindow);
             }
             return state;
         }
@@ -413,13 +408,11 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Long) state.get("MaxValue");
-            maxDeque = (Deque<Long>) state.get("MaxDeque");
+            maxWindow = (LongSlidingExtremum) state.get("MaxWindow");
         }
 
         protected Object currentValue() {
             return maxValue;
         }
-
     }
-
 }
@@ -29,10 +29,7 @@ import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
@@ -157,7 +154,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
     class MinAttributeAggregatorDouble extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> minDeque = new LinkedList<Double>();
+        private DoubleSlidingExtremum minWindow = new DoubleSlidingExtremum(false);
         private volatile Double minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -166,38 +163,38 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
-            }
-            return minValue;
+            minWindow.add((Double) data);
+            return updateMinValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
+            minWindow.remove((Double) data);
+            return updateMinValue();
+        }
+
+        private Double updateMinValue() {
+            if (minWindow.isEmpty()) {
+                minValue = null;
+            } else {
+                double value = minWindow.get();
+                if (minValue == null || Double.compare(minValue, value) != 0) {
+                    minValue = value;
+                }
+            }
             return minValue;
         }
 
         @Override
         public synchronized Object reset() {
-            minDeque.clear();
+            minWindow.clear();
             minValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return minDeque.size() == 0 && minValue == null;
+            return minWindow.isEmpty() && minValue == null;
         }
 
         @Override
@@ -205,7 +202,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MinValue", minValue);
-                state.put("MinDeque", minDeque);
+                state.put("MinWindow", minWindow);
             }
             return state;
         }
@@ -213,19 +210,18 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Double) state.get("MinValue");
-            minDeque = (Deque<Double>) state.get("MinDeque");
+            minWindow = (DoubleSlidingExtremum) state.get("MinWindow");
         }
 
         protected Object currentValue() {
             return minValue;
         }
-
     }
 
     class MinAttributeAggregatorFloat extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> minDeque = new LinkedList<Float>();
+        private DoubleSlidingExtremum minWindow = new DoubleSlidingExtremum(false);
         private volatile Float minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -234,38 +230,38 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
-            }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
-            }
-            return minValue;
+            minWindow.add((Float) data);
+            return updateMinValue();
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
+            minWindow.remove((Float) data);
+            return updateMinValue();
+        }
+
+        private Float updateMinValue() {
+            if (minWindow.isEmpty()) {
+                minValue = null;
+            } else {
+                float value = (float) minWindow.get();
+                if (minValue == null || Float.compare(minValue, value) != 0) {
+                    minValue = value;
+                }
+            }
             return minValue;
         }
 
         @Override
         public synchronized Object reset() {
-            minDeque.clear();
+            minWindow.clear();
             minValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return minDeque.size() == 0 && minValue == null;
+            return minWindow.isEmpty() && minValue == null;
         }
 
         @Override
@@ -273,7 +269,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MinValue", minValue);
-                state.put("MinDeque", minDeque);
+                state.put("MinWindow", minWindow);
             }
             return state;
         }
@@ -281,7 +277,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Float) state.get("MinValue");
-            minDeque = (Deque<Float>) state.get("MinDeque");
+            minWindow = (DoubleSlidingExtremum) state.get("MinWindow");
         }
 
         protected Object currentValue() {
@@ -292,7 +288,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
     class MinAttributeAggregatorInt extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> minDeque = new LinkedList<Integer>();
+        private LongSlidingExtremum minWindow = new LongSlidingExtremum(false);
         private volatile Integer minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -301,39 +297,38 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
+            minWindow.add((Integer) data);
+            return updateMinValue();
+        }
+
+        @Override
+        public synchronized Object processRemove(Object data) {
+            minWindow.remove((Integer) data);
+            return updateMinValue();
+        }
 
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
+        private Integer updateMinValue() {
+            if (minWindow.isEmpty()) {
+                minValue = null;
+            } else {
+                int value = (int) minWindow.get();
+                if (minValue == null || minValue != value) {
+                    minValue = value;
                 }
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
-            }
             return minValue;
         }
 
         @Override
         public synchronized Object reset() {
-            minDeque.clear();
+            minWindow.clear();
             minValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return minDeque.size() == 0 && minValue == null;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
+            return minWindow.isEmpty() && minValue == null;
         }
 
         @Override
@@ -341,7 +336,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MinValue", minValue);
-                state.put("MinDeque", minDeque);
+                state.put("MinWindow", minWindow);
             }
             return state;
         }
@@ -349,7 +344,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Integer) state.get("MinValue");
-            minDeque = (Deque<Integer>) state.get("MinDeque");
+            minWindow = (LongSlidingExtremum) state.get("MinWindow");
         }
 
         protected Object currentValue() {
@@ -360,7 +355,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
     class MinAttributeAggregatorLong extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> minDeque = new LinkedList<Long>();
+        private LongSlidingExtremum minWindow = new LongSlidingExtremum(false);
         private volatile Long minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -369,38 +364,38 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
+            minWindow.add((Long) data);
+            return updateMinValue();
+        }
+
+        @Override
+        public synchronized Object processRemove(Object data) {
+            minWindow.remove((Long) data);
+            return updateMinValue();
+        }
+
+        private Long updateMinValue() {
+            if (minWindow.isEmpty()) {
+                minValue = null;
+            } else {
+                long value = minWindow.get();
+                if (minValue == null || minValue != value) {
+                    minValue = value;
                 }
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
-            }
             return minValue;
         }
 
         @Override
         public synchronized Object reset() {
-            minDeque.clear();
+            minWindow.clear();
             minValue = null;
             return null;
         }
 
         @Override
         public boolean canDestroy() {
-            return minDeque.size() == 0 && minValue == null;
-        }
-
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
+            return minWindow.isEmpty() && minValue == null;
         }
 
         @Override
@@ -408,7 +403,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
             Map<String, Object> state = new HashMap<>();
             synchronized (this) {
                 state.put("MinValue", minValue);
-                state.put("MinDeque", minDeque);
+                state.put("MinWindow", minWindow);
             }
             return state;
         }
@@ -416,13 +411,11 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Long) state.get("MinValue");
-            minDeque = (Deque<Long>) state.get("MinDeque");
+            minWindow = (LongSlidingExtremum) state.get("MinWindow");
         }
 
         protected Object currentValue() {
             return minValue;
         }
-
     }
-
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import java.io.Serializable;
+
+/**
+ * Maintains the maximum or the minimum of a sliding window of values in amortized O(1) time per event. The values are
+ * encoded as longs by the sub classes, which define their order.
+ * <p>
+ * The values of the window are kept in arrival order in a primitive ring buffer, together with a monotonic deque of
+ * the values that can still become the extremum once the older values expire. Windows expire their values in arrival
+ * order, hence a removal is matched against the oldest value and done in constant time. When some other value is
+ * removed, as with sort or unique windows and joins, the first equal value is removed from the buffer and the deque
+ * is rebuilt in O(window) time.
+ * <p>
+ * Until the first value is removed at most {@link #MAX_VALUES_BEFORE_EXPIRY} values are buffered, beyond which only
+ * the deque is kept, as without a window the values are never removed. Values dropped that way are later expired by
+ * their arrival sequence, which is exact for windows expiring in arrival order.
+ */
+abstract class SlidingExtremum implements Serializable {
+
+    static final int MAX_VALUES_BEFORE_EXPIRY = 1024;
+    private static final long serialVersionUID = -4519783346218375043L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean max;
+    // Values of the window arrived from storedSequence onwards
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int first;
+    private int stored;
+    private long storedSequence;
+    private long[] candidateValues = new long[INITIAL_CAPACITY];
+    private long[] candidateSequences = new long[INITIAL_CAPACITY];
+    private int candidateFirst;
+    private int candidateSize;
+    private long firstSequence;
+    private int size;
+    private boolean expirySeen;
+
+    /**
+     * @param max true to maintain the maximum of the window, false to maintain the minimum
+     */
+    SlidingExtremum(boolean max) {
+        this.max = max;
+    }
+
+    /**
+     * @param value value encoded as a long, where equal values have equal encodings
+     * @param other value encoded as a long
+     * @return true if value is less than or equal to other
+     */
+    abstract boolean isLessOrEqual(long value, long other);
+
+    /**
+     * @return true if value would be the extremum of a window holding both values
+     */
+    private boolean isAsExtreme(long value, long other) {
+        return max ? isLessOrEqual(other, value) : isLessOrEqual(value, other);
+    }
+
+    void addValue(long value) {
+        if (!expirySeen && stored == MAX_VALUES_BEFORE_EXPIRY) {
+            // Without expiries only the candidates can become the extremum
+            storedSequence += stored;
+            first = 0;
+            stored = 0;
+        }
+        if (stored == values.length) {
+            resizeValues(values.length << 1);
+        }
+        values[(first + stored) & (values.length - 1)] = value;
+        stored++;
+        addCandidate(firstSequence + size, value);
+        size++;
+    }
+
+    /**
+     * Remove a value from the window.
+     *
+     * @param value the expired value, encoded as a long
+     * @return false if the value is not in the window
+     */
+    boolean removeValue(long value) {
+        if (size == 0) {
+            return false;
+        }
+        expirySeen = true;
+        boolean removed = false;
+        if (firstSequence == storedSequence) {
+            if (values[first] == value) {
+                if (candidateSequences[candidateFirst] == firstSequence) {
+                    pollCandidate();
+                }
+                first = (first + 1) & (values.length - 1);
+                stored--;
+                storedSequence++;
+                firstSequence++;
+                size--;
+                removed = true;
+            }
+        } else if (candidateSequences[candidateFirst] == firstSequence) {
+            if (candidateValues[candidateFirst] == value) {
+                pollCandidate();
+                firstSequence++;
+                size--;
+                removed = true;
+            }
+        } else if (isAsExtreme(candidateValues[candidateFirst], value)) {
+            // The oldest value is not buffered, as a later candidate is at least as extreme
+            firstSequence++;
+            size--;
+            removed = true;
+        }
+        if (!removed && !removeOutOfOrder(value)) {
+            return false;
+        }
+        if (candidateSize == 0) {
+            // Only values dropped before the first expiry are left, which can no longer be told apart
+            firstSequence = storedSequence;
+            size = stored;
+        }
+        if (stored < values.length >> 2 && values.length > INITIAL_CAPACITY) {
+            resizeValues(values.length >> 1);
+        }
+        if (candidateSize < candidateValues.length >> 2 && candidateValues.length > INITIAL_CAPACITY) {
+            resizeCandidates(candidateValues.length >> 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return the extremum of the window encoded as a long, only valid when the window is not empty
+     */
+    long getValue() {
+        return candidateValues[candidateFirst];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of buffered values and candidates the buffers have room for
+     */
+    int capacity() {
+        return values.length + candidateValues.length;
+    }
+
+    public void clear() {
+        values = new long[INITIAL_CAPACITY];
+        candidateValues = new long[INITIAL_CAPACITY];
+        candidateSequences = new long[INITIAL_CAPACITY];
+        first = 0;
+        stored = 0;
+        storedSequence = 0;
+        candidateFirst = 0;
+        candidateSize = 0;
+        firstSequence = 0;
+        size = 0;
+        expirySeen = false;
+    }
+
+    private boolean removeOutOfOrder(long value) {
+        int candidateMask = candidateValues.length - 1;
+        int unstoredCandidates = 0;
+        for (; unstoredCandidates < candidateSize; unstoredCandidates++) {
+            int index = (candidateFirst + unstoredCandidates) & candidateMask;
+            if (candidateSequences[index] >= storedSequence) {
+                break;
+            }
+            if (candidateValues[index] == value) {
+                long sequence = candidateSequences[index];
+                removeCandidate(unstoredCandidates);
+                removeUnstoredSequence(sequence);
+                return true;
+            }
+        }
+        int mask = values.length - 1;
+        for (int offset = 0; offset < stored; offset++) {
+            if (values[(first + offset) & mask] == value) {
+                for (; offset < stored - 1; offset++) {
+                    values[(first + offset) & mask] = values[(first + offset + 1) & mask];
+                }
+                stored--;
+                size--;
+                candidateSize = unstoredCandidates;
+                for (int i = 0; i < stored; i++) {
+                    addCandidate(storedSequence + i, values[(first + i) & mask]);
+                }
+                return true;
+            }
+        }
+        if (storedSequence - firstSequence > unstoredCandidates) {
+            // Expire the oldest of the values dropped before the first expiry
+            long sequence = firstSequence;
+            for (int i = 0; i < unstoredCandidates; i++) {
+                if (candidateSequences[(candidateFirst + i) & candidateMask] != sequence) {
+                    break;
+                }
+                sequence++;
+            }
+            removeUnstoredSequence(sequence);
+            return true;
+        }
+        return false;
+    }
+
+    private void removeUnstoredSequence(long sequence) {
+        int mask = candidateValues.length - 1;
+        for (int i = 0; i < candidateSize; i++) {
+            int index = (candidateFirst + i) & mask;
+            if (candidateSequences[index] > sequence) {
+                candidateSequences[index]--;
+            }
+        }
+        storedSequence--;
+        size--;
+    }
+
+    private void addCandidate(long sequence, long value) {
+        int mask = candidateValues.length - 1;
+        while (candidateSize > 0) {
+            long last = candidateValues[(candidateFirst + candidateSize - 1) & mask];
+            if (isAsExtreme(value, last)) {
+                candidateSize--;
+            } else {
+                break;
+            }
+        }
+        if (candidateSize == candidateValues.length) {
+            resizeCandidates(candidateValues.length << 1);
+            mask = candidateValues.length - 1;
+        }
+        int index = (candidateFirst + candidateSize) & mask;
+        candidateValues[index] = value;
+        candidateSequences[index] = sequence;
+        candidateSize++;
+    }
+
+    private void pollCandidate() {
+        candidateFirst = (candidateFirst + 1) & (candidateValues.length - 1);
+        candidateSize--;
+    }
+
+    private void removeCandidate(int position) {
+        int mask = candidateValues.length - 1;
+        for (int i = position; i < candidateSize - 1; i++) {
+            candidateValues[(candidateFirst + i) & mask] = candidateValues[(candidateFirst + i + 1) & mask];
+            candidateSequences[(candidateFirst + i) & mask] = candidateSequences[(candidateFirst + i + 1) & mask];
+        }
+        candidateSize--;
+    }
+
+    private void resizeValues(int capacity) {
+        long[] newValues = new long[capacity];
+        for (int i = 0; i < stored; i++) {
+            newValues[i] = values[(first + i) & (values.length - 1)];
+        }
+        values = newValues;
+        first = 0;
+    }
+
+    private void resizeCandidates(int capacity) {
+        long[] newValues = new long[capacity];
+        long[] newSequences = new long[capacity];
+        for (int i = 0; i < candidateSize; i++) {
+            newValues[i] = candidateValues[(candidateFirst + i) & (candidateValues.length - 1)];
+            newSequences[i] = candidateSequences[(candidateFirst + i) & (candidateValues.length - 1)];
+        }
+        candidateValues = newValues;
+        candidateSequences = newSequences;
+        candidateFirst = 0;
+    }
+}
@@ -225,9 +225,9 @@ public class StdDevAttributeAggregator extends AttributeAggregator {
 
         @Override
         public void restoreState(Map<String, Object> state) {
-            sum = (Long) state.get("Sum");
-            mean = (Long) state.get("Mean");
-            stdDeviation = (Long) state.get("stdDeviation");
+            sum = (Double) state.get("Sum");
+            mean = (Double) state.get("Mean");
+            stdDeviation = (Double) state.get("stdDeviation");
             count = (int) state.get("Count");
         }
 
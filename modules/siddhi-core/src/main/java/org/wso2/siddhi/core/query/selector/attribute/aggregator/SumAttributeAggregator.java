@@ -23,8 +23,11 @@ import org.wso2.siddhi.annotation.Parameter;
 import org.wso2.siddhi.annotation.ReturnAttribute;
 import org.wso2.siddhi.annotation.util.DataType;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.NullFlag;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
@@ -61,6 +64,8 @@ import java.util.Map;
 public class SumAttributeAggregator extends AttributeAggregator {
 
     private SumAttributeAggregator sumOutputAttributeAggregator;
+    private PrimitiveExpressionExecutor primitiveExecutor;
+    private final NullFlag nullFlag = new NullFlag();
 
     /**
      * The initialization method for FunctionExecutor
@@ -94,7 +99,41 @@ public class SumAttributeAggregator extends AttributeAggregator {
             default:
                 throw new OperationNotSupportedException("Sum not supported for " + type);
         }
+        if (PrimitiveExpressionExecutor.supportsPrimitiveExecution(attributeExpressionExecutors[0])) {
+            primitiveExecutor = (PrimitiveExpressionExecutor) attributeExpressionExecutors[0];
+        }
+    }
 
+    /**
+     * Sums the argument as a primitive when its executor supports primitive execution, without boxing it.
+     */
+    @Override
+    public synchronized Object process(ComplexEvent event) {
+        ComplexEvent.Type eventType = event.getType();
+        if (primitiveExecutor == null
+                || (eventType != ComplexEvent.Type.CURRENT && eventType != ComplexEvent.Type.EXPIRED)) {
+            return super.process(event);
+        }
+        nullFlag.clear();
+        if (sumOutputAttributeAggregator instanceof SumAttributeAggregatorLong) {
+            SumAttributeAggregatorLong sumAttributeAggregatorLong =
+                    (SumAttributeAggregatorLong) sumOutputAttributeAggregator;
+            long value = primitiveExecutor.executeLong(event, nullFlag);
+            if (nullFlag.isSet()) {
+                return sumAttributeAggregatorLong.currentValue();
+            }
+            return eventType == ComplexEvent.Type.CURRENT ? sumAttributeAggregatorLong.processAdd(value) :
+                    sumAttributeAggregatorLong.processRemove(value);
+        } else {
+            SumAttributeAggregatorDouble sumAttributeAggregatorDouble =
+                    (SumAttributeAggregatorDouble) sumOutputAttributeAggregator;
+            double value = primitiveExecutor.executeDouble(event, nullFlag);
+            if (nullFlag.isSet()) {
+                return sumAttributeAggregatorDouble.currentValue();
+            }
+            return eventType == ComplexEvent.Type.CURRENT ? sumAttributeAggregatorDouble.processAdd(value) :
+                    sumAttributeAggregatorDouble.processRemove(value);
+        }
     }
 
     public Attribute.Type getReturnType() {
@@ -37,18 +37,45 @@ public abstract class AbstractAggregationAttributeExecutor implements Expression
     public AbstractAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
                                                 ExpressionExecutor[] attributeExpressionExecutors,
                                                 SiddhiAppContext siddhiAppContext, String queryName) {
+        this(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName, null);
+    }
+
+    /**
+     * @param elementId element id of the executor, see {@link #getCloneElementId(String)}; null to generate a new
+     *                  element id
+     */
+    protected AbstractAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
+                                                   ExpressionExecutor[] attributeExpressionExecutors,
+                                                   SiddhiAppContext siddhiAppContext, String queryName,
+                                                   String elementId) {
         this.siddhiAppContext = siddhiAppContext;
         this.attributeExpressionExecutors = attributeExpressionExecutors;
         this.attributeAggregator = attributeAggregator;
         this.size = attributeExpressionExecutors.length;
         this.queryName = queryName;
+        this.elementId = elementId;
         if (elementId == null) {
-            elementId = "AbstractAggregationAttributeExecutor-" + siddhiAppContext.getElementIdGenerator()
+            this.elementId = "AbstractAggregationAttributeExecutor-" + siddhiAppContext.getElementIdGenerator()
                     .createNewId();
         }
         siddhiAppContext.getSnapshotService().addSnapshotable(queryName, this);
     }
 
+    /**
+     * Element id of a clone of this executor. Clones made for a partition instance derive it from the partition key,
+     * such that the state of partition instances can be restored regardless of the order they are created in. Other
+     * clones, such as the ones of incremental aggregations, are not keyed uniquely and hence get a new element id.
+     *
+     * @param key the key the executor is cloned for
+     * @return the element id of the clone, or null to generate a new element id
+     */
+    protected String getCloneElementId(String key) {
+        if (siddhiAppContext.getSnapshotService().isRecordingAddedSnapshotables()) {
+            return elementId + "-" + key;
+        }
+        return null;
+    }
+
     @Override
     public Attribute.Type getReturnType() {
         return attributeAggregator.getReturnType();
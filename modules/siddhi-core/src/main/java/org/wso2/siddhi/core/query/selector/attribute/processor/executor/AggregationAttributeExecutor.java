@@ -35,6 +35,12 @@ public class AggregationAttributeExecutor extends AbstractAggregationAttributeEx
         super(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName);
     }
 
+    private AggregationAttributeExecutor(AttributeAggregator attributeAggregator,
+                                         ExpressionExecutor[] attributeExpressionExecutors,
+                                         SiddhiAppContext siddhiAppContext, String queryName, String elementId) {
+        super(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName, elementId);
+    }
+
     @Override
     public Object execute(ComplexEvent event) {
         return attributeAggregator.process(event);
@@ -42,7 +48,8 @@ public class AggregationAttributeExecutor extends AbstractAggregationAttributeEx
 
     public ExpressionExecutor cloneExecutor(String key) {
         return new AggregationAttributeExecutor(attributeAggregator.cloneAggregator(key),
-                                                attributeExpressionExecutors, siddhiAppContext, queryName);
+                                                attributeExpressionExecutors, siddhiAppContext, queryName,
+                                                getCloneElementId(key));
     }
 
     @Override
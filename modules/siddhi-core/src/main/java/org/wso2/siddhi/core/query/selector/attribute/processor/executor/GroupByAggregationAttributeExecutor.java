@@ -20,6 +20,7 @@ package org.wso2.siddhi.core.query.selector.attribute.processor.executor;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.query.selector.GroupByKeyGenerator;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
@@ -35,24 +36,33 @@ import java.util.Set;
  */
 public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttributeExecutor {
 
-    private static final ThreadLocal<String> keyThreadLocal = new ThreadLocal<String>();
+    private static final ThreadLocal<Object> keyThreadLocal = new ThreadLocal<Object>();
     private final ConfigReader configReader;
     private final TimestampGenerator timestampGenerator;
-    protected Map<String, AttributeAggregator> aggregatorMap = new HashMap<String, AttributeAggregator>();
-    protected Set<String> obsoleteAggregatorKeys = new HashSet<>();
+    protected Map<Object, AttributeAggregator> aggregatorMap = new HashMap<Object, AttributeAggregator>();
+    // Aggregators restored from snapshots keyed by String group keys, moved to aggregatorMap when the group is seen
+    protected Map<String, AttributeAggregator> legacyAggregatorMap = new HashMap<String, AttributeAggregator>();
+    protected Set<Object> obsoleteAggregatorKeys = new HashSet<>();
     protected long lastCleanupTimestamp = 0;
 
     public GroupByAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
                                                ExpressionExecutor[] attributeExpressionExecutors,
                                                ConfigReader configReader, SiddhiAppContext siddhiAppContext,
                                                String queryName) {
-        super(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName);
+        this(attributeAggregator, attributeExpressionExecutors, configReader, siddhiAppContext, queryName, null);
+    }
+
+    private GroupByAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
+                                                ExpressionExecutor[] attributeExpressionExecutors,
+                                                ConfigReader configReader, SiddhiAppContext siddhiAppContext,
+                                                String queryName, String elementId) {
+        super(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName, elementId);
         this.configReader = configReader;
         timestampGenerator = siddhiAppContext.getTimestampGenerator();
         lastCleanupTimestamp = timestampGenerator.currentTime();
     }
 
-    public static ThreadLocal<String> getKeyThreadLocal() {
+    public static ThreadLocal<Object> getKeyThreadLocal() {
         return keyThreadLocal;
     }
 
@@ -74,19 +84,28 @@ public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttr
                     aOutput = iterator.next().process(event);
                 }
                 aggregatorMap.clear();
+                legacyAggregatorMap.clear();
                 obsoleteAggregatorKeys.clear();
             } else {
-                for (Map.Entry<String, AttributeAggregator> attributeAggregatorEntry : aggregatorMap.entrySet()) {
+                for (Map.Entry<Object, AttributeAggregator> attributeAggregatorEntry : aggregatorMap.entrySet()) {
                     aOutput = attributeAggregatorEntry.getValue().process(event);
                 }
+                for (AttributeAggregator legacyAttributeAggregator : legacyAggregatorMap.values()) {
+                    legacyAttributeAggregator.process(event);
+                }
             }
             return aOutput;
         }
 
-        String key = keyThreadLocal.get();
+        Object key = keyThreadLocal.get();
         AttributeAggregator currentAttributeAggregator = aggregatorMap.get(key);
         if (currentAttributeAggregator == null) {
-            currentAttributeAggregator = attributeAggregator.cloneAggregator(key);
+            if (!legacyAggregatorMap.isEmpty()) {
+                currentAttributeAggregator = legacyAggregatorMap.remove(GroupByKeyGenerator.toLegacyKey(key));
+            }
+            if (currentAttributeAggregator == null) {
+                currentAttributeAggregator = attributeAggregator.cloneAggregator(key.toString());
+            }
             aggregatorMap.put(key, currentAttributeAggregator);
         }
         Object results = currentAttributeAggregator.process(event);
@@ -102,30 +121,54 @@ public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttr
     public ExpressionExecutor cloneExecutor(String key) {
         return new GroupByAggregationAttributeExecutor(attributeAggregator.cloneAggregator(key),
                 attributeExpressionExecutors, configReader, siddhiAppContext,
-                queryName);
+                queryName, getCloneElementId(key));
     }
 
     @Override
     public Map<String, Object> currentState() {
-        Map<String, Object> state = new HashMap<>();
-        for (Map.Entry<String, AttributeAggregator> entry : aggregatorMap.entrySet()) {
-            state.put(entry.getKey(), entry.getValue().currentState());
+        Map<Object, Object> aggregatorStates = new HashMap<>();
+        for (Map.Entry<Object, AttributeAggregator> entry : aggregatorMap.entrySet()) {
+            aggregatorStates.put(entry.getKey(), entry.getValue().currentState());
         }
+        Map<String, Object> legacyAggregatorStates = new HashMap<>();
+        for (Map.Entry<String, AttributeAggregator> entry : legacyAggregatorMap.entrySet()) {
+            legacyAggregatorStates.put(entry.getKey(), entry.getValue().currentState());
+        }
+        Map<String, Object> state = new HashMap<>();
+        state.put("AggregatorStates", aggregatorStates);
+        state.put("LegacyAggregatorStates", legacyAggregatorStates);
         return state;
     }
 
     @Override
     public void restoreState(Map<String, Object> state) {
-        for (HashMap.Entry<String, Object> item: state.entrySet()) {
-            String key = item.getKey();
-            AttributeAggregator aAttributeAggregator = attributeAggregator.cloneAggregator(key);
-            aAttributeAggregator.restoreState((Map<String, Object>) item.getValue());
-            aggregatorMap.put(key, aAttributeAggregator);
+        Map<Object, Object> aggregatorStates = (Map<Object, Object>) state.get("AggregatorStates");
+        Map<String, Object> legacyAggregatorStates;
+        if (aggregatorStates == null) {
+            // Snapshots taken before the group keys were typed hold the group states against their String keys
+            legacyAggregatorStates = state;
+        } else {
+            for (Map.Entry<Object, Object> item : aggregatorStates.entrySet()) {
+                Object key = item.getKey();
+                AttributeAggregator aAttributeAggregator = attributeAggregator.cloneAggregator(key.toString());
+                aAttributeAggregator.restoreState((Map<String, Object>) item.getValue());
+                aggregatorMap.put(key, aAttributeAggregator);
+            }
+            legacyAggregatorStates = (Map<String, Object>) state.get("LegacyAggregatorStates");
+        }
+        if (legacyAggregatorStates != null) {
+            // The types of the group by values are not known here, hence the String keys are converted to typed keys
+            // when their groups are next seen
+            for (Map.Entry<String, Object> item : legacyAggregatorStates.entrySet()) {
+                AttributeAggregator aAttributeAggregator = attributeAggregator.cloneAggregator(item.getKey());
+                aAttributeAggregator.restoreState((Map<String, Object>) item.getValue());
+                legacyAggregatorMap.put(item.getKey(), aAttributeAggregator);
+            }
         }
     }
 
     private void destroyObsoleteAggregators() {
-        for (String obsoleteKey : obsoleteAggregatorKeys) {
+        for (Object obsoleteKey : obsoleteAggregatorKeys) {
             AttributeAggregator attributeAggregator = aggregatorMap.get(obsoleteKey);
             if (attributeAggregator != null && attributeAggregator.canDestroy()) {
                 aggregatorMap.remove(obsoleteKey);
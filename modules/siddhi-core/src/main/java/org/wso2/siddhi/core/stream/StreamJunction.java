@@ -35,6 +35,7 @@ import org.wso2.siddhi.core.util.event.handler.EventExchangeHolderFactory;
 import org.wso2.siddhi.core.util.event.handler.StreamHandler;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
 import org.wso2.siddhi.core.util.statistics.EventBufferHolder;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.util.statistics.ThroughputTracker;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
@@ -42,9 +43,11 @@ import org.wso2.siddhi.query.api.exception.DuplicateAnnotationException;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
 import java.lang.reflect.Constructor;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 
@@ -52,7 +55,9 @@ import java.util.concurrent.ExecutorService;
  * Stream Junction is the place where streams are collected and distributed. There will be an Stream Junction per
  * evey event stream. {@link StreamJunction.Publisher} can be used to publish events to the junction and
  * {@link StreamJunction.Receiver} can be used to receive events from Stream Junction. Stream Junction will hold the
- * events till they are consumed by registered Receivers.
+ * events till they are consumed by registered Receivers. When the stream is annotated with {@code @Async} having a
+ * {@code key}, events are hashed by their key attributes onto {@link StreamJunctionLane}s, such that the events of a
+ * key are consumed in order.
  */
 public class StreamJunction implements EventBufferHolder {
     private static final Logger log = Logger.getLogger(StreamJunction.class);
@@ -68,7 +73,11 @@ public class StreamJunction implements EventBufferHolder {
     private Disruptor<EventExchangeHolder> disruptor;
     private RingBuffer<EventExchangeHolder> ringBuffer;
     private ThroughputTracker throughputTracker = null;
+    private StageLatencyTracker queueLatencyTracker = null;
     private boolean isTraceEnabled;
+    private int[] laneKeyPositions;
+    private StreamJunctionLane[] lanes;
+    private volatile boolean lanesStarted = false;
 
     public StreamJunction(StreamDefinition streamDefinition, ExecutorService executorService, int bufferSize,
                           SiddhiAppContext siddhiAppContext) {
@@ -102,6 +111,22 @@ public class StreamJunction implements EventBufferHolder {
                                 siddhiAppContext.getSiddhiAppString());
                     }
                 }
+                String keyString = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_KEY);
+                if (keyString != null) {
+                    String[] keyAttributes = keyString.split(",");
+                    laneKeyPositions = new int[keyAttributes.length];
+                    for (int i = 0; i < keyAttributes.length; i++) {
+                        String keyAttribute = keyAttributes[i].trim();
+                        if (!Arrays.asList(streamDefinition.getAttributeNameArray()).contains(keyAttribute)) {
+                            throw new SiddhiAppCreationException("Annotation element '" +
+                                    SiddhiConstants.ANNOTATION_ELEMENT_KEY + "' should refer attributes of Stream '" +
+                                    streamDefinition.getId() + "', but found, '" + keyAttribute + "'.",
+                                    annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex(),
+                                    siddhiAppContext.getName(), siddhiAppContext.getSiddhiAppString());
+                        }
+                        laneKeyPositions[i] = streamDefinition.getAttributePosition(keyAttribute);
+                    }
+                }
                 String batchSizeString = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_MAX_BATCH_SIZE);
                 if (batchSizeString != null) {
                     this.batchSize = Integer.parseInt(batchSizeString);
@@ -120,6 +145,18 @@ public class StreamJunction implements EventBufferHolder {
                     streamDefinition.getId(), e, e.getQueryContextStartIndex(), e.getQueryContextEndIndex(),
                     siddhiAppContext.getName(), siddhiAppContext.getSiddhiAppString());
         }
+        if (async) {
+            this.queueLatencyTracker = QueryParserHelper.createStageLatencyTracker(siddhiAppContext,
+                    streamDefinition.getId(), SiddhiConstants.METRIC_INFIX_STREAMS, StageLatencyTracker.Stage.QUEUE);
+        }
+        if (laneKeyPositions != null) {
+            lanes = new StreamJunctionLane[workers > 0 ? workers : 1];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new StreamJunctionLane(siddhiAppContext, executorService, receivers,
+                        streamDefinition.getId(), streamDefinition.getAttributeList().size(), this.bufferSize,
+                        batchSize, queueLatencyTracker);
+            }
+        }
         isTraceEnabled = log.isTraceEnabled();
     }
 
@@ -128,7 +165,15 @@ public class StreamJunction implements EventBufferHolder {
             log.trace("Event is received by streamJunction " + this);
         }
         ComplexEvent complexEventList = complexEvent;
-        if (disruptor != null) {
+        if (lanesStarted) {
+            while (complexEventList != null) {
+                if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
+                    throughputTracker.eventIn();
+                }
+                getLane(complexEventList.getOutputData()).send(complexEventList);
+                complexEventList = complexEventList.getNext();
+            }
+        } else if (disruptor != null) {
             while (complexEventList != null) {
                 if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
                     throughputTracker.eventIn();
@@ -138,6 +183,7 @@ public class StreamJunction implements EventBufferHolder {
                     EventExchangeHolder eventExchangeHolder = ringBuffer.get(sequenceNo);
                     eventExchangeHolder.getEvent().copyFrom(complexEventList);
                     eventExchangeHolder.getAndSetIsProcessed(false);
+                    eventExchangeHolder.setPublishTime(samplePublishTime());
                 } finally {
                     ringBuffer.publish(sequenceNo);
                 }
@@ -165,12 +211,15 @@ public class StreamJunction implements EventBufferHolder {
         if (isTraceEnabled) {
             log.trace(event + " event is received by streamJunction " + this);
         }
-        if (disruptor != null) {
+        if (lanesStarted) {
+            getLane(event.getData()).send(event);
+        } else if (disruptor != null) {
             long sequenceNo = ringBuffer.next();
             try {
                 EventExchangeHolder eventExchangeHolder = ringBuffer.get(sequenceNo);
                 eventExchangeHolder.getEvent().copyFrom(event);
                 eventExchangeHolder.getAndSetIsProcessed(false);
+                eventExchangeHolder.setPublishTime(samplePublishTime());
             } finally {
                 ringBuffer.publish(sequenceNo);
             }
@@ -188,13 +237,18 @@ public class StreamJunction implements EventBufferHolder {
         if (isTraceEnabled) {
             log.trace("Event is received by streamJunction " + this);
         }
-        if (disruptor != null) {
+        if (lanesStarted) {
+            for (Event event : events) {
+                getLane(event.getData()).send(event);
+            }
+        } else if (disruptor != null) {
             for (Event event : events) {   // Todo : optimize for arrays
                 long sequenceNo = ringBuffer.next();
                 try {
                     EventExchangeHolder eventExchangeHolder = ringBuffer.get(sequenceNo);
                     eventExchangeHolder.getEvent().copyFrom(event);
                     eventExchangeHolder.getAndSetIsProcessed(false);
+                    eventExchangeHolder.setPublishTime(samplePublishTime());
                 } finally {
                     ringBuffer.publish(sequenceNo);
                 }
@@ -210,13 +264,18 @@ public class StreamJunction implements EventBufferHolder {
         if (isTraceEnabled) {
             log.trace("Event is received by streamJunction " + this);
         }
-        if (disruptor != null) {
+        if (lanesStarted) {
+            for (Event event : events) {
+                getLane(event.getData()).send(event);
+            }
+        } else if (disruptor != null) {
             for (Event event : events) {   // Todo : optimize for arrays
                 long sequenceNo = ringBuffer.next();
                 try {
                     EventExchangeHolder eventExchangeHolder = ringBuffer.get(sequenceNo);
                     eventExchangeHolder.getEvent().copyFrom(event);
                     eventExchangeHolder.getAndSetIsProcessed(false);
+                    eventExchangeHolder.setPublishTime(samplePublishTime());
                 } finally {
                     ringBuffer.publish(sequenceNo);
                 }
@@ -236,11 +295,14 @@ public class StreamJunction implements EventBufferHolder {
         if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
             throughputTracker.eventIn();
         }
-        if (disruptor != null) {
+        if (lanesStarted) {
+            getLane(data).send(timeStamp, data);
+        } else if (disruptor != null) {
             long sequenceNo = ringBuffer.next();
             try {
                 EventExchangeHolder eventExchangeHolder = ringBuffer.get(sequenceNo);
                 eventExchangeHolder.getAndSetIsProcessed(false);
+                eventExchangeHolder.setPublishTime(samplePublishTime());
                 eventExchangeHolder.getEvent().setTimestamp(timeStamp);
                 eventExchangeHolder.getEvent().setIsExpired(false);
                 System.arraycopy(data, 0, eventExchangeHolder.getEvent().getData(), 0, data.length);
@@ -254,11 +316,35 @@ public class StreamJunction implements EventBufferHolder {
         }
     }
 
+    /**
+     * @return publish time of an event when its queueing latency is sampled, or 0 otherwise
+     */
+    private long samplePublishTime() {
+        return queueLatencyTracker != null ? queueLatencyTracker.sampleStartTime() : 0L;
+    }
+
+    /**
+     * @param data event data
+     * @return the lane of the key of the event, which is computed from the key attributes
+     */
+    private StreamJunctionLane getLane(Object[] data) {
+        int hash = 0;
+        for (int laneKeyPosition : laneKeyPositions) {
+            hash = 31 * hash + Objects.hashCode(data[laneKeyPosition]);
+        }
+        return lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length];
+    }
+
     /**
      * Create and start disruptor based on annotations given in the streamDefinition.
      */
     public synchronized void startProcessing() {
-        if (!receivers.isEmpty() && async) {
+        if (!receivers.isEmpty() && async && lanes != null) {
+            for (StreamJunctionLane lane : lanes) {
+                lane.startProcessing();
+            }
+            lanesStarted = true;
+        } else if (!receivers.isEmpty() && async) {
             for (Constructor constructor : Disruptor.class.getConstructors()) {
                 if (constructor.getParameterTypes().length == 5) {      // If new disruptor classes available
                     ProducerType producerType = ProducerType.MULTI;
@@ -279,11 +365,11 @@ public class StreamJunction implements EventBufferHolder {
             if (workers > 0) {
                 for (int i = 0; i < workers; i++) {
                     disruptor.handleEventsWith(new StreamHandler(receivers, batchSize, streamDefinition.getId(),
-                            siddhiAppContext.getName()));
+                            siddhiAppContext.getName(), queueLatencyTracker));
                 }
             } else {
                 disruptor.handleEventsWith(new StreamHandler(receivers, batchSize, streamDefinition.getId(),
-                        siddhiAppContext.getName()));
+                        siddhiAppContext.getName(), queueLatencyTracker));
             }
             ringBuffer = disruptor.start();
         } else {
@@ -296,7 +382,12 @@ public class StreamJunction implements EventBufferHolder {
     }
 
     public synchronized void stopProcessing() {
-        if (disruptor != null) {
+        if (lanesStarted) {
+            lanesStarted = false;
+            for (StreamJunctionLane lane : lanes) {
+                lane.stopProcessing();
+            }
+        } else if (disruptor != null) {
             disruptor.shutdown();
         } else {
             for (Receiver receiver : receivers) {
@@ -329,8 +420,22 @@ public class StreamJunction implements EventBufferHolder {
         return streamDefinition;
     }
 
+    /**
+     * @return the worker lanes of the junction when it runs in keyed async mode, or null otherwise
+     */
+    public StreamJunctionLane[] getLanes() {
+        return lanes;
+    }
+
     @Override
     public long getBufferedEvents() {
+        if (lanes != null) {
+            long bufferedEvents = 0;
+            for (StreamJunctionLane lane : lanes) {
+                bufferedEvents += lane.getBufferedEvents();
+            }
+            return bufferedEvents;
+        }
         if (disruptor != null) {
             return disruptor.getBufferSize() - disruptor.getRingBuffer().remainingCapacity();
         }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.stream;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.util.event.handler.EventExchangeHolder;
+import org.wso2.siddhi.core.util.event.handler.EventExchangeHolderFactory;
+import org.wso2.siddhi.core.util.statistics.EventBufferHolder;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Worker lane of a {@link StreamJunction} running in keyed async mode. Events of the same key are always published to
+ * the same lane, and each lane delivers its events to the receivers on a single thread in the order they were
+ * published, hence events of a key are processed in order while different keys are processed in parallel. Events are
+ * delivered in batches collected into a preallocated array holding the ring buffer slots of the lane. When the lane is
+ * not running, events are delivered to the receivers on the publishing thread.
+ */
+public class StreamJunctionLane implements EventBufferHolder {
+
+    private static final Logger log = Logger.getLogger(StreamJunctionLane.class);
+    private final SiddhiAppContext siddhiAppContext;
+    private final ExecutorService executorService;
+    private final List<StreamJunction.Receiver> receivers;
+    private final String streamId;
+    private final int dataSize;
+    private final int bufferSize;
+    private final int batchSize;
+    private final StageLatencyTracker queueLatencyTracker;
+    private Disruptor<EventExchangeHolder> disruptor;
+    private volatile RingBuffer<EventExchangeHolder> ringBuffer;
+
+    public StreamJunctionLane(SiddhiAppContext siddhiAppContext, ExecutorService executorService,
+                              List<StreamJunction.Receiver> receivers, String streamId, int dataSize,
+                              int bufferSize, int batchSize, StageLatencyTracker queueLatencyTracker) {
+        this.siddhiAppContext = siddhiAppContext;
+        this.executorService = executorService;
+        this.receivers = receivers;
+        this.streamId = streamId;
+        this.dataSize = dataSize;
+        this.bufferSize = bufferSize;
+        this.batchSize = Math.min(batchSize, bufferSize);
+        this.queueLatencyTracker = queueLatencyTracker;
+    }
+
+    public synchronized void startProcessing() {
+        if (disruptor == null) {
+            disruptor = new Disruptor<EventExchangeHolder>(new EventExchangeHolderFactory(dataSize), bufferSize,
+                    executorService, ProducerType.MULTI, new BlockingWaitStrategy());
+            disruptor.handleExceptionsWith(siddhiAppContext.getDisruptorExceptionHandler());
+            disruptor.handleEventsWith(new LaneHandler());
+            ringBuffer = disruptor.start();
+        }
+    }
+
+    public synchronized void stopProcessing() {
+        if (disruptor != null) {
+            ringBuffer = null;
+            disruptor.shutdown();
+            disruptor = null;
+        }
+    }
+
+    public void send(ComplexEvent complexEvent) {
+        RingBuffer<EventExchangeHolder> currentRingBuffer = ringBuffer;
+        long sequenceNo = currentRingBuffer != null ? next(currentRingBuffer) : -1;
+        if (sequenceNo < 0) {
+            // The event is copied, as the receivers would otherwise process the rest of its chain as well
+            Event event = new Event(dataSize);
+            event.copyFrom(complexEvent);
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(event);
+            }
+            return;
+        }
+        try {
+            EventExchangeHolder eventExchangeHolder = currentRingBuffer.get(sequenceNo);
+            eventExchangeHolder.getEvent().copyFrom(complexEvent);
+            eventExchangeHolder.setPublishTime(samplePublishTime());
+        } finally {
+            currentRingBuffer.publish(sequenceNo);
+        }
+    }
+
+    public void send(Event event) {
+        RingBuffer<EventExchangeHolder> currentRingBuffer = ringBuffer;
+        long sequenceNo = currentRingBuffer != null ? next(currentRingBuffer) : -1;
+        if (sequenceNo < 0) {
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(event);
+            }
+            return;
+        }
+        try {
+            EventExchangeHolder eventExchangeHolder = currentRingBuffer.get(sequenceNo);
+            eventExchangeHolder.getEvent().copyFrom(event);
+            eventExchangeHolder.setPublishTime(samplePublishTime());
+        } finally {
+            currentRingBuffer.publish(sequenceNo);
+        }
+    }
+
+    public void send(long timeStamp, Object[] data) {
+        RingBuffer<EventExchangeHolder> currentRingBuffer = ringBuffer;
+        long sequenceNo = currentRingBuffer != null ? next(currentRingBuffer) : -1;
+        if (sequenceNo < 0) {
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(timeStamp, data);
+            }
+            return;
+        }
+        try {
+            EventExchangeHolder eventExchangeHolder = currentRingBuffer.get(sequenceNo);
+            eventExchangeHolder.setPublishTime(samplePublishTime());
+            Event event = eventExchangeHolder.getEvent();
+            event.setTimestamp(timeStamp);
+            event.setIsExpired(false);
+            System.arraycopy(data, 0, event.getData(), 0, data.length);
+        } finally {
+            currentRingBuffer.publish(sequenceNo);
+        }
+    }
+
+    /**
+     * Claim the next slot of the ring buffer, waiting while it is full unless the lane is stopped in between, as a
+     * stopped lane no longer frees its slots.
+     *
+     * @param currentRingBuffer ring buffer of the running lane
+     * @return sequence of the claimed slot, or -1 if the lane is stopped
+     */
+    private long next(RingBuffer<EventExchangeHolder> currentRingBuffer) {
+        while (true) {
+            try {
+                return currentRingBuffer.tryNext();
+            } catch (InsufficientCapacityException e) {
+                if (ringBuffer != currentRingBuffer) {
+                    return -1;
+                }
+                LockSupport.parkNanos(1);
+            }
+        }
+    }
+
+    private long samplePublishTime() {
+        return queueLatencyTracker != null ? queueLatencyTracker.sampleStartTime() : 0L;
+    }
+
+    @Override
+    public long getBufferedEvents() {
+        RingBuffer<EventExchangeHolder> currentRingBuffer = ringBuffer;
+        if (currentRingBuffer != null) {
+            return currentRingBuffer.getBufferSize() - currentRingBuffer.remainingCapacity();
+        }
+        return 0L;
+    }
+
+    @Override
+    public boolean containsBufferedEvents() {
+        return true;
+    }
+
+    /**
+     * Delivers the events of the lane to the receivers in batches. The batch refers the ring buffer slots, which are
+     * not reused by the publishers until the batch is delivered and the handler moves past them.
+     */
+    private class LaneHandler implements EventHandler<EventExchangeHolder> {
+        private final Event[] events = new Event[batchSize];
+        private final LaneBatch laneBatch = new LaneBatch(events);
+
+        @Override
+        public void onEvent(EventExchangeHolder eventExchangeHolder, long sequence, boolean endOfBatch) {
+            if (queueLatencyTracker != null) {
+                queueLatencyTracker.recordSince(eventExchangeHolder.getPublishTime());
+            }
+            events[laneBatch.size++] = eventExchangeHolder.getEvent();
+            if (laneBatch.size == batchSize || endOfBatch) {
+                for (StreamJunction.Receiver receiver : receivers) {
+                    try {
+                        receiver.receive(laneBatch);
+                    } catch (Throwable t) {
+                        log.error("Error in SiddhiApp '" + siddhiAppContext.getName() +
+                                "' after consuming events from Stream '" + streamId + "', " + t.getMessage(), t);
+                    }
+                }
+                laneBatch.size = 0;
+            }
+        }
+    }
+
+    /**
+     * List view of the first events of a preallocated array.
+     */
+    private static class LaneBatch extends AbstractList<Event> {
+        private final Event[] events;
+        private int size;
+
+        private LaneBatch(Event[] events) {
+            this.events = events;
+        }
+
+        @Override
+        public Event get(int index) {
+            return events[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
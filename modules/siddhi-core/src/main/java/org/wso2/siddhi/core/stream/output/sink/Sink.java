@@ -29,6 +29,7 @@ import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.util.statistics.ThroughputTracker;
 import org.wso2.siddhi.core.util.transport.BackoffRetryCounter;
 import org.wso2.siddhi.core.util.transport.DynamicOptions;
@@ -63,6 +64,11 @@ public abstract class Sink implements SinkListener, Snapshotable {
     private ScheduledExecutorService scheduledExecutorService;
     private ThroughputTracker throughputTracker;
     private LatencyTracker mapperLatencyTracker;
+    private StageLatencyTracker mapperStageLatencyTracker;
+    private SinkBuffer buffer;
+    // Only used by the worker of the buffer, to collect the payloads of a batch while it maps them
+    private List<Object> collectedPayloads;
+    private List<DynamicOptions> collectedTransportOptions;
 
     public final void init(StreamDefinition streamDefinition, String type, OptionHolder transportOptionHolder,
                            ConfigReader sinkConfigReader, SinkMapper sinkMapper, String mapType,
@@ -80,16 +86,21 @@ public abstract class Sink implements SinkListener, Snapshotable {
                     streamDefinition.getId(),
                     SiddhiConstants.METRIC_INFIX_SINK_MAPPERS,
                     type + SiddhiConstants.METRIC_DELIMITER + mapType);
+            this.mapperStageLatencyTracker = QueryParserHelper.createStageLatencyTracker(siddhiAppContext,
+                    streamDefinition.getId() + SiddhiConstants.METRIC_DELIMITER + type +
+                            SiddhiConstants.METRIC_DELIMITER + mapType,
+                    SiddhiConstants.METRIC_INFIX_SINK_MAPPERS, StageLatencyTracker.Stage.SINK_MAPPER);
         }
         init(streamDefinition, transportOptionHolder, sinkConfigReader, siddhiAppContext);
         if (sinkMapper != null) {
             sinkMapper.init(streamDefinition, mapType, mapOptionHolder, payloadElementList, this,
                     mapperConfigReader, mapperLatencyTracker, siddhiAppContext);
+            sinkMapper.setStageLatencyTracker(mapperStageLatencyTracker);
             this.mapper = sinkMapper;
         }
         if (sinkHandler != null) {
             sinkHandler.initSinkHandler(siddhiAppContext.getElementIdGenerator().createNewId(), streamDefinition,
-                    new SinkHandlerCallback(sinkMapper));
+                    new SinkHandlerCallback(sinkMapper, this));
             this.handler = sinkHandler;
         }
 
@@ -136,10 +147,23 @@ public abstract class Sink implements SinkListener, Snapshotable {
         if (mapperLatencyTracker != null && siddhiAppContext.isStatsEnabled()) {
             mapperLatencyTracker.markOut();
         }
+        if (collectedPayloads != null) {
+            collectedPayloads.add(payload);
+            collectedTransportOptions.add(trpDynamicOptions.get());
+            return;
+        }
         if (isConnected()) {
             try {
                 DynamicOptions dynamicOptions = trpDynamicOptions.get();
-                publish(payload, dynamicOptions);
+                // The time spent in the transport is not part of the latency of the mapper
+                boolean excluded = mapperStageLatencyTracker != null && StageLatencyTracker.excludeIn();
+                try {
+                    publish(payload, dynamicOptions);
+                } finally {
+                    if (excluded) {
+                        StageLatencyTracker.excludeOut();
+                    }
+                }
                 if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
                     throughputTracker.eventIn();
                 }
@@ -173,6 +197,71 @@ public abstract class Sink implements SinkListener, Snapshotable {
     public abstract void publish(Object payload, DynamicOptions transportOptions)
             throws ConnectionUnavailableException;
 
+    /**
+     * Sending a batch of events via output transport, used instead of {@link #publish(Object, DynamicOptions)} when
+     * the sink is buffered with @buffer(). Transports that can send several payloads at once should override this,
+     * by default the payloads are published one by one. When a {@link ConnectionUnavailableException} is thrown the
+     * whole batch is published again after reconnecting.
+     *
+     * @param payloads         payloads of the events, in the order the events arrived
+     * @param transportOptions the dynamic options of each payload, at the index of the payload
+     * @throws ConnectionUnavailableException throw when connections are unavailable.
+     */
+    public void publish(List<Object> payloads, List<DynamicOptions> transportOptions)
+            throws ConnectionUnavailableException {
+        for (int i = 0; i < payloads.size(); i++) {
+            publish(payloads.get(i), transportOptions.get(i));
+        }
+    }
+
+    void startCollecting(List<Object> payloads, List<DynamicOptions> transportOptions) {
+        this.collectedPayloads = payloads;
+        this.collectedTransportOptions = transportOptions;
+    }
+
+    void stopCollecting() {
+        this.collectedPayloads = null;
+        this.collectedTransportOptions = null;
+    }
+
+    /**
+     * Publishes a batch collected by the {@link SinkBuffer}, waiting for the sink to reconnect when needed.
+     *
+     * @param payloads         payloads of the batch
+     * @param transportOptions the dynamic options of each payload
+     * @return false if the buffer is stopped before the batch could be published
+     */
+    boolean publishBatch(List<Object> payloads, List<DynamicOptions> transportOptions) {
+        while (true) {
+            if (!isConnected()) {
+                if (!isTryingToConnect.get()) {
+                    connectWithRetry();
+                }
+                if (!buffer.awaitReconnection()) {
+                    LOG.error("Error on '" + siddhiAppContext.getName() + "'. Dropping " + payloads.size() +
+                            " events at Sink '" + type + "' at '" + streamDefinition.getId() + "' as it is " +
+                            "shutting down while trying to reconnect!, events dropped '" + payloads + "'");
+                    return false;
+                }
+            }
+            try {
+                publish(payloads, transportOptions);
+                if (throughputTracker != null && siddhiAppContext.isStatsEnabled()) {
+                    throughputTracker.eventsIn(payloads.size());
+                }
+                return true;
+            } catch (ConnectionUnavailableException e) {
+                setConnected(false);
+                if (connectionCallback != null) {
+                    connectionCallback.connectionFailed();
+                }
+                LOG.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
+                        " Connection unavailable at Sink '" + type + "' at '" + streamDefinition.getId() +
+                        "', will retry connection immediately.", e);
+            }
+        }
+    }
+
 
     /**
      * Called to connect to the backend before events are published
@@ -203,6 +292,14 @@ public abstract class Sink implements SinkListener, Snapshotable {
         return handler;
     }
 
+    public final SinkBuffer getBuffer() {
+        return buffer;
+    }
+
+    public final void setBuffer(SinkBuffer buffer) {
+        this.buffer = buffer;
+    }
+
     public void connectWithRetry() {
         if (!isConnected.get()) {
             isTryingToConnect.set(true);
@@ -235,6 +332,9 @@ public abstract class Sink implements SinkListener, Snapshotable {
     }
 
     public void shutdown() {
+        if (buffer != null) {
+            buffer.stop();
+        }
         disconnect();
         destroy();
         setConnected(false);
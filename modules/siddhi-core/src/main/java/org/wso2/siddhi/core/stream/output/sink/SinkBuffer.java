@@ -0,0 +1,534 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.stream.output.sink;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.util.ExceptionUtil;
+import org.wso2.siddhi.core.util.snapshot.ByteSerializer;
+import org.wso2.siddhi.core.util.statistics.EventBufferHolder;
+import org.wso2.siddhi.core.util.transport.DynamicOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded buffer configured through {@code @sink(..., @buffer(...))} which decouples a {@link Sink} from the thread
+ * producing its events. The events are queued as they arrive and a worker thread maps them and hands the payloads of
+ * up to 'batch' events, or of the events that arrived within 'linger', to {@link Sink#publish(List, List)}.
+ * <p>
+ * When the buffer is full the {@link OverflowPolicy} decides whether the producer is blocked, the events are dropped
+ * or they are spilled to a local disk queue. Batches that cannot be published while the sink reconnects are retained
+ * and retried, so a disconnected transport fills the buffer instead of losing events.
+ */
+public class SinkBuffer implements EventBufferHolder {
+
+    private static final Logger log = Logger.getLogger(SinkBuffer.class);
+    private static final long RECONNECT_POLL_INTERVAL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    private final Sink sink;
+    private final int size;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final SiddhiAppContext siddhiAppContext;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Each entry is either an Event or an Event[] so that the events are mapped in the chunks they arrived in
+    private final ArrayDeque<Object> entries = new ArrayDeque<>();
+    private int bufferedEvents = 0;
+    private final SpillQueue spillQueue;
+    private volatile boolean running = false;
+    private CountDownLatch workerStopped;
+
+    public SinkBuffer(Sink sink, int size, int batchSize, long lingerMillis, OverflowPolicy overflowPolicy,
+                      SiddhiAppContext siddhiAppContext) {
+        this.sink = sink;
+        this.size = size;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.siddhiAppContext = siddhiAppContext;
+        this.spillQueue = overflowPolicy == OverflowPolicy.SPILL ? new SpillQueue() : null;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            running = true;
+            workerStopped = new CountDownLatch(1);
+        } finally {
+            lock.unlock();
+        }
+        siddhiAppContext.getExecutorService().execute(new Worker());
+    }
+
+    /**
+     * Stops accepting events and waits for the worker to publish the buffered events, as long as the sink is
+     * connected. Events that are still buffered afterwards are discarded.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (!workerStopped.await(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("Worker of the buffer at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "' on '" + siddhiAppContext.getName() +
+                        "' did not stop within " + SHUTDOWN_TIMEOUT_MILLIS + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            long discardedEvents = bufferedEvents + (spillQueue == null ? 0 : spillQueue.getEventCount());
+            if (discardedEvents > 0) {
+                log.error("Error on '" + siddhiAppContext.getName() + "'. Dropping " + discardedEvents +
+                        " buffered events at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "' as it is shutting down before publishing them.");
+            }
+            entries.clear();
+            bufferedEvents = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (spillQueue != null) {
+            spillQueue.close();
+        }
+    }
+
+    void add(Event event) {
+        add(event, 1);
+    }
+
+    void add(Event[] events) {
+        add(events, events.length);
+    }
+
+    private void add(Object entry, int eventCount) {
+        boolean spill;
+        lock.lock();
+        try {
+            // Events already spilled are older, hence newer ones follow them to preserve the order
+            spill = spillQueue != null && spillQueue.getEventCount() > 0;
+            while (!spill && running && bufferedEvents > 0 && bufferedEvents + eventCount > size) {
+                switch (overflowPolicy) {
+                    case DROP:
+                        log.error("Error on '" + siddhiAppContext.getName() + "'. Dropping " + eventCount +
+                                " events at Sink '" + sink.getType() + "' at '" +
+                                sink.getStreamDefinition().getId() + "' as its buffer of size " + size +
+                                " is full, events dropped '" + entryToString(entry) + "'");
+                        return;
+                    case SPILL:
+                        spill = true;
+                        break;
+                    default:
+                        try {
+                            notFull.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                }
+            }
+            if (!spill) {
+                entries.add(entry);
+                bufferedEvents += eventCount;
+                notEmpty.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Spilled without holding the lock, so that the worker and the other producers are not held up by the disk
+        spillQueue.write(entry, eventCount);
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next batch of entries
+     *
+     * @return the entries of the batch, or null if the buffer is stopped and no entries are left
+     */
+    private List<Object> take() throws InterruptedException {
+        List<Object> batch = new ArrayList<>();
+        int eventCount;
+        lock.lock();
+        try {
+            while (isEmpty()) {
+                if (!running) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            eventCount = poll(batch, 0);
+        } finally {
+            lock.unlock();
+        }
+        eventCount = readSpilled(batch, eventCount);
+        long remainingNanos = lingerNanos;
+        long deadline = System.nanoTime() + lingerNanos;
+        while (eventCount < batchSize && remainingNanos > 0 && running) {
+            lock.lock();
+            try {
+                if (isEmpty()) {
+                    notEmpty.awaitNanos(remainingNanos);
+                }
+                eventCount = poll(batch, eventCount);
+            } finally {
+                lock.unlock();
+            }
+            eventCount = readSpilled(batch, eventCount);
+            remainingNanos = deadline - System.nanoTime();
+        }
+        return batch;
+    }
+
+    private int poll(List<Object> batch, int eventCount) {
+        boolean polled = false;
+        Object entry;
+        while (eventCount < batchSize && (entry = entries.poll()) != null) {
+            int entryEventCount = getEventCount(entry);
+            bufferedEvents -= entryEventCount;
+            eventCount += entryEventCount;
+            polled = true;
+            batch.add(entry);
+        }
+        if (polled) {
+            notFull.signalAll();
+        }
+        return eventCount;
+    }
+
+    private int readSpilled(List<Object> batch, int eventCount) {
+        // In-memory entries are always older than the spilled ones, hence they are polled first
+        if (spillQueue == null || eventCount >= batchSize || spillQueue.getEventCount() == 0) {
+            return eventCount;
+        }
+        return spillQueue.read(batch, eventCount);
+    }
+
+    private boolean isEmpty() {
+        return bufferedEvents == 0 && (spillQueue == null || spillQueue.getEventCount() == 0);
+    }
+
+    private static int getEventCount(Object entry) {
+        return entry instanceof Event[] ? ((Event[]) entry).length : 1;
+    }
+
+    private static String entryToString(Object entry) {
+        return entry instanceof Event[] ? Arrays.toString((Event[]) entry) : String.valueOf(entry);
+    }
+
+    private static String batchToString(List<Object> batch) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(entryToString(batch.get(i)));
+        }
+        return builder.append("]").toString();
+    }
+
+    /**
+     * Waits until the sink is reconnected.
+     *
+     * @return false if the buffer is stopped while waiting
+     */
+    boolean awaitReconnection() {
+        while (!sink.isConnected()) {
+            if (!running) {
+                return false;
+            }
+            try {
+                Thread.sleep(RECONNECT_POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getBufferedEvents() {
+        lock.lock();
+        try {
+            return bufferedEvents + (spillQueue == null ? 0 : spillQueue.getEventCount());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean containsBufferedEvents() {
+        return true;
+    }
+
+    /**
+     * Action taken when an event arrives at a full {@link SinkBuffer}
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the producing thread until the buffer has room
+         */
+        BLOCK,
+        /**
+         * Drop the arriving events
+         */
+        DROP,
+        /**
+         * Write the arriving events to a local disk queue, which is drained once the buffer has room
+         */
+        SPILL
+    }
+
+    /**
+     * Maps and publishes the buffered events batch by batch.
+     */
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                List<Object> batch;
+                while ((batch = take()) != null) {
+                    if (!send(batch)) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("Error on '" + siddhiAppContext.getName() + "'. Worker of the buffer at Sink '" +
+                        sink.getType() + "' at '" + sink.getStreamDefinition().getId() + "' stopped.", t);
+            } finally {
+                workerStopped.countDown();
+            }
+        }
+
+        /**
+         * Maps and publishes a batch. A batch failing with an error other than the connection being unavailable is
+         * dropped, so that one bad event does not stop the worker and block the producers.
+         *
+         * @return false if the buffer is stopped before the batch could be published
+         */
+        private boolean send(List<Object> batch) {
+            List<Object> payloads = new ArrayList<>();
+            List<DynamicOptions> transportOptions = new ArrayList<>();
+            try {
+                sink.startCollecting(payloads, transportOptions);
+                try {
+                    for (Object entry : batch) {
+                        if (entry instanceof Event[]) {
+                            sink.getMapper().mapAndSend((Event[]) entry);
+                        } else {
+                            sink.getMapper().mapAndSend((Event) entry);
+                        }
+                    }
+                } finally {
+                    sink.stopCollecting();
+                }
+                return payloads.isEmpty() || sink.publishBatch(payloads, transportOptions);
+            } catch (RuntimeException e) {
+                log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) + " Error at Sink '" +
+                        sink.getType() + "' at '" + sink.getStreamDefinition().getId() + "', dropping batch of " +
+                        "events '" + batchToString(batch) + "'.", e);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * FIFO queue of buffer entries backed by a temporary file. The file is truncated whenever the queue is drained.
+     * Its own lock only guards the file, so that the entries are serialized and deserialized outside of it and the
+     * buffer lock is never held during disk I/O.
+     */
+    private class SpillQueue {
+
+        private final ReentrantLock spillLock = new ReentrantLock();
+        private final AtomicLong eventCount = new AtomicLong();
+        private File file;
+        private RandomAccessFile randomAccessFile;
+        private long readPosition = 0;
+        private long writePosition = 0;
+
+        private void write(Object entry, int entryEventCount) {
+            byte[] bytes = encode(entry);
+            spillLock.lock();
+            try {
+                if (randomAccessFile == null) {
+                    open();
+                }
+                randomAccessFile.seek(writePosition);
+                randomAccessFile.writeInt(entryEventCount);
+                randomAccessFile.writeInt(bytes.length);
+                randomAccessFile.write(bytes);
+                writePosition = randomAccessFile.getFilePointer();
+                eventCount.addAndGet(entryEventCount);
+            } catch (IOException e) {
+                throw new SiddhiAppRuntimeException("Error on '" + siddhiAppContext.getName() +
+                        "' while spilling events of the buffer at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "', events '" + entryToString(entry) + "'.", e);
+            } finally {
+                spillLock.unlock();
+            }
+        }
+
+        /**
+         * Reads spilled entries into the batch until it holds 'batch' events or the queue is drained
+         *
+         * @return the number of events in the batch
+         */
+        private int read(List<Object> batch, int batchEventCount) {
+            List<byte[]> records = new ArrayList<>();
+            spillLock.lock();
+            try {
+                if (randomAccessFile == null) {
+                    return batchEventCount;
+                }
+                randomAccessFile.seek(readPosition);
+                while (batchEventCount < batchSize && readPosition < writePosition) {
+                    int recordEventCount = randomAccessFile.readInt();
+                    byte[] bytes = new byte[randomAccessFile.readInt()];
+                    randomAccessFile.readFully(bytes);
+                    readPosition = randomAccessFile.getFilePointer();
+                    records.add(bytes);
+                    batchEventCount += recordEventCount;
+                    eventCount.addAndGet(-recordEventCount);
+                }
+                if (readPosition == writePosition) {
+                    randomAccessFile.setLength(0);
+                    readPosition = 0;
+                    writePosition = 0;
+                }
+            } catch (IOException e) {
+                throw new SiddhiAppRuntimeException("Error on '" + siddhiAppContext.getName() +
+                        "' while reading spilled events of the buffer at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "'.", e);
+            } finally {
+                spillLock.unlock();
+            }
+            for (byte[] bytes : records) {
+                batch.add(decode(bytes));
+            }
+            return batchEventCount;
+        }
+
+        private byte[] encode(Object entry) {
+            Event[] events = entry instanceof Event[] ? (Event[]) entry : new Event[]{(Event) entry};
+            Object[][] record = new Object[events.length + 1][];
+            record[0] = new Object[]{entry instanceof Event[]};
+            for (int i = 0; i < events.length; i++) {
+                record[i + 1] = new Object[]{events[i].getTimestamp(), events[i].isExpired(), events[i].getData()};
+            }
+            byte[] bytes = ByteSerializer.objectToByte(record, siddhiAppContext);
+            if (bytes == null) {
+                throw new SiddhiAppRuntimeException("Error on '" + siddhiAppContext.getName() +
+                        "' while spilling events of the buffer at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "', events '" + entryToString(entry) + "'.");
+            }
+            return bytes;
+        }
+
+        private Object decode(byte[] bytes) {
+            Object[][] record = (Object[][]) ByteSerializer.byteToObject(bytes, siddhiAppContext);
+            Event[] events = new Event[record.length - 1];
+            for (int i = 0; i < events.length; i++) {
+                events[i] = new Event((Long) record[i + 1][0], (Object[]) record[i + 1][2]);
+                events[i].setIsExpired((Boolean) record[i + 1][1]);
+            }
+            return (Boolean) record[0][0] ? events : events[0];
+        }
+
+        private long getEventCount() {
+            return eventCount.get();
+        }
+
+        private void open() {
+            try {
+                file = File.createTempFile("siddhi-sink-" + sink.getStreamDefinition().getId() + "-", ".spill");
+                file.deleteOnExit();
+                randomAccessFile = new RandomAccessFile(file, "rw");
+            } catch (IOException e) {
+                throw new SiddhiAppRuntimeException("Error on '" + siddhiAppContext.getName() +
+                        "' while creating the spill file for the buffer at Sink '" + sink.getType() + "' at '" +
+                        sink.getStreamDefinition().getId() + "'.", e);
+            }
+        }
+
+        private void close() {
+            spillLock.lock();
+            try {
+                if (randomAccessFile == null) {
+                    return;
+                }
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e) {
+                    log.warn("Error on '" + siddhiAppContext.getName() + "' while closing the spill file '" +
+                            file.getPath() + "'.", e);
+                }
+                if (!file.delete()) {
+                    log.warn("Error on '" + siddhiAppContext.getName() + "', unable to delete the spill file '" +
+                            file.getPath() + "'.");
+                }
+                randomAccessFile = null;
+                file = null;
+                readPosition = 0;
+                writePosition = 0;
+                eventCount.set(0);
+            } finally {
+                spillLock.unlock();
+            }
+        }
+    }
+}
@@ -50,6 +50,8 @@ public class SinkCallback extends StreamCallback {
             for (Sink sink : sinks) {
                 if (sink.getHandler() != null) {
                     sink.getHandler().handle(event);
+                } else if (sink.getBuffer() != null) {
+                    sink.getBuffer().add(event);
                 } else {
                     sink.getMapper().mapAndSend(event);
                 }
@@ -63,6 +65,8 @@ public class SinkCallback extends StreamCallback {
             for (Sink sink : sinks) {
                 if (sink.getHandler() != null) {
                     sink.getHandler().handle(events);
+                } else if (sink.getBuffer() != null) {
+                    sink.getBuffer().add(events);
                 } else {
                     sink.getMapper().mapAndSend(events);
                 }
@@ -26,16 +26,30 @@ import org.wso2.siddhi.core.event.Event;
 public class SinkHandlerCallback {
 
     private SinkMapper sinkMapper;
+    private Sink sink;
 
     public SinkHandlerCallback(SinkMapper sinkMapper) {
         this.sinkMapper = sinkMapper;
     }
 
+    SinkHandlerCallback(SinkMapper sinkMapper, Sink sink) {
+        this.sinkMapper = sinkMapper;
+        this.sink = sink;
+    }
+
     public void mapAndSend(Event event) {
-        sinkMapper.mapAndSend(event);
+        if (sink != null && sink.getBuffer() != null) {
+            sink.getBuffer().add(event);
+        } else {
+            sinkMapper.mapAndSend(event);
+        }
     }
 
     public void mapAndSend(Event[] events) {
-        sinkMapper.mapAndSend(events);
+        if (sink != null && sink.getBuffer() != null) {
+            sink.getBuffer().add(events);
+        } else {
+            sinkMapper.mapAndSend(events);
+        }
     }
 }
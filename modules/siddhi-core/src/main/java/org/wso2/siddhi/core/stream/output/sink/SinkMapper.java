@@ -23,6 +23,7 @@ import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.util.transport.DynamicOptions;
 import org.wso2.siddhi.core.util.transport.OptionHolder;
 import org.wso2.siddhi.core.util.transport.TemplateBuilder;
@@ -49,6 +50,7 @@ public abstract class SinkMapper {
     private OutputGroupDeterminer groupDeterminer = null;
     private ThreadLocal<DynamicOptions> trpDynamicOptions = new ThreadLocal<>();
     private LatencyTracker mapperLatencyTracker;
+    private StageLatencyTracker stageLatencyTracker;
     private SiddhiAppContext siddhiAppContext;
 
     public final void init(StreamDefinition streamDefinition,
@@ -128,8 +130,7 @@ public abstract class SinkMapper {
                     if (mapperLatencyTracker != null && siddhiAppContext.isStatsEnabled()) {
                         mapperLatencyTracker.markIn();
                     }
-                    mapAndSend(eventList.toArray(new Event[eventList.size()]), optionHolder, templateBuilderMap,
-                            sinkListener);
+                    timedMapAndSend(eventList.toArray(new Event[eventList.size()]));
                 } finally {
                     trpDynamicOptions.remove();
                     if (mapperLatencyTracker != null && siddhiAppContext.isStatsEnabled()) {
@@ -143,7 +144,7 @@ public abstract class SinkMapper {
                 if (mapperLatencyTracker != null && siddhiAppContext.isStatsEnabled()) {
                     mapperLatencyTracker.markIn();
                 }
-                mapAndSend(events, optionHolder, templateBuilderMap, sinkListener);
+                timedMapAndSend(events);
             } finally {
                 trpDynamicOptions.remove();
                 if (mapperLatencyTracker != null && siddhiAppContext.isStatsEnabled()) {
@@ -154,6 +155,24 @@ public abstract class SinkMapper {
     }
 
 
+    private void timedMapAndSend(Event[] events) {
+        boolean timed = stageLatencyTracker != null && stageLatencyTracker.markIn();
+        try {
+            mapAndSend(events, optionHolder, templateBuilderMap, sinkListener);
+        } finally {
+            if (timed) {
+                stageLatencyTracker.markOut();
+            }
+        }
+    }
+
+    /**
+     * @param stageLatencyTracker tracker of the mapping latency, excluding the time of publishing via the transport
+     */
+    void setStageLatencyTracker(StageLatencyTracker stageLatencyTracker) {
+        this.stageLatencyTracker = stageLatencyTracker;
+    }
+
     /**
      * Called to map the event and send it to {@link SinkListener} for publishing
      *
@@ -162,7 +181,14 @@ public abstract class SinkMapper {
     final void mapAndSend(Event event) {
         try {
             trpDynamicOptions.set(new DynamicOptions(event));
-            mapAndSend(event, optionHolder, templateBuilderMap, sinkListener);
+            boolean timed = stageLatencyTracker != null && stageLatencyTracker.markIn();
+            try {
+                mapAndSend(event, optionHolder, templateBuilderMap, sinkListener);
+            } finally {
+                if (timed) {
+                    stageLatencyTracker.markOut();
+                }
+            }
         } finally {
             trpDynamicOptions.remove();
 
@@ -28,6 +28,7 @@ import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.holder.EventHolder;
+import org.wso2.siddhi.core.table.holder.IndexEventHolder;
 import org.wso2.siddhi.core.table.record.RecordTableHandler;
 import org.wso2.siddhi.core.util.collection.AddingStreamEventExtractor;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
@@ -38,6 +39,7 @@ import org.wso2.siddhi.core.util.parser.EventHolderPasser;
 import org.wso2.siddhi.core.util.parser.ExpressionParser;
 import org.wso2.siddhi.core.util.parser.OperatorParser;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
 import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
 import org.wso2.siddhi.query.api.definition.TableDefinition;
 import org.wso2.siddhi.query.api.execution.query.output.stream.UpdateSet;
@@ -68,7 +70,7 @@ public class InMemoryTable extends Table implements Snapshotable {
         this.tableDefinition = tableDefinition;
         this.tableStreamEventCloner = storeEventCloner;
 
-        eventHolder = EventHolderPasser.parse(tableDefinition, storeEventPool, siddhiAppContext);
+        eventHolder = createEventHolder(tableDefinition, storeEventPool, siddhiAppContext);
 
         if (elementId == null) {
             elementId = "InMemoryTable-" + siddhiAppContext.getElementIdGenerator().createNewId();
@@ -76,6 +78,19 @@ public class InMemoryTable extends Table implements Snapshotable {
         siddhiAppContext.getSnapshotService().addSnapshotable(tableDefinition.getId(), this);
     }
 
+    /**
+     * Create the holder of the events of the table.
+     *
+     * @param tableDefinition  definition of the table
+     * @param storeEventPool   pool of the events of the table
+     * @param siddhiAppContext context of the Siddhi App
+     * @return the event holder
+     */
+    protected EventHolder createEventHolder(TableDefinition tableDefinition, StreamEventPool storeEventPool,
+                                            SiddhiAppContext siddhiAppContext) {
+        return EventHolderPasser.parse(tableDefinition, storeEventPool, siddhiAppContext);
+    }
+
     @Override
     public TableDefinition getTableDefinition() {
         return tableDefinition;
@@ -212,6 +227,14 @@ public class InMemoryTable extends Table implements Snapshotable {
         eventHolder.restore((SnapshotStateList) state.get("EventHolder"));
     }
 
+    @Override
+    public SnapshotState compactState(String key, SnapshotStateList snapshotStateList) {
+        if (eventHolder instanceof IndexEventHolder) {
+            return ((IndexEventHolder) eventHolder).compact(snapshotStateList);
+        }
+        return null;
+    }
+
     @Override
     public String getElementId() {
         return elementId;
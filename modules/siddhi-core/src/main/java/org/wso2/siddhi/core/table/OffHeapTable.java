@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.table;
+
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.table.holder.EventHolder;
+import org.wso2.siddhi.core.table.holder.OffHeapEventHolder;
+import org.wso2.siddhi.core.util.parser.EventHolderPasser;
+import org.wso2.siddhi.query.api.definition.TableDefinition;
+
+/**
+ * In-memory table implementation keeping its events in off-heap memory via {@link OffHeapEventHolder}, reducing the
+ * heap usage and the GC pauses of large tables. It is defined via {@code @Store(type='offheap')}, and supports the
+ * {@code @PrimaryKey} and {@code @Index} annotations like the default in-memory table.
+ */
+public class OffHeapTable extends InMemoryTable {
+
+    private OffHeapEventHolder offHeapEventHolder;
+
+    @Override
+    protected EventHolder createEventHolder(TableDefinition tableDefinition, StreamEventPool storeEventPool,
+                                            SiddhiAppContext siddhiAppContext) {
+        offHeapEventHolder = (OffHeapEventHolder) EventHolderPasser.parse(tableDefinition, storeEventPool,
+                siddhiAppContext, true);
+        return offHeapEventHolder;
+    }
+
+    @Override
+    protected void destroy() {
+        if (offHeapEventHolder != null) {
+            offHeapEventHolder.deleteAll();
+        }
+    }
+}
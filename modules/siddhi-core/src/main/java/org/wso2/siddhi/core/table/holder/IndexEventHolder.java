@@ -123,6 +123,57 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
     }
 
+    /**
+     * Creates an IndexEventHolder that only carries the stored events. This is used when restoring the holder from
+     * a snapshot, where only the primary key and index data are used.
+     *
+     * @param primaryKeyData events stored against their primary keys
+     * @param indexData      events stored against the values of each indexed attribute
+     */
+    public IndexEventHolder(Map<Object, StreamEvent> primaryKeyData,
+                            Map<String, TreeMap<Object, Set<StreamEvent>>> indexData) {
+        this.primaryKeyData = primaryKeyData;
+        this.indexData = indexData;
+        this.primaryKeyReferenceHolders = null;
+        this.tableName = null;
+        this.siddhiAppName = null;
+    }
+
+    private IndexEventHolder(IndexEventHolder indexEventHolder) {
+        this.tableStreamEventPool = indexEventHolder.tableStreamEventPool;
+        this.eventConverter = indexEventHolder.eventConverter;
+        this.primaryKeyReferenceHolders = indexEventHolder.primaryKeyReferenceHolders;
+        this.primaryKeyAttributes = indexEventHolder.primaryKeyAttributes;
+        this.indexMetaData = indexEventHolder.indexMetaData;
+        this.multiPrimaryKeyMetaData = indexEventHolder.multiPrimaryKeyMetaData;
+        this.allIndexMetaData = indexEventHolder.allIndexMetaData;
+        this.tableName = indexEventHolder.tableName;
+        this.siddhiAppName = indexEventHolder.siddhiAppName;
+        if (indexEventHolder.primaryKeyData instanceof TreeMap) {
+            primaryKeyData = new TreeMap<Object, StreamEvent>();
+        } else if (indexEventHolder.primaryKeyData != null) {
+            primaryKeyData = new HashMap<Object, StreamEvent>();
+        } else {
+            primaryKeyData = null;
+        }
+        if (indexEventHolder.indexData != null) {
+            indexData = new HashMap<String, TreeMap<Object, Set<StreamEvent>>>();
+            for (String indexAttributeName : indexMetaData.keySet()) {
+                indexData.put(indexAttributeName, new TreeMap<Object, Set<StreamEvent>>());
+            }
+        } else {
+            indexData = null;
+        }
+    }
+
+    public Map<Object, StreamEvent> getPrimaryKeyData() {
+        return primaryKeyData;
+    }
+
+    public Map<String, TreeMap<Object, Set<StreamEvent>>> getIndexData() {
+        return indexData;
+    }
+
     @Override
     public Set<Object> getAllPrimaryKeyValues() {
         if (primaryKeyData != null) {
@@ -257,6 +308,11 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         }
     }
 
+    @Override
+    public void commitUpdate(StreamEvent storeEvent) {
+        // Stored events are updated in place
+    }
+
     @Override
     public Collection<StreamEvent> getAllEvents() {
         if (primaryKeyData != null) {
@@ -674,4 +730,17 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         }
         this.isOperationLogEnabled = true;
     }
+
+    /**
+     * Apply the increments of the given snapshot state list on its full snapshot, using a detached event holder
+     * having the primary keys and indexes of this event holder. This event holder is not modified.
+     *
+     * @param snapshotStateList snapshot states starting with a full snapshot
+     * @return full snapshot of the resulting event holder
+     */
+    public SnapshotState compact(SnapshotStateList snapshotStateList) {
+        IndexEventHolder compactedEventHolder = new IndexEventHolder(this);
+        compactedEventHolder.restore(snapshotStateList);
+        return new SnapshotState(compactedEventHolder, false);
+    }
 }
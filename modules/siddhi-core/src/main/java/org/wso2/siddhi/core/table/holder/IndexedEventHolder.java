@@ -47,6 +47,13 @@ public interface IndexedEventHolder extends EventHolder {
 
     void overwrite(StreamEvent streamEvent);
 
+    /**
+     * Commit the changes made in place to the attributes of a stored event returned by this holder.
+     *
+     * @param storeEvent updated store event
+     */
+    void commitUpdate(StreamEvent storeEvent);
+
     Set<Object> getAllPrimaryKeyValues();
 
     PrimaryKeyReferenceHolder[] getPrimaryKeyReferenceHolders();
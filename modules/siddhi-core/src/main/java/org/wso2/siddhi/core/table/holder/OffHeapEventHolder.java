@@ -0,0 +1,729 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.table.holder;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.snapshot.ByteSerializer;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.wso2.siddhi.query.api.definition.AbstractDefinition;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * {@link IndexedEventHolder} implementation keeping the events in direct (off-heap) memory, so that large tables do not
+ * add to the heap and its GC pauses.
+ * <p>
+ * Each event is stored as a row with a fixed binary layout: a header linking the row to the list of all the rows and
+ * to the rows with the same value of each {@code @Index} attribute, a null bitmap, a fixed size field per attribute
+ * and a variable size area for string and object attributes. The primary key and the {@code @Index} attributes are
+ * indexed by off-heap hash indexes, where equality lookups are served by the indexes and range lookups by scanning the
+ * rows. The events returned by the holder are materialized copies of the rows, hence in-place updates of them have to
+ * be committed via {@link #commitUpdate(StreamEvent)}.
+ */
+public class OffHeapEventHolder implements IndexedEventHolder {
+
+    private static final Logger log = Logger.getLogger(OffHeapEventHolder.class);
+    private static final int OFFSET_BLOCK_SIZE = 0;
+    private static final int OFFSET_TIMESTAMP = 8;
+    private static final int OFFSET_PREVIOUS_ROW = 16;
+    private static final int OFFSET_NEXT_ROW = 24;
+    private static final int OFFSET_INDEX_LINKS = 32;
+    private static final int INDEX_LINK_SIZE = 16;
+
+    private final OffHeapMemory memory = new OffHeapMemory();
+    private final Attribute.Type[] attributeTypes;
+    private final int[] fieldOffsets;
+    private final int nullBitmapOffset;
+    private final int fixedRowSize;
+    private final PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders;
+    private final OffHeapHashIndex primaryKeyIndex;
+    private final String primaryKeyAttributes;
+    private final Map<String, Integer> multiPrimaryKeyMetaData = new HashMap<>();
+    private final Map<String, Integer> allIndexMetaData = new HashMap<>();
+    private final Map<String, Integer> indexNumbers = new HashMap<>();
+    private final int[] indexPositions;
+    private final OffHeapHashIndex[] indexes;
+    private final String tableName;
+    private final SiddhiAppContext siddhiAppContext;
+    private long firstRow = OffHeapMemory.NULL_ADDRESS;
+    private long lastRow = OffHeapMemory.NULL_ADDRESS;
+    private long rowCount;
+
+    public OffHeapEventHolder(PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders,
+                              Map<String, Integer> indexMetaData, AbstractDefinition tableDefinition,
+                              SiddhiAppContext siddhiAppContext) {
+        this.primaryKeyReferenceHolders = primaryKeyReferenceHolders;
+        this.tableName = tableDefinition.getId();
+        this.siddhiAppContext = siddhiAppContext;
+
+        List<Attribute> attributes = tableDefinition.getAttributeList();
+        attributeTypes = new Attribute.Type[attributes.size()];
+        fieldOffsets = new int[attributes.size()];
+        nullBitmapOffset = OFFSET_INDEX_LINKS + INDEX_LINK_SIZE * indexMetaData.size();
+        int offset = nullBitmapOffset + (attributes.size() + 7) / 8;
+        for (int i = 0; i < attributes.size(); i++) {
+            attributeTypes[i] = attributes.get(i).getType();
+            fieldOffsets[i] = offset;
+            offset += getFieldSize(attributeTypes[i]);
+        }
+        fixedRowSize = offset;
+
+        if (primaryKeyReferenceHolders != null) {
+            primaryKeyIndex = new OffHeapHashIndex();
+            if (primaryKeyReferenceHolders.length == 1) {
+                allIndexMetaData.put(primaryKeyReferenceHolders[0].getPrimaryKeyAttribute(),
+                        primaryKeyReferenceHolders[0].getPrimaryKeyPosition());
+                primaryKeyAttributes = primaryKeyReferenceHolders[0].getPrimaryKeyAttribute();
+            } else {
+                StringBuilder primaryKeyAttributesBuilder = new StringBuilder();
+                for (PrimaryKeyReferenceHolder primaryKeyReferenceHolder : primaryKeyReferenceHolders) {
+                    multiPrimaryKeyMetaData.put(primaryKeyReferenceHolder.getPrimaryKeyAttribute(),
+                            primaryKeyReferenceHolder.getPrimaryKeyPosition());
+                    primaryKeyAttributesBuilder.append(primaryKeyReferenceHolder.getPrimaryKeyAttribute())
+                            .append(SiddhiConstants.KEY_DELIMITER);
+                }
+                primaryKeyAttributes = primaryKeyAttributesBuilder.toString();
+            }
+        } else {
+            primaryKeyIndex = null;
+            primaryKeyAttributes = null;
+        }
+        indexPositions = new int[indexMetaData.size()];
+        indexes = new OffHeapHashIndex[indexMetaData.size()];
+        int indexNumber = 0;
+        for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
+            indexNumbers.put(indexEntry.getKey(), indexNumber);
+            indexPositions[indexNumber] = indexEntry.getValue();
+            indexes[indexNumber] = new OffHeapHashIndex();
+            indexNumber++;
+        }
+        allIndexMetaData.putAll(indexMetaData);
+    }
+
+    @Override
+    public Set<Object> getAllPrimaryKeyValues() {
+        if (primaryKeyIndex == null) {
+            return null;
+        }
+        Set<Object> primaryKeys = new HashSet<>();
+        for (long row = firstRow; row != OffHeapMemory.NULL_ADDRESS; row = getLink(row, OFFSET_NEXT_ROW)) {
+            primaryKeys.add(readPrimaryKey(row));
+        }
+        return primaryKeys;
+    }
+
+    @Override
+    public PrimaryKeyReferenceHolder[] getPrimaryKeyReferenceHolders() {
+        return primaryKeyReferenceHolders;
+    }
+
+    @Override
+    public boolean isMultiPrimaryKeyAttribute(String attributeName) {
+        return multiPrimaryKeyMetaData.containsKey(attributeName);
+    }
+
+    @Override
+    public boolean isAttributeIndexed(String attribute) {
+        return allIndexMetaData.containsKey(attribute);
+    }
+
+    @Override
+    public boolean isAttributeIndexed(int position) {
+        return allIndexMetaData.containsValue(position);
+    }
+
+    @Override
+    public void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
+        addingEventChunk.reset();
+        while (addingEventChunk.hasNext()) {
+            ComplexEvent complexEvent = addingEventChunk.next();
+            add(complexEvent.getOutputData(), complexEvent.getTimestamp());
+        }
+    }
+
+    private void add(Object[] data, long timestamp) {
+        int primaryKeyHash = 0;
+        if (primaryKeyIndex != null) {
+            Object primaryKey = constructPrimaryKey(data);
+            primaryKeyHash = hash(primaryKey);
+            if (findPrimaryKey(primaryKey, primaryKeyHash) != OffHeapMemory.NULL_ADDRESS) {
+                log.error("Siddhi App '" + siddhiAppContext.getName() + "' table '" + tableName + "' dropping " +
+                        "event : " + Arrays.toString(data) + ", as there is already an event stored with " +
+                        "primary key '" + primaryKey + "'");
+                return;
+            }
+        }
+        // Fail before writing the row, such that a full index does not leave behind a partially indexed row
+        if ((primaryKeyIndex != null && primaryKeyIndex.isFull()) || isAnyIndexFull()) {
+            throw new SiddhiAppRuntimeException("Siddhi App '" + siddhiAppContext.getName() + "' table '" +
+                    tableName + "' cannot store event : " + Arrays.toString(data) + ", as its off-heap index is " +
+                    "full");
+        }
+        long row = writeRow(data, encodeVariableFields(data), timestamp);
+        if (primaryKeyIndex != null) {
+            primaryKeyIndex.put(primaryKeyHash, row);
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            addToIndex(i, row, data[indexPositions[i]]);
+        }
+    }
+
+    @Override
+    public void overwrite(StreamEvent streamEvent) {
+        if (primaryKeyIndex != null) {
+            Object primaryKey = constructPrimaryKey(streamEvent.getOutputData());
+            long existingRow = findPrimaryKey(primaryKey, hash(primaryKey));
+            if (existingRow != OffHeapMemory.NULL_ADDRESS) {
+                deleteRow(existingRow);
+            }
+        }
+        add(streamEvent.getOutputData(), streamEvent.getTimestamp());
+    }
+
+    @Override
+    public void commitUpdate(StreamEvent storeEvent) {
+        long row = ((OffHeapStreamEvent) storeEvent).address;
+        Object[] data = storeEvent.getOutputData();
+        boolean keysChanged = false;
+        if (primaryKeyIndex != null && !Objects.equals(readPrimaryKey(row), constructPrimaryKey(data))) {
+            keysChanged = true;
+        }
+        for (int i = 0; i < indexes.length && !keysChanged; i++) {
+            keysChanged = !Objects.equals(readAttribute(row, indexPositions[i]), data[indexPositions[i]]);
+        }
+        byte[][] variableFields = encodeVariableFields(data);
+        if (!keysChanged && getRowSize(variableFields) <= getBlockSize(row)) {
+            // Rewrite the row in place, keeping its links to the other rows
+            writeData(row, data, variableFields);
+            getSegment(row).putLong(OffHeapMemory.getOffset(row) + OFFSET_TIMESTAMP, storeEvent.getTimestamp());
+        } else {
+            deleteRow(row);
+            add(data, storeEvent.getTimestamp());
+        }
+    }
+
+    @Override
+    public Collection<StreamEvent> getAllEvents() {
+        List<StreamEvent> events = new ArrayList<>();
+        for (long row = firstRow; row != OffHeapMemory.NULL_ADDRESS; row = getLink(row, OFFSET_NEXT_ROW)) {
+            events.add(readEvent(row));
+        }
+        return events;
+    }
+
+    @Override
+    public Collection<StreamEvent> findEvents(String attribute, Compare.Operator operator, Object value) {
+        List<StreamEvent> events = new ArrayList<>();
+        for (long row : findRows(attribute, operator, value)) {
+            events.add(readEvent(row));
+        }
+        return events;
+    }
+
+    @Override
+    public boolean containsEventSet(String attribute, Compare.Operator operator, Object value) {
+        if (operator == Compare.Operator.EQUAL) {
+            if (primaryKeyIndex != null && attribute.equals(primaryKeyAttributes)) {
+                return findPrimaryKey(value, hash(value)) != OffHeapMemory.NULL_ADDRESS;
+            }
+            Integer indexNumber = indexNumbers.get(attribute);
+            if (indexNumber != null) {
+                return findIndexHead(indexNumber, value, hash(value)) != OffHeapMemory.NULL_ADDRESS;
+            }
+        }
+        int position = getPosition(attribute);
+        for (long row = firstRow; row != OffHeapMemory.NULL_ADDRESS; row = getLink(row, OFFSET_NEXT_ROW)) {
+            if (matches(position == -1 ? readPrimaryKey(row) : readAttribute(row, position), operator, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void deleteAll() {
+        memory.clear();
+        if (primaryKeyIndex != null) {
+            primaryKeyIndex.clear();
+        }
+        for (OffHeapHashIndex index : indexes) {
+            index.clear();
+        }
+        firstRow = OffHeapMemory.NULL_ADDRESS;
+        lastRow = OffHeapMemory.NULL_ADDRESS;
+        rowCount = 0;
+    }
+
+    @Override
+    public void deleteAll(Collection<StreamEvent> storeEventSet) {
+        for (StreamEvent streamEvent : storeEventSet) {
+            deleteRow(((OffHeapStreamEvent) streamEvent).address);
+        }
+    }
+
+    @Override
+    public void delete(String attribute, Compare.Operator operator, Object value) {
+        for (long row : findRows(attribute, operator, value)) {
+            deleteRow(row);
+        }
+    }
+
+    @Override
+    public SnapshotState getSnapshot() {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (long row = firstRow; row != OffHeapMemory.NULL_ADDRESS; row = getLink(row, OFFSET_NEXT_ROW)) {
+            Object[] data = readData(row);
+            Object[] timestampedData = new Object[data.length + 1];
+            timestampedData[0] = getSegment(row).getLong(OffHeapMemory.getOffset(row) + OFFSET_TIMESTAMP);
+            System.arraycopy(data, 0, timestampedData, 1, data.length);
+            rows.add(timestampedData);
+        }
+        return new SnapshotState(rows, false);
+    }
+
+    @Override
+    public void restore(SnapshotStateList snapshotStatelist) {
+        for (SnapshotState snapshotState : snapshotStatelist.getSnapshotStates().values()) {
+            deleteAll();
+            for (Object[] timestampedData : (List<Object[]>) snapshotState.getState()) {
+                Object[] data = new Object[timestampedData.length - 1];
+                System.arraycopy(timestampedData, 1, data, 0, data.length);
+                add(data, (Long) timestampedData[0]);
+            }
+        }
+    }
+
+    /**
+     * @return number of events held
+     */
+    public long size() {
+        return rowCount;
+    }
+
+    /**
+     * @return number of bytes of off-heap memory used by the rows
+     */
+    public long getAllocatedBytes() {
+        return memory.getAllocatedBytes();
+    }
+
+    private List<Long> findRows(String attribute, Compare.Operator operator, Object value) {
+        List<Long> rows = new ArrayList<>();
+        if (operator == Compare.Operator.EQUAL) {
+            if (primaryKeyIndex != null && attribute.equals(primaryKeyAttributes)) {
+                long row = findPrimaryKey(value, hash(value));
+                if (row != OffHeapMemory.NULL_ADDRESS) {
+                    rows.add(row);
+                }
+                return rows;
+            }
+            Integer indexNumber = indexNumbers.get(attribute);
+            if (indexNumber != null) {
+                int linkOffset = OFFSET_INDEX_LINKS + INDEX_LINK_SIZE * indexNumber + 8;
+                for (long row = findIndexHead(indexNumber, value, hash(value)); row != OffHeapMemory.NULL_ADDRESS;
+                     row = getLink(row, linkOffset)) {
+                    rows.add(row);
+                }
+                return rows;
+            }
+        }
+        int position = getPosition(attribute);
+        for (long row = firstRow; row != OffHeapMemory.NULL_ADDRESS; row = getLink(row, OFFSET_NEXT_ROW)) {
+            if (matches(position == -1 ? readPrimaryKey(row) : readAttribute(row, position), operator, value)) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return position of the given indexed attribute, or -1 if it denotes the primary key
+     */
+    private int getPosition(String attribute) {
+        if (primaryKeyIndex != null && attribute.equals(primaryKeyAttributes)) {
+            return primaryKeyReferenceHolders.length == 1 ? primaryKeyReferenceHolders[0].getPrimaryKeyPosition() : -1;
+        }
+        Integer position = allIndexMetaData.get(attribute);
+        if (position == null) {
+            throw new OperationNotSupportedException("Attribute '" + attribute + "' is not indexed in table '" +
+                    tableName + "'");
+        }
+        return position;
+    }
+
+    private boolean matches(Object rowValue, Compare.Operator operator, Object value) {
+        switch (operator) {
+            case EQUAL:
+                return Objects.equals(rowValue, value);
+            case NOT_EQUAL:
+                return !Objects.equals(rowValue, value);
+            default:
+                if (rowValue == null || value == null) {
+                    return false;
+                }
+                int comparison = ((Comparable<Object>) rowValue).compareTo(value);
+                switch (operator) {
+                    case LESS_THAN:
+                        return comparison < 0;
+                    case GREATER_THAN:
+                        return comparison > 0;
+                    case LESS_THAN_EQUAL:
+                        return comparison <= 0;
+                    case GREATER_THAN_EQUAL:
+                        return comparison >= 0;
+                    default:
+                        throw new OperationNotSupportedException(operator + " not supported for '" + value +
+                                "' by " + getClass().getName());
+                }
+        }
+    }
+
+    private Object constructPrimaryKey(Object[] data) {
+        if (primaryKeyReferenceHolders.length == 1) {
+            return data[primaryKeyReferenceHolders[0].getPrimaryKeyPosition()];
+        } else {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (PrimaryKeyReferenceHolder primaryKeyReferenceHolder : primaryKeyReferenceHolders) {
+                stringBuilder.append(data[primaryKeyReferenceHolder.getPrimaryKeyPosition()])
+                        .append(SiddhiConstants.KEY_DELIMITER);
+            }
+            return stringBuilder.toString();
+        }
+    }
+
+    private Object readPrimaryKey(long row) {
+        if (primaryKeyReferenceHolders.length == 1) {
+            return readAttribute(row, primaryKeyReferenceHolders[0].getPrimaryKeyPosition());
+        } else {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (PrimaryKeyReferenceHolder primaryKeyReferenceHolder : primaryKeyReferenceHolders) {
+                stringBuilder.append(readAttribute(row, primaryKeyReferenceHolder.getPrimaryKeyPosition()))
+                        .append(SiddhiConstants.KEY_DELIMITER);
+            }
+            return stringBuilder.toString();
+        }
+    }
+
+    private long findPrimaryKey(Object primaryKey, int hash) {
+        return primaryKeyIndex.get(hash, row -> Objects.equals(readPrimaryKey(row), primaryKey));
+    }
+
+    private long findIndexHead(int indexNumber, Object key, int hash) {
+        int position = indexPositions[indexNumber];
+        return indexes[indexNumber].get(hash, row -> Objects.equals(readAttribute(row, position), key));
+    }
+
+    private boolean isAnyIndexFull() {
+        for (OffHeapHashIndex index : indexes) {
+            if (index.isFull()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addToIndex(int indexNumber, long row, Object key) {
+        int hash = hash(key);
+        int linkOffset = OFFSET_INDEX_LINKS + INDEX_LINK_SIZE * indexNumber;
+        long head = findIndexHead(indexNumber, key, hash);
+        if (head == OffHeapMemory.NULL_ADDRESS) {
+            setLink(row, linkOffset, OffHeapMemory.NULL_ADDRESS);
+            setLink(row, linkOffset + 8, OffHeapMemory.NULL_ADDRESS);
+            indexes[indexNumber].put(hash, row);
+        } else {
+            // Link the row right after the head, so that the head stays in the hash index
+            long next = getLink(head, linkOffset + 8);
+            setLink(row, linkOffset, head);
+            setLink(row, linkOffset + 8, next);
+            setLink(head, linkOffset + 8, row);
+            if (next != OffHeapMemory.NULL_ADDRESS) {
+                setLink(next, linkOffset, row);
+            }
+        }
+    }
+
+    private void removeFromIndex(int indexNumber, long row) {
+        int linkOffset = OFFSET_INDEX_LINKS + INDEX_LINK_SIZE * indexNumber;
+        long previous = getLink(row, linkOffset);
+        long next = getLink(row, linkOffset + 8);
+        if (previous == OffHeapMemory.NULL_ADDRESS) {
+            int hash = hash(readAttribute(row, indexPositions[indexNumber]));
+            if (next == OffHeapMemory.NULL_ADDRESS) {
+                indexes[indexNumber].remove(hash, row);
+            } else {
+                indexes[indexNumber].replace(hash, row, next);
+                setLink(next, linkOffset, OffHeapMemory.NULL_ADDRESS);
+            }
+        } else {
+            setLink(previous, linkOffset + 8, next);
+            if (next != OffHeapMemory.NULL_ADDRESS) {
+                setLink(next, linkOffset, previous);
+            }
+        }
+    }
+
+    private void deleteRow(long row) {
+        if (getBlockSize(row) == 0) {
+            // Already deleted
+            return;
+        }
+        if (primaryKeyIndex != null) {
+            primaryKeyIndex.remove(hash(readPrimaryKey(row)), row);
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            removeFromIndex(i, row);
+        }
+        long previous = getLink(row, OFFSET_PREVIOUS_ROW);
+        long next = getLink(row, OFFSET_NEXT_ROW);
+        if (previous == OffHeapMemory.NULL_ADDRESS) {
+            firstRow = next;
+        } else {
+            setLink(previous, OFFSET_NEXT_ROW, next);
+        }
+        if (next == OffHeapMemory.NULL_ADDRESS) {
+            lastRow = previous;
+        } else {
+            setLink(next, OFFSET_PREVIOUS_ROW, previous);
+        }
+        int blockSize = getBlockSize(row);
+        getSegment(row).putInt(OffHeapMemory.getOffset(row) + OFFSET_BLOCK_SIZE, 0);
+        memory.free(row, blockSize);
+        rowCount--;
+    }
+
+    private long writeRow(Object[] data, byte[][] variableFields, long timestamp) {
+        int rowSize = getRowSize(variableFields);
+        long row = memory.allocate(rowSize);
+        ByteBuffer segment = getSegment(row);
+        int offset = OffHeapMemory.getOffset(row);
+        segment.putInt(offset + OFFSET_BLOCK_SIZE, rowSize);
+        segment.putLong(offset + OFFSET_TIMESTAMP, timestamp);
+        writeData(row, data, variableFields);
+        setLink(row, OFFSET_PREVIOUS_ROW, lastRow);
+        setLink(row, OFFSET_NEXT_ROW, OffHeapMemory.NULL_ADDRESS);
+        if (lastRow == OffHeapMemory.NULL_ADDRESS) {
+            firstRow = row;
+        } else {
+            setLink(lastRow, OFFSET_NEXT_ROW, row);
+        }
+        lastRow = row;
+        rowCount++;
+        return row;
+    }
+
+    /**
+     * @return the binary values of the string and object attributes, to be stored in the variable size area
+     */
+    private byte[][] encodeVariableFields(Object[] data) {
+        byte[][] variableFields = new byte[attributeTypes.length][];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            if (data[i] != null) {
+                if (attributeTypes[i] == Attribute.Type.STRING) {
+                    variableFields[i] = ((String) data[i]).getBytes(StandardCharsets.UTF_8);
+                } else if (attributeTypes[i] == Attribute.Type.OBJECT) {
+                    variableFields[i] = ByteSerializer.objectToByte(data[i], siddhiAppContext);
+                }
+            }
+        }
+        return variableFields;
+    }
+
+    private int getRowSize(byte[][] variableFields) {
+        int rowSize = fixedRowSize;
+        for (byte[] variableField : variableFields) {
+            if (variableField != null) {
+                rowSize += variableField.length;
+            }
+        }
+        return rowSize;
+    }
+
+    private void writeData(long row, Object[] data, byte[][] variableFields) {
+        ByteBuffer segment = getSegment(row);
+        int rowOffset = OffHeapMemory.getOffset(row);
+        int variableOffset = fixedRowSize;
+        for (int i = 0; i < (attributeTypes.length + 7) / 8; i++) {
+            segment.put(rowOffset + nullBitmapOffset + i, (byte) 0);
+        }
+        for (int i = 0; i < attributeTypes.length; i++) {
+            Object value = data[i];
+            int fieldOffset = rowOffset + fieldOffsets[i];
+            if (value == null || (attributeTypes[i] == Attribute.Type.OBJECT && variableFields[i] == null)) {
+                int bitmapOffset = rowOffset + nullBitmapOffset + i / 8;
+                segment.put(bitmapOffset, (byte) (segment.get(bitmapOffset) | (1 << (i % 8))));
+                continue;
+            }
+            switch (attributeTypes[i]) {
+                case INT:
+                    segment.putInt(fieldOffset, (Integer) value);
+                    break;
+                case LONG:
+                    segment.putLong(fieldOffset, (Long) value);
+                    break;
+                case FLOAT:
+                    segment.putFloat(fieldOffset, (Float) value);
+                    break;
+                case DOUBLE:
+                    segment.putDouble(fieldOffset, (Double) value);
+                    break;
+                case BOOL:
+                    segment.put(fieldOffset, (byte) ((Boolean) value ? 1 : 0));
+                    break;
+                case STRING:
+                case OBJECT:
+                    byte[] bytes = variableFields[i];
+                    segment.putInt(fieldOffset, variableOffset);
+                    segment.putInt(fieldOffset + 4, bytes.length);
+                    for (int j = 0; j < bytes.length; j++) {
+                        segment.put(rowOffset + variableOffset + j, bytes[j]);
+                    }
+                    variableOffset += bytes.length;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private StreamEvent readEvent(long row) {
+        OffHeapStreamEvent streamEvent = new OffHeapStreamEvent(row);
+        streamEvent.setOutputData(readData(row));
+        streamEvent.setTimestamp(getSegment(row).getLong(OffHeapMemory.getOffset(row) + OFFSET_TIMESTAMP));
+        return streamEvent;
+    }
+
+    private Object[] readData(long row) {
+        Object[] data = new Object[attributeTypes.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = readAttribute(row, i);
+        }
+        return data;
+    }
+
+    private Object readAttribute(long row, int position) {
+        ByteBuffer segment = getSegment(row);
+        int rowOffset = OffHeapMemory.getOffset(row);
+        if ((segment.get(rowOffset + nullBitmapOffset + position / 8) & (1 << (position % 8))) != 0) {
+            return null;
+        }
+        int fieldOffset = rowOffset + fieldOffsets[position];
+        switch (attributeTypes[position]) {
+            case INT:
+                return segment.getInt(fieldOffset);
+            case LONG:
+                return segment.getLong(fieldOffset);
+            case FLOAT:
+                return segment.getFloat(fieldOffset);
+            case DOUBLE:
+                return segment.getDouble(fieldOffset);
+            case BOOL:
+                return segment.get(fieldOffset) == 1;
+            case STRING:
+            case OBJECT:
+                int variableOffset = rowOffset + segment.getInt(fieldOffset);
+                byte[] bytes = new byte[segment.getInt(fieldOffset + 4)];
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = segment.get(variableOffset + j);
+                }
+                if (attributeTypes[position] == Attribute.Type.STRING) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                return ByteSerializer.byteToObject(bytes, siddhiAppContext);
+            default:
+                return null;
+        }
+    }
+
+    private ByteBuffer getSegment(long row) {
+        return memory.getSegment(row);
+    }
+
+    private int getBlockSize(long row) {
+        return getSegment(row).getInt(OffHeapMemory.getOffset(row) + OFFSET_BLOCK_SIZE);
+    }
+
+    private long getLink(long row, int linkOffset) {
+        return getSegment(row).getLong(OffHeapMemory.getOffset(row) + linkOffset);
+    }
+
+    private void setLink(long row, int linkOffset, long linkedRow) {
+        getSegment(row).putLong(OffHeapMemory.getOffset(row) + linkOffset, linkedRow);
+    }
+
+    private static int getFieldSize(Attribute.Type type) {
+        switch (type) {
+            case BOOL:
+                return 1;
+            case INT:
+            case FLOAT:
+                return 4;
+            default:
+                // Long and double values, and the offset and length of string and object values
+                return 8;
+        }
+    }
+
+    private static int hash(Object key) {
+        int hash = Objects.hashCode(key) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Materialized copy of a row, identified by the address of the row.
+     */
+    private static class OffHeapStreamEvent extends StreamEvent {
+        private final long address;
+
+        private OffHeapStreamEvent(long address) {
+            super(0, 0, 0);
+            this.address = address;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof OffHeapStreamEvent && ((OffHeapStreamEvent) o).address == address;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(address);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.table.holder;
+
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongPredicate;
+
+/**
+ * Open addressing hash table kept in direct (off-heap) memory, mapping the hash of a key to the addresses of the
+ * {@link OffHeapMemory} blocks holding that key. Keys are not stored in the table, hence lookups resolve hash
+ * collisions by checking the candidate addresses against the key.
+ */
+public class OffHeapHashIndex {
+
+    private static final int ENTRY_SIZE = 16;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private ByteBuffer entries;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    public OffHeapHashIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Find the address of a key.
+     *
+     * @param hash    hash of the key
+     * @param matcher checks whether the block at the given address holds the key
+     * @return the address of the key, or {@link OffHeapMemory#NULL_ADDRESS} if the key is not present
+     */
+    public long get(int hash, LongPredicate matcher) {
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = getAddress(slot);
+            if (address == OffHeapMemory.NULL_ADDRESS) {
+                return OffHeapMemory.NULL_ADDRESS;
+            }
+            if (getHash(slot) == hash && matcher.test(address)) {
+                return address;
+            }
+        }
+    }
+
+    /**
+     * Add the address of a key that is not yet present in the index.
+     *
+     * @param hash    hash of the key
+     * @param address address of the key
+     * @throws SiddhiAppRuntimeException if the index is full at its maximum capacity
+     */
+    public void put(int hash, long address) {
+        if (size >= capacity >>> 1 && capacity < MAX_CAPACITY) {
+            resize(capacity << 1);
+        }
+        // At least one slot is left empty, as probe sequences only end at an empty slot
+        if (size >= capacity - 1) {
+            throw new SiddhiAppRuntimeException("Cannot index more than " + (capacity - 1) + " keys in the " +
+                    "off-heap hash index");
+        }
+        int slot = hash & mask;
+        while (getAddress(slot) != OffHeapMemory.NULL_ADDRESS) {
+            slot = (slot + 1) & mask;
+        }
+        setEntry(slot, hash, address);
+        size++;
+    }
+
+    /**
+     * Replace the address of a key.
+     *
+     * @param hash       hash of the key
+     * @param oldAddress address the key is currently stored with
+     * @param newAddress new address of the key
+     */
+    public void replace(int hash, long oldAddress, long newAddress) {
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = getAddress(slot);
+            if (address == OffHeapMemory.NULL_ADDRESS) {
+                return;
+            }
+            if (address == oldAddress) {
+                setEntry(slot, hash, newAddress);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove the address of a key.
+     *
+     * @param hash    hash of the key
+     * @param address address of the key
+     */
+    public void remove(int hash, long address) {
+        int slot = hash & mask;
+        while (getAddress(slot) != address) {
+            if (getAddress(slot) == OffHeapMemory.NULL_ADDRESS) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift back the following entries of the probe sequence, so that lookups need no tombstones
+        int emptySlot = slot;
+        for (int next = (slot + 1) & mask; getAddress(next) != OffHeapMemory.NULL_ADDRESS; next = (next + 1) & mask) {
+            int idealSlot = getHash(next) & mask;
+            if (((next - idealSlot) & mask) >= ((next - emptySlot) & mask)) {
+                setEntry(emptySlot, getHash(next), getAddress(next));
+                emptySlot = next;
+            }
+        }
+        setEntry(emptySlot, 0, OffHeapMemory.NULL_ADDRESS);
+        size--;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if no more keys can be added, as the index is full at its maximum capacity
+     */
+    public boolean isFull() {
+        return size >= MAX_CAPACITY - 1;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        size = 0;
+        entries = ByteBuffer.allocateDirect(newCapacity * ENTRY_SIZE);
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer oldEntries = entries;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            // Addresses are stored incremented by one, so that the zeroed memory denotes empty slots
+            long address = oldEntries.getLong(slot * ENTRY_SIZE + 8) - 1;
+            if (address != OffHeapMemory.NULL_ADDRESS) {
+                put(oldEntries.getInt(slot * ENTRY_SIZE), address);
+            }
+        }
+    }
+
+    private int getHash(int slot) {
+        return entries.getInt(slot * ENTRY_SIZE);
+    }
+
+    private long getAddress(int slot) {
+        return entries.getLong(slot * ENTRY_SIZE + 8) - 1;
+    }
+
+    private void setEntry(int slot, int hash, long address) {
+        entries.putInt(slot * ENTRY_SIZE, hash);
+        entries.putLong(slot * ENTRY_SIZE + 8, address + 1);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.table.holder;
+
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocator of memory blocks within direct (off-heap) memory segments.
+ * <p>
+ * Blocks are addressed by a long holding the index of the segment in the upper 32 bits and the offset within the
+ * segment in the lower 32 bits. Block sizes are rounded up to a power of two, and freed blocks are reused by later
+ * allocations of the same size class, hence the memory of a segment is never moved nor compacted.
+ */
+public class OffHeapMemory {
+
+    public static final long NULL_ADDRESS = -1L;
+    private static final int MIN_BLOCK_SIZE_BITS = 5;
+    private static final int SEGMENT_SIZE_BITS = 24;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SIZE_BITS;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final long[][] freeBlocks = new long[SEGMENT_SIZE_BITS - MIN_BLOCK_SIZE_BITS + 1][];
+    private final int[] freeBlockCounts = new int[SEGMENT_SIZE_BITS - MIN_BLOCK_SIZE_BITS + 1];
+    private ByteBuffer currentSegment;
+    private int currentSegmentIndex = -1;
+    private long allocatedBytes;
+
+    /**
+     * Allocate a block of at least the given size.
+     *
+     * @param size required size in bytes
+     * @return address of the block
+     */
+    public long allocate(int size) {
+        int sizeClass = getSizeClass(size);
+        if (freeBlockCounts[sizeClass] > 0) {
+            allocatedBytes += getBlockSize(sizeClass);
+            return freeBlocks[sizeClass][--freeBlockCounts[sizeClass]];
+        }
+        int blockSize = getBlockSize(sizeClass);
+        if (currentSegment == null || currentSegment.capacity() - currentSegment.position() < blockSize) {
+            currentSegment = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+            segments.add(currentSegment);
+            currentSegmentIndex = segments.size() - 1;
+        }
+        int offset = currentSegment.position();
+        currentSegment.position(offset + blockSize);
+        allocatedBytes += blockSize;
+        return ((long) currentSegmentIndex << 32) | offset;
+    }
+
+    /**
+     * Release a block to be reused by later allocations.
+     *
+     * @param address address of the block
+     * @param size    size the block was allocated with
+     */
+    public void free(long address, int size) {
+        int sizeClass = getSizeClass(size);
+        long[] blocks = freeBlocks[sizeClass];
+        if (blocks == null) {
+            blocks = new long[16];
+            freeBlocks[sizeClass] = blocks;
+        } else if (freeBlockCounts[sizeClass] == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            freeBlocks[sizeClass] = blocks;
+        }
+        blocks[freeBlockCounts[sizeClass]++] = address;
+        allocatedBytes -= getBlockSize(sizeClass);
+    }
+
+    /**
+     * Release all the blocks and the segments holding them.
+     */
+    public void clear() {
+        segments.clear();
+        currentSegment = null;
+        currentSegmentIndex = -1;
+        Arrays.fill(freeBlocks, null);
+        Arrays.fill(freeBlockCounts, 0);
+        allocatedBytes = 0;
+    }
+
+    /**
+     * @param address address of a block
+     * @return the segment holding the block, which must only be accessed via absolute get and put methods
+     */
+    public ByteBuffer getSegment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    /**
+     * @param address address of a block
+     * @return offset of the block within its segment
+     */
+    public static int getOffset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * @return number of bytes of the allocated blocks
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return number of bytes of direct memory reserved by the segments
+     */
+    public long getReservedBytes() {
+        return (long) segments.size() * SEGMENT_SIZE;
+    }
+
+    private static int getSizeClass(int size) {
+        if (size > SEGMENT_SIZE) {
+            throw new SiddhiAppRuntimeException("Cannot allocate " + size + " bytes of off-heap memory, as it is " +
+                    "larger than the segment size " + SEGMENT_SIZE);
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.max(bits, MIN_BLOCK_SIZE_BITS) - MIN_BLOCK_SIZE_BITS;
+    }
+
+    private static int getBlockSize(int sizeClass) {
+        return 1 << (sizeClass + MIN_BLOCK_SIZE_BITS);
+    }
+}
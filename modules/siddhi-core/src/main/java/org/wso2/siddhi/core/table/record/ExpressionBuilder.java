@@ -35,6 +35,7 @@ import org.wso2.siddhi.query.api.exception.AttributeNotExistException;
 import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Parameter;
 import org.wso2.siddhi.query.api.expression.Variable;
 import org.wso2.siddhi.query.api.expression.condition.And;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
@@ -273,6 +274,9 @@ public class ExpressionBuilder {
                         ((AttributeFunction) expression).getNamespace(),
                         ((AttributeFunction) expression).getName());
 
+            } else if (expression instanceof Parameter) {
+                buildParameterExecutor((Parameter) expression, expressionVisitor);
+
             } else if (expression instanceof Variable) {
                 Variable variable = ((Variable) expression);
                 String attributeName = variable.getAttributeName();
@@ -386,6 +390,21 @@ public class ExpressionBuilder {
 
     }
 
+    private void buildParameterExecutor(Parameter parameter, ExpressionVisitor expressionVisitor) {
+        String id = "?" + parameter.getIndex();
+        ExpressionExecutor parameterExpressionExecutor = variableExpressionExecutorMap.get(id);
+        if (parameterExpressionExecutor == null) {
+            parameterExpressionExecutor = ExpressionParser.parseExpression(
+                    parameter, matchingMetaInfoHolder.getMetaStateEvent(),
+                    matchingMetaInfoHolder.getMatchingStreamEventIndex(), tableMap, variableExpressionExecutors,
+                    siddhiAppContext, false, 0, queryName);
+            variableExpressionExecutorMap.put(id, parameterExpressionExecutor);
+        }
+        Attribute.Type type = parameterExpressionExecutor.getReturnType();
+        expressionVisitor.beginVisitStreamVariable(id, null, id, type);
+        expressionVisitor.endVisitStreamVariable(id, null, id, type);
+    }
+
     private void buildStreamVariableExecutor(Variable variable, int streamEventChainIndex,
                                              ExpressionVisitor expressionVisitor, Attribute.Type type) {
         String id = variable.getAttributeName();
@@ -18,7 +18,6 @@
 
 package org.wso2.siddhi.core.util;
 
-import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
@@ -29,88 +28,55 @@ import org.wso2.siddhi.core.query.input.stream.single.EntryValveProcessor;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
-import org.wso2.siddhi.core.util.timestamp.TimestampGeneratorImpl;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 
 /**
- * Scheduler implementation to take periodic snapshots
+ * Scheduler implementation to send TIMER events to the processors at the notified times. The notification times are
+ * kept by the {@link TimingWheel} of the Siddhi App, which is shared by all its schedulers and notifies them in the
+ * order of the times.
  */
 public class Scheduler implements Snapshotable {
 
-    private static final Logger log = Logger.getLogger(Scheduler.class);
-    private final BlockingQueue<Long> toNotifyQueue = new LinkedBlockingQueue<Long>();
     private final ThreadBarrier threadBarrier;
     private final Schedulable singleThreadEntryValve;
+    private final TimingWheel timingWheel;
     private SiddhiAppContext siddhiAppContext;
     private String elementId;
     protected String queryName;
     private LockWrapper lockWrapper;
-    private ScheduledExecutorService scheduledExecutorService;
-    private EventCaller eventCaller;
-    private final Semaphore mutex;
     private StreamEventPool streamEventPool;
     private ComplexEventChunk<StreamEvent> streamEventChunk;
     private LatencyTracker latencyTracker;
-    private volatile boolean running = false;
-    private ScheduledFuture scheduledFuture;
-
+    private volatile boolean stopped = false;
 
     public Scheduler(Schedulable singleThreadEntryValve, SiddhiAppContext siddhiAppContext) {
         this.threadBarrier = siddhiAppContext.getThreadBarrier();
         this.siddhiAppContext = siddhiAppContext;
         this.singleThreadEntryValve = singleThreadEntryValve;
-        this.scheduledExecutorService = siddhiAppContext.getScheduledExecutorService();
-        this.eventCaller = new EventCaller();
-        mutex = new Semaphore(1);
-
-        siddhiAppContext.getTimestampGenerator()
-                .addTimeChangeListener(new TimestampGeneratorImpl.TimeChangeListener() {
-                    @Override
-                    public void onTimeChange(long currentTimestamp) {
-                        Long lastTime = toNotifyQueue.peek();
-                        if (lastTime != null && lastTime <= currentTimestamp) {
-                            // If executed in a separate thread, while it is processing,
-                            // the new event will come into the window. As the result of it,
-                            // the window will emit the new event as an existing current event.
-                            sendTimerEvents();
-                        }
-                    }
-                });
+        this.timingWheel = siddhiAppContext.getTimingWheel();
     }
 
-    public void schedule(long time) {
-        if (!siddhiAppContext.isPlayback()) {
-            if (!running && toNotifyQueue.size() == 1) {
-                try {
-                    mutex.acquire();
-                    if (!running) {
-                        running = true;
-                        long timeDiff = time - siddhiAppContext.getTimestampGenerator().currentTime();
-                        if (timeDiff > 0) {
-                            scheduledFuture = scheduledExecutorService.schedule(eventCaller,
-                                    timeDiff, TimeUnit.MILLISECONDS);
-                        } else {
-                            scheduledFuture = scheduledExecutorService.schedule(eventCaller,
-                                    0, TimeUnit.MILLISECONDS);
-                        }
-                    }
-
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.error("Error when scheduling System Time Based Scheduler", e);
-                } finally {
-                    mutex.release();
-                }
-            }
+    /**
+     * Called by the {@link TimingWheel} when a registered time is reached.
+     *
+     * @param time the registered time
+     */
+    void expire(long time) {
+        if (stopped) {
+            return;
         }
+        sendTimerEvent(time);
+    }
+
+    /**
+     * Stop sending TIMER events, as the processing elements of the scheduler are being discarded.
+     */
+    public void stop() {
+        stopped = true;
+        timingWheel.cancel(this);
     }
 
     public Scheduler clone(String key, EntryValveProcessor entryValveProcessor) {
@@ -121,12 +87,8 @@ public class Scheduler implements Snapshotable {
     }
 
     public void notifyAt(long time) {
-        try {
-            // Insert the time into the queue
-            toNotifyQueue.put(time);
-            schedule(time);     // Let the subclasses to schedule the scheduler
-        } catch (InterruptedException e) {
-            log.error("Error when adding time:" + time + " to toNotifyQueue at Scheduler", e);
+        if (!stopped) {
+            timingWheel.schedule(this, time);
         }
     }
 
@@ -147,13 +109,14 @@ public class Scheduler implements Snapshotable {
     @Override
     public Map<String, Object> currentState() {
         Map<String, Object> state = new HashMap<>();
-        state.put("ToNotifyQueue", toNotifyQueue);
+        state.put("ToNotifyQueue", timingWheel.getDeadlines(this));
         return state;
     }
 
     @Override
     public void restoreState(Map<String, Object> state) {
-        BlockingQueue<Long> restoreToNotifyQueue = (BlockingQueue<Long>) state.get("ToNotifyQueue");
+        // Snapshots taken before the times were kept by the timing wheel hold a BlockingQueue here
+        Collection<Long> restoreToNotifyQueue = (Collection<Long>) state.get("ToNotifyQueue");
         for (Long time : restoreToNotifyQueue) {
             notifyAt(time);
         }
@@ -169,114 +132,35 @@ public class Scheduler implements Snapshotable {
     }
 
     /**
-     * Go through the timestamps stored in the {@link #toNotifyQueue} and send the TIMER events for the expired events.
+     * Send the TIMER event of a reached notification time.
+     *
+     * @param time the notification time
      */
-    protected void sendTimerEvents() {
-        Long toNotifyTime = toNotifyQueue.peek();
-        long currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
-        while (toNotifyTime != null && toNotifyTime - currentTime <= 0) {
-            toNotifyQueue.poll();
-
-            StreamEvent timerEvent = streamEventPool.borrowEvent();
-            timerEvent.setType(StreamEvent.Type.TIMER);
-            timerEvent.setTimestamp(toNotifyTime);
-            streamEventChunk.add(timerEvent);
-            if (lockWrapper != null) {
-                lockWrapper.lock();
-            }
-            threadBarrier.pass();
-            try {
-                if (siddhiAppContext.isStatsEnabled() && latencyTracker != null) {
-                    try {
-                        latencyTracker.markIn();
-                        singleThreadEntryValve.process(streamEventChunk);
-                    } finally {
-                        latencyTracker.markOut();
-                    }
-                } else {
+    private void sendTimerEvent(long time) {
+        StreamEvent timerEvent = streamEventPool.borrowEvent();
+        timerEvent.setType(StreamEvent.Type.TIMER);
+        timerEvent.setTimestamp(time);
+        streamEventChunk.add(timerEvent);
+        if (lockWrapper != null) {
+            lockWrapper.lock();
+        }
+        threadBarrier.pass();
+        try {
+            if (siddhiAppContext.isStatsEnabled() && latencyTracker != null) {
+                try {
+                    latencyTracker.markIn();
                     singleThreadEntryValve.process(streamEventChunk);
+                } finally {
+                    latencyTracker.markOut();
                 }
-            } finally {
-                if (lockWrapper != null) {
-                    lockWrapper.unlock();
-                }
+            } else {
+                singleThreadEntryValve.process(streamEventChunk);
             }
-            streamEventChunk.clear();
-
-            toNotifyTime = toNotifyQueue.peek();
-            currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
-        }
-    }
-
-    /**
-     * Schedule events which are not scheduled in the queue when switching back from event time to system current time
-     */
-    public void switchToLiveMode() {
-        Long toNotifyTime = toNotifyQueue.peek();
-        if (toNotifyTime != null) {
-            schedule(toNotifyTime);
-        }
-    }
-
-    /**
-     * this can be used to release
-     * the acquired resources for processing.
-     */
-    public void switchToPlayBackMode() {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(true);
-        }
-        //Make the scheduler running flag to false to make sure scheduler will schedule next time starts
-        running = false;
-    }
-
-    private class EventCaller implements Runnable {
-        /**
-         * When an object implementing interface <code>Runnable</code> is used
-         * to create a thread, starting the thread causes the object's
-         * <code>run</code> method to be called in that separately executing
-         * thread.
-         * <p>
-         * The general contract of the method <code>run</code> is that it may
-         * take any action whatsoever.
-         *
-         * @see Thread#run()
-         */
-        @Override
-        public void run() {
-            try {
-                if (!siddhiAppContext.isPlayback()) {
-                    sendTimerEvents();
-
-                    Long toNotifyTime = toNotifyQueue.peek();
-                    long currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
-
-                    if (toNotifyTime != null) {
-                        scheduledFuture = scheduledExecutorService.
-                                schedule(eventCaller, toNotifyTime - currentTime, TimeUnit.MILLISECONDS);
-                    } else {
-                        try {
-                            mutex.acquire();
-                            running = false;
-                            if (toNotifyQueue.peek() != null) {
-                                running = true;
-                                scheduledFuture = scheduledExecutorService.schedule(eventCaller,
-                                        0, TimeUnit.MILLISECONDS);
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            log.error("Error when scheduling System Time Based Scheduler", e);
-                        } finally {
-                            mutex.release();
-                        }
-                    }
-                } else {
-                    running = false;
-                }
-            } catch (Throwable t) {
-                log.error(t);
+        } finally {
+            if (lockWrapper != null) {
+                lockWrapper.unlock();
             }
         }
-
+        streamEventChunk.clear();
     }
 }
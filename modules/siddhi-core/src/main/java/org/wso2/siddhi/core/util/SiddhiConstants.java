@@ -49,10 +49,14 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_ENFORCE_ORDER = "EnforceOrder";
     public static final String ANNOTATION_ASYNC = "Async";
     public static final String ANNOTATION_STATISTICS = "Statistics";
+    public static final String ANNOTATION_COMPILE = "Compile";
+    public static final String ANNOTATION_RESTORE = "Restore";
+    public static final String ANNOTATION_COMPACTION = "Compaction";
     public static final String ANNOTATION_INDEX_BY = "IndexBy";
     public static final String ANNOTATION_INDEX = "Index";
     public static final String ANNOTATION_PRIMARY_KEY = "PrimaryKey";
     public static final String ANNOTATION_STORE = "Store";
+    public static final String STORE_TYPE_OFF_HEAP = "offheap";
     public static final String ANNOTATION_SOURCE = "Source";
     public static final String ANNOTATION_SINK = "Sink";
     public static final String ANNOTATION_MAP = "Map";
@@ -61,10 +65,13 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_DESTINATION = "Destination";
     public static final String ANNOTATION_ATTRIBUTES = "Attributes";
     public static final String ANNOTATION_PAYLOAD = "Payload";
+    public static final String ANNOTATION_BUFFER = "Buffer";
     public static final String ANNOTATION_ELEMENT_BUFFER_SIZE = "buffer.size";
     public static final String ANNOTATION_ELEMENT_WORKERS = "workers";
     public static final String ANNOTATION_ELEMENT_MAX_BATCH_SIZE = "batch.size.max";
+    public static final String ANNOTATION_ELEMENT_KEY = "key";
     public static final String ANNOTATION_ELEMENT_IDLE_TIME = "idle.time";
+    public static final String ANNOTATION_ELEMENT_IDLE_PERIOD = "idle.period";
     public static final String ANNOTATION_ELEMENT_INCREMENT = "increment";
     public static final String ANNOTATION_ELEMENT_TYPE = "type";
     public static final String ANNOTATION_BUFFER_SIZE = "BufferSize";
@@ -72,10 +79,20 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_ELEMENT_REF = "ref";
     public static final String ANNOTATION_ELEMENT_ENABLE = "enable";
     public static final String ANNOTATION_ELEMENT_INCLUDE = "include";
+    public static final String ANNOTATION_ELEMENT_LATENCY_BREAKDOWN = "latency.breakdown";
+    public static final String ANNOTATION_ELEMENT_LATENCY_SAMPLING = "latency.sampling";
+    public static final String ANNOTATION_ELEMENT_SIZE = "size";
+    public static final String ANNOTATION_ELEMENT_BATCH = "batch";
+    public static final String ANNOTATION_ELEMENT_LINGER = "linger";
+    public static final String ANNOTATION_ELEMENT_OVERFLOW = "overflow";
+    public static final String ANNOTATION_ELEMENT_PARALLELISM = "parallelism";
+    public static final String ANNOTATION_ELEMENT_LAZY = "lazy";
+    public static final String ANNOTATION_ELEMENT_CHAIN_LENGTH = "chain.length";
 
     public static final String TRUE = "true";
     public static final String TRIGGER_START = "start";
     public static final int DEFAULT_EVENT_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_SINK_BUFFER_BATCH_SIZE = 100;
     public static final int HAVING_STATE = -2;
     public static final int UNKNOWN_STATE = -1;
     public static final int CURRENT = -1;
@@ -87,17 +104,20 @@ public final class SiddhiConstants {
 
     public static final String METRIC_INFIX_SIDDHI_APPS = "SiddhiApps";
     public static final String METRIC_INFIX_STREAMS = "Streams";
+    public static final String METRIC_INFIX_LANES = "Lane";
     public static final String METRIC_INFIX_STORE_QUERIES = "StoreQueries";
     public static final String METRIC_INFIX_TABLES = "Tables";
     public static final String METRIC_INFIX_TRIGGERS = "Trigger";
     public static final String METRIC_INFIX_SIDDHI = "Siddhi";
     public static final String METRIC_INFIX_QUERIES = "Queries";
+    public static final String METRIC_INFIX_PARTITIONS = "Partitions";
     public static final String METRIC_INFIX_AGGREGATIONS = "Aggregations";
     public static final String METRIC_INFIX_WINDOWS = "Windows";
     public static final String METRIC_INFIX_SOURCES = "Sources";
     public static final String METRIC_INFIX_SOURCE_MAPPERS = "SourceMappers";
     public static final String METRIC_INFIX_SINKS = "Sinks";
     public static final String METRIC_INFIX_SINK_MAPPERS = "SinkMappers";
+    public static final String METRIC_INFIX_SNAPSHOTS = "Snapshots";
     public static final String METRIC_TYPE_FIND = "find";
     public static final String METRIC_TYPE_INSERT = "insert";
     public static final String METRIC_TYPE_UPDATE = "update";
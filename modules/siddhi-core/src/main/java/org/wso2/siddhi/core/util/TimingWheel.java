@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel shared by all the {@link Scheduler}s of a Siddhi App.
+ * <p>
+ * Schedulers register their next deadline through a lock-free inbox, and the wheel keeps them in five levels of 64
+ * slots with a tick of one millisecond, holding deadlines further than about 12 days in an overflow queue. The wheel
+ * is advanced by the time changes of the {@link TimestampGenerator} in playback mode, and by a single wake-up on the
+ * {@link ScheduledExecutorService} at the earliest deadline otherwise, firing all the schedulers that are due at the
+ * reached time as one batch. The due deadlines are collected under the lock of the wheel, and the schedulers are
+ * notified after releasing it, by one thread at a time, such that the deadlines of a scheduler are notified in order.
+ */
+public class TimingWheel {
+
+    private static final Logger log = Logger.getLogger(TimingWheel.class);
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final int WHEEL_BITS = SLOT_BITS * LEVELS;
+
+    private final SiddhiAppContext siddhiAppContext;
+    private final TimestampGenerator timestampGenerator;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final ConcurrentLinkedQueue<TimerEntry> inbox = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong requestedTime;
+    private final AtomicLong nextWakeUpTime = new AtomicLong(Long.MAX_VALUE);
+    private final TimerEntry[][] slots = new TimerEntry[LEVELS][SLOTS];
+    private final long[] occupiedSlots = new long[LEVELS];
+    private final PriorityQueue<TimerEntry> overflow = new PriorityQueue<>(
+            Comparator.comparingLong((TimerEntry timerEntry) -> timerEntry.deadline));
+    private final List<TimerEntry> dueEntries = new ArrayList<>();
+    // Due deadlines handed over to the notifying thread, guarded by the lock
+    private final ArrayDeque<TimerEntry> notifyQueue = new ArrayDeque<>();
+    private final AtomicBoolean notifying = new AtomicBoolean(false);
+    private volatile Thread notifyingThread;
+    private volatile long currentTime;
+
+    public TimingWheel(SiddhiAppContext siddhiAppContext) {
+        this.siddhiAppContext = siddhiAppContext;
+        this.timestampGenerator = siddhiAppContext.getTimestampGenerator();
+        this.scheduledExecutorService = siddhiAppContext.getScheduledExecutorService();
+        this.currentTime = timestampGenerator.currentTime();
+        this.requestedTime = new AtomicLong(currentTime);
+        timestampGenerator.addTimeChangeListener(this::advance);
+    }
+
+    /**
+     * Register a deadline of a scheduler. The scheduler is notified via {@link Scheduler#expire(long)} once the
+     * timestamp generator reaches the deadline.
+     *
+     * @param scheduler scheduler to be notified
+     * @param deadline  timestamp at which the scheduler should be notified
+     */
+    public void schedule(Scheduler scheduler, long deadline) {
+        inbox.add(new TimerEntry(scheduler, deadline));
+        if (!siddhiAppContext.isPlayback()) {
+            scheduleWakeUp(deadline);
+        }
+    }
+
+    /**
+     * Advance the wheel to the given time and notify the schedulers that are due, including the deadlines registered
+     * while notifying them. If the wheel is being advanced by another thread, that thread will advance it on behalf
+     * of the caller.
+     *
+     * @param time the time to advance the wheel to
+     */
+    public void advance(long time) {
+        requestedTime.accumulateAndGet(time, Math::max);
+        if (notifyingThread == Thread.currentThread()) {
+            // Time changes caused while notifying schedulers are processed after the current batch
+            return;
+        }
+        while (requestedTime.get() > currentTime || !inbox.isEmpty() || isWakeUpReached()) {
+            if (!notifying.compareAndSet(false, true)) {
+                return;
+            }
+            notifyingThread = Thread.currentThread();
+            try {
+                lock.lock();
+                try {
+                    drainInbox();
+                    moveTo(requestedTime.get());
+                    collectDueEntries();
+                    if (!siddhiAppContext.isPlayback()) {
+                        long wakeUpTime = nextWakeUpTime.get();
+                        if (wakeUpTime <= currentTime) {
+                            // The scheduled wake-up is already reached, hence the next one needs to be scheduled
+                            nextWakeUpTime.compareAndSet(wakeUpTime, Long.MAX_VALUE);
+                        }
+                        scheduleWakeUp(nextExpirationTime());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                notifyDueEntries();
+            } finally {
+                notifyingThread = null;
+                notifying.set(false);
+            }
+        }
+    }
+
+    /**
+     * A wake-up may be scheduled for a deadline which is drained by a concurrent advance before the wake-up time is
+     * recorded, or may find the wheel already advanced past its time. As no wake-up is pending once its time is
+     * reached, the wheel needs to be revisited to schedule the next one.
+     *
+     * @return whether the wake-up time is reached in live mode
+     */
+    private boolean isWakeUpReached() {
+        return !siddhiAppContext.isPlayback() && nextWakeUpTime.get() <= currentTime;
+    }
+
+    /**
+     * Rebase the registered deadlines on the system time after switching back from playback mode.
+     */
+    public void switchToLiveMode() {
+        rebase();
+    }
+
+    /**
+     * Rebase the registered deadlines on the event time after switching to playback mode.
+     */
+    public void switchToPlayBackMode() {
+        rebase();
+    }
+
+    private void rebase() {
+        lock.lock();
+        try {
+            List<TimerEntry> entries = new ArrayList<>(dueEntries);
+            dueEntries.clear();
+            entries.addAll(notifyQueue);
+            notifyQueue.clear();
+            for (int level = 0; level < LEVELS; level++) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    for (TimerEntry entry = slots[level][slot]; entry != null; entry = entry.next) {
+                        entries.add(entry);
+                    }
+                    slots[level][slot] = null;
+                }
+                occupiedSlots[level] = 0;
+            }
+            entries.addAll(overflow);
+            overflow.clear();
+            currentTime = timestampGenerator.currentTime();
+            requestedTime.set(currentTime);
+            nextWakeUpTime.set(Long.MAX_VALUE);
+            for (TimerEntry entry : entries) {
+                entry.next = null;
+                inbox.add(entry);
+            }
+            if (!siddhiAppContext.isPlayback()) {
+                long earliestDeadline = Long.MAX_VALUE;
+                for (TimerEntry entry : inbox) {
+                    earliestDeadline = Math.min(earliestDeadline, entry.deadline);
+                }
+                scheduleWakeUp(earliestDeadline);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleWakeUp(long time) {
+        long wakeUpTime = nextWakeUpTime.get();
+        while (time < wakeUpTime) {
+            if (nextWakeUpTime.compareAndSet(wakeUpTime, time)) {
+                long delay = time - timestampGenerator.currentTime();
+                scheduleWakeUpTask(new WakeUpTask(time), delay > 0 ? delay : 0);
+                return;
+            }
+            wakeUpTime = nextWakeUpTime.get();
+        }
+    }
+
+    private void scheduleWakeUpTask(WakeUpTask wakeUpTask, long delay) {
+        if (!scheduledExecutorService.isShutdown()) {
+            scheduledExecutorService.schedule(wakeUpTask, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drainInbox() {
+        TimerEntry entry = inbox.poll();
+        while (entry != null) {
+            insert(entry);
+            entry = inbox.poll();
+        }
+    }
+
+    private void insert(TimerEntry entry) {
+        long deadline = entry.deadline;
+        if (deadline <= currentTime) {
+            dueEntries.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int levelShift = SLOT_BITS * (level + 1);
+            if ((deadline >>> levelShift) == (currentTime >>> levelShift)) {
+                int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+                entry.next = slots[level][slot];
+                slots[level][slot] = entry;
+                occupiedSlots[level] |= 1L << slot;
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    /**
+     * Move the current time of the wheel forward, stopping at each occupied slot to cascade its entries to the lower
+     * levels or to collect them as due.
+     */
+    private void moveTo(long time) {
+        while (currentTime < time) {
+            currentTime = Math.min(nextExpirationTime(), time);
+            while (!overflow.isEmpty() && (overflow.peek().deadline >>> WHEEL_BITS) == (currentTime >>> WHEEL_BITS)) {
+                insert(overflow.poll());
+            }
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                int slot = (int) ((currentTime >>> (SLOT_BITS * level)) & SLOT_MASK);
+                TimerEntry entry = slots[level][slot];
+                if (entry != null) {
+                    slots[level][slot] = null;
+                    occupiedSlots[level] &= ~(1L << slot);
+                    while (entry != null) {
+                        TimerEntry next = entry.next;
+                        entry.next = null;
+                        insert(entry);
+                        entry = next;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the start time of the earliest occupied slot, which is the next time the wheel needs to stop at
+     */
+    private long nextExpirationTime() {
+        for (int level = 0; level < LEVELS; level++) {
+            int levelShift = SLOT_BITS * level;
+            int slot = (int) ((currentTime >>> levelShift) & SLOT_MASK);
+            long laterSlots = occupiedSlots[level] & ~((2L << slot) - 1);
+            if (laterSlots != 0) {
+                long rotationStart = (currentTime >>> (levelShift + SLOT_BITS)) << (levelShift + SLOT_BITS);
+                return rotationStart | ((long) Long.numberOfTrailingZeros(laterSlots) << levelShift);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            return (overflow.peek().deadline >>> WHEEL_BITS) << WHEEL_BITS;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Hand the due deadlines over to the notifying thread, in the order of their deadlines.
+     */
+    private void collectDueEntries() {
+        if (dueEntries.isEmpty()) {
+            return;
+        }
+        dueEntries.sort(Comparator.comparingLong((TimerEntry timerEntry) -> timerEntry.deadline));
+        notifyQueue.addAll(dueEntries);
+        dueEntries.clear();
+    }
+
+    /**
+     * Notify the schedulers of the collected deadlines without holding the lock, such that deadlines can be
+     * registered, cancelled and read for snapshots while the schedulers process their TIMER events.
+     */
+    private void notifyDueEntries() {
+        while (true) {
+            TimerEntry entry;
+            lock.lock();
+            try {
+                entry = notifyQueue.poll();
+            } finally {
+                lock.unlock();
+            }
+            if (entry == null) {
+                return;
+            }
+            try {
+                entry.scheduler.expire(entry.deadline);
+            } catch (Throwable t) {
+                log.error("Error when notifying scheduler '" + entry.scheduler.getElementId() + "' at " +
+                        entry.deadline, t);
+            }
+        }
+    }
+
+    /**
+     * @param scheduler a scheduler
+     * @return the registered deadlines of the scheduler that are not yet notified
+     */
+    public List<Long> getDeadlines(Scheduler scheduler) {
+        List<Long> deadlines = new ArrayList<>();
+        lock.lock();
+        try {
+            forEachEntry(entry -> {
+                if (entry.scheduler == scheduler) {
+                    deadlines.add(entry.deadline);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+        deadlines.sort(null);
+        return deadlines;
+    }
+
+    /**
+     * Remove all the registered deadlines of the scheduler, as it is being discarded.
+     *
+     * @param scheduler a scheduler
+     */
+    public void cancel(Scheduler scheduler) {
+        lock.lock();
+        try {
+            inbox.removeIf(entry -> entry.scheduler == scheduler);
+            dueEntries.removeIf(entry -> entry.scheduler == scheduler);
+            notifyQueue.removeIf(entry -> entry.scheduler == scheduler);
+            overflow.removeIf(entry -> entry.scheduler == scheduler);
+            for (int level = 0; level < LEVELS; level++) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    TimerEntry previous = null;
+                    for (TimerEntry entry = slots[level][slot]; entry != null; entry = entry.next) {
+                        if (entry.scheduler != scheduler) {
+                            previous = entry;
+                        } else if (previous == null) {
+                            slots[level][slot] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                    }
+                    if (slots[level][slot] == null) {
+                        occupiedSlots[level] &= ~(1L << slot);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forEachEntry(Consumer<TimerEntry> consumer) {
+        inbox.forEach(consumer);
+        dueEntries.forEach(consumer);
+        notifyQueue.forEach(consumer);
+        overflow.forEach(consumer);
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                for (TimerEntry entry = slots[level][slot]; entry != null; entry = entry.next) {
+                    consumer.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deadline of a scheduler, linked with the other deadlines of the same slot.
+     */
+    private static final class TimerEntry {
+        private final Scheduler scheduler;
+        private final long deadline;
+        private TimerEntry next;
+
+        private TimerEntry(Scheduler scheduler, long deadline) {
+            this.scheduler = scheduler;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Advances the wheel to the system time when the earliest deadline is reached.
+     */
+    private class WakeUpTask implements Runnable {
+        private final long time;
+
+        private WakeUpTask(long time) {
+            this.time = time;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!siddhiAppContext.isPlayback()) {
+                    long currentTime = timestampGenerator.currentTime();
+                    if (currentTime < time) {
+                        scheduleWakeUpTask(this, time - currentTime);
+                    } else {
+                        advance(currentTime);
+                    }
+                }
+            } catch (Throwable t) {
+                log.error(t);
+            }
+        }
+    }
+}
@@ -185,6 +185,7 @@ public class IndexOperator implements Operator {
                             compiledUpdateSet.getExpressionExecutorMap().entrySet()) {
                         streamEvent.setOutputData(entry.getValue().execute(overwritingOrAddingEvent), entry.getKey());
                     }
+                    storeEvents.commitUpdate(streamEvent);
                 }
             }
         }
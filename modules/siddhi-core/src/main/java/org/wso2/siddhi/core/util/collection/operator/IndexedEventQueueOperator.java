@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.siddhi.core.util.collection.operator;
+
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+
+/**
+ * Operator which is related to window contents looked up through a hash index. The events having the value of the
+ * indexed attribute are looked up from the index of the {@link SnapshotableStreamEventQueue}, and only those are
+ * matched against the whole condition.
+ */
+public class IndexedEventQueueOperator extends SnapshotableEventQueueOperator {
+    private final VariableExpressionExecutor indexedAttributeExecutor;
+    private final ExpressionExecutor indexValueExecutor;
+
+    public IndexedEventQueueOperator(ExpressionExecutor expressionExecutor, int storeEventPosition,
+                                     VariableExpressionExecutor indexedAttributeExecutor,
+                                     ExpressionExecutor indexValueExecutor) {
+        super(expressionExecutor, storeEventPosition);
+        this.indexedAttributeExecutor = indexedAttributeExecutor;
+        this.indexValueExecutor = indexValueExecutor;
+    }
+
+    @Override
+    public CompiledCondition cloneCompilation(String key) {
+        return new IndexedEventQueueOperator(expressionExecutor.cloneExecutor(key), storeEventPosition,
+                indexedAttributeExecutor, indexValueExecutor.cloneExecutor(key));
+    }
+
+    @Override
+    public StreamEvent find(StateEvent matchingEvent, Object storeEvents, StreamEventCloner storeEventCloner) {
+        Object value = indexValueExecutor.execute(matchingEvent);
+        if (value == null) {
+            return null;
+        }
+        ComplexEventChunk<StreamEvent> returnEventChunk = new ComplexEventChunk<StreamEvent>(false);
+        for (StreamEvent storeEvent : ((SnapshotableStreamEventQueue) storeEvents).getIndex(
+                indexedAttributeExecutor.getPosition()).find(value)) {
+            matchingEvent.setEvent(storeEventPosition, storeEvent);
+            if ((Boolean) expressionExecutor.execute(matchingEvent)) {
+                returnEventChunk.add(storeEventCloner.copyStreamEvent(storeEvent));
+            }
+            matchingEvent.setEvent(storeEventPosition, null);
+        }
+        return returnEventChunk.getFirst();
+    }
+
+    @Override
+    public boolean contains(StateEvent matchingEvent, Object storeEvents) {
+        Object value = indexValueExecutor.execute(matchingEvent);
+        if (value == null) {
+            return false;
+        }
+        try {
+            for (StreamEvent storeEvent : ((SnapshotableStreamEventQueue) storeEvents).getIndex(
+                    indexedAttributeExecutor.getPosition()).find(value)) {
+                matchingEvent.setEvent(storeEventPosition, storeEvent);
+                if ((Boolean) expressionExecutor.execute(matchingEvent)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            matchingEvent.setEvent(storeEventPosition, null);
+        }
+    }
+}
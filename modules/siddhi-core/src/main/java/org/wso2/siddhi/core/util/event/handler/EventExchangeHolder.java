@@ -29,6 +29,7 @@ public class EventExchangeHolder {
 
     private AtomicBoolean processed = new AtomicBoolean(false);
     private Event event;
+    private long publishTime;
 
     public EventExchangeHolder(int dataSize) {
         this.event = new Event(dataSize);
@@ -41,4 +42,15 @@ public class EventExchangeHolder {
     public boolean getAndSetIsProcessed(boolean isProcessed) {
         return processed.getAndSet(isProcessed);
     }
+
+    /**
+     * @return time the event was published in nanoseconds, or 0 if its queueing latency is not tracked
+     */
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    public void setPublishTime(long publishTime) {
+        this.publishTime = publishTime;
+    }
 }
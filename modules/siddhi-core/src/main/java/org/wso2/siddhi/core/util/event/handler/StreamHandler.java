@@ -22,6 +22,7 @@ import com.lmax.disruptor.EventHandler;
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.stream.StreamJunction;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -36,6 +37,7 @@ public class StreamHandler implements EventHandler<EventExchangeHolder> {
     private final String streamName;
     private final String siddhiAppName;
     private List<Event> eventBuffer = new LinkedList<>();
+    private StageLatencyTracker queueLatencyTracker;
     private static final Logger log = Logger.getLogger(StreamHandler.class);
 
 
@@ -47,9 +49,18 @@ public class StreamHandler implements EventHandler<EventExchangeHolder> {
         this.siddhiAppName = siddhiAppName;
     }
 
+    public StreamHandler(List<StreamJunction.Receiver> receivers, int batchSize, String streamName,
+                         String siddhiAppName, StageLatencyTracker queueLatencyTracker) {
+        this(receivers, batchSize, streamName, siddhiAppName);
+        this.queueLatencyTracker = queueLatencyTracker;
+    }
+
     public void onEvent(EventExchangeHolder eventExchangeHolder, long sequence, boolean endOfBatch) {
         boolean isProcessed = eventExchangeHolder.getAndSetIsProcessed(true);
         if (!isProcessed) {
+            if (queueLatencyTracker != null) {
+                queueLatencyTracker.recordSince(eventExchangeHolder.getPublishTime());
+            }
             eventBuffer.add(eventExchangeHolder.getEvent());
             if (eventBuffer.size() == batchSize || endOfBatch) {
                 for (StreamJunction.Receiver receiver : receivers) {
@@ -267,10 +267,25 @@ public class AggregationParser {
                         "without buffers.");
             }
 
+            int shardCount = 1;
+            Annotation async = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_ASYNC,
+                    aggregationDefinition.getAnnotations());
+            if (async != null) {
+                String workers = async.getElement(SiddhiConstants.ANNOTATION_ELEMENT_WORKERS);
+                shardCount = workers == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(workers);
+                if (shardCount <= 0) {
+                    throw new SiddhiAppCreationException("Annotation element '" +
+                            SiddhiConstants.ANNOTATION_ELEMENT_WORKERS + "' cannot be negative or zero, " +
+                            "but found, '" + shardCount + "'.", async.getQueryContextStartIndex(),
+                            async.getQueryContextEndIndex(), siddhiAppContext.getName(),
+                            siddhiAppContext.getSiddhiAppString());
+                }
+            }
+
             Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap = buildIncrementalExecutors(
                     processedMetaStreamEvent, processExpressionExecutorsList,
                     groupByKeyGeneratorList, incrementalDurations,
-                    aggregationTables, siddhiAppContext, aggregatorName, shouldUpdateExpressionExecutor);
+                    aggregationTables, siddhiAppContext, aggregatorName, shouldUpdateExpressionExecutor, shardCount);
             IncrementalDataPurging incrementalDataPurging = new IncrementalDataPurging();
             incrementalDataPurging.init(aggregationDefinition, new StreamEventPool(processedMetaStreamEvent, 10)
                     , aggregationTables, isProcessingOnExternalTime, siddhiAppContext);
@@ -337,7 +352,7 @@ public class AggregationParser {
             List<GroupByKeyGenerator> groupByKeyGeneratorList,
             List<TimePeriod.Duration> incrementalDurations,
             Map<TimePeriod.Duration, Table> aggregationTables, SiddhiAppContext siddhiAppContext,
-            String aggregatorName, ExpressionExecutor shouldUpdateExpressionExecutor) {
+            String aggregatorName, ExpressionExecutor shouldUpdateExpressionExecutor, int shardCount) {
         Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap = new HashMap<>();
         // Create incremental executors
         IncrementalExecutor child;
@@ -359,7 +374,7 @@ public class AggregationParser {
                     cloneExpressionExecutors(processExpressionExecutorsList.get(i)),
                     groupByKeyGeneratorList.get(i), processedMetaStreamEvent, child, isRoot,
                     aggregationTables.get(duration), siddhiAppContext, aggregatorName,
-                    shouldUpdateExpressionExecutorClone);
+                    shouldUpdateExpressionExecutorClone, shardCount);
             incrementalExecutorMap.put(duration, incrementalExecutor);
             root = incrementalExecutor;
         }
@@ -49,6 +49,7 @@ import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Parameter;
 import org.wso2.siddhi.query.api.expression.Variable;
 import org.wso2.siddhi.query.api.expression.condition.And;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
@@ -105,6 +106,51 @@ public class CollectionExpressionParser {
         }
     }
 
+    /**
+     * Find an equality condition between an attribute of the collection and a value not depending on the collection,
+     * among the conditions joined by 'and' at the top level of the given expression, such that the collection events
+     * can be looked up through a hash index on the attribute. This is used for collections which can be indexed on
+     * any of their attributes on demand, such as window contents.
+     *
+     * @param expression             Expression to be parsed
+     * @param matchingMetaInfoHolder matchingMetaInfoHolder
+     * @return the indexable compare expression, or null if there is none
+     */
+    public static CompareCollectionExpression parseIndexableCompareExpression(
+            Expression expression, MatchingMetaInfoHolder matchingMetaInfoHolder) {
+        if (expression instanceof And) {
+            CompareCollectionExpression compareCollectionExpression = parseIndexableCompareExpression(
+                    ((And) expression).getLeftExpression(), matchingMetaInfoHolder);
+            if (compareCollectionExpression != null) {
+                return compareCollectionExpression;
+            }
+            return parseIndexableCompareExpression(((And) expression).getRightExpression(), matchingMetaInfoHolder);
+        } else if (expression instanceof Compare && ((Compare) expression).getOperator() == Compare.Operator.EQUAL) {
+            Expression leftExpression = ((Compare) expression).getLeftExpression();
+            Expression rightExpression = ((Compare) expression).getRightExpression();
+            if (!isIndexableAttribute(matchingMetaInfoHolder, leftExpression)) {
+                Expression swappedExpression = leftExpression;
+                leftExpression = rightExpression;
+                rightExpression = swappedExpression;
+            }
+            if (isIndexableAttribute(matchingMetaInfoHolder, leftExpression) &&
+                    (rightExpression instanceof Constant || rightExpression instanceof Parameter ||
+                            (rightExpression instanceof Variable &&
+                                    ((Variable) rightExpression).getStreamId() != null &&
+                                    !isCollectionVariable(matchingMetaInfoHolder, (Variable) rightExpression)))) {
+                return new CompareCollectionExpression((Compare) expression, INDEXED_RESULT_SET,
+                        new AttributeCollectionExpression(leftExpression,
+                                ((Variable) leftExpression).getAttributeName(), INDEXED_ATTRIBUTE),
+                        Compare.Operator.EQUAL, new BasicCollectionExpression(rightExpression, NON));
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIndexableAttribute(MatchingMetaInfoHolder matchingMetaInfoHolder, Expression expression) {
+        return expression instanceof Variable && isCollectionVariable(matchingMetaInfoHolder, (Variable) expression);
+    }
+
     /**
      * Parse the given expression and create the appropriate Executor by recursively traversing the expression.
      *
@@ -270,7 +316,7 @@ public class CollectionExpressionParser {
                 //comparing non indexed table with stream attributes or another table attribute
                 return new BasicCollectionExpression(expression, EXHAUSTIVE);
             }
-        } else if (expression instanceof Constant) {
+        } else if (expression instanceof Constant || expression instanceof Parameter) {
             return new BasicCollectionExpression(expression, NON);
         } else if (expression instanceof Variable) {
             if (isCollectionVariable(matchingMetaInfoHolder, (Variable) expression)) {
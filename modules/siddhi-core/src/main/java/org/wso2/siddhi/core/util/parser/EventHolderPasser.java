@@ -47,6 +47,20 @@ public class EventHolderPasser {
 
     public static EventHolder parse(AbstractDefinition tableDefinition, StreamEventPool tableStreamEventPool,
                                     SiddhiAppContext siddhiAppContext) {
+        return parse(tableDefinition, tableStreamEventPool, siddhiAppContext, false);
+    }
+
+    /**
+     * Parse the {@link EventHolder} of a table.
+     *
+     * @param tableDefinition      definition of the table
+     * @param tableStreamEventPool pool of the events of the table
+     * @param siddhiAppContext     context of the Siddhi App
+     * @param offHeap              whether the events should be kept in off-heap memory
+     * @return the event holder of the table
+     */
+    public static EventHolder parse(AbstractDefinition tableDefinition, StreamEventPool tableStreamEventPool,
+                                    SiddhiAppContext siddhiAppContext, boolean offHeap) {
         ZeroStreamEventConverter eventConverter = new ZeroStreamEventConverter();
 
         PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders = null;
@@ -97,7 +111,10 @@ public class EventHolderPasser {
                     " at '" + tableDefinition.getId() + "'");
         }
 
-        if (primaryKeyReferenceHolders != null || indexMetaData.size() > 0) {
+        if (offHeap) {
+            return new OffHeapEventHolder(primaryKeyReferenceHolders, indexMetaData, tableDefinition,
+                    siddhiAppContext);
+        } else if (primaryKeyReferenceHolders != null || indexMetaData.size() > 0) {
             boolean isNumeric = false;
             if (primaryKeyReferenceHolders != null) {
                 if (primaryKeyReferenceHolders.length == 1) {
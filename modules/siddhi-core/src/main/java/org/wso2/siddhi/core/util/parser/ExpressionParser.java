@@ -26,6 +26,7 @@ import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.ParameterExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.AndConditionExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.BoolConditionExpressionExecutor;
@@ -157,6 +158,7 @@ import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorDou
 import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorFloat;
 import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorInt;
 import org.wso2.siddhi.core.executor.math.subtract.SubtractExpressionExecutorLong;
+import org.wso2.siddhi.core.query.StoreQueryParameters;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
 import org.wso2.siddhi.core.query.selector.attribute.processor.executor.AbstractAggregationAttributeExecutor;
 import org.wso2.siddhi.core.query.selector.attribute.processor.executor.AggregationAttributeExecutor;
@@ -169,6 +171,7 @@ import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.extension.holder.AttributeAggregatorExtensionHolder;
 import org.wso2.siddhi.core.util.extension.holder.FunctionExecutorExtensionHolder;
+import org.wso2.siddhi.core.util.parser.helper.SharedExpressionHolder;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.AttributeNotExistException;
@@ -176,6 +179,7 @@ import org.wso2.siddhi.query.api.exception.DuplicateAttributeException;
 import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Parameter;
 import org.wso2.siddhi.query.api.expression.Variable;
 import org.wso2.siddhi.query.api.expression.condition.And;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
@@ -233,60 +237,62 @@ public class ExpressionParser {
                                                      List<VariableExpressionExecutor> executorList,
                                                      SiddhiAppContext siddhiAppContext, boolean groupBy,
                                                      int defaultStreamEventIndex, String queryName) {
+        SharedExpressionHolder sharedExpressionHolder = SharedExpressionHolder.getSharedExpressionHolderThreadLocal()
+                .get();
+        ExpressionExecutor expressionExecutor = parseExpressionTree(expression, metaEvent, currentState, tableMap,
+                executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName);
+        if (sharedExpressionHolder != null && sharedExpressionHolder.isShared(expression)) {
+            return sharedExpressionHolder.share(expression, expressionExecutor);
+        }
+        return expressionExecutor;
+    }
+
+    private static ExpressionExecutor parseExpressionTree(Expression expression, MetaComplexEvent metaEvent,
+                                                          int currentState, Map<String, Table> tableMap,
+                                                          List<VariableExpressionExecutor> executorList,
+                                                          SiddhiAppContext siddhiAppContext, boolean groupBy,
+                                                          int defaultStreamEventIndex, String queryName) {
         try {
             if (expression instanceof And) {
-                return new AndConditionExpressionExecutor(
-                        parseExpression(((And) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                        parseExpression(((And) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                ExpressionExecutor left = parseExpression(((And) expression).getLeftExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                ExpressionExecutor right = parseExpression(((And) expression).getRightExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                return foldConstant(new AndConditionExpressionExecutor(left, right), left, right);
             } else if (expression instanceof Or) {
-                return new OrConditionExpressionExecutor(
-                        parseExpression(((Or) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                        parseExpression(((Or) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                ExpressionExecutor left = parseExpression(((Or) expression).getLeftExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                ExpressionExecutor right = parseExpression(((Or) expression).getRightExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                return foldConstant(new OrConditionExpressionExecutor(left, right), left, right);
             } else if (expression instanceof Not) {
-                return new NotConditionExpressionExecutor(
-                        parseExpression(((Not) expression).getExpression(), metaEvent, currentState, tableMap, executorList,
-                                siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                ExpressionExecutor operand = parseExpression(((Not) expression).getExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                return foldConstant(new NotConditionExpressionExecutor(operand), operand);
             } else if (expression instanceof Compare) {
+                ExpressionExecutor left = parseExpression(((Compare) expression).getLeftExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
+                ExpressionExecutor right = parseExpression(((Compare) expression).getRightExpression(), metaEvent,
+                        currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
+                        queryName);
                 if (((Compare) expression).getOperator() == Compare.Operator.EQUAL) {
-                    return parseEqualCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseEqualCompare(left, right), left, right);
                 } else if (((Compare) expression).getOperator() == Compare.Operator.NOT_EQUAL) {
-                    return parseNotEqualCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseNotEqualCompare(left, right), left, right);
                 } else if (((Compare) expression).getOperator() == Compare.Operator.GREATER_THAN) {
-                    return parseGreaterThanCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseGreaterThanCompare(left, right), left, right);
                 } else if (((Compare) expression).getOperator() == Compare.Operator.GREATER_THAN_EQUAL) {
-                    return parseGreaterThanEqualCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseGreaterThanEqualCompare(left, right), left, right);
                 } else if (((Compare) expression).getOperator() == Compare.Operator.LESS_THAN) {
-                    return parseLessThanCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseLessThanCompare(left, right), left, right);
                 } else if (((Compare) expression).getOperator() == Compare.Operator.LESS_THAN_EQUAL) {
-                    return parseLessThanEqualCompare(
-                            parseExpression(((Compare) expression).getLeftExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName),
-                            parseExpression(((Compare) expression).getRightExpression(), metaEvent, currentState, tableMap,
-                                    executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName));
+                    return foldConstant(parseLessThanEqualCompare(left, right), left, right);
                 }
 
             } else if (expression instanceof Constant) {
@@ -307,6 +313,9 @@ public class ExpressionParser {
             } else if (expression instanceof Variable) {
                 return parseVariable((Variable) expression, metaEvent, currentState, executorList, defaultStreamEventIndex);
 
+            } else if (expression instanceof Parameter) {
+                return parseParameter((Parameter) expression);
+
             } else if (expression instanceof Multiply) {
                 ExpressionExecutor left = parseExpression(((Multiply) expression).getLeftValue(), metaEvent, currentState,
                         tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex, queryName);
@@ -315,13 +324,13 @@ public class ExpressionParser {
                 Attribute.Type type = parseArithmeticOperationResultType(left, right);
                 switch (type) {
                     case INT:
-                        return new MultiplyExpressionExecutorInt(left, right);
+                        return foldConstant(new MultiplyExpressionExecutorInt(left, right), left, right);
                     case LONG:
-                        return new MultiplyExpressionExecutorLong(left, right);
+                        return foldConstant(new MultiplyExpressionExecutorLong(left, right), left, right);
                     case FLOAT:
-                        return new MultiplyExpressionExecutorFloat(left, right);
+                        return foldConstant(new MultiplyExpressionExecutorFloat(left, right), left, right);
                     case DOUBLE:
-                        return new MultiplyExpressionExecutorDouble(left, right);
+                        return foldConstant(new MultiplyExpressionExecutorDouble(left, right), left, right);
                     default: // Will not happen. Handled in parseArithmeticOperationResultType()
                 }
             } else if (expression instanceof Add) {
@@ -332,13 +341,13 @@ public class ExpressionParser {
                 Attribute.Type type = parseArithmeticOperationResultType(left, right);
                 switch (type) {
                     case INT:
-                        return new AddExpressionExecutorInt(left, right);
+                        return foldConstant(new AddExpressionExecutorInt(left, right), left, right);
                     case LONG:
-                        return new AddExpressionExecutorLong(left, right);
+                        return foldConstant(new AddExpressionExecutorLong(left, right), left, right);
                     case FLOAT:
-                        return new AddExpressionExecutorFloat(left, right);
+                        return foldConstant(new AddExpressionExecutorFloat(left, right), left, right);
                     case DOUBLE:
-                        return new AddExpressionExecutorDouble(left, right);
+                        return foldConstant(new AddExpressionExecutorDouble(left, right), left, right);
                     default: // Will not happen. Handled in parseArithmeticOperationResultType()
                 }
             } else if (expression instanceof Subtract) {
@@ -349,13 +358,13 @@ public class ExpressionParser {
                 Attribute.Type type = parseArithmeticOperationResultType(left, right);
                 switch (type) {
                     case INT:
-                        return new SubtractExpressionExecutorInt(left, right);
+                        return foldConstant(new SubtractExpressionExecutorInt(left, right), left, right);
                     case LONG:
-                        return new SubtractExpressionExecutorLong(left, right);
+                        return foldConstant(new SubtractExpressionExecutorLong(left, right), left, right);
                     case FLOAT:
-                        return new SubtractExpressionExecutorFloat(left, right);
+                        return foldConstant(new SubtractExpressionExecutorFloat(left, right), left, right);
                     case DOUBLE:
-                        return new SubtractExpressionExecutorDouble(left, right);
+                        return foldConstant(new SubtractExpressionExecutorDouble(left, right), left, right);
                     default: // Will not happen. Handled in parseArithmeticOperationResultType()
                 }
             } else if (expression instanceof Mod) {
@@ -366,13 +375,13 @@ public class ExpressionParser {
                 Attribute.Type type = parseArithmeticOperationResultType(left, right);
                 switch (type) {
                     case INT:
-                        return new ModExpressionExecutorInt(left, right);
+                        return foldConstant(new ModExpressionExecutorInt(left, right), left, right);
                     case LONG:
-                        return new ModExpressionExecutorLong(left, right);
+                        return foldConstant(new ModExpressionExecutorLong(left, right), left, right);
                     case FLOAT:
-                        return new ModExpressionExecutorFloat(left, right);
+                        return foldConstant(new ModExpressionExecutorFloat(left, right), left, right);
                     case DOUBLE:
-                        return new ModExpressionExecutorDouble(left, right);
+                        return foldConstant(new ModExpressionExecutorDouble(left, right), left, right);
                     default: // Will not happen. Handled in parseArithmeticOperationResultType()
                 }
             } else if (expression instanceof Divide) {
@@ -383,13 +392,13 @@ public class ExpressionParser {
                 Attribute.Type type = parseArithmeticOperationResultType(left, right);
                 switch (type) {
                     case INT:
-                        return new DivideExpressionExecutorInt(left, right);
+                        return foldConstant(new DivideExpressionExecutorInt(left, right), left, right);
                     case LONG:
-                        return new DivideExpressionExecutorLong(left, right);
+                        return foldConstant(new DivideExpressionExecutorLong(left, right), left, right);
                     case FLOAT:
-                        return new DivideExpressionExecutorFloat(left, right);
+                        return foldConstant(new DivideExpressionExecutorFloat(left, right), left, right);
                     case DOUBLE:
-                        return new DivideExpressionExecutorDouble(left, right);
+                        return foldConstant(new DivideExpressionExecutorDouble(left, right), left, right);
                     default: // Will not happen. Handled in parseArithmeticOperationResultType()
                 }
 
@@ -424,10 +433,15 @@ public class ExpressionParser {
                             queryName);
 
                     expressionExecutor.initExecutor(innerExpressionExecutors, siddhiAppContext, queryName, configReader);
-                    if (expressionExecutor.getReturnType() == Attribute.Type.BOOL) {
-                        return new BoolConditionExpressionExecutor(expressionExecutor);
+                    ExpressionExecutor functionExecutor = expressionExecutor;
+                    if (SharedExpressionHolder.isDeterministicFunction((AttributeFunction) expression,
+                            siddhiAppContext)) {
+                        functionExecutor = foldConstant(expressionExecutor, innerExpressionExecutors);
+                    }
+                    if (functionExecutor.getReturnType() == Attribute.Type.BOOL) {
+                        return new BoolConditionExpressionExecutor(functionExecutor);
                     }
-                    return expressionExecutor;
+                    return functionExecutor;
                 } else {
                     AttributeAggregator attributeAggregator = (AttributeAggregator) executor;
                     Expression[] innerExpressions = ((AttributeFunction) expression).getParameters();
@@ -465,7 +479,8 @@ public class ExpressionParser {
                     ExpressionExecutor innerExpressionExecutor = parseExpression(isNull.getExpression(), metaEvent,
                             currentState, tableMap, executorList, siddhiAppContext, groupBy, defaultStreamEventIndex,
                             queryName);
-                    return new IsNullConditionExpressionExecutor(innerExpressionExecutor);
+                    return foldConstant(new IsNullConditionExpressionExecutor(innerExpressionExecutor),
+                            innerExpressionExecutor);
                 } else {
                     String streamId = isNull.getStreamId();
                     Integer streamIndex = isNull.getStreamIndex();
@@ -526,6 +541,37 @@ public class ExpressionParser {
         }
     }
 
+    /**
+     * Fold the given executor into a constant when all its operands are constants, so that it is evaluated once at
+     * parse time instead of once per event. Condition executors are folded into a constant wrapped by a
+     * {@link BoolConditionExpressionExecutor}, as their callers expect condition executors.
+     *
+     * @param expressionExecutor executor of a deterministic operation
+     * @param operands           operand executors of the operation
+     * @return constant executor holding the result, or the given executor if it cannot be folded
+     */
+    private static ExpressionExecutor foldConstant(ExpressionExecutor expressionExecutor,
+                                                   ExpressionExecutor... operands) {
+        for (ExpressionExecutor operand : operands) {
+            if (!isConstant(operand)) {
+                return expressionExecutor;
+            }
+        }
+        ConstantExpressionExecutor constantExpressionExecutor = new ConstantExpressionExecutor(
+                expressionExecutor.execute(null), expressionExecutor.getReturnType());
+        if (expressionExecutor instanceof ConditionExpressionExecutor) {
+            return new BoolConditionExpressionExecutor(constantExpressionExecutor);
+        }
+        return constantExpressionExecutor;
+    }
+
+    private static boolean isConstant(ExpressionExecutor expressionExecutor) {
+        if (expressionExecutor instanceof BoolConditionExpressionExecutor) {
+            expressionExecutor = ((BoolConditionExpressionExecutor) expressionExecutor).getConditionExecutor();
+        }
+        return expressionExecutor instanceof ConstantExpressionExecutor;
+    }
+
     /**
      * Create greater than Compare Condition Expression Executor which evaluates whether value of leftExpressionExecutor
      * is greater than value of rightExpressionExecutor.
@@ -1210,6 +1256,25 @@ public class ExpressionParser {
         }
     }
 
+    /**
+     * Parse the given parameter of the store query being parsed and return a ParameterExpressionExecutor
+     *
+     * @param parameter Parameter to be parsed
+     * @return ParameterExpressionExecutor returning the value bound to the parameter
+     */
+    private static ExpressionExecutor parseParameter(Parameter parameter) {
+        StoreQueryParameters storeQueryParameters = StoreQueryParser.getStoreQueryParameters();
+        if (storeQueryParameters == null) {
+            throw new SiddhiAppCreationException("Parameters can only be used in prepared store queries");
+        }
+        Attribute.Type type = storeQueryParameters.reference(parameter.getIndex());
+        if (type == null) {
+            throw new SiddhiAppCreationException("No value is given for parameter " + parameter.getIndex() +
+                    " of the store query, as only " + storeQueryParameters.getParameterCount() + " values are given");
+        }
+        return new ParameterExpressionExecutor(storeQueryParameters, parameter.getIndex(), type);
+    }
+
     /**
      * Parse and validate the given Siddhi variable and return a VariableExpressionExecutor
      *
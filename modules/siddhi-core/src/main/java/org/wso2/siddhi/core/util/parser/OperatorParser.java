@@ -27,6 +27,7 @@ import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.Table;
+import org.wso2.siddhi.core.table.holder.EventHolder;
 import org.wso2.siddhi.core.table.holder.IndexedEventHolder;
 import org.wso2.siddhi.core.util.collection.executor.CollectionExecutor;
 import org.wso2.siddhi.core.util.collection.expression.AndMultiPrimaryKeyCollectionExpression;
@@ -36,6 +37,7 @@ import org.wso2.siddhi.core.util.collection.expression.CompareCollectionExpressi
 import org.wso2.siddhi.core.util.collection.operator.CollectionOperator;
 import org.wso2.siddhi.core.util.collection.operator.EventChunkOperator;
 import org.wso2.siddhi.core.util.collection.operator.IndexOperator;
+import org.wso2.siddhi.core.util.collection.operator.IndexedEventQueueOperator;
 import org.wso2.siddhi.core.util.collection.operator.MapOperator;
 import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import org.wso2.siddhi.core.util.collection.operator.Operator;
@@ -94,6 +96,26 @@ public class OperatorParser {
             ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(expression,
                     matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(), tableMap,
                     variableExpressionExecutors, siddhiAppContext, false, 0, queryName);
+            if (!(storeEvents instanceof EventHolder)) {
+                // Window contents are indexed on demand, while tables are only indexed on their defined keys
+                CompareCollectionExpression compareCollectionExpression = CollectionExpressionParser
+                        .parseIndexableCompareExpression(expression, matchingMetaInfoHolder);
+                if (compareCollectionExpression != null) {
+                    ExpressionExecutor indexedAttributeExecutor = ExpressionParser.parseExpression(
+                            compareCollectionExpression.getAttributeCollectionExpression().getExpression(),
+                            matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(),
+                            tableMap, variableExpressionExecutors, siddhiAppContext, false, 0, queryName);
+                    ExpressionExecutor indexValueExecutor = ExpressionParser.parseExpression(
+                            compareCollectionExpression.getValueCollectionExpression().getExpression(),
+                            matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(),
+                            tableMap, variableExpressionExecutors, siddhiAppContext, false, 0, queryName);
+                    if (isHashIndexable(indexedAttributeExecutor, indexValueExecutor)) {
+                        return new IndexedEventQueueOperator(expressionExecutor,
+                                matchingMetaInfoHolder.getStoreEventIndex(),
+                                (VariableExpressionExecutor) indexedAttributeExecutor, indexValueExecutor);
+                    }
+                }
+            }
             return new SnapshotableEventQueueOperator(expressionExecutor, matchingMetaInfoHolder.getStoreEventIndex());
         } else if (storeEvents instanceof Map) {
             ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(expression,
@@ -110,6 +132,27 @@ public class OperatorParser {
         }
     }
 
+    /**
+     * Values are looked up by their hash, hence the attribute and the value should have the same type, and floating
+     * point values are not indexed as their equality differs from the equality of their boxed values.
+     */
+    private static boolean isHashIndexable(ExpressionExecutor indexedAttributeExecutor,
+                                           ExpressionExecutor indexValueExecutor) {
+        if (!(indexedAttributeExecutor instanceof VariableExpressionExecutor) ||
+                indexedAttributeExecutor.getReturnType() != indexValueExecutor.getReturnType()) {
+            return false;
+        }
+        switch (indexedAttributeExecutor.getReturnType()) {
+            case STRING:
+            case INT:
+            case LONG:
+            case BOOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private static boolean isTableIndexVariable(MatchingMetaInfoHolder matchingMetaInfoHolder, Expression expression,
                                                 String indexAttribute) {
         if (expression instanceof Variable) {
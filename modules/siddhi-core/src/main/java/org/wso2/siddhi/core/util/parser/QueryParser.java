@@ -39,6 +39,7 @@ import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.lock.LockSynchronizer;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.core.util.parser.helper.SharedExpressionHolder;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.core.window.Window;
 import org.wso2.siddhi.query.api.annotation.Element;
@@ -108,13 +109,25 @@ public class QueryParser {
             if (outputEventType != OutputStream.OutputEventType.CURRENT_EVENTS) {
                 outputExpectsExpiredEvents = true;
             }
-            StreamRuntime streamRuntime = InputStreamParser.parse(query.getInputStream(),
-                    siddhiAppContext, streamDefinitionMap, tableDefinitionMap, windowDefinitionMap,
-                    aggregationDefinitionMap, tableMap, windowMap, aggregationMap, executors, latencyTracker,
-                    outputExpectsExpiredEvents, queryName);
-            QuerySelector selector = SelectorParser.parse(query.getSelector(), query.getOutputStream(),
-                    siddhiAppContext, streamRuntime.getMetaComplexEvent(), tableMap, executors, queryName,
-                    SiddhiConstants.UNKNOWN_STATE);
+            SharedExpressionHolder sharedExpressionHolder = null;
+            if (query.getInputStream() instanceof SingleInputStream && isStream((SingleInputStream) query
+                    .getInputStream(), streamDefinitionMap, windowDefinitionMap)) {
+                sharedExpressionHolder = SharedExpressionHolder.analyse(query, siddhiAppContext);
+            }
+            StreamRuntime streamRuntime;
+            QuerySelector selector;
+            SharedExpressionHolder.getSharedExpressionHolderThreadLocal().set(sharedExpressionHolder);
+            try {
+                streamRuntime = InputStreamParser.parse(query.getInputStream(),
+                        siddhiAppContext, streamDefinitionMap, tableDefinitionMap, windowDefinitionMap,
+                        aggregationDefinitionMap, tableMap, windowMap, aggregationMap, executors, latencyTracker,
+                        outputExpectsExpiredEvents, queryName);
+                selector = SelectorParser.parse(query.getSelector(), query.getOutputStream(),
+                        siddhiAppContext, streamRuntime.getMetaComplexEvent(), tableMap, executors, queryName,
+                        SiddhiConstants.UNKNOWN_STATE);
+            } finally {
+                SharedExpressionHolder.getSharedExpressionHolderThreadLocal().remove();
+            }
             boolean isWindow = query.getInputStream() instanceof JoinInputStream;
             if (!isWindow && query.getInputStream() instanceof SingleInputStream) {
                 for (StreamHandler streamHandler : ((SingleInputStream) query.getInputStream()).getStreamHandlers()) {
@@ -199,8 +212,15 @@ public class QueryParser {
 
             QueryParserHelper.reduceMetaComplexEvent(streamRuntime.getMetaComplexEvent());
             QueryParserHelper.updateVariablePosition(streamRuntime.getMetaComplexEvent(), executors);
+            if (sharedExpressionHolder != null) {
+                sharedExpressionHolder.allocateSlots((MetaStreamEvent) streamRuntime.getMetaComplexEvent());
+            }
+            if (siddhiAppContext.isCompileExpressions()) {
+                QueryParserHelper.compileExpressions(streamRuntime, selector);
+            }
             QueryParserHelper.initStreamRuntime(streamRuntime, streamRuntime.getMetaComplexEvent(), lockWrapper,
                     queryName);
+            QueryParserHelper.initStageLatencyTrackers(streamRuntime, selector, queryName, siddhiAppContext);
             selector.setEventPopulator(StateEventPopulatorFactory.constructEventPopulator(streamRuntime
                     .getMetaComplexEvent()));
             queryRuntime = new QueryRuntime(query, siddhiAppContext, streamRuntime, selector, outputRateLimiter,
@@ -230,5 +250,15 @@ public class QueryParser {
         return queryRuntime;
     }
 
-
+    /**
+     * @return true if the input stream consumes a stream, rather than a window, table or aggregation
+     */
+    private static boolean isStream(SingleInputStream inputStream, Map<String, AbstractDefinition> streamDefinitionMap,
+                                    Map<String, AbstractDefinition> windowDefinitionMap) {
+        if (!inputStream.isInnerStream() && windowDefinitionMap != null
+                && windowDefinitionMap.containsKey(inputStream.getStreamId())) {
+            return false;
+        }
+        return streamDefinitionMap != null && streamDefinitionMap.containsKey(inputStream.getStreamId());
+    }
 }
@@ -23,7 +23,8 @@ import org.wso2.siddhi.core.util.Schedulable;
 import org.wso2.siddhi.core.util.Scheduler;
 
 /**
- * This parser generates the scheduler while registering it.
+ * This parser generates the scheduler, which registers its notification times with the
+ * {@link org.wso2.siddhi.core.util.TimingWheel} of the Siddhi App.
  */
 public class SchedulerParser {
 
@@ -41,8 +42,6 @@ public class SchedulerParser {
     public static Scheduler parse(Schedulable
                                           singleThreadEntryValve, SiddhiAppContext siddhiAppContext) {
 
-        Scheduler scheduler = new Scheduler(singleThreadEntryValve, siddhiAppContext);
-        siddhiAppContext.addScheduler(scheduler);
-        return scheduler;
+        return new Scheduler(singleThreadEntryValve, siddhiAppContext);
     }
 }
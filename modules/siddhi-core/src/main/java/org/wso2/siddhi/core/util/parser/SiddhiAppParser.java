@@ -29,6 +29,8 @@ import org.wso2.siddhi.core.util.ExceptionUtil;
 import org.wso2.siddhi.core.util.SiddhiAppRuntimeBuilder;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.ThreadBarrier;
+import org.wso2.siddhi.core.util.TimingWheel;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotCompactor;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
 import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
 import org.wso2.siddhi.core.util.timestamp.TimestampGeneratorImpl;
@@ -103,6 +105,56 @@ public class SiddhiAppParser {
                         annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex());
             }
 
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_COMPILE,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                // Both @app:compile and @app:compile('true') compile the query expressions into bytecode
+                Element compileElement = AnnotationHelper.getAnnotationElement(SiddhiConstants.ANNOTATION_COMPILE,
+                        null, siddhiApp.getAnnotations());
+                siddhiAppContext.setCompileExpressions(compileElement == null ||
+                        Boolean.valueOf(compileElement.getValue()));
+            }
+
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_RESTORE,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                // @app:restore(parallelism = '4', lazy = 'true')
+                String parallelism = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_PARALLELISM);
+                if (parallelism != null) {
+                    int restoreParallelism = Integer.parseInt(parallelism);
+                    if (restoreParallelism <= 0) {
+                        throw new SiddhiAppCreationException("Annotation element '" +
+                                SiddhiConstants.ANNOTATION_ELEMENT_PARALLELISM + "' cannot be negative or " +
+                                "zero, but found, '" + restoreParallelism + "'.",
+                                annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex());
+                    }
+                    siddhiAppContext.setRestoreParallelism(restoreParallelism);
+                }
+                siddhiAppContext.setLazyRestore(Boolean.valueOf(
+                        annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_LAZY)));
+            }
+
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_COMPACTION,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                // @app:compaction(chain.length = '10')
+                String chainLength = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_CHAIN_LENGTH);
+                if (chainLength == null) {
+                    throw new SiddhiAppCreationException("Annotation '" + SiddhiConstants.ANNOTATION_COMPACTION +
+                            "' requires the element '" + SiddhiConstants.ANNOTATION_ELEMENT_CHAIN_LENGTH + "'.",
+                            annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex());
+                }
+                int maxChainLength = Integer.parseInt(chainLength);
+                if (maxChainLength <= 0) {
+                    throw new SiddhiAppCreationException("Annotation element '" +
+                            SiddhiConstants.ANNOTATION_ELEMENT_CHAIN_LENGTH + "' cannot be negative or " +
+                            "zero, but found, '" + maxChainLength + "'.",
+                            annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex());
+                }
+                siddhiAppContext.setIncrementalSnapshotCompactor(
+                        new IncrementalSnapshotCompactor(siddhiAppContext, maxChainLength));
+            }
+
             annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_STATISTICS,
                     siddhiApp.getAnnotations());
 
@@ -140,6 +192,23 @@ public class SiddhiAppParser {
                     SiddhiConstants.ANNOTATION_STATISTICS,
                     SiddhiConstants.ANNOTATION_ELEMENT_INCLUDE, siddhiApp.getAnnotations());
             siddhiAppContext.setIncludedMetrics(generateIncludedMetrics(statStateIncludElement));
+            if (annotation != null) {
+                // @app:statistics(reporter = 'console', latency.breakdown = 'true', latency.sampling = '100')
+                String latencyBreakdown = annotation.getElement(
+                        SiddhiConstants.ANNOTATION_ELEMENT_LATENCY_BREAKDOWN);
+                siddhiAppContext.setLatencyBreakdownEnabled(Boolean.valueOf(latencyBreakdown));
+                String latencySampling = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_LATENCY_SAMPLING);
+                if (latencySampling != null) {
+                    int latencySamplingInterval = Integer.parseInt(latencySampling);
+                    if (latencySamplingInterval <= 0) {
+                        throw new SiddhiAppCreationException("Annotation element '" +
+                                SiddhiConstants.ANNOTATION_ELEMENT_LATENCY_SAMPLING + "' cannot be negative or " +
+                                "zero, but found, '" + latencySamplingInterval + "'.",
+                                annotation.getQueryContextStartIndex(), annotation.getQueryContextEndIndex());
+                    }
+                    siddhiAppContext.setLatencySamplingInterval(latencySamplingInterval);
+                }
+            }
 
             Element transportCreationEnabledElement = AnnotationHelper.getAnnotationElement(
                     SiddhiConstants.TRANSPORT_CHANNEL_CREATION_IDENTIFIER, null, siddhiApp.getAnnotations());
@@ -209,6 +278,7 @@ public class SiddhiAppParser {
             } else {
                 siddhiAppContext.setTimestampGenerator(new TimestampGeneratorImpl(siddhiAppContext));
             }
+            siddhiAppContext.setTimingWheel(new TimingWheel(siddhiAppContext));
             siddhiAppContext.setSnapshotService(new SnapshotService(siddhiAppContext));
             siddhiAppContext.setElementIdGenerator(new ElementIdGenerator(siddhiAppContext.getName()));
 
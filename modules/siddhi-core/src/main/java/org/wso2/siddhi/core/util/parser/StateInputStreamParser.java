@@ -45,6 +45,7 @@ import org.wso2.siddhi.core.query.input.stream.state.runtime.InnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.LogicalInnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.NextInnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.StreamInnerStateRuntime;
+import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.processor.SchedulingProcessor;
 import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.util.Scheduler;
@@ -126,9 +127,33 @@ public class StateInputStreamParser {
         ((StreamPreStateProcessor) innerStateRuntime.getFirstProcessor()).setThisLastProcessor(
                 (StreamPostStateProcessor) innerStateRuntime.getLastProcessor());
 
+        if (stateInputStream.getStateType() == StateInputStream.Type.PATTERN) {
+            setIndexableStateIds(stateStreamRuntime);
+        }
+
         return stateStreamRuntime;
     }
 
+    /**
+     * Allow the pending partial matches of the plain stream states of the pattern to be indexed on the plain stream
+     * states, as their events do not change once matched.
+     */
+    private static void setIndexableStateIds(StateStreamRuntime stateStreamRuntime) {
+        Set<Integer> indexableStateIds = new HashSet<Integer>();
+        List<StreamPreStateProcessor> streamPreStateProcessors = new ArrayList<StreamPreStateProcessor>();
+        for (SingleStreamRuntime singleStreamRuntime : stateStreamRuntime.getSingleStreamRuntimes()) {
+            Processor processor = singleStreamRuntime.getProcessorChain();
+            if (processor.getClass() == StreamPreStateProcessor.class) {
+                StreamPreStateProcessor streamPreStateProcessor = (StreamPreStateProcessor) processor;
+                indexableStateIds.add(streamPreStateProcessor.getStateId());
+                streamPreStateProcessors.add(streamPreStateProcessor);
+            }
+        }
+        for (StreamPreStateProcessor streamPreStateProcessor : streamPreStateProcessors) {
+            streamPreStateProcessor.setIndexableStateIds(indexableStateIds);
+        }
+    }
+
     private static InnerStateRuntime parse(StateElement stateElement,
                                            Map<String, AbstractDefinition> streamDefinitionMap,
                                            Map<String, AbstractDefinition> tableDefinitionMap,
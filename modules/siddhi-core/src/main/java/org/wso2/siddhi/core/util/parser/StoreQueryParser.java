@@ -33,6 +33,7 @@ import org.wso2.siddhi.core.query.DeleteStoreQueryRuntime;
 import org.wso2.siddhi.core.query.FindStoreQueryRuntime;
 import org.wso2.siddhi.core.query.InsertStoreQueryRuntime;
 import org.wso2.siddhi.core.query.SelectStoreQueryRuntime;
+import org.wso2.siddhi.core.query.StoreQueryParameters;
 import org.wso2.siddhi.core.query.StoreQueryRuntime;
 import org.wso2.siddhi.core.query.UpdateOrInsertStoreQueryRuntime;
 import org.wso2.siddhi.core.query.UpdateStoreQueryRuntime;
@@ -78,6 +79,48 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class StoreQueryParser {
 
+    private static final ThreadLocal<StoreQueryParameters> storeQueryParametersThreadLocal = new ThreadLocal<>();
+
+    /**
+     * @return parameters of the store query being parsed by the current thread, or null if the thread is not
+     * parsing a store query
+     */
+    public static StoreQueryParameters getStoreQueryParameters() {
+        return storeQueryParametersThreadLocal.get();
+    }
+
+    /**
+     * Parse a prepared storeQuery, whose parameters are bound with values of the given types, and return
+     * corresponding StoreQueryRuntime.
+     *
+     * @param storeQuery       storeQuery to be parsed.
+     * @param parameterTypes   types of the values bound to the parameters of the storeQuery.
+     * @param siddhiAppContext associated Siddhi app context.
+     * @param tableMap         keyvalue containing tables.
+     * @param windowMap        keyvalue containing windows.
+     * @param aggregationMap   keyvalue containing aggregation runtimes.
+     * @return StoreQueryRuntime
+     */
+    public static StoreQueryRuntime parse(StoreQuery storeQuery, Attribute.Type[] parameterTypes,
+                                          SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap,
+                                          Map<String, Window> windowMap,
+                                          Map<String, AggregationRuntime> aggregationMap) {
+        StoreQueryParameters storeQueryParameters = new StoreQueryParameters(parameterTypes);
+        StoreQueryRuntime storeQueryRuntime;
+        try {
+            storeQueryParametersThreadLocal.set(storeQueryParameters);
+            storeQueryRuntime = parse(storeQuery, siddhiAppContext, tableMap, windowMap, aggregationMap);
+        } finally {
+            storeQueryParametersThreadLocal.remove();
+        }
+        if (storeQueryParameters.getReferencedCount() != storeQueryParameters.getParameterCount()) {
+            throw new StoreQueryCreationException("Store query has " + storeQueryParameters.getReferencedCount() +
+                    " parameters, but " + storeQueryParameters.getParameterCount() + " values are given");
+        }
+        storeQueryRuntime.setStoreQueryParameters(storeQueryParameters);
+        return storeQueryRuntime;
+    }
+
     /**
      * Parse a storeQuery and return corresponding StoreQueryRuntime.
      *
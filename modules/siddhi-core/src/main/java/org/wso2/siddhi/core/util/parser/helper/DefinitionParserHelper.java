@@ -34,12 +34,14 @@ import org.wso2.siddhi.core.stream.output.sink.DynamicOptionGroupDeterminer;
 import org.wso2.siddhi.core.stream.output.sink.OutputGroupDeterminer;
 import org.wso2.siddhi.core.stream.output.sink.PartitionedGroupDeterminer;
 import org.wso2.siddhi.core.stream.output.sink.Sink;
+import org.wso2.siddhi.core.stream.output.sink.SinkBuffer;
 import org.wso2.siddhi.core.stream.output.sink.SinkHandler;
 import org.wso2.siddhi.core.stream.output.sink.SinkHandlerManager;
 import org.wso2.siddhi.core.stream.output.sink.SinkMapper;
 import org.wso2.siddhi.core.stream.output.sink.distributed.DistributedTransport;
 import org.wso2.siddhi.core.stream.output.sink.distributed.DistributionStrategy;
 import org.wso2.siddhi.core.table.InMemoryTable;
+import org.wso2.siddhi.core.table.OffHeapTable;
 import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.table.record.RecordTableHandler;
 import org.wso2.siddhi.core.table.record.RecordTableHandlerManager;
@@ -77,11 +79,14 @@ import org.wso2.siddhi.query.api.exception.DuplicateDefinitionException;
 import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.api.extension.Extension;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
+import org.wso2.siddhi.query.compiler.SiddhiCompiler;
+import org.wso2.siddhi.query.compiler.exception.SiddhiParserException;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
@@ -179,6 +184,11 @@ public class DefinitionParserHelper {
             RecordTableHandler recordTableHandler = null;
             if (annotation != null) {
                 annotation = updateAnnotationRef(annotation, SiddhiConstants.NAMESPACE_STORE, siddhiAppContext);
+            }
+            if (annotation != null && SiddhiConstants.STORE_TYPE_OFF_HEAP.equalsIgnoreCase(
+                    annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_TYPE))) {
+                table = new OffHeapTable();
+            } else if (annotation != null) {
                 String tableType = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_TYPE);
                 if (tableType == null) {
                     throw new SiddhiAppCreationException(
@@ -567,6 +577,12 @@ public class DefinitionParserHelper {
                             sink.getMapper().setGroupDeterminer(groupDeterminer);
                         }
 
+                        Annotation bufferAnnotation = AnnotationHelper.getAnnotation(
+                                SiddhiConstants.ANNOTATION_BUFFER, sinkAnnotation.getAnnotations());
+                        if (bufferAnnotation != null) {
+                            sink.setBuffer(createSinkBuffer(sink, bufferAnnotation, siddhiAppContext));
+                        }
+
                         siddhiAppContext.getSnapshotService().addSnapshotable(sink.getStreamDefinition().getId(), sink);
 
                         List<Sink> eventSinks = eventSinkMap.get(streamDefinition.getId());
@@ -590,6 +606,63 @@ public class DefinitionParserHelper {
         }
     }
 
+    private static SinkBuffer createSinkBuffer(Sink sink, Annotation bufferAnnotation,
+                                               SiddhiAppContext siddhiAppContext) {
+        int size = getPositiveInt(bufferAnnotation, SiddhiConstants.ANNOTATION_ELEMENT_SIZE,
+                SiddhiConstants.DEFAULT_EVENT_BUFFER_SIZE, siddhiAppContext);
+        int batchSize = getPositiveInt(bufferAnnotation, SiddhiConstants.ANNOTATION_ELEMENT_BATCH,
+                Math.min(SiddhiConstants.DEFAULT_SINK_BUFFER_BATCH_SIZE, size), siddhiAppContext);
+        if (batchSize > size) {
+            throw new SiddhiAppCreationException("Annotation element '" + SiddhiConstants.ANNOTATION_ELEMENT_BATCH +
+                    "' of @buffer cannot be greater than its '" + SiddhiConstants.ANNOTATION_ELEMENT_SIZE +
+                    "', but found '" + batchSize + "' and '" + size + "'.", bufferAnnotation, siddhiAppContext);
+        }
+        long lingerMillis = 0;
+        String linger = bufferAnnotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_LINGER);
+        if (linger != null) {
+            try {
+                lingerMillis = SiddhiCompiler.parseTimeConstantDefinition(linger).value();
+            } catch (SiddhiParserException e) {
+                throw new SiddhiAppCreationException("Invalid time constant '" + linger + "' for annotation " +
+                        "element '" + SiddhiConstants.ANNOTATION_ELEMENT_LINGER + "' of @buffer.", e,
+                        bufferAnnotation.getQueryContextStartIndex(), bufferAnnotation.getQueryContextEndIndex(),
+                        siddhiAppContext);
+            }
+        }
+        SinkBuffer.OverflowPolicy overflowPolicy = SinkBuffer.OverflowPolicy.BLOCK;
+        String overflow = bufferAnnotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_OVERFLOW);
+        if (overflow != null) {
+            try {
+                overflowPolicy = SinkBuffer.OverflowPolicy.valueOf(overflow.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new SiddhiAppCreationException("Annotation element '" +
+                        SiddhiConstants.ANNOTATION_ELEMENT_OVERFLOW + "' of @buffer should be one of 'block', " +
+                        "'drop' or 'spill', but found '" + overflow + "'.", bufferAnnotation, siddhiAppContext);
+            }
+        }
+        return new SinkBuffer(sink, size, batchSize, lingerMillis, overflowPolicy, siddhiAppContext);
+    }
+
+    private static int getPositiveInt(Annotation annotation, String elementName, int defaultValue,
+                                      SiddhiAppContext siddhiAppContext) {
+        String value = annotation.getElement(elementName);
+        if (value == null) {
+            return defaultValue;
+        }
+        int intValue;
+        try {
+            intValue = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            intValue = 0;
+        }
+        if (intValue <= 0) {
+            throw new SiddhiAppCreationException("Annotation element '" + elementName + "' of @" +
+                    annotation.getName() + " should be a positive integer, but found '" + value + "'.",
+                    annotation, siddhiAppContext);
+        }
+        return intValue;
+    }
+
     private static void validateSinkMapperCompatibility(StreamDefinition streamDefinition, String sinkType,
                                                         String mapType, Sink sink, SinkMapper sinkMapper,
                                                         Annotation sinkAnnotation) {
@@ -30,6 +30,7 @@ import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.populater.ComplexEventPopulater;
 import org.wso2.siddhi.core.event.stream.populater.StreamEventPopulaterFactory;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.compiler.ExpressionCompiler;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinProcessor;
@@ -37,16 +38,24 @@ import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.StreamPreStateProcessor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.processor.SchedulingProcessor;
+import org.wso2.siddhi.core.query.processor.filter.FilterProcessor;
 import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
+import org.wso2.siddhi.core.query.processor.stream.window.WindowProcessor;
+import org.wso2.siddhi.core.query.selector.QuerySelector;
+import org.wso2.siddhi.core.query.selector.attribute.processor.AttributeProcessor;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.collection.operator.IncrementalAggregateCompileCondition;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.core.util.statistics.MemoryUsageTracker;
+import org.wso2.siddhi.core.util.statistics.StageLatencyTracker;
 import org.wso2.siddhi.core.util.statistics.ThroughputTracker;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import static org.wso2.siddhi.core.util.SiddhiConstants.BEFORE_WINDOW_DATA_INDEX;
 import static org.wso2.siddhi.core.util.SiddhiConstants.HAVING_STATE;
@@ -223,6 +232,111 @@ public class QueryParserHelper {
         }
     }
 
+    /**
+     * Compile the filter conditions and the selected expressions of a query into generated executor classes. This
+     * should be done after updating the variable positions, as the positions are read by the generated code.
+     *
+     * @param streamRuntime stream runtime of the query
+     * @param selector      selector of the query
+     */
+    public static void compileExpressions(StreamRuntime streamRuntime, QuerySelector selector) {
+        Set<Processor> visitedProcessors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SingleStreamRuntime singleStreamRuntime : streamRuntime.getSingleStreamRuntimes()) {
+            Processor processor = singleStreamRuntime.getProcessorChain();
+            while (processor != null && visitedProcessors.add(processor)) {
+                if (processor instanceof FilterProcessor) {
+                    FilterProcessor filterProcessor = (FilterProcessor) processor;
+                    filterProcessor.setConditionExecutor(
+                            ExpressionCompiler.compile(filterProcessor.getConditionExecutor()));
+                }
+                processor = processor.getNextProcessor();
+            }
+        }
+        for (AttributeProcessor attributeProcessor : selector.getAttributeProcessorList()) {
+            attributeProcessor.setExpressionExecutor(
+                    ExpressionCompiler.compile(attributeProcessor.getExpressionExecutor()));
+        }
+    }
+
+    /**
+     * Set the latency trackers of the filter, window, join, selector and rate limiter stages of a query, when the
+     * latency breakdown is enabled. Stages of the same kind within a query share a tracker.
+     *
+     * @param streamRuntime    stream runtime of the query
+     * @param selector         selector of the query
+     * @param queryName        name of the query
+     * @param siddhiAppContext siddhi app context
+     */
+    public static void initStageLatencyTrackers(StreamRuntime streamRuntime, QuerySelector selector, String queryName,
+                                                SiddhiAppContext siddhiAppContext) {
+        if (!siddhiAppContext.isLatencyBreakdownEnabled()) {
+            return;
+        }
+        Set<Processor> visitedProcessors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SingleStreamRuntime singleStreamRuntime : streamRuntime.getSingleStreamRuntimes()) {
+            Processor processor = singleStreamRuntime.getProcessorChain();
+            while (processor != null && visitedProcessors.add(processor)) {
+                if (processor instanceof FilterProcessor) {
+                    ((FilterProcessor) processor).setLatencyTracker(createStageLatencyTracker(siddhiAppContext,
+                            queryName, SiddhiConstants.METRIC_INFIX_QUERIES, StageLatencyTracker.Stage.FILTER));
+                } else if (processor instanceof WindowProcessor) {
+                    ((WindowProcessor) processor).setLatencyTracker(createStageLatencyTracker(siddhiAppContext,
+                            queryName, SiddhiConstants.METRIC_INFIX_QUERIES, StageLatencyTracker.Stage.WINDOW));
+                } else if (processor instanceof JoinProcessor) {
+                    ((JoinProcessor) processor).setLatencyTracker(createStageLatencyTracker(siddhiAppContext,
+                            queryName, SiddhiConstants.METRIC_INFIX_QUERIES, StageLatencyTracker.Stage.JOIN));
+                }
+                processor = processor.getNextProcessor();
+            }
+        }
+        selector.setLatencyTrackers(
+                createStageLatencyTracker(siddhiAppContext, queryName, SiddhiConstants.METRIC_INFIX_QUERIES,
+                        StageLatencyTracker.Stage.SELECTOR),
+                createStageLatencyTracker(siddhiAppContext, queryName, SiddhiConstants.METRIC_INFIX_QUERIES,
+                        StageLatencyTracker.Stage.RATE_LIMITER));
+    }
+
+    /**
+     * Create the latency tracker of a processing stage, or return the existing tracker of the same stage, when the
+     * latency breakdown is enabled and the stage matches the included metrics.
+     *
+     * @param siddhiAppContext siddhi app context
+     * @param name             name of the element, such as the query name
+     * @param type             type of the element, such as {@link SiddhiConstants#METRIC_INFIX_QUERIES}
+     * @param stage            processing stage
+     * @return the latency tracker, or null if the stage is not tracked
+     */
+    public static StageLatencyTracker createStageLatencyTracker(SiddhiAppContext siddhiAppContext, String name,
+                                                                String type, StageLatencyTracker.Stage stage) {
+        if (!siddhiAppContext.isLatencyBreakdownEnabled() || siddhiAppContext.getStatisticsManager() == null) {
+            return null;
+        }
+        String trackerName = type + SiddhiConstants.METRIC_DELIMITER + name + SiddhiConstants.METRIC_DELIMITER +
+                stage.getName();
+        String metricName = siddhiAppContext.getSiddhiContext().getStatisticsConfiguration().getMetricPrefix() +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_SIDDHI_APPS +
+                SiddhiConstants.METRIC_DELIMITER + siddhiAppContext.getName() +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_SIDDHI +
+                SiddhiConstants.METRIC_DELIMITER + trackerName + SiddhiConstants.METRIC_DELIMITER + "latency";
+        boolean matchExist = false;
+        for (String regex : siddhiAppContext.getIncludedMetrics()) {
+            if (metricName.matches(regex)) {
+                matchExist = true;
+                break;
+            }
+        }
+        if (!matchExist) {
+            return null;
+        }
+        return siddhiAppContext.getStageLatencyTrackers().computeIfAbsent(trackerName, key -> {
+            StageLatencyTracker stageLatencyTracker = new StageLatencyTracker(trackerName, stage, siddhiAppContext,
+                    siddhiAppContext.getLatencySamplingInterval());
+            siddhiAppContext.getStatisticsManager().registerLatencyHistogram(metricName,
+                    stageLatencyTracker.getHistogram());
+            return stageLatencyTracker;
+        });
+    }
+
     public static LatencyTracker createLatencyTracker(SiddhiAppContext siddhiAppContext, String name, String type,
                                                       String function) {
         LatencyTracker latencyTracker = null;
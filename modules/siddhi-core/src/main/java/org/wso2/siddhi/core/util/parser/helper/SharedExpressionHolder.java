@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.parser.helper;
+
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.SharedExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.BoolConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.ConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.execution.query.Query;
+import org.wso2.siddhi.query.api.execution.query.input.handler.Filter;
+import org.wso2.siddhi.query.api.execution.query.input.handler.StreamHandler;
+import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
+import org.wso2.siddhi.query.api.execution.query.selection.OutputAttribute;
+import org.wso2.siddhi.query.api.expression.AttributeFunction;
+import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Variable;
+import org.wso2.siddhi.query.api.expression.condition.And;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+import org.wso2.siddhi.query.api.expression.condition.IsNull;
+import org.wso2.siddhi.query.api.expression.condition.Not;
+import org.wso2.siddhi.query.api.expression.condition.Or;
+import org.wso2.siddhi.query.api.expression.constant.Constant;
+import org.wso2.siddhi.query.api.expression.math.Add;
+import org.wso2.siddhi.query.api.expression.math.Divide;
+import org.wso2.siddhi.query.api.expression.math.Mod;
+import org.wso2.siddhi.query.api.expression.math.Multiply;
+import org.wso2.siddhi.query.api.expression.math.Subtract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the sub-expressions that repeat within the filter and select clauses, or within the having clause, of a
+ * single stream query, and shares them among their occurrences via {@link SharedExpressionExecutor}s.
+ * <p>
+ * Only the sub-expressions built of attributes, constants, math, compare and logical operators and deterministic
+ * built-in functions are shared, and a sub-expression is not shared separately when all its occurrences are within
+ * an occurrence of a shared parent. The holder of the query being parsed is kept in a thread local, from which
+ * {@link org.wso2.siddhi.core.util.parser.ExpressionParser} picks the shared occurrences.
+ */
+public class SharedExpressionHolder {
+
+    private static final ThreadLocal<SharedExpressionHolder> sharedExpressionHolderThreadLocal =
+            new ThreadLocal<SharedExpressionHolder>();
+    private static final Set<String> DETERMINISTIC_FUNCTIONS = new HashSet<>(Arrays.asList("cast", "coalesce",
+            "convert", "default", "ifThenElse", "instanceOfBoolean", "instanceOfDouble", "instanceOfFloat",
+            "instanceOfInteger", "instanceOfLong", "instanceOfString", "maximum", "minimum"));
+    private static final String SLOT_ATTRIBUTE_PREFIX = "#shared";
+
+    private final SiddhiAppContext siddhiAppContext;
+    private final Map<Expression, List<SharedExpressionExecutor>> sharedOccurrences = new IdentityHashMap<>();
+    private final List<List<SharedExpressionExecutor>> slots = new ArrayList<>();
+
+    private SharedExpressionHolder(SiddhiAppContext siddhiAppContext) {
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    /**
+     * Find the sub-expressions to be shared within the given query.
+     *
+     * @param query            query to be analysed
+     * @param siddhiAppContext SiddhiAppContext
+     * @return holder of the shared sub-expressions, or null if no sub-expression repeats within the query
+     */
+    public static SharedExpressionHolder analyse(Query query, SiddhiAppContext siddhiAppContext) {
+        if (!(query.getInputStream() instanceof SingleInputStream)) {
+            return null;
+        }
+        SharedExpressionHolder sharedExpressionHolder = new SharedExpressionHolder(siddhiAppContext);
+        List<Expression> expressions = new ArrayList<>();
+        for (StreamHandler streamHandler : ((SingleInputStream) query.getInputStream()).getStreamHandlers()) {
+            if (streamHandler instanceof Filter) {
+                expressions.add(streamHandler.getParameters()[0]);
+            }
+        }
+        for (OutputAttribute outputAttribute : query.getSelector().getSelectionList()) {
+            expressions.add(outputAttribute.getExpression());
+        }
+        sharedExpressionHolder.findSharedExpressions(expressions);
+        // Attributes of the having clause refer to the output of the selector, hence it is analysed on its own
+        if (query.getSelector().getHavingExpression() != null) {
+            sharedExpressionHolder.findSharedExpressions(Collections.singletonList(query.getSelector().getHavingExpression()));
+        }
+        if (sharedExpressionHolder.sharedOccurrences.isEmpty()) {
+            return null;
+        }
+        return sharedExpressionHolder;
+    }
+
+    public static ThreadLocal<SharedExpressionHolder> getSharedExpressionHolderThreadLocal() {
+        return sharedExpressionHolderThreadLocal;
+    }
+
+    /**
+     * Check whether the given function always returns the same result for the same parameters.
+     *
+     * @param attributeFunction function
+     * @param siddhiAppContext  SiddhiAppContext
+     * @return true if the function is a deterministic built-in function
+     */
+    public static boolean isDeterministicFunction(AttributeFunction attributeFunction,
+                                                  SiddhiAppContext siddhiAppContext) {
+        return attributeFunction.getNamespace().isEmpty() && DETERMINISTIC_FUNCTIONS.contains(
+                attributeFunction.getName()) && !siddhiAppContext.isFunctionExist(attributeFunction.getName());
+    }
+
+    /**
+     * @param expression expression being parsed
+     * @return true if the expression is an occurrence of a shared sub-expression
+     */
+    public boolean isShared(Expression expression) {
+        return sharedOccurrences.containsKey(expression);
+    }
+
+    /**
+     * Create the executor of an occurrence of a shared sub-expression.
+     *
+     * @param expression         occurrence of the shared sub-expression
+     * @param expressionExecutor executor parsed from the occurrence
+     * @return executor sharing the value of the sub-expression
+     */
+    public ExpressionExecutor share(Expression expression, ExpressionExecutor expressionExecutor) {
+        SharedExpressionExecutor sharedExpressionExecutor = new SharedExpressionExecutor(expressionExecutor, -1);
+        sharedOccurrences.get(expression).add(sharedExpressionExecutor);
+        if (expressionExecutor instanceof ConditionExpressionExecutor) {
+            return new BoolConditionExpressionExecutor(sharedExpressionExecutor);
+        }
+        return sharedExpressionExecutor;
+    }
+
+    /**
+     * Add the slots of the shared sub-expressions to the onAfterWindowData of the query events. This should be done
+     * after reducing the meta event, as the slots are appended to the end of the onAfterWindowData.
+     *
+     * @param metaStreamEvent meta event of the query
+     */
+    public void allocateSlots(MetaStreamEvent metaStreamEvent) {
+        metaStreamEvent.initializeAfterWindowData();
+        for (List<SharedExpressionExecutor> slot : slots) {
+            if (slot.isEmpty()) {
+                continue;
+            }
+            int slotPosition = metaStreamEvent.getOnAfterWindowData().size();
+            metaStreamEvent.getOnAfterWindowData().add(new Attribute(SLOT_ATTRIBUTE_PREFIX + slotPosition,
+                    slot.get(0).getReturnType()));
+            for (SharedExpressionExecutor sharedExpressionExecutor : slot) {
+                sharedExpressionExecutor.setSlotPosition(slotPosition);
+            }
+        }
+    }
+
+    private void findSharedExpressions(List<Expression> expressions) {
+        Map<Expression, Integer> occurrenceCounts = new HashMap<>();
+        for (Expression expression : expressions) {
+            count(expression, occurrenceCounts);
+        }
+        Map<Expression, List<SharedExpressionExecutor>> expressionSlots = new HashMap<>();
+        for (Expression expression : expressions) {
+            markSharedOccurrences(expression, occurrenceCounts, expressionSlots, 1);
+        }
+    }
+
+    private void count(Expression expression, Map<Expression, Integer> occurrenceCounts) {
+        Expression[] operands = getOperands(expression);
+        if (operands == null) {
+            return;
+        }
+        if (isPure(expression) && containsVariable(expression)) {
+            occurrenceCounts.merge(expression, 1, Integer::sum);
+        }
+        for (Expression operand : operands) {
+            count(operand, occurrenceCounts);
+        }
+    }
+
+    private void markSharedOccurrences(Expression expression, Map<Expression, Integer> occurrenceCounts,
+                                       Map<Expression, List<SharedExpressionExecutor>> expressionSlots,
+                                       int parentCount) {
+        Expression[] operands = getOperands(expression);
+        if (operands == null) {
+            return;
+        }
+        Integer count = occurrenceCounts.get(expression);
+        if (count != null && count > parentCount) {
+            List<SharedExpressionExecutor> slot = expressionSlots.get(expression);
+            if (slot == null) {
+                slot = new ArrayList<>();
+                expressionSlots.put(expression, slot);
+                slots.add(slot);
+            }
+            sharedOccurrences.put(expression, slot);
+            parentCount = count;
+        }
+        for (Expression operand : operands) {
+            markSharedOccurrences(operand, occurrenceCounts, expressionSlots, parentCount);
+        }
+    }
+
+    private boolean isPure(Expression expression) {
+        if (expression instanceof Variable || expression instanceof Constant) {
+            return true;
+        }
+        Expression[] operands = getOperands(expression);
+        if (operands == null || (expression instanceof AttributeFunction
+                && !isDeterministicFunction((AttributeFunction) expression, siddhiAppContext))) {
+            return false;
+        }
+        for (Expression operand : operands) {
+            if (!isPure(operand)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsVariable(Expression expression) {
+        if (expression instanceof Variable) {
+            return true;
+        }
+        Expression[] operands = getOperands(expression);
+        if (operands != null) {
+            for (Expression operand : operands) {
+                if (containsVariable(operand)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the operands of the expression, or null if the expression is not an operation
+     */
+    private Expression[] getOperands(Expression expression) {
+        if (expression instanceof And) {
+            return new Expression[]{((And) expression).getLeftExpression(), ((And) expression).getRightExpression()};
+        } else if (expression instanceof Or) {
+            return new Expression[]{((Or) expression).getLeftExpression(), ((Or) expression).getRightExpression()};
+        } else if (expression instanceof Not) {
+            return new Expression[]{((Not) expression).getExpression()};
+        } else if (expression instanceof Compare) {
+            return new Expression[]{((Compare) expression).getLeftExpression(),
+                    ((Compare) expression).getRightExpression()};
+        } else if (expression instanceof IsNull) {
+            if (((IsNull) expression).getExpression() != null) {
+                return new Expression[]{((IsNull) expression).getExpression()};
+            }
+        } else if (expression instanceof Add) {
+            return new Expression[]{((Add) expression).getLeftValue(), ((Add) expression).getRightValue()};
+        } else if (expression instanceof Subtract) {
+            return new Expression[]{((Subtract) expression).getLeftValue(), ((Subtract) expression).getRightValue()};
+        } else if (expression instanceof Multiply) {
+            return new Expression[]{((Multiply) expression).getLeftValue(), ((Multiply) expression).getRightValue()};
+        } else if (expression instanceof Divide) {
+            return new Expression[]{((Divide) expression).getLeftValue(), ((Divide) expression).getRightValue()};
+        } else if (expression instanceof Mod) {
+            return new Expression[]{((Mod) expression).getLeftValue(), ((Mod) expression).getRightValue()};
+        } else if (expression instanceof AttributeFunction) {
+            return ((AttributeFunction) expression).getParameters();
+        }
+        return null;
+    }
+}
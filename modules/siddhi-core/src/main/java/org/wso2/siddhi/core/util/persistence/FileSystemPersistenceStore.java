@@ -22,16 +22,26 @@ import com.google.common.io.Files;
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
- * Implementation of Persistence Store that would persist snapshots to the file system
+ * Implementation of Persistence Store that would persist snapshots to the file system. Snapshots are streamed into a
+ * temporary file which is renamed to the revision once completely written.
  */
-public class FileSystemPersistenceStore implements PersistenceStore {
+public class FileSystemPersistenceStore implements StreamingPersistenceStore {
 
     private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
+    private static final FileFilter REVISION_FILTER = file ->
+            !file.getName().endsWith(PersistenceConstants.TEMP_FILE_SUFFIX);
     private int numberOfRevisionsToSave;
     private String folder;
 
@@ -51,6 +61,31 @@ public class FileSystemPersistenceStore implements PersistenceStore {
         }
     }
 
+    @Override
+    public void save(String siddhiAppName, String revision, SnapshotWriter snapshotWriter) {
+        File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+        File tempFile = new File(file.getPath() + PersistenceConstants.TEMP_FILE_SUFFIX);
+        try {
+            Files.createParentDirs(file);
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                snapshotWriter.write(outputStream);
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Cannot rename '" + tempFile + "' to '" + file + "'");
+            }
+            cleanOldRevisions(siddhiAppName);
+            if (log.isDebugEnabled()) {
+                log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
+            }
+        } catch (IOException e) {
+            log.error("Cannot save the revision " + revision + " of SiddhiApp: " + siddhiAppName +
+                    " to the file system.", e);
+            if (tempFile.exists() && !tempFile.delete()) {
+                log.error("Error deleting incomplete revision " + tempFile.getName());
+            }
+        }
+    }
+
     @Override
     public void setProperties(Map properties) {
         Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
@@ -98,10 +133,24 @@ public class FileSystemPersistenceStore implements PersistenceStore {
         return null;
     }
 
+    @Override
+    public InputStream loadAsStream(String siddhiAppName, String revision) {
+        File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
+            return inputStream;
+        } catch (IOException e) {
+            log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
+                    " from file system.", e);
+        }
+        return null;
+    }
+
     @Override
     public String getLastRevision(String siddhiAppName) {
         File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
+        File[] files = dir.listFiles(REVISION_FILTER);
 
         if (files == null || files.length == 0) {
             return null;
@@ -125,7 +174,7 @@ public class FileSystemPersistenceStore implements PersistenceStore {
 
     private void cleanOldRevisions(String siddhiAppName) {
         File targetDirectory = new File(folder + File.separator + siddhiAppName);
-        File[] files = targetDirectory.listFiles();
+        File[] files = targetDirectory.listFiles(REVISION_FILTER);
         if (files != null) {
             while (files.length > numberOfRevisionsToSave) {
                 String firstRevision = null;
@@ -142,7 +191,7 @@ public class FileSystemPersistenceStore implements PersistenceStore {
                         log.error("Error deleting old revision " + firstRevision);
                     }
                 }
-                files = targetDirectory.listFiles();
+                files = targetDirectory.listFiles(REVISION_FILTER);
                 if (files == null || files.length < 1) {
                     break;
                 }
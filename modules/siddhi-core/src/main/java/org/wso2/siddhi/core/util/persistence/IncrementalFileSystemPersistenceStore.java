@@ -24,18 +24,28 @@ import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Implementation of Persistence Store that would persist snapshots to the file system
+ * Implementation of Persistence Store that would persist snapshots to the file system. Element snapshots are
+ * streamed into a temporary file which is renamed to the revision once completely written.
  */
-public class IncrementalFileSystemPersistenceStore implements IncrementalPersistenceStore {
+public class IncrementalFileSystemPersistenceStore implements StreamingIncrementalPersistenceStore {
 
     private static final Logger log = Logger.getLogger(IncrementalFileSystemPersistenceStore.class);
+    private static final FileFilter REVISION_FILTER = file ->
+            !file.getName().endsWith(PersistenceConstants.TEMP_FILE_SUFFIX);
     private String folder;
 
     public IncrementalFileSystemPersistenceStore() {
@@ -63,6 +73,33 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         }
     }
 
+    @Override
+    public void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter) {
+        File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
+                snapshotInfo.getRevision());
+        File tempFile = new File(file.getPath() + PersistenceConstants.TEMP_FILE_SUFFIX);
+        try {
+            Files.createParentDirs(file);
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                snapshotWriter.write(outputStream);
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Cannot rename '" + tempFile + "' to '" + file + "'");
+            }
+            cleanOldRevisions(snapshotInfo);
+            if (log.isDebugEnabled()) {
+                log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
+                        "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
+            }
+        } catch (IOException e) {
+            log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                    snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
+            if (tempFile.exists() && !tempFile.delete()) {
+                log.error("Error deleting incomplete revision " + tempFile.getName());
+            }
+        }
+    }
+
     @Override
     public void setProperties(Map properties) {
         //nothing to do
@@ -86,11 +123,29 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         return bytes;
     }
 
+    @Override
+    public InputStream loadAsStream(IncrementalSnapshotInfo snapshotInfo) {
+        File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
+                snapshotInfo.getRevision());
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            if (log.isDebugEnabled()) {
+                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                        snapshotInfo.getRevision() + "' from file system.");
+            }
+            return inputStream;
+        } catch (IOException e) {
+            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+        }
+        return null;
+    }
+
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
 
         File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
+        File[] files = dir.listFiles(REVISION_FILTER);
         if (files == null || files.length == 0) {
             return null;
         }
@@ -117,7 +172,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public String getLastRevision(String siddhiAppName) {
         long restoreTime = -1;
         File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
+        File[] files = dir.listFiles(REVISION_FILTER);
         if (files == null || files.length == 0) {
             return null;
         }
@@ -146,7 +201,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
         if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
             File dir = new File(folder + File.separator + incrementalSnapshotInfo.getSiddhiAppId());
-            File[] files = dir.listFiles();
+            File[] files = dir.listFiles(REVISION_FILTER);
             if (files != null) {
                 long baseTimeStamp = (incrementalSnapshotInfo.getTime());
                 for (File file : files) {
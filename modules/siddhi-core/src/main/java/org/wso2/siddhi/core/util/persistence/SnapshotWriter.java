@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.persistence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a snapshot into the stream handed over by a {@link StreamingPersistenceStore} or a
+ * {@link StreamingIncrementalPersistenceStore}, such that the snapshot is written straight to the store without
+ * being materialized as a byte[].
+ */
+@FunctionalInterface
+public interface SnapshotWriter {
+
+    /**
+     * Write the snapshot into the given stream. The stream is owned by the persistence store and it is closed by the
+     * store once the snapshot is written.
+     *
+     * @param outputStream stream to write the snapshot to
+     * @throws IOException when writing to the stream fails
+     */
+    void write(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.persistence;
+
+import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+
+import java.io.InputStream;
+
+/**
+ * {@link IncrementalPersistenceStore} which can write and read the element snapshots as streams, such that the state
+ * of each element is encoded straight into the store instead of being held in memory as a byte[].
+ */
+public interface StreamingIncrementalPersistenceStore extends IncrementalPersistenceStore {
+
+    /**
+     * Persist the element snapshot written by the given writer.
+     *
+     * @param snapshotInfo   info of the element snapshot
+     * @param snapshotWriter writer of the element snapshot
+     */
+    void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter);
+
+    /**
+     * Open the element snapshot for reading. The caller closes the returned stream.
+     *
+     * @param snapshotInfo info of the element snapshot
+     * @return stream of the element snapshot, or null if it cannot be loaded
+     */
+    InputStream loadAsStream(IncrementalSnapshotInfo snapshotInfo);
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.persistence;
+
+import java.io.InputStream;
+
+/**
+ * {@link PersistenceStore} which can write and read snapshots as streams. When the configured persistence store
+ * implements this interface, snapshots are written element by element into the store and restored from the stream,
+ * without holding the complete serialized snapshot in memory.
+ * <p>
+ * Stores backed by a {@link java.nio.channels.WritableByteChannel} or a
+ * {@link java.nio.channels.ReadableByteChannel} can adapt them via {@link java.nio.channels.Channels}.
+ */
+public interface StreamingPersistenceStore extends PersistenceStore {
+
+    /**
+     * Persist the snapshot written by the given writer. The revision should only become visible via
+     * {@link #getLastRevision(String)} once the snapshot is completely written.
+     *
+     * @param siddhiAppId    name of the Siddhi app
+     * @param revision       revision of the snapshot
+     * @param snapshotWriter writer of the snapshot
+     */
+    void save(String siddhiAppId, String revision, SnapshotWriter snapshotWriter);
+
+    /**
+     * Open the snapshot of the given revision for reading. The caller closes the returned stream.
+     *
+     * @param siddhiAppId name of the Siddhi app
+     * @param revision    revision of the snapshot
+     * @return stream of the snapshot, or null if the revision cannot be loaded
+     */
+    InputStream loadAsStream(String siddhiAppId, String revision);
+
+}
@@ -27,5 +27,6 @@ public class PersistenceConstants {
     public static final String STATE_PERSISTENCE_CONFIGS = "config";
     public static final String DEFAULT_FILE_PERSISTENCE_FOLDER = "siddhi-app-persistence";
     public static final String REVISION_SEPARATOR = "__";
+    public static final String TEMP_FILE_SUFFIX = ".tmp";
 
 }
@@ -20,9 +20,11 @@ package org.wso2.siddhi.core.util.persistence.util;
 
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.PersistenceStoreException;
+import org.wso2.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
 import org.wso2.siddhi.core.util.snapshot.AsyncIncrementalSnapshotPersistor;
 import org.wso2.siddhi.core.util.snapshot.AsyncSnapshotPersistor;
 import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshot;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotCompactor;
 import org.wso2.siddhi.core.util.snapshot.PersistenceReference;
 
 import java.util.ArrayList;
@@ -59,6 +61,16 @@ public final class PersistenceHelper {
         return new PersistenceReference(future, asyncSnapshotPersistor.getRevision());
     }
 
+    public static PersistenceReference persist(Map<String, Map<String, Object>> fullSnapshotState,
+                                               SiddhiAppContext siddhiAppContext) {
+        long revisionTime = System.currentTimeMillis();
+        // serialize and persist the captured state asynchronously
+        AsyncSnapshotPersistor asyncSnapshotPersistor = new AsyncSnapshotPersistor(fullSnapshotState,
+                siddhiAppContext.getSiddhiContext().getPersistenceStore(), siddhiAppContext, revisionTime);
+        Future future = siddhiAppContext.getExecutorService().submit(asyncSnapshotPersistor);
+        return new PersistenceReference(future, asyncSnapshotPersistor.getRevision());
+    }
+
     public static PersistenceReference persist(IncrementalSnapshot serializeObj, SiddhiAppContext siddhiAppContext) {
         long revisionTime = System.currentTimeMillis();
         List<Future> incrementalFutures = new ArrayList<>();
@@ -91,6 +103,7 @@ public final class PersistenceHelper {
                     Future future = siddhiAppContext.getExecutorService().
                             submit(asyncIncrementSnapshotPersistor);
                     incrementalFutures.add(future);
+                    compactIfRequired(asyncIncrementSnapshotPersistor.getSnapshotInfo(), future, siddhiAppContext);
                 });
             });
         }
@@ -108,10 +121,47 @@ public final class PersistenceHelper {
                     Future future = siddhiAppContext.getExecutorService().
                             submit(asyncIncrementSnapshotPersistor);
                     incrementalFutures.add(future);
+                    compactIfRequired(asyncIncrementSnapshotPersistor.getSnapshotInfo(), future, siddhiAppContext);
                 });
             });
         }
         return new PersistenceReference(incrementalFutures,
                 revisionTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppContext.getName());
     }
+
+    /**
+     * Persist the state captured via
+     * {@link org.wso2.siddhi.core.util.snapshot.SnapshotService#captureIncrementalSnapshot()}, encoding the state of
+     * each element straight into the given streaming store.
+     */
+    public static PersistenceReference persistIncrementalState(
+            Map<IncrementalSnapshotInfo.SnapshotType, Map<String, Map<String, Object>>> incrementalSnapshotState,
+            StreamingIncrementalPersistenceStore incrementalPersistenceStore, SiddhiAppContext siddhiAppContext) {
+        long revisionTime = System.currentTimeMillis();
+        List<Future> incrementalFutures = new ArrayList<>();
+        incrementalSnapshotState.forEach((type, stateByQueryName) -> {
+            stateByQueryName.forEach((queryName, stateByElementId) -> {
+                stateByElementId.forEach((elementId, state) -> {
+                    AsyncIncrementalSnapshotPersistor asyncIncrementSnapshotPersistor = new
+                            AsyncIncrementalSnapshotPersistor(state, incrementalPersistenceStore,
+                            new IncrementalSnapshotInfo(siddhiAppContext.getName(), queryName, elementId,
+                                    revisionTime, type), siddhiAppContext);
+                    Future future = siddhiAppContext.getExecutorService().
+                            submit(asyncIncrementSnapshotPersistor);
+                    incrementalFutures.add(future);
+                    compactIfRequired(asyncIncrementSnapshotPersistor.getSnapshotInfo(), future, siddhiAppContext);
+                });
+            });
+        });
+        return new PersistenceReference(incrementalFutures,
+                revisionTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppContext.getName());
+    }
+
+    private static void compactIfRequired(IncrementalSnapshotInfo snapshotInfo, Future future,
+                                          SiddhiAppContext siddhiAppContext) {
+        IncrementalSnapshotCompactor incrementalSnapshotCompactor = siddhiAppContext.getIncrementalSnapshotCompactor();
+        if (incrementalSnapshotCompactor != null) {
+            incrementalSnapshotCompactor.onSnapshotPersisted(snapshotInfo, future);
+        }
+    }
 }
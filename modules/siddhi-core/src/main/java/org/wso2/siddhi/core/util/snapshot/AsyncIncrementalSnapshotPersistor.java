@@ -19,16 +19,21 @@
 package org.wso2.siddhi.core.util.snapshot;
 
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
 import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 
 /**
- * {@link Runnable} which is responsible for persisting the snapshots that are taken
+ * {@link Runnable} which is responsible for persisting the snapshots that are taken. When created with the captured
+ * state of the element, the state is encoded straight into the {@link StreamingIncrementalPersistenceStore}.
  */
 public class AsyncIncrementalSnapshotPersistor implements Runnable {
     private static final Logger log = Logger.getLogger(AsyncIncrementalSnapshotPersistor.class);
     private byte[] snapshots;
+    private Object state;
+    private SiddhiAppContext siddhiAppContext;
     private IncrementalPersistenceStore incrementalPersistenceStore;
     private IncrementalSnapshotInfo snapshotInfo;
 
@@ -43,17 +48,37 @@ public class AsyncIncrementalSnapshotPersistor implements Runnable {
         this.snapshotInfo = snapshotInfo;
     }
 
+    public AsyncIncrementalSnapshotPersistor(Object state,
+                                             StreamingIncrementalPersistenceStore incrementalPersistenceStore,
+                                             IncrementalSnapshotInfo snapshotInfo,
+                                             SiddhiAppContext siddhiAppContext) {
+        this(null, incrementalPersistenceStore, snapshotInfo);
+        this.state = state;
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
     public String getRevision() {
         return snapshotInfo.getRevision();
     }
 
+    public IncrementalSnapshotInfo getSnapshotInfo() {
+        return snapshotInfo;
+    }
+
     @Override
     public void run() {
         if (incrementalPersistenceStore != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Persisting...");
             }
-            incrementalPersistenceStore.save(snapshotInfo, snapshots);
+            if (state != null) {
+                Object elementState = state;
+                state = null;
+                ((StreamingIncrementalPersistenceStore) incrementalPersistenceStore).save(snapshotInfo,
+                        outputStream -> ByteSerializer.objectToStream(elementState, outputStream, siddhiAppContext));
+            } else {
+                incrementalPersistenceStore.save(snapshotInfo, snapshots);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Persisted.");
             }
@@ -19,16 +19,26 @@
 package org.wso2.siddhi.core.util.snapshot;
 
 import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
+import org.wso2.siddhi.core.exception.PersistenceStoreException;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.persistence.StreamingPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
 
+import java.util.Map;
+
 /**
- * {@link Runnable} which is responsible for persisting the snapshots that are taken
+ * {@link Runnable} which is responsible for persisting the snapshots that are taken. When created with the captured
+ * state instead of the serialized snapshot, the state is serialized as part of the persisting task such that the
+ * processing threads are not held while serializing. Captured state is written element by element into
+ * {@link StreamingPersistenceStore}s, without materializing the serialized snapshot.
  */
 public class AsyncSnapshotPersistor implements Runnable {
     private static final Logger log = Logger.getLogger(AsyncSnapshotPersistor.class);
     private byte[] snapshots;
+    private Object state;
+    private SiddhiAppContext siddhiAppContext;
     private PersistenceStore persistenceStore;
     private String siddhiAppName;
     private String revision;
@@ -47,6 +57,13 @@ public class AsyncSnapshotPersistor implements Runnable {
         this.revision = time + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName;
     }
 
+    public AsyncSnapshotPersistor(Object state, PersistenceStore persistenceStore,
+                                  SiddhiAppContext siddhiAppContext, long time) {
+        this(null, persistenceStore, siddhiAppContext.getName(), time);
+        this.state = state;
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
     public String getRevision() {
         return revision;
     }
@@ -54,6 +71,27 @@ public class AsyncSnapshotPersistor implements Runnable {
     @Override
     public void run() {
         if (persistenceStore != null) {
+            if (state != null && persistenceStore instanceof StreamingPersistenceStore) {
+                Map<String, Map<String, Object>> fullSnapshotState = (Map<String, Map<String, Object>>) state;
+                state = null;
+                if (log.isDebugEnabled()) {
+                    log.debug("Persisting...");
+                }
+                ((StreamingPersistenceStore) persistenceStore).save(siddhiAppName, revision, outputStream ->
+                        siddhiAppContext.getSnapshotService().writeSnapshot(fullSnapshotState, outputStream));
+                if (log.isDebugEnabled()) {
+                    log.debug("Persisted.");
+                }
+                return;
+            }
+            if (state != null) {
+                snapshots = ByteSerializer.objectToByte(state, siddhiAppContext);
+                state = null;
+                if (snapshots == null) {
+                    throw new PersistenceStoreException("Error when serializing the snapshot of siddhi app '" +
+                            siddhiAppName + "' for revision '" + revision + "'");
+                }
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Persisting...");
             }
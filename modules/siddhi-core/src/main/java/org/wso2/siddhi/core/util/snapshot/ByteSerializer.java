@@ -21,18 +21,24 @@ package org.wso2.siddhi.core.util.snapshot;
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.util.ExceptionUtil;
+import org.wso2.siddhi.core.util.snapshot.codec.BinarySnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.codec.JavaSnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.codec.SnapshotCodec;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
- * Serializer used by {@link SnapshotService} to do Object to Byte[] conversion and vise-versa
+ * Serializer used by {@link SnapshotService} to do Object to Byte[] conversion and vise-versa. The conversion is
+ * delegated to the {@link SnapshotCodec} configured at the {@link org.wso2.siddhi.core.config.SiddhiContext}, while
+ * snapshots are always decoded with the codec matching their header.
  */
 public class ByteSerializer {
     private static final Logger log = Logger.getLogger(ByteSerializer.class);
+    private static final SnapshotCodec JAVA_SNAPSHOT_CODEC = new JavaSnapshotCodec();
+    private static final SnapshotCodec BINARY_SNAPSHOT_CODEC = new BinarySnapshotCodec();
 
     private ByteSerializer() {
     }
@@ -42,10 +48,7 @@ public class ByteSerializer {
         byte[] out = null;
         if (obj != null) {
             try {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);
-                oos.writeObject(obj);
-                out = baos.toByteArray();
+                out = getSnapshotCodec(siddhiAppContext).encode(obj);
             } catch (IOException e) {
                 log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
                         " Error when writing byte array.", e);
@@ -64,9 +67,7 @@ public class ByteSerializer {
         Object out = null;
         if (bytes != null) {
             try {
-                ByteArrayInputStream bios = new ByteArrayInputStream(bytes);
-                ObjectInputStream ois = new ObjectInputStream(bios);
-                out = ois.readObject();
+                out = getSnapshotDecoder(bytes, siddhiAppContext).decode(bytes);
             } catch (IOException e) {
                 log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
                         " Error when writing to object.", e);
@@ -83,4 +84,75 @@ public class ByteSerializer {
         }
         return out;
     }
+
+    /**
+     * Encode the object straight into the given stream using the configured {@link SnapshotCodec}.
+     *
+     * @param obj              object to encode
+     * @param outputStream     stream to write to
+     * @param siddhiAppContext context of the Siddhi app the object belongs to
+     * @throws IOException when writing to the stream fails
+     */
+    public static void objectToStream(Object obj, OutputStream outputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        getSnapshotCodec(siddhiAppContext).encode(obj, outputStream);
+        long end = System.currentTimeMillis();
+        if (log.isDebugEnabled()) {
+            log.debug("For SiddhiApp '" + siddhiAppContext.getName() + "'. Encoded in :" + (end - start) + " msec");
+        }
+    }
+
+    /**
+     * Decode an object from the given stream, using the codec matching the header of the encoded object.
+     *
+     * @param inputStream      stream to read from
+     * @param siddhiAppContext context of the Siddhi app the object belongs to
+     * @return decoded object
+     * @throws IOException            when reading from the stream fails
+     * @throws ClassNotFoundException when a class of the object cannot be found
+     */
+    public static Object streamToObject(InputStream inputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException, ClassNotFoundException {
+        long start = System.currentTimeMillis();
+        if (!inputStream.markSupported()) {
+            inputStream = new BufferedInputStream(inputStream);
+        }
+        byte[] header = new byte[BinarySnapshotCodec.HEADER_LENGTH];
+        inputStream.mark(BinarySnapshotCodec.HEADER_LENGTH);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = inputStream.read(header, length, header.length - length)) != -1) {
+            length += read;
+        }
+        inputStream.reset();
+        if (length < header.length) {
+            byte[] shortHeader = new byte[length];
+            System.arraycopy(header, 0, shortHeader, 0, length);
+            header = shortHeader;
+        }
+        Object out = getSnapshotDecoder(header, siddhiAppContext).decode(inputStream);
+        long end = System.currentTimeMillis();
+        if (log.isDebugEnabled()) {
+            log.debug("Decoded in :" + (end - start) + " msec");
+        }
+        return out;
+    }
+
+    private static SnapshotCodec getSnapshotCodec(SiddhiAppContext siddhiAppContext) {
+        if (siddhiAppContext != null && siddhiAppContext.getSiddhiContext() != null
+                && siddhiAppContext.getSiddhiContext().getSnapshotCodec() != null) {
+            return siddhiAppContext.getSiddhiContext().getSnapshotCodec();
+        }
+        return BINARY_SNAPSHOT_CODEC;
+    }
+
+    private static SnapshotCodec getSnapshotDecoder(byte[] bytes, SiddhiAppContext siddhiAppContext) {
+        if (JavaSnapshotCodec.isJavaSerialized(bytes)) {
+            return JAVA_SNAPSHOT_CODEC;
+        } else if (BinarySnapshotCodec.isBinarySnapshot(bytes)) {
+            return BINARY_SNAPSHOT_CODEC;
+        }
+        return getSnapshotCodec(siddhiAppContext);
+    }
 }
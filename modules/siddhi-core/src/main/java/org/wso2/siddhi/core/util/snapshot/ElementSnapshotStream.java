@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * Snapshot format used to stream full snapshots element by element. The stream starts with a header carrying the
+ * format version, followed by one record per processing element holding its query name, element id and the state
+ * encoded by the configured {@link org.wso2.siddhi.core.util.snapshot.codec.SnapshotCodec}. The encoded state is
+ * written in bounded chunks, such that neither writing nor reading needs the complete state of an element as a
+ * byte[], and such that a record can be skipped without decoding it.
+ */
+public final class ElementSnapshotStream {
+
+    public static final byte VERSION = 1;
+    private static final byte[] MAGIC = {'S', 'D', 'H', 'E'};
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    private static final byte END_OF_STREAM = 0;
+    private static final byte ELEMENT = 1;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private ElementSnapshotStream() {
+    }
+
+    public static boolean isElementSnapshot(byte[] snapshot) {
+        if (snapshot.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (snapshot[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the stream starts with the element snapshot header, without consuming it.
+     *
+     * @param inputStream stream supporting mark and reset
+     * @return true if the stream holds an element snapshot
+     * @throws IOException when reading from the stream fails
+     */
+    public static boolean isElementSnapshot(InputStream inputStream) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        inputStream.mark(HEADER_LENGTH);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = inputStream.read(header, length, header.length - length)) != -1) {
+            length += read;
+        }
+        inputStream.reset();
+        return length == header.length && isElementSnapshot(header);
+    }
+
+    /**
+     * Writes the element records of a snapshot into a stream.
+     */
+    public static class Writer {
+        private final DataOutputStream out;
+        private final SiddhiAppContext siddhiAppContext;
+
+        public Writer(OutputStream outputStream, SiddhiAppContext siddhiAppContext) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(outputStream));
+            this.siddhiAppContext = siddhiAppContext;
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void writeElement(String queryName, String elementId, Object state) throws IOException {
+            out.writeByte(ELEMENT);
+            out.writeUTF(queryName);
+            out.writeUTF(elementId);
+            ChunkedOutputStream chunkedOutputStream = new ChunkedOutputStream(out);
+            ByteSerializer.objectToStream(state, chunkedOutputStream, siddhiAppContext);
+            chunkedOutputStream.close();
+        }
+
+        /**
+         * Mark the end of the snapshot and flush the buffered records, without closing the underlying stream.
+         *
+         * @throws IOException when writing to the stream fails
+         */
+        public void finish() throws IOException {
+            out.writeByte(END_OF_STREAM);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the element records of a snapshot from a stream, one record at a time.
+     */
+    public static class Reader {
+        private final DataInputStream in;
+        private final SiddhiAppContext siddhiAppContext;
+        private ChunkedInputStream currentState;
+        private String queryName;
+        private String elementId;
+
+        public Reader(InputStream inputStream, SiddhiAppContext siddhiAppContext) throws IOException {
+            this.in = new DataInputStream(inputStream);
+            this.siddhiAppContext = siddhiAppContext;
+            byte[] header = new byte[HEADER_LENGTH];
+            in.readFully(header);
+            if (!isElementSnapshot(header)) {
+                throw new StreamCorruptedException("Snapshot does not start with the element snapshot header");
+            }
+            byte version = header[MAGIC.length];
+            if (version > VERSION) {
+                throw new StreamCorruptedException("Unsupported element snapshot version " + version
+                        + ", supported up to version " + VERSION);
+            }
+        }
+
+        /**
+         * Move to the next element record, skipping the state of the current record if it was not read.
+         *
+         * @return false when there are no more records
+         * @throws IOException when reading from the stream fails
+         */
+        public boolean next() throws IOException {
+            if (currentState != null) {
+                currentState.skipRemaining();
+                currentState = null;
+            }
+            byte recordType = in.readByte();
+            if (recordType == END_OF_STREAM) {
+                return false;
+            } else if (recordType != ELEMENT) {
+                throw new StreamCorruptedException("Unknown element snapshot record type " + recordType);
+            }
+            queryName = in.readUTF();
+            elementId = in.readUTF();
+            currentState = new ChunkedInputStream(in);
+            return true;
+        }
+
+        public String getQueryName() {
+            return queryName;
+        }
+
+        public String getElementId() {
+            return elementId;
+        }
+
+        /**
+         * Read the encoded state of the current record, such that it can be decoded later via
+         * {@link ByteSerializer#streamToObject(InputStream, SiddhiAppContext)}.
+         *
+         * @return encoded state
+         * @throws IOException when reading from the stream fails
+         */
+        public byte[] readStateBytes() throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = currentState.read(buffer, 0, buffer.length)) != -1) {
+                baos.write(buffer, 0, read);
+            }
+            return baos.toByteArray();
+        }
+
+        public Object readState() throws IOException, ClassNotFoundException {
+            return ByteSerializer.streamToObject(currentState, siddhiAppContext);
+        }
+    }
+
+    /**
+     * Writes the data as length prefixed chunks, terminated by an empty chunk when closed. Closing does not close the
+     * underlying stream.
+     */
+    private static class ChunkedOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        ChunkedOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeChunk();
+                }
+                int length = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, length);
+                count += length;
+                off += length;
+                len -= length;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeChunk();
+            out.writeInt(0);
+        }
+
+        private void writeChunk() throws IOException {
+            if (count > 0) {
+                out.writeInt(count);
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the data written by a {@link ChunkedOutputStream}, reporting the end of the stream at the empty chunk.
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean finished;
+
+        ChunkedInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            int read = in.read(b, off, Math.min(len, remaining));
+            if (read == -1) {
+                throw new EOFException("Unexpected end of the element snapshot");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        void skipRemaining() throws IOException {
+            while (nextChunk()) {
+                int skipped = in.skipBytes(remaining);
+                if (skipped == 0) {
+                    in.readByte();
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (remaining == 0) {
+                remaining = in.readInt();
+                if (remaining == 0) {
+                    finished = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounds the chains of incremental snapshots kept in the {@link IncrementalPersistenceStore}. Once an element has
+ * persisted @app:compaction(chain.length) increments since its last base snapshot, its base snapshot and increments
+ * are merged into a new base snapshot on the Siddhi app executor, off the event processing path. Persisting the new
+ * base snapshot lets the store delete the revisions it supersedes.
+ */
+public class IncrementalSnapshotCompactor {
+    private static final Logger log = Logger.getLogger(IncrementalSnapshotCompactor.class);
+    private static final Comparator<IncrementalSnapshotInfo> CHAIN_ORDER =
+            Comparator.comparingLong(IncrementalSnapshotInfo::getTime)
+                    .thenComparing(IncrementalSnapshotInfo::getType, Comparator.reverseOrder());
+    private final SiddhiAppContext siddhiAppContext;
+    private final int maxChainLength;
+    private final Map<String, Integer> chainLengths = new ConcurrentHashMap<>();
+    private final Set<String> compactingElements = ConcurrentHashMap.newKeySet();
+
+    public IncrementalSnapshotCompactor(SiddhiAppContext siddhiAppContext, int maxChainLength) {
+        this.siddhiAppContext = siddhiAppContext;
+        this.maxChainLength = maxChainLength;
+    }
+
+    /**
+     * Track the length of the chain of the element the snapshot belongs to, and compact the chain once the snapshot
+     * has been persisted when it reaches the maximum chain length.
+     *
+     * @param snapshotInfo  info of the persisted snapshot
+     * @param persistFuture future of the task persisting the snapshot
+     */
+    public void onSnapshotPersisted(IncrementalSnapshotInfo snapshotInfo, Future persistFuture) {
+        String elementKey = snapshotInfo.getQueryName() + PersistenceConstants.REVISION_SEPARATOR +
+                snapshotInfo.getElementId();
+        if (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE) {
+            chainLengths.remove(elementKey);
+        } else if (snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+            if (chainLengths.merge(elementKey, 1, Integer::sum) >= maxChainLength &&
+                    compactingElements.add(elementKey)) {
+                chainLengths.remove(elementKey);
+                try {
+                    siddhiAppContext.getExecutorService().execute(() -> {
+                        try {
+                            persistFuture.get();
+                            compact(snapshotInfo);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (ExecutionException e) {
+                            log.error("Skipping the compaction of the incremental snapshots of element '" +
+                                    snapshotInfo.getElementId() + "' of Siddhi app '" +
+                                    siddhiAppContext.getName() + "' as persisting revision '" +
+                                    snapshotInfo.getRevision() + "' failed.", e.getCause());
+                        } catch (Throwable t) {
+                            log.error("Error when compacting the incremental snapshots of element '" +
+                                    snapshotInfo.getElementId() + "' of Siddhi app '" +
+                                    siddhiAppContext.getName() + "'.", t);
+                        } finally {
+                            compactingElements.remove(elementKey);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    compactingElements.remove(elementKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge the chain of snapshots of the element up to the given snapshot into a base snapshot having the time of
+     * the given snapshot.
+     */
+    void compact(IncrementalSnapshotInfo lastSnapshotInfo) {
+        IncrementalPersistenceStore incrementalPersistenceStore =
+                siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore();
+        if (incrementalPersistenceStore == null) {
+            return;
+        }
+        List<IncrementalSnapshotInfo> revisions = incrementalPersistenceStore.getListOfRevisionsToLoad(
+                lastSnapshotInfo.getTime(), lastSnapshotInfo.getSiddhiAppId());
+        if (revisions == null) {
+            return;
+        }
+        List<IncrementalSnapshotInfo> chain = new ArrayList<>();
+        for (IncrementalSnapshotInfo snapshotInfo : revisions) {
+            if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
+                    lastSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
+                    lastSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
+                chain.add(snapshotInfo);
+            }
+        }
+        // as when restoring, the chain starts from the latest base snapshot, and increments having the same time as
+        // a base snapshot are applied before it
+        chain.sort(CHAIN_ORDER);
+        for (int i = chain.size() - 1; i > 0; i--) {
+            if (chain.get(i).getType() == IncrementalSnapshotInfo.SnapshotType.BASE) {
+                long baseTime = chain.get(i).getTime();
+                while (chain.get(0).getTime() < baseTime) {
+                    chain.remove(0);
+                }
+                break;
+            }
+        }
+        if (chain.isEmpty() || chain.get(0).getTime() == chain.get(chain.size() - 1).getTime()) {
+            return;
+        }
+        Map<String, Object> elementState = new HashMap<>();
+        SnapshotService snapshotService = siddhiAppContext.getSnapshotService();
+        for (IncrementalSnapshotInfo snapshotInfo : chain) {
+            Object snapshot = snapshotService.loadIncrementalSnapshot(snapshotInfo,
+                    incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore ?
+                            null : incrementalPersistenceStore.load(snapshotInfo));
+            if (snapshot == null) {
+                // the revision was superseded or could not be read, hence the chain is left as it is
+                return;
+            }
+            SnapshotService.mergeIncrementalSnapshot(elementState, snapshotInfo.getTime(),
+                    (Map<String, Object>) snapshot);
+        }
+        Snapshotable snapshotable = snapshotService.indexSnapshotables(lastSnapshotInfo.getQueryName())
+                .get(lastSnapshotInfo.getElementId());
+        for (Map.Entry<String, Object> entry : elementState.entrySet()) {
+            if (entry.getValue() instanceof SnapshotStateList) {
+                SnapshotState snapshotState = compact(snapshotable, entry.getKey(),
+                        (SnapshotStateList) entry.getValue());
+                if (snapshotState == null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Incremental snapshots of element '" + lastSnapshotInfo.getElementId() +
+                                "' of Siddhi app '" + siddhiAppContext.getName() + "' cannot be compacted.");
+                    }
+                    return;
+                }
+                entry.setValue(snapshotState);
+            }
+        }
+        IncrementalSnapshotInfo baseSnapshotInfo = new IncrementalSnapshotInfo(lastSnapshotInfo.getSiddhiAppId(),
+                lastSnapshotInfo.getQueryName(), lastSnapshotInfo.getElementId(), lastSnapshotInfo.getTime(),
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+        if (incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore) {
+            ((StreamingIncrementalPersistenceStore) incrementalPersistenceStore).save(baseSnapshotInfo,
+                    outputStream -> ByteSerializer.objectToStream(elementState, outputStream, siddhiAppContext));
+        } else {
+            incrementalPersistenceStore.save(baseSnapshotInfo,
+                    ByteSerializer.objectToByte(elementState, siddhiAppContext));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Compacted " + chain.size() + " incremental snapshots of element '" +
+                    lastSnapshotInfo.getElementId() + "' of Siddhi app '" + siddhiAppContext.getName() +
+                    "' into revision '" + baseSnapshotInfo.getRevision() + "'.");
+        }
+    }
+
+    /**
+     * Apply the increments of the snapshot state list on its full snapshot. Event queues are merged here, while
+     * other states are merged by the element they belong to.
+     *
+     * @return the resulting full snapshot, or null when the list does not start with a full snapshot or the
+     * element cannot merge it
+     */
+    private static SnapshotState compact(Snapshotable snapshotable, String key,
+                                         SnapshotStateList snapshotStateList) {
+        TreeMap<Long, SnapshotState> snapshotStates = snapshotStateList.getSnapshotStates();
+        if (snapshotStates.isEmpty() || snapshotStates.firstEntry().getValue().isIncrementalSnapshot()) {
+            return null;
+        }
+        Object baseState = snapshotStates.firstEntry().getValue().getState();
+        if (baseState == null || baseState instanceof StreamEvent) {
+            return SnapshotableStreamEventQueue.compact(snapshotStateList);
+        } else if (snapshotable != null) {
+            return snapshotable.compactState(key, snapshotStateList);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Restores the state of processing elements on at most {@link SiddhiAppContext#getRestoreParallelism()} threads of
+ * the Siddhi app executor. Submitting blocks while all the threads are busy, which bounds the number of decoded
+ * element states held at a time. With a parallelism of one the states are restored on the calling thread.
+ */
+class ParallelStateRestorer {
+    private final SiddhiAppContext siddhiAppContext;
+    private final int parallelism;
+    private final Semaphore permits;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ParallelStateRestorer(SiddhiAppContext siddhiAppContext) {
+        this.siddhiAppContext = siddhiAppContext;
+        this.parallelism = Math.max(1, siddhiAppContext.getRestoreParallelism());
+        this.permits = new Semaphore(parallelism);
+    }
+
+    boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    void submit(Snapshotable snapshotable, StateRestorer stateRestorer) throws CannotRestoreSiddhiAppStateException {
+        if (!isParallel()) {
+            restore(snapshotable, stateRestorer);
+            return;
+        }
+        permits.acquireUninterruptibly();
+        if (failure.get() != null) {
+            permits.release();
+            await();
+        }
+        try {
+            siddhiAppContext.getExecutorService().execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        restore(snapshotable, stateRestorer);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            failure.compareAndSet(null, e);
+            await();
+        }
+    }
+
+    /**
+     * Wait for the submitted states to be restored.
+     *
+     * @throws CannotRestoreSiddhiAppStateException if restoring any of the submitted states failed
+     */
+    void await() throws CannotRestoreSiddhiAppStateException {
+        awaitCompletion();
+        Throwable t = failure.get();
+        if (t instanceof CannotRestoreSiddhiAppStateException) {
+            throw (CannotRestoreSiddhiAppStateException) t;
+        } else if (t != null) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.getName() +
+                    " failed.", t);
+        }
+    }
+
+    /**
+     * Wait for the submitted states to be restored, ignoring failures. Used to make sure no state is being restored
+     * once the processing threads are released.
+     */
+    void awaitCompletion() {
+        if (isParallel()) {
+            permits.acquireUninterruptibly(parallelism);
+            permits.release(parallelism);
+        }
+    }
+
+    private void restore(Snapshotable snapshotable, StateRestorer stateRestorer)
+            throws CannotRestoreSiddhiAppStateException {
+        try {
+            stateRestorer.restore(snapshotable);
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " +
+                    siddhiAppContext.getName() + " not completed properly because content of Siddhi " +
+                    "app has changed since last state persistence. Clean persistence store for a " +
+                    "fresh deployment.", t);
+        }
+    }
+
+    /**
+     * Restores a state into the given processing element.
+     */
+    interface StateRestorer {
+        void restore(Snapshotable snapshotable) throws Exception;
+    }
+}
@@ -17,38 +17,61 @@
  */
 package org.wso2.siddhi.core.util.snapshot;
 
+import com.google.common.io.ByteStreams;
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
 import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
 import org.wso2.siddhi.core.exception.PersistenceStoreException;
+import org.wso2.siddhi.core.partition.PartitionRuntime;
 import org.wso2.siddhi.core.util.ThreadBarrier;
 import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.StreamingPersistenceStore;
 import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
 import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
 import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service level implementation to take/restore snapshots of processing elements.
  */
 public class SnapshotService {
     private static final Logger log = Logger.getLogger(SnapshotService.class);
+    private static final String PARTITION = "partition";
     private static final ThreadLocal<Boolean> skipSnapshotableThreadLocal = new ThreadLocal<Boolean>();
+    private static final ThreadLocal<Map<String, List<Snapshotable>>> addedSnapshotablesThreadLocal =
+            new ThreadLocal<>();
 
     private final ThreadBarrier threadBarrier;
-    private ConcurrentHashMap<String, List<Snapshotable>> snapshotableMap = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, Set<Snapshotable>> snapshotableMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Map<String, ParallelStateRestorer.StateRestorer>> pendingStates =
+            new ConcurrentHashMap<>();
     private SiddhiAppContext siddhiAppContext;
+    private LatencyTracker pauseLatencyTracker;
+    private volatile long lastPauseTime;
+    private volatile long maxPauseTime;
 
     public SnapshotService(SiddhiAppContext siddhiAppContext) {
         this.siddhiAppContext = siddhiAppContext;
@@ -59,40 +82,163 @@ public class SnapshotService {
         return skipSnapshotableThreadLocal;
     }
 
-    public ConcurrentHashMap<String, List<Snapshotable>> getSnapshotableMap() {
+    public ConcurrentHashMap<String, Set<Snapshotable>> getSnapshotableMap() {
         return snapshotableMap;
     }
 
+    public void setPauseLatencyTracker(LatencyTracker pauseLatencyTracker) {
+        this.pauseLatencyTracker = pauseLatencyTracker;
+    }
+
+    /**
+     * @return time in nanoseconds the processing threads were held at the {@link ThreadBarrier} by the last snapshot
+     */
+    public long getLastPauseTime() {
+        return lastPauseTime;
+    }
+
+    /**
+     * @return maximum time in nanoseconds the processing threads were held at the {@link ThreadBarrier} by a snapshot
+     */
+    public long getMaxPauseTime() {
+        return maxPauseTime;
+    }
+
     public synchronized void addSnapshotable(String queryName, Snapshotable snapshotable) {
         Boolean skipSnapshotable = skipSnapshotableThreadLocal.get();
         if (skipSnapshotable == null || !skipSnapshotable) {
-            List<Snapshotable> snapshotableList = snapshotableMap.get(queryName);
+            Set<Snapshotable> snapshotableSet = snapshotableMap.get(queryName);
 
-            // If List does not exist create it.
-            if (snapshotableList == null) {
-                snapshotableList = new ArrayList<Snapshotable>();
-                snapshotableList.add(snapshotable);
-                snapshotableMap.put(queryName, snapshotableList);
-            } else {
-                // add if item is not already in list
-                if (!snapshotableList.contains(snapshotable)) {
-                    snapshotableList.add(snapshotable);
+            // If Set does not exist create it.
+            if (snapshotableSet == null) {
+                snapshotableSet = new LinkedHashSet<Snapshotable>();
+                snapshotableMap.put(queryName, snapshotableSet);
+            }
+            if (snapshotableSet.add(snapshotable)) {
+                Map<String, List<Snapshotable>> addedSnapshotables = addedSnapshotablesThreadLocal.get();
+                if (addedSnapshotables != null) {
+                    addedSnapshotables.computeIfAbsent(queryName, k -> new ArrayList<>()).add(snapshotable);
                 }
             }
         }
     }
 
+    /**
+     * Record the snapshotable elements added by the current thread into the given map, such that they can be removed
+     * via {@link #removeSnapshotables(Map)} when the elements are discarded.
+     *
+     * @param addedSnapshotables map to record the added snapshotable elements by query name, or null to stop
+     *                           recording
+     */
+    public void recordAddedSnapshotables(Map<String, List<Snapshotable>> addedSnapshotables) {
+        if (addedSnapshotables == null) {
+            addedSnapshotablesThreadLocal.remove();
+        } else {
+            addedSnapshotablesThreadLocal.set(addedSnapshotables);
+        }
+    }
+
+    /**
+     * @return true while the current thread records the snapshotable elements it adds, which it does while creating a
+     * partition instance
+     */
+    public boolean isRecordingAddedSnapshotables() {
+        return addedSnapshotablesThreadLocal.get() != null;
+    }
+
+    public synchronized void removeSnapshotables(Map<String, List<Snapshotable>> snapshotables) {
+        for (Map.Entry<String, List<Snapshotable>> entry : snapshotables.entrySet()) {
+            Set<Snapshotable> snapshotableSet = snapshotableMap.get(entry.getKey());
+            if (snapshotableSet != null) {
+                snapshotableSet.removeAll(entry.getValue());
+            }
+        }
+    }
+
     public byte[] fullSnapshot() {
+        Map<String, Map<String, Object>> fullSnapshotState = captureFullSnapshot();
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization started ...");
+        }
+        byte[] serializedFullState = ByteSerializer.objectToByte(fullSnapshotState, siddhiAppContext);
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization finished.");
+        }
+        return serializedFullState;
+    }
+
+    /**
+     * Take a full snapshot and write it element by element into the given stream.
+     *
+     * @param outputStream stream to write the snapshot to, which is not closed
+     * @throws IOException when writing to the stream fails
+     */
+    public void fullSnapshot(OutputStream outputStream) throws IOException {
+        writeSnapshot(captureFullSnapshot(), outputStream);
+    }
+
+    /**
+     * Write the state captured via {@link #captureFullSnapshot()} element by element into the given stream. The
+     * partitions are written first such that their instances exist when the other elements are restored. Each
+     * element is removed from the captured state once written, hence the captured state is consumed by this method.
+     *
+     * @param fullSnapshotState captured state of the processing elements by query name and element id
+     * @param outputStream      stream to write the snapshot to, which is not closed
+     * @throws IOException when writing to the stream fails
+     */
+    public void writeSnapshot(Map<String, Map<String, Object>> fullSnapshotState, OutputStream outputStream)
+            throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization started ...");
+        }
+        ElementSnapshotStream.Writer writer = new ElementSnapshotStream.Writer(outputStream, siddhiAppContext);
+        Map<String, Object> partitionState = fullSnapshotState.remove(PARTITION);
+        if (partitionState != null) {
+            writeElements(writer, PARTITION, partitionState);
+        }
+        for (Iterator<Map.Entry<String, Map<String, Object>>> iterator = fullSnapshotState.entrySet().iterator();
+             iterator.hasNext(); ) {
+            Map.Entry<String, Map<String, Object>> entry = iterator.next();
+            iterator.remove();
+            writeElements(writer, entry.getKey(), entry.getValue());
+        }
+        writer.finish();
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization finished.");
+        }
+    }
+
+    private void writeElements(ElementSnapshotStream.Writer writer, String queryName,
+                               Map<String, Object> elementStates) throws IOException {
+        for (Iterator<Map.Entry<String, Object>> iterator = elementStates.entrySet().iterator();
+             iterator.hasNext(); ) {
+            Map.Entry<String, Object> entry = iterator.next();
+            iterator.remove();
+            writer.writeElement(queryName, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Capture the full state of the Siddhi app at a consistent point. The processing threads are only held at the
+     * {@link ThreadBarrier} while the state is collected and copied from the live processing elements. The states
+     * copied via Java serialization are only encoded while the threads are held, and are decoded after the barrier is
+     * released, see {@link SnapshotStateCopier}.
+     *
+     * @return detached state of the processing elements by query name and element id
+     */
+    public Map<String, Map<String, Object>> captureFullSnapshot() {
         try {
             SnapshotRequest.requestForFullSnapshot(true);
             Map<String, Map<String, Object>> elementSnapshotMapFull = new HashMap<>();
-            byte[] serializedFullState = null;
             if (log.isDebugEnabled()) {
                 log.debug("Taking snapshot ...");
             }
+            SnapshotStateCopier snapshotStateCopier = new SnapshotStateCopier();
+            long pauseStartTime = markPauseStart();
             try {
                 threadBarrier.lock();
-                for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
+                completeLazyRestore();
+                for (Map.Entry<String, Set<Snapshotable>> entry : snapshotableMap.entrySet()) {
                     Map<String, Object> elementWiseFullSnapshots = new HashMap<>();
                     for (Snapshotable snapshotableObject : entry.getValue()) {
                         Map<String, Object> currentState = snapshotableObject.currentState();
@@ -124,40 +270,66 @@ public class SnapshotService {
                         elementSnapshotMapFull.put(entry.getKey(), elementWiseFullSnapshots);
                     }
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("SnapshotState serialization started ...");
-                }
-                serializedFullState = ByteSerializer.objectToByte(elementSnapshotMapFull, siddhiAppContext);
-                if (log.isDebugEnabled()) {
-                    log.debug("SnapshotState serialization finished.");
-                }
+                elementSnapshotMapFull = (Map<String, Map<String, Object>>) detach(snapshotStateCopier,
+                        elementSnapshotMapFull);
             } finally {
                 threadBarrier.unlock();
+                recordPause(pauseStartTime);
             }
+            completeDetach(snapshotStateCopier);
             if (log.isDebugEnabled()) {
                 log.debug("SnapshotState taken for Siddhi app '" + siddhiAppContext.getName() + "'");
             }
-            return serializedFullState;
+            return elementSnapshotMapFull;
         } finally {
             SnapshotRequest.requestForFullSnapshot(false);
         }
     }
 
     public IncrementalSnapshot incrementalSnapshot() {
+        Map<IncrementalSnapshotInfo.SnapshotType, Map<String, Map<String, Object>>> incrementalSnapshotState =
+                captureIncrementalSnapshot();
+        IncrementalSnapshot snapshot = new IncrementalSnapshot();
+        if (incrementalSnapshotState.containsKey(IncrementalSnapshotInfo.SnapshotType.INCREMENT)) {
+            snapshot.setIncrementalState(serialize(
+                    incrementalSnapshotState.get(IncrementalSnapshotInfo.SnapshotType.INCREMENT)));
+        }
+        if (incrementalSnapshotState.containsKey(IncrementalSnapshotInfo.SnapshotType.BASE)) {
+            snapshot.setIncrementalStateBase(serialize(
+                    incrementalSnapshotState.get(IncrementalSnapshotInfo.SnapshotType.BASE)));
+        }
+        if (incrementalSnapshotState.containsKey(IncrementalSnapshotInfo.SnapshotType.PERIODIC)) {
+            snapshot.setPeriodicState(serialize(
+                    incrementalSnapshotState.get(IncrementalSnapshotInfo.SnapshotType.PERIODIC)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Capture the incremental state of the Siddhi app at a consistent point, detached from the live processing
+     * elements such that it can be serialized after the processing threads are released.
+     *
+     * @return detached state of the processing elements by snapshot type, query name and element id, containing only
+     * the snapshot types having state
+     */
+    public Map<IncrementalSnapshotInfo.SnapshotType, Map<String, Map<String, Object>>> captureIncrementalSnapshot() {
         try {
             SnapshotRequest.requestForFullSnapshot(false);
-            Map<String, Map<String, byte[]>> elementSnapshotMapIncremental = new HashMap<>();
-            Map<String, Map<String, byte[]>> elementSnapshotMapIncrementalBase = new HashMap<>();
-            Map<String, Map<String, byte[]>> elementSnapshotMapPeriodic = new HashMap<>();
+            Map<String, Map<String, Object>> elementSnapshotMapIncremental = new HashMap<>();
+            Map<String, Map<String, Object>> elementSnapshotMapIncrementalBase = new HashMap<>();
+            Map<String, Map<String, Object>> elementSnapshotMapPeriodic = new HashMap<>();
             if (log.isDebugEnabled()) {
                 log.debug("Taking snapshot ...");
             }
+            SnapshotStateCopier snapshotStateCopier = new SnapshotStateCopier();
+            long pauseStartTime = markPauseStart();
             try {
                 threadBarrier.lock();
-                for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
-                    Map<String, byte[]> elementWiseIncrementalSnapshots = new HashMap<>();
-                    Map<String, byte[]> elementWiseIncrementalSnapshotsBase = new HashMap<>();
-                    Map<String, byte[]> elementWisePeriodicSnapshots = new HashMap<>();
+                completeLazyRestore();
+                for (Map.Entry<String, Set<Snapshotable>> entry : snapshotableMap.entrySet()) {
+                    Map<String, Object> elementWiseIncrementalSnapshots = new HashMap<>();
+                    Map<String, Object> elementWiseIncrementalSnapshotsBase = new HashMap<>();
+                    Map<String, Object> elementWisePeriodicSnapshots = new HashMap<>();
                     for (Snapshotable snapshotableObject : entry.getValue()) {
                         Map<String, Object> currentState = snapshotableObject.currentState();
                         if (currentState != null) {
@@ -177,24 +349,18 @@ public class SnapshotService {
                                     periodicSnapshotableMap.put(key, snapShot);
                                 }
                             }
-                            if (log.isDebugEnabled()) {
-                                log.debug("SnapshotState serialization started ...");
-                            }
                             if (!incrementalSnapshotableMap.isEmpty()) {
                                 //Do we need to get and then update?
                                 elementWiseIncrementalSnapshots.put(snapshotableObject.getElementId(),
-                                        ByteSerializer.objectToByte(incrementalSnapshotableMap, siddhiAppContext));
+                                        detach(snapshotStateCopier, incrementalSnapshotableMap));
                             }
                             if (!incrementalSnapshotableMapBase.isEmpty()) {
                                 elementWiseIncrementalSnapshotsBase.put(snapshotableObject.getElementId(),
-                                        ByteSerializer.objectToByte(incrementalSnapshotableMapBase, siddhiAppContext));
+                                        detach(snapshotStateCopier, incrementalSnapshotableMapBase));
                             }
                             if (!periodicSnapshotableMap.isEmpty()) {
                                 elementWisePeriodicSnapshots.put(snapshotableObject.getElementId(),
-                                        ByteSerializer.objectToByte(periodicSnapshotableMap, siddhiAppContext));
-                            }
-                            if (log.isDebugEnabled()) {
-                                log.debug("SnapshotState serialization finished.");
+                                        detach(snapshotStateCopier, periodicSnapshotableMap));
                             }
                         }
                     }
@@ -210,19 +376,22 @@ public class SnapshotService {
                 }
             } finally {
                 threadBarrier.unlock();
+                recordPause(pauseStartTime);
             }
+            completeDetach(snapshotStateCopier);
             if (log.isDebugEnabled()) {
                 log.debug("SnapshotState taken for Siddhi app '" + siddhiAppContext.getName() + "'");
             }
-            IncrementalSnapshot snapshot = new IncrementalSnapshot();
+            Map<IncrementalSnapshotInfo.SnapshotType, Map<String, Map<String, Object>>> snapshot =
+                    new EnumMap<>(IncrementalSnapshotInfo.SnapshotType.class);
             if (!elementSnapshotMapIncremental.isEmpty()) {
-                snapshot.setIncrementalState(elementSnapshotMapIncremental);
+                snapshot.put(IncrementalSnapshotInfo.SnapshotType.INCREMENT, elementSnapshotMapIncremental);
             }
             if (!elementSnapshotMapIncrementalBase.isEmpty()) {
-                snapshot.setIncrementalStateBase(elementSnapshotMapIncrementalBase);
+                snapshot.put(IncrementalSnapshotInfo.SnapshotType.BASE, elementSnapshotMapIncrementalBase);
             }
             if (!elementSnapshotMapPeriodic.isEmpty()) {
-                snapshot.setPeriodicState(elementSnapshotMapPeriodic);
+                snapshot.put(IncrementalSnapshotInfo.SnapshotType.PERIODIC, elementSnapshotMapPeriodic);
             }
             return snapshot;
         } finally {
@@ -230,12 +399,71 @@ public class SnapshotService {
         }
     }
 
+    private Map<String, Map<String, byte[]>> serialize(Map<String, Map<String, Object>> elementSnapshotMap) {
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization started ...");
+        }
+        Map<String, Map<String, byte[]>> serializedElementSnapshotMap = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : elementSnapshotMap.entrySet()) {
+            Map<String, byte[]> elementWiseSnapshots = new HashMap<>();
+            for (Map.Entry<String, Object> elementEntry : entry.getValue().entrySet()) {
+                elementWiseSnapshots.put(elementEntry.getKey(),
+                        ByteSerializer.objectToByte(elementEntry.getValue(), siddhiAppContext));
+            }
+            serializedElementSnapshotMap.put(entry.getKey(), elementWiseSnapshots);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("SnapshotState serialization finished.");
+        }
+        return serializedElementSnapshotMap;
+    }
+
+    private Object detach(SnapshotStateCopier snapshotStateCopier, Object state) {
+        try {
+            return snapshotStateCopier.capture(state);
+        } catch (IOException e) {
+            throw new PersistenceStoreException("Error when capturing the state of Siddhi app '" +
+                    siddhiAppContext.getName() + "', " + e.getMessage(), e);
+        }
+    }
+
+    private void completeDetach(SnapshotStateCopier snapshotStateCopier) {
+        try {
+            snapshotStateCopier.complete();
+        } catch (IOException e) {
+            throw new PersistenceStoreException("Error when capturing the state of Siddhi app '" +
+                    siddhiAppContext.getName() + "', " + e.getMessage(), e);
+        }
+    }
+
+    private long markPauseStart() {
+        if (pauseLatencyTracker != null) {
+            pauseLatencyTracker.markIn();
+        }
+        return System.nanoTime();
+    }
+
+    private void recordPause(long pauseStartTime) {
+        long pauseTime = System.nanoTime() - pauseStartTime;
+        if (pauseLatencyTracker != null) {
+            pauseLatencyTracker.markOut();
+        }
+        lastPauseTime = pauseTime;
+        if (pauseTime > maxPauseTime) {
+            maxPauseTime = pauseTime;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Siddhi app '" + siddhiAppContext.getName() + "' was paused for " +
+                    TimeUnit.NANOSECONDS.toMillis(pauseTime) + " msec to take the snapshot");
+        }
+    }
+
     public Map<String, Object> queryState(String queryName) {
         Map<String, Object> state = new HashMap<>();
         try {
             // Lock the threads in Siddhi
             threadBarrier.lock();
-            List<Snapshotable> list = snapshotableMap.get(queryName);
+            Set<Snapshotable> list = snapshotableMap.get(queryName);
 
             if (list != null) {
                 for (Snapshotable element : list) {
@@ -256,22 +484,28 @@ public class SnapshotService {
             throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
                     getName() + " failed due to no snapshot.");
         }
+        if (ElementSnapshotStream.isElementSnapshot(snapshot)) {
+            restore(new ByteArrayInputStream(snapshot));
+            return;
+        }
         Map<String, Map<String, Map<String, Object>>> snapshotsByQueryName =
                 (Map<String, Map<String, Map<String, Object>>>) ByteSerializer.byteToObject(snapshot, siddhiAppContext);
         if (snapshotsByQueryName == null) {
             throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
                     getName() + " failed due to invalid snapshot.");
         }
+        ParallelStateRestorer restorer = new ParallelStateRestorer(siddhiAppContext);
         try {
             threadBarrier.lock();
-            if (snapshotableMap.containsKey("partition")) {
-                List<Snapshotable> partitionSnapshotables = snapshotableMap.get("partition");
+            pendingStates.clear();
+            if (snapshotableMap.containsKey(PARTITION)) {
+                Set<Snapshotable> partitionSnapshotables = snapshotableMap.get(PARTITION);
 
                 try {
                     if (partitionSnapshotables != null) {
                         for (Snapshotable snapshotable : partitionSnapshotables) {
                             Map<String, Map<String, Object>> snapshotsByElementId =
-                                    snapshotsByQueryName.get("partition");
+                                    snapshotsByQueryName.get(PARTITION);
                             snapshotable.restoreState(snapshotsByElementId.get(snapshotable.getElementId()));
                         }
                     }
@@ -285,58 +519,217 @@ public class SnapshotService {
                 }
             }
 
-            for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
-                if (!entry.getKey().equals("partition")) {
-                    List<Snapshotable> snapshotableList = entry.getValue();
-                    try {
-                        for (Snapshotable snapshotable : snapshotableList) {
-                            Map<String, Map<String, Object>> snapshotsByElementId =
-                                    snapshotsByQueryName.get(entry.getKey());
-                            if (snapshotsByElementId != null) {
-                                Map<String, Object> snapshotsByKey = snapshotsByElementId.get(
-                                        snapshotable.getElementId());
-                                if (snapshotsByKey != null) {
-                                    Map<String, Object> snapshotRestoresByKey = new HashMap<>();
-                                    for (Map.Entry<String, Object> snapshotsByKeyEntry : snapshotsByKey.entrySet()) {
-                                        if (snapshotsByKeyEntry.getValue() instanceof SnapshotState) {
-                                            SnapshotStateList snapshotStateList = new SnapshotStateList();
-                                            snapshotStateList.putSnapshotState(0L,
-                                                    (SnapshotState) snapshotsByKeyEntry.getValue());
-                                            snapshotRestoresByKey.put(snapshotsByKeyEntry.getKey(), snapshotStateList);
-                                        } else {
-                                            snapshotRestoresByKey.put(snapshotsByKeyEntry.getKey(),
-                                                    snapshotsByKeyEntry.getValue());
-                                        }
-                                    }
-                                    snapshotable.restoreState(snapshotRestoresByKey);
-                                }
-                            }
+            for (Map.Entry<String, Map<String, Map<String, Object>>> entry : snapshotsByQueryName.entrySet()) {
+                if (!entry.getKey().equals(PARTITION)) {
+                    Map<String, Snapshotable> snapshotablesByElementId = indexSnapshotables(entry.getKey());
+                    for (Map.Entry<String, Map<String, Object>> elementEntry : entry.getValue().entrySet()) {
+                        Map<String, Object> snapshotsByKey = elementEntry.getValue();
+                        if (snapshotsByKey != null) {
+                            submit(restorer, entry.getKey(), elementEntry.getKey(), snapshotablesByElementId,
+                                    snapshotable -> restoreElementState(snapshotable, snapshotsByKey));
+                        }
+                    }
+                }
+            }
+            restorer.await();
+        } finally {
+            restorer.awaitCompletion();
+            threadBarrier.unlock();
+        }
+    }
+
+    /**
+     * Restore a snapshot from the given stream. Snapshots written via {@link #writeSnapshot(Map, OutputStream)} are
+     * restored one element at a time, while snapshots of the other formats are read fully and restored via
+     * {@link #restore(byte[])}.
+     *
+     * @param inputStream stream of the snapshot, which is not closed
+     * @throws CannotRestoreSiddhiAppStateException when the snapshot cannot be restored
+     */
+    public void restore(InputStream inputStream) throws CannotRestoreSiddhiAppStateException {
+        if (!inputStream.markSupported()) {
+            inputStream = new BufferedInputStream(inputStream);
+        }
+        try {
+            if (!ElementSnapshotStream.isElementSnapshot(inputStream)) {
+                restore(ByteStreams.toByteArray(inputStream));
+                return;
+            }
+        } catch (IOException e) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
+                    getName() + " failed due to invalid snapshot.", e);
+        }
+        ParallelStateRestorer restorer = new ParallelStateRestorer(siddhiAppContext);
+        try {
+            threadBarrier.lock();
+            pendingStates.clear();
+            ElementSnapshotStream.Reader reader = new ElementSnapshotStream.Reader(inputStream, siddhiAppContext);
+            Map<String, Map<String, Snapshotable>> snapshotablesByQueryName = new HashMap<>();
+            while (reader.next()) {
+                String queryName = reader.getQueryName();
+                if (PARTITION.equals(queryName)) {
+                    // restoring partitions adds the snapshotables of their instances
+                    Snapshotable snapshotable = findSnapshotable(PARTITION, reader.getElementId());
+                    snapshotablesByQueryName.clear();
+                    if (snapshotable != null) {
+                        try {
+                            snapshotable.restoreState((Map<String, Object>) reader.readState());
+                        } catch (Throwable t) {
+                            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " +
+                                    siddhiAppContext.getName() + " not completed properly. This can occur if the " +
+                                    "content of Siddhi app has changed since it was last state persisted, or if " +
+                                    "the Siddhi app was not given a name. Make sure to provide a name to the " +
+                                    "Siddhi app by adding '@app:name('<a name>')' annotation and clean the " +
+                                    "persistence store if you have done modifications to the Siddhi app such " +
+                                    "that it can perform a fresh deployment.", t);
                         }
-                    } catch (Throwable t) {
-                        throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " +
-                                siddhiAppContext.getName() + " not completed properly because content of Siddhi " +
-                                "app has changed since last state persistence. Clean persistence store for a " +
-                                "fresh deployment.", t);
+                    }
+                } else {
+                    Map<String, Snapshotable> snapshotablesByElementId =
+                            snapshotablesByQueryName.computeIfAbsent(queryName, this::indexSnapshotables);
+                    Snapshotable snapshotable = snapshotablesByElementId.get(reader.getElementId());
+                    if (snapshotable != null && !restorer.isParallel()) {
+                        // decoded straight from the stream, as the state is restored before reading the next record
+                        restorer.submit(snapshotable, element -> restoreElementState(element,
+                                (Map<String, Object>) reader.readState()));
+                    } else if (snapshotable != null || siddhiAppContext.isLazyRestore()) {
+                        byte[] state = reader.readStateBytes();
+                        submit(restorer, queryName, reader.getElementId(), snapshotablesByElementId,
+                                element -> restoreElementState(element, (Map<String, Object>)
+                                        ByteSerializer.streamToObject(new ByteArrayInputStream(state),
+                                                siddhiAppContext)));
                     }
                 }
             }
+            restorer.await();
+        } catch (IOException e) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
+                    getName() + " failed due to invalid snapshot.", e);
         } finally {
+            restorer.awaitCompletion();
             threadBarrier.unlock();
         }
     }
 
+    private void restoreElementState(Snapshotable snapshotable, Map<String, Object> snapshotsByKey) {
+        if (snapshotsByKey == null) {
+            return;
+        }
+        Map<String, Object> snapshotRestoresByKey = new HashMap<>();
+        for (Map.Entry<String, Object> snapshotsByKeyEntry : snapshotsByKey.entrySet()) {
+            if (snapshotsByKeyEntry.getValue() instanceof SnapshotState) {
+                SnapshotStateList snapshotStateList = new SnapshotStateList();
+                snapshotStateList.putSnapshotState(0L, (SnapshotState) snapshotsByKeyEntry.getValue());
+                snapshotRestoresByKey.put(snapshotsByKeyEntry.getKey(), snapshotStateList);
+            } else {
+                snapshotRestoresByKey.put(snapshotsByKeyEntry.getKey(), snapshotsByKeyEntry.getValue());
+            }
+        }
+        snapshotable.restoreState(snapshotRestoresByKey);
+    }
+
+    /**
+     * Restore the state into the matching processing element. In lazy restore mode, the state of elements which do
+     * not exist yet, such as the elements of partition instances, is kept until they are created.
+     */
+    private void submit(ParallelStateRestorer restorer, String queryName, String elementId,
+                        Map<String, Snapshotable> snapshotablesByElementId,
+                        ParallelStateRestorer.StateRestorer stateRestorer)
+            throws CannotRestoreSiddhiAppStateException {
+        Snapshotable snapshotable = snapshotablesByElementId.get(elementId);
+        if (snapshotable != null) {
+            restorer.submit(snapshotable, stateRestorer);
+        } else if (siddhiAppContext.isLazyRestore()) {
+            pendingStates.computeIfAbsent(queryName, k -> new ConcurrentHashMap<>()).put(elementId, stateRestorer);
+        }
+    }
+
+    /**
+     * Restore the state kept by the lazy restore mode into the given processing elements, which are newly created
+     * for a partition instance.
+     *
+     * @param snapshotables processing elements by query name
+     */
+    public void restorePendingState(Map<String, List<Snapshotable>> snapshotables) {
+        if (pendingStates.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, List<Snapshotable>> entry : snapshotables.entrySet()) {
+            Map<String, ParallelStateRestorer.StateRestorer> pendingStatesByElementId =
+                    pendingStates.get(entry.getKey());
+            if (pendingStatesByElementId != null) {
+                for (Snapshotable snapshotable : entry.getValue()) {
+                    ParallelStateRestorer.StateRestorer stateRestorer =
+                            pendingStatesByElementId.remove(snapshotable.getElementId());
+                    if (stateRestorer != null) {
+                        try {
+                            stateRestorer.restore(snapshotable);
+                        } catch (Throwable t) {
+                            log.error("Restoring the state of element '" + snapshotable.getElementId() +
+                                    "' of Siddhi app '" + siddhiAppContext.getName() + "' failed.", t);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the partition instances whose state is still kept by the lazy restore mode, such that the state is
+     * part of the snapshot being taken. Called while holding the {@link ThreadBarrier}.
+     */
+    private void completeLazyRestore() {
+        if (pendingStates.isEmpty()) {
+            return;
+        }
+        Set<Snapshotable> partitionSnapshotables = snapshotableMap.get(PARTITION);
+        if (partitionSnapshotables != null) {
+            for (Snapshotable snapshotable : new ArrayList<>(partitionSnapshotables)) {
+                if (snapshotable instanceof PartitionRuntime) {
+                    ((PartitionRuntime) snapshotable).restorePendingPartitionInstances();
+                }
+            }
+        }
+        pendingStates.clear();
+    }
+
+    private Snapshotable findSnapshotable(String queryName, String elementId) {
+        Set<Snapshotable> snapshotables = snapshotableMap.get(queryName);
+        if (snapshotables != null) {
+            for (Snapshotable snapshotable : snapshotables) {
+                if (elementId.equals(snapshotable.getElementId())) {
+                    return snapshotable;
+                }
+            }
+        }
+        return null;
+    }
+
+    Map<String, Snapshotable> indexSnapshotables(String queryName) {
+        Map<String, Snapshotable> snapshotablesByElementId = new HashMap<>();
+        Set<Snapshotable> snapshotables = snapshotableMap.get(queryName);
+        if (snapshotables != null) {
+            for (Snapshotable snapshotable : snapshotables) {
+                snapshotablesByElementId.put(snapshotable.getElementId(), snapshotable);
+            }
+        }
+        return snapshotablesByElementId;
+    }
+
     public void restore(Map<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>>> snapshot)
             throws CannotRestoreSiddhiAppStateException {
+        ParallelStateRestorer restorer = new ParallelStateRestorer(siddhiAppContext);
         try {
             threadBarrier.lock();
-            if (snapshotableMap.containsKey("partition")) {
-                List<Snapshotable> partitionSnapshotables = snapshotableMap.get("partition");
+            pendingStates.clear();
+            if (snapshotableMap.containsKey(PARTITION)) {
+                Set<Snapshotable> partitionSnapshotables = snapshotableMap.get(PARTITION);
 
                 try {
                     if (partitionSnapshotables != null) {
                         for (Snapshotable snapshotable : partitionSnapshotables) {
                             Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>> incrementalStateByElementId
-                                    = snapshot.get("partition");
+                                    = snapshot.get(PARTITION);
                             restoreIncrementalSnapshot(snapshotable, incrementalStateByElementId);
                         }
                     }
@@ -347,24 +740,21 @@ public class SnapshotService {
                 }
             }
 
-            for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
-                if (!entry.getKey().equals("partition")) {
-                    List<Snapshotable> snapshotableList = entry.getValue();
-                    try {
-                        for (Snapshotable snapshotable : snapshotableList) {
-                            Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>> incrementalStateByElementId
-                                    = snapshot.get(entry.getKey());
-                            restoreIncrementalSnapshot(snapshotable, incrementalStateByElementId);
-                        }
-                    } catch (Throwable t) {
-                        throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " +
-                                siddhiAppContext.getName() + " not completed properly because content of Siddhi " +
-                                "app has changed since last state persistence. Clean persistence store for a " +
-                                "fresh deployment.", t);
+            for (Map.Entry<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>>> entry :
+                    snapshot.entrySet()) {
+                if (!entry.getKey().equals(PARTITION)) {
+                    Map<String, Snapshotable> snapshotablesByElementId = indexSnapshotables(entry.getKey());
+                    Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>> incrementalStateByElementId =
+                            entry.getValue();
+                    for (String elementId : incrementalStateByElementId.keySet()) {
+                        submit(restorer, entry.getKey(), elementId, snapshotablesByElementId,
+                                snapshotable -> restoreIncrementalSnapshot(snapshotable, incrementalStateByElementId));
                     }
                 }
             }
+            restorer.await();
         } finally {
+            restorer.awaitCompletion();
             threadBarrier.unlock();
         }
     }
@@ -381,34 +771,9 @@ public class SnapshotService {
                         incrementalStateByTime.entrySet()) {
                     for (Map.Entry<IncrementalSnapshotInfo, byte[]> incrementalStateByInfoEntry :
                             incrementalStateByTimeEntry.getValue().entrySet()) {
-                        Map<String, Object> singleIncrementSnapshot = (Map<String, Object>)
-                                ByteSerializer.byteToObject(incrementalStateByInfoEntry.getValue(), siddhiAppContext);
-                        if (singleIncrementSnapshot != null) {
-                            for (Map.Entry<String, Object> singleIncrementSnapshotEntry :
-                                    singleIncrementSnapshot.entrySet()) {
-                                if (singleIncrementSnapshotEntry.getValue() instanceof SnapshotState) {
-                                    SnapshotState snapshotState = (SnapshotState)
-                                            singleIncrementSnapshotEntry.getValue();
-                                    SnapshotStateList snapshotStateList = (SnapshotStateList)
-                                            deserializedElementStateMap.computeIfAbsent(
-                                                    singleIncrementSnapshotEntry.getKey(),
-                                                    k -> new SnapshotStateList());
-                                    if (snapshotState.isIncrementalSnapshot()) {
-                                        snapshotStateList.putSnapshotState(
-                                                incrementalStateByTimeEntry.getKey(),
-                                                snapshotState);
-                                    } else {
-                                        snapshotStateList.getSnapshotStates().clear();
-                                        snapshotStateList.putSnapshotState(
-                                                incrementalStateByTimeEntry.getKey(),
-                                                snapshotState);
-                                    }
-                                } else {
-                                    deserializedElementStateMap.put(singleIncrementSnapshotEntry.getKey(),
-                                            singleIncrementSnapshotEntry.getValue());
-                                }
-                            }
-                        }
+                        mergeIncrementalSnapshot(deserializedElementStateMap, incrementalStateByTimeEntry.getKey(),
+                                (Map<String, Object>) loadIncrementalSnapshot(incrementalStateByInfoEntry.getKey(),
+                                        incrementalStateByInfoEntry.getValue()));
                     }
                 }
                 snapshotable.restoreState(deserializedElementStateMap);
@@ -416,6 +781,54 @@ public class SnapshotService {
         }
     }
 
+    /**
+     * Merge a single incremental snapshot of an element into its state, collecting the snapshot states of each key
+     * from its last full snapshot onwards.
+     *
+     * @param elementState        merged state of the element
+     * @param time                time of the incremental snapshot
+     * @param incrementalSnapshot incremental snapshot to be merged, which is ignored when null
+     */
+    static void mergeIncrementalSnapshot(Map<String, Object> elementState, long time,
+                                         Map<String, Object> incrementalSnapshot) {
+        if (incrementalSnapshot != null) {
+            for (Map.Entry<String, Object> incrementalSnapshotEntry : incrementalSnapshot.entrySet()) {
+                if (incrementalSnapshotEntry.getValue() instanceof SnapshotState) {
+                    SnapshotState snapshotState = (SnapshotState) incrementalSnapshotEntry.getValue();
+                    SnapshotStateList snapshotStateList = (SnapshotStateList) elementState.computeIfAbsent(
+                            incrementalSnapshotEntry.getKey(), k -> new SnapshotStateList());
+                    if (!snapshotState.isIncrementalSnapshot()) {
+                        snapshotStateList.getSnapshotStates().clear();
+                    }
+                    snapshotStateList.putSnapshotState(time, snapshotState);
+                } else {
+                    elementState.put(incrementalSnapshotEntry.getKey(), incrementalSnapshotEntry.getValue());
+                }
+            }
+        }
+    }
+
+    Object loadIncrementalSnapshot(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+        if (snapshot != null) {
+            return ByteSerializer.byteToObject(snapshot, siddhiAppContext);
+        }
+        IncrementalPersistenceStore incrementalPersistenceStore =
+                siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore();
+        if (incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore) {
+            // element snapshots of streaming stores are only read when restoring the element
+            try (InputStream inputStream = ((StreamingIncrementalPersistenceStore) incrementalPersistenceStore)
+                    .loadAsStream(snapshotInfo)) {
+                if (inputStream != null) {
+                    return ByteSerializer.streamToObject(inputStream, siddhiAppContext);
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                log.error("Error when reading the revision '" + snapshotInfo.getRevision() + "' of Siddhi app '" +
+                        siddhiAppContext.getName() + "'.", e);
+            }
+        }
+        return null;
+    }
+
     public void restoreRevision(String revision) throws CannotRestoreSiddhiAppStateException {
         PersistenceStore persistenceStore = siddhiAppContext.getSiddhiContext().getPersistenceStore();
         IncrementalPersistenceStore incrementalPersistenceStore =
@@ -425,18 +838,33 @@ public class SnapshotService {
             if (log.isDebugEnabled()) {
                 log.debug("Restoring revision: " + revision + " ...");
             }
-            byte[] snapshot = persistenceStore.load(siddhiAppContext.getName(), revision);
-            if (snapshot != null) {
-                restore(snapshot);
-                if (log.isDebugEnabled()) {
-                    log.debug("Restored revision: " + revision);
+            if (persistenceStore instanceof StreamingPersistenceStore) {
+                try (InputStream inputStream = ((StreamingPersistenceStore) persistenceStore).loadAsStream(
+                        siddhiAppContext.getName(), revision)) {
+                    if (inputStream != null) {
+                        restore(inputStream);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Restored revision: " + revision);
+                        }
+                        return;
+                    }
+                } catch (IOException e) {
+                    throw new PersistenceStoreException("Error when closing the revision: " + revision, e);
                 }
             } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("No data found for revision: " + revision);
+                byte[] snapshot = persistenceStore.load(siddhiAppContext.getName(), revision);
+                if (snapshot != null) {
+                    restore(snapshot);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Restored revision: " + revision);
+                    }
+                    return;
                 }
-                throw new PersistenceStoreException("No data found for revision: " + revision);
             }
+            if (log.isDebugEnabled()) {
+                log.debug("No data found for revision: " + revision);
+            }
+            throw new PersistenceStoreException("No data found for revision: " + revision);
         } else if (incrementalPersistenceStore != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Restoring revision: " + revision + " ...");
@@ -491,9 +919,13 @@ public class SnapshotService {
                     Map<Long, Map<IncrementalSnapshotInfo, byte[]>> incrementalStateByTime =
                             incrementalStateByElementId.computeIfAbsent(snapshotInfo.getElementId(),
                                     k -> new TreeMap<>());
+                    // keeps the sorted order, such that increments are applied before a base snapshot of the same
+                    // time, which a compacted base snapshot relies on
                     Map<IncrementalSnapshotInfo, byte[]> incrementalStateByInfo = incrementalStateByTime.
-                            computeIfAbsent(snapshotInfo.getTime(), k -> new HashMap<>());
-                    incrementalStateByInfo.put(snapshotInfo, incrementalPersistenceStore.load(snapshotInfo));
+                            computeIfAbsent(snapshotInfo.getTime(), k -> new LinkedHashMap<>());
+                    incrementalStateByInfo.put(snapshotInfo,
+                            incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore ?
+                                    null : incrementalPersistenceStore.load(snapshotInfo));
                 }
                 restore(incrementalState);
                 if (log.isDebugEnabled()) {
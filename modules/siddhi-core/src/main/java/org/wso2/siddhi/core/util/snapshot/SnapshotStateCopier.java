@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.Operation;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import org.wso2.siddhi.core.table.holder.IndexEventHolder;
+import org.wso2.siddhi.core.util.snapshot.codec.JavaSnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Detaches the state returned by {@link Snapshotable#currentState()} from the live processing elements, such that
+ * it can be serialized after the {@link org.wso2.siddhi.core.util.ThreadBarrier} is released.
+ * <p>
+ * Immutable values such as strings, boxed primitives and enums are shared with the live state, while events, event
+ * chains, attribute arrays and the known state holders are copied preserving the object identities within the
+ * captured state. Any other object is detached by copying it through Java serialization.
+ * <p>
+ * Copying is done in two steps. {@link #capture(Object)} copies the state while the processing threads are held, and
+ * only encodes the objects copied through Java serialization. {@link #complete()} decodes them into the captured
+ * state after the processing threads are released, as decoding no longer reads the live state. Objects used as map
+ * keys or set items, and objects referred by the fields of the known state holders, are decoded while capturing, as
+ * their copies cannot be replaced afterwards.
+ */
+public class SnapshotStateCopier {
+
+    private static final JavaSnapshotCodec JAVA_SNAPSHOT_CODEC = new JavaSnapshotCodec();
+
+    private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+    private final List<EncodedValue> encodedValues = new ArrayList<>();
+
+    /**
+     * Copy the captured state of a Siddhi app.
+     *
+     * @param state the state returned by the snapshotable elements
+     * @return a copy that does not share any mutable objects with the live state
+     * @throws IOException if a state that is not known to the copier cannot be copied via Java serialization
+     */
+    public static Object copy(Object state) throws IOException {
+        SnapshotStateCopier snapshotStateCopier = new SnapshotStateCopier();
+        Object copy = snapshotStateCopier.capture(state);
+        snapshotStateCopier.complete();
+        return copy;
+    }
+
+    /**
+     * Copy the state, leaving the objects copied through Java serialization encoded until {@link #complete()} is
+     * called. The copies captured by the same copier share the copies of the objects they have in common.
+     *
+     * @param state the state returned by the snapshotable elements
+     * @return a copy that does not share any mutable objects with the live state, which is not usable until
+     * {@link #complete()} is called
+     * @throws IOException if a state that is not known to the copier cannot be copied via Java serialization
+     */
+    public Object capture(Object state) throws IOException {
+        return copyValue(state, null);
+    }
+
+    /**
+     * Decode the objects encoded while capturing into the captured state. This does not read the live state, hence
+     * it is called after the processing threads are released.
+     *
+     * @throws IOException if an encoded object cannot be decoded
+     */
+    public void complete() throws IOException {
+        for (EncodedValue encodedValue : encodedValues) {
+            if (!encodedValue.slots.isEmpty()) {
+                Object decodedValue = encodedValue.decode();
+                for (Consumer<Object> slot : encodedValue.slots) {
+                    slot.accept(decodedValue);
+                }
+            }
+        }
+        encodedValues.clear();
+    }
+
+    /**
+     * Copy a value that is placed into the given slot of the captured state.
+     *
+     * @param value value to be copied
+     * @param slot  setter of the slot, used to place the decoded copy by {@link #complete()}, or null if the copy
+     *              cannot be placed afterwards
+     * @return the copy, or null if it is placed into the slot by {@link #complete()}
+     */
+    private Object copyValue(Object value, Consumer<Object> slot) throws IOException {
+        Object copy = copyValue(value);
+        if (copy instanceof EncodedValue) {
+            EncodedValue encodedValue = (EncodedValue) copy;
+            if (slot == null) {
+                return encodedValue.decode();
+            }
+            encodedValue.slots.add(slot);
+            return null;
+        }
+        return copy;
+    }
+
+    private Object copyValue(Object value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        Class<?> clazz = value.getClass();
+        if (clazz == String.class || clazz == Integer.class || clazz == Long.class || clazz == Double.class
+                || clazz == Float.class || clazz == Boolean.class || clazz == Short.class || clazz == Byte.class
+                || clazz == Character.class || clazz == ComplexEvent.Type.class || clazz == Compare.Operator.class) {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        if (clazz == SnapshotState.class) {
+            SnapshotState snapshotState = (SnapshotState) value;
+            copy = new SnapshotState(copyValue(snapshotState.getState(), null),
+                    snapshotState.isIncrementalSnapshot());
+            copies.put(value, copy);
+        } else if (clazz == Operation.class) {
+            Operation operation = (Operation) value;
+            Operation operationCopy = new Operation(operation.operation, null);
+            copies.put(value, operationCopy);
+            operationCopy.parameters = copyValue(operation.parameters,
+                    parameters -> operationCopy.parameters = parameters);
+            copy = operationCopy;
+        } else if (clazz == StreamEvent.class) {
+            copy = copyStreamEvents((StreamEvent) value);
+        } else if (clazz == StateEvent.class) {
+            copy = copyStateEvents((StateEvent) value);
+        } else if (clazz == Object[].class) {
+            Object[] array = (Object[]) value;
+            Object[] arrayCopy = new Object[array.length];
+            copies.put(value, arrayCopy);
+            for (int i = 0; i < array.length; i++) {
+                int index = i;
+                arrayCopy[i] = copyValue(array[i], item -> arrayCopy[index] = item);
+            }
+            copy = arrayCopy;
+        } else if (clazz == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            List<Object> listCopy = new ArrayList<>(list.size());
+            copies.put(value, listCopy);
+            for (Object item : list) {
+                int index = listCopy.size();
+                listCopy.add(copyValue(item, itemCopy -> listCopy.set(index, itemCopy)));
+            }
+            copy = listCopy;
+        } else if (clazz == LinkedList.class) {
+            copy = copyCollection((Collection<?>) value, new LinkedList<>());
+        } else if (clazz == ArrayDeque.class) {
+            copy = copyCollection((Collection<?>) value, new ArrayDeque<>(((Collection<?>) value).size()));
+        } else if (clazz == HashSet.class) {
+            copy = copyCollection((Collection<?>) value, new HashSet<>());
+        } else if (clazz == LinkedHashSet.class) {
+            copy = copyCollection((Collection<?>) value, new LinkedHashSet<>());
+        } else if (clazz == TreeSet.class && ((TreeSet<?>) value).comparator() == null) {
+            copy = copyCollection((Collection<?>) value, new TreeSet<>());
+        } else if (clazz == HashMap.class) {
+            copy = copyMap((Map<?, ?>) value, new HashMap<>());
+        } else if (clazz == LinkedHashMap.class) {
+            copy = copyMap((Map<?, ?>) value, new LinkedHashMap<>());
+        } else if (clazz == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null) {
+            copy = copyMap((Map<?, ?>) value, new TreeMap<>());
+        } else if (clazz == ConcurrentHashMap.class) {
+            copy = copyMap((Map<?, ?>) value, new ConcurrentHashMap<>());
+        } else if (clazz == SnapshotStateList.class) {
+            SnapshotStateList snapshotStateList = new SnapshotStateList();
+            copies.put(value, snapshotStateList);
+            for (Map.Entry<Long, SnapshotState> entry :
+                    ((SnapshotStateList) value).getSnapshotStates().entrySet()) {
+                snapshotStateList.putSnapshotState(entry.getKey(),
+                        (SnapshotState) copyValue(entry.getValue(), null));
+            }
+            copy = snapshotStateList;
+        } else if (clazz == SnapshotableStreamEventQueue.class) {
+            SnapshotableStreamEventQueue eventQueue = (SnapshotableStreamEventQueue) value;
+            SnapshotableStreamEventQueue eventQueueCopy = new SnapshotableStreamEventQueue(null,
+                    eventQueue.getOperationChangeLogThreshold());
+            copies.put(value, eventQueueCopy);
+            StreamEvent first = (StreamEvent) copyValue(eventQueue.getFirst(), null);
+            if (first != null) {
+                eventQueueCopy.add(first);
+            }
+            copy = eventQueueCopy;
+        } else if (clazz == IndexEventHolder.class) {
+            IndexEventHolder indexEventHolder = (IndexEventHolder) value;
+            Map<Object, StreamEvent> primaryKeyData = (Map<Object, StreamEvent>) copyValue(
+                    indexEventHolder.getPrimaryKeyData(), null);
+            Map<String, TreeMap<Object, Set<StreamEvent>>> indexData =
+                    (Map<String, TreeMap<Object, Set<StreamEvent>>>) copyValue(indexEventHolder.getIndexData(),
+                            null);
+            copy = new IndexEventHolder(primaryKeyData, indexData);
+            copies.put(value, copy);
+        } else if (value instanceof Serializable) {
+            EncodedValue encodedValue = new EncodedValue(clazz, JAVA_SNAPSHOT_CODEC.encode(value));
+            encodedValues.add(encodedValue);
+            copy = encodedValue;
+            copies.put(value, copy);
+        } else {
+            throw new IOException("Cannot copy state of type " + clazz.getName() + " as it is not serializable");
+        }
+        return copy;
+    }
+
+    private StreamEvent copyStreamEvents(StreamEvent streamEvent) throws IOException {
+        StreamEvent firstCopy = null;
+        StreamEvent previousCopy = null;
+        StreamEvent event = streamEvent;
+        while (event != null) {
+            StreamEvent eventCopy = new StreamEvent(0, 0, 0);
+            copies.put(event, eventCopy);
+            eventCopy.setBeforeWindowData((Object[]) copyValue(event.getBeforeWindowData(), null));
+            eventCopy.setOnAfterWindowData((Object[]) copyValue(event.getOnAfterWindowData(), null));
+            eventCopy.setOutputData((Object[]) copyValue(event.getOutputData(), null));
+            eventCopy.setType(event.getType());
+            eventCopy.setTimestamp(event.getTimestamp());
+            if (previousCopy == null) {
+                firstCopy = eventCopy;
+            } else {
+                previousCopy.setNext(eventCopy);
+            }
+            previousCopy = eventCopy;
+            StreamEvent next = event.getNext();
+            if (next != null && (copies.containsKey(next) || next.getClass() != StreamEvent.class)) {
+                eventCopy.setNext((StreamEvent) copyValue(next, null));
+                break;
+            }
+            event = next;
+        }
+        return firstCopy;
+    }
+
+    private StateEvent copyStateEvents(StateEvent stateEvent) throws IOException {
+        StateEvent firstCopy = null;
+        StateEvent previousCopy = null;
+        StateEvent event = stateEvent;
+        while (event != null) {
+            StreamEvent[] streamEvents = event.getStreamEvents();
+            Object[] outputData = event.getOutputData();
+            StateEvent eventCopy = new StateEvent(streamEvents.length, outputData == null ? 0 : outputData.length);
+            copies.put(event, eventCopy);
+            for (int i = 0; i < streamEvents.length; i++) {
+                eventCopy.setEvent(i, (StreamEvent) copyValue(streamEvents[i], null));
+            }
+            if (outputData != null) {
+                for (int i = 0; i < outputData.length; i++) {
+                    int index = i;
+                    eventCopy.setOutputData(copyValue(outputData[i], item -> eventCopy.setOutputData(item, index)),
+                            i);
+                }
+            }
+            eventCopy.setType(event.getType());
+            eventCopy.setTimestamp(event.getTimestamp());
+            eventCopy.setId(event.getId());
+            if (previousCopy == null) {
+                firstCopy = eventCopy;
+            } else {
+                previousCopy.setNext(eventCopy);
+            }
+            previousCopy = eventCopy;
+            StateEvent next = event.getNext();
+            if (next != null && (copies.containsKey(next) || next.getClass() != StateEvent.class)) {
+                eventCopy.setNext((StateEvent) copyValue(next, null));
+                break;
+            }
+            event = next;
+        }
+        return firstCopy;
+    }
+
+    private Collection<Object> copyCollection(Collection<?> collection, Collection<Object> collectionCopy)
+            throws IOException {
+        copies.put(collection, collectionCopy);
+        for (Object item : collection) {
+            collectionCopy.add(copyValue(item, null));
+        }
+        return collectionCopy;
+    }
+
+    private Map<Object, Object> copyMap(Map<?, ?> map, Map<Object, Object> mapCopy) throws IOException {
+        copies.put(map, mapCopy);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object keyCopy = copyValue(entry.getKey(), null);
+            Object valueCopy = copyValue(entry.getValue(), item -> mapCopy.put(keyCopy, item));
+            if (valueCopy != null || !(mapCopy instanceof ConcurrentHashMap)) {
+                // The entry is put anyway to keep the iteration order of the map
+                mapCopy.put(keyCopy, valueCopy);
+            }
+        }
+        return mapCopy;
+    }
+
+    /**
+     * Object copied through Java serialization, which is decoded once by {@link #complete()} and placed into all the
+     * slots referring it.
+     */
+    private static final class EncodedValue {
+        private final Class<?> clazz;
+        private final byte[] bytes;
+        private final List<Consumer<Object>> slots = new ArrayList<>(1);
+        private Object decodedValue;
+
+        private EncodedValue(Class<?> clazz, byte[] bytes) {
+            this.clazz = clazz;
+            this.bytes = bytes;
+        }
+
+        private Object decode() throws IOException {
+            if (decodedValue == null) {
+                try {
+                    decodedValue = JAVA_SNAPSHOT_CODEC.decode(bytes);
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Cannot copy state of type " + clazz.getName(), e);
+                }
+            }
+            return decodedValue;
+        }
+    }
+}
@@ -17,6 +17,9 @@
  */
 package org.wso2.siddhi.core.util.snapshot;
 
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+
 import java.util.Map;
 
 /**
@@ -42,5 +45,18 @@ public interface Snapshotable {
      */
     void restoreState(Map<String, Object> state);
 
+    /**
+     * Used to merge the snapshot states of a base snapshot and its increments into a full snapshot, when the
+     * increments cannot be applied without the element. This is called off the event processing path, hence the
+     * state of the element must not be modified.
+     *
+     * @param key               key of the state as provided by currentState()
+     * @param snapshotStateList snapshot states starting with a full snapshot
+     * @return the full snapshot, or null when the snapshot states cannot be merged
+     */
+    default SnapshotState compactState(String key, SnapshotStateList snapshotStateList) {
+        return null;
+    }
+
     String getElementId();
 }
@@ -0,0 +1,776 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot.codec;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.Operation;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import org.wso2.siddhi.core.table.holder.IndexEventHolder;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary {@link SnapshotCodec}. Siddhi events, event queues, table holders, snapshot states and the
+ * commonly used collections are written with dedicated typed encoders, while any other value falls back to Java
+ * serialization. Object identity is preserved within a snapshot, such that events shared between a table's primary
+ * key and its indexes are restored as the same instances.
+ * <p>
+ * Every snapshot starts with a header carrying the format version and flags, which allows
+ * {@link org.wso2.siddhi.core.util.snapshot.ByteSerializer} to distinguish it from Java serialized snapshots.
+ */
+public class BinarySnapshotCodec implements SnapshotCodec {
+
+    public static final byte VERSION = 1;
+    /**
+     * Length of the header, being the magic bytes followed by the version and the flags.
+     */
+    public static final int HEADER_LENGTH = 6;
+    private static final byte[] MAGIC = {'S', 'D', 'H', 'S'};
+    private static final byte FLAG_COMPRESSED = 0x01;
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TRUE = 7;
+    private static final byte FALSE = 8;
+    private static final byte SHORT = 9;
+    private static final byte BYTE = 10;
+    private static final byte CHARACTER = 11;
+    private static final byte OBJECT_ARRAY = 20;
+    private static final byte ARRAY_LIST = 21;
+    private static final byte LINKED_LIST = 22;
+    private static final byte ARRAY_DEQUE = 23;
+    private static final byte HASH_SET = 24;
+    private static final byte LINKED_HASH_SET = 25;
+    private static final byte TREE_SET = 26;
+    private static final byte HASH_MAP = 27;
+    private static final byte LINKED_HASH_MAP = 28;
+    private static final byte TREE_MAP = 29;
+    private static final byte CONCURRENT_HASH_MAP = 30;
+    private static final byte STREAM_EVENT = 40;
+    private static final byte STATE_EVENT = 41;
+    private static final byte EVENT_TYPE = 42;
+    private static final byte SNAPSHOT_STATE = 43;
+    private static final byte SNAPSHOT_STATE_LIST = 44;
+    private static final byte OPERATION = 45;
+    private static final byte COMPARE_OPERATOR = 46;
+    private static final byte SNAPSHOTABLE_STREAM_EVENT_QUEUE = 47;
+    private static final byte INDEX_EVENT_HOLDER = 48;
+    private static final byte SERIALIZABLE = 60;
+
+    private static final byte END_OF_CHAIN = 0;
+    private static final byte NEXT_IN_CHAIN = 1;
+    private static final byte NEXT_REFERENCE = 2;
+
+    private static final ComplexEvent.Type[] EVENT_TYPES = ComplexEvent.Type.values();
+    private static final Operation.Operator[] OPERATORS = Operation.Operator.values();
+    private static final Compare.Operator[] COMPARE_OPERATORS = Compare.Operator.values();
+
+    private final boolean compress;
+
+    public BinarySnapshotCodec() {
+        this(false);
+    }
+
+    public BinarySnapshotCodec(boolean compress) {
+        this.compress = compress;
+    }
+
+    public static boolean isBinarySnapshot(byte[] snapshot) {
+        if (snapshot.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (snapshot[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    @Override
+    public byte[] encode(Object state) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        encode(state, baos);
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] snapshot) throws IOException, ClassNotFoundException {
+        if (!isBinarySnapshot(snapshot)) {
+            throw new StreamCorruptedException("Snapshot does not start with the binary snapshot header");
+        }
+        return decodePayload(snapshot[MAGIC.length], snapshot[MAGIC.length + 1],
+                new ByteArrayInputStream(snapshot, HEADER_LENGTH, snapshot.length - HEADER_LENGTH));
+    }
+
+    @Override
+    public void encode(Object state, OutputStream outputStream) throws IOException {
+        outputStream.write(MAGIC);
+        outputStream.write(VERSION);
+        outputStream.write(compress ? FLAG_COMPRESSED : 0);
+        Deflater deflater = null;
+        OutputStream payloadStream = new NonClosingOutputStream(outputStream);
+        if (compress) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            payloadStream = new DeflaterOutputStream(payloadStream, deflater);
+        }
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(payloadStream));
+            new Encoder(out).writeValue(state);
+            out.close();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    public Object decode(InputStream inputStream) throws IOException, ClassNotFoundException {
+        byte[] header = new byte[HEADER_LENGTH];
+        new DataInputStream(inputStream).readFully(header);
+        if (!isBinarySnapshot(header)) {
+            throw new StreamCorruptedException("Snapshot does not start with the binary snapshot header");
+        }
+        return decodePayload(header[MAGIC.length], header[MAGIC.length + 1], inputStream);
+    }
+
+    private Object decodePayload(byte version, byte flags, InputStream payloadStream)
+            throws IOException, ClassNotFoundException {
+        if (version > VERSION) {
+            throw new StreamCorruptedException("Unsupported binary snapshot version " + version
+                    + ", supported up to version " + VERSION);
+        }
+        Inflater inflater = null;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            inflater = new Inflater();
+            payloadStream = new InflaterInputStream(payloadStream, inflater);
+        }
+        try {
+            return new Decoder(new DataInputStream(payloadStream)).readValue();
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * Shields the stream handed over by the caller from being closed when the payload streams are closed.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Writes values into the binary snapshot format, keeping track of already written objects.
+     */
+    private static class Encoder {
+        private final DataOutputStream out;
+        private final IdentityHashMap<Object, Integer> references = new IdentityHashMap<>();
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Class<?> clazz = value.getClass();
+            if (clazz == String.class) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (clazz == Integer.class) {
+                out.writeByte(INTEGER);
+                writeVarInt(zigZag((Integer) value));
+            } else if (clazz == Long.class) {
+                out.writeByte(LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (clazz == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (clazz == Float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (clazz == Boolean.class) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (clazz == Short.class) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) value);
+            } else if (clazz == Byte.class) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            } else if (clazz == Character.class) {
+                out.writeByte(CHARACTER);
+                out.writeChar((Character) value);
+            } else if (clazz == ComplexEvent.Type.class) {
+                out.writeByte(EVENT_TYPE);
+                out.writeByte(((ComplexEvent.Type) value).ordinal());
+            } else if (clazz == Compare.Operator.class) {
+                out.writeByte(COMPARE_OPERATOR);
+                out.writeByte(((Compare.Operator) value).ordinal());
+            } else if (clazz == SnapshotState.class) {
+                SnapshotState snapshotState = (SnapshotState) value;
+                out.writeByte(SNAPSHOT_STATE);
+                out.writeBoolean(snapshotState.isIncrementalSnapshot());
+                writeValue(snapshotState.getState());
+            } else if (clazz == Operation.class) {
+                Operation operation = (Operation) value;
+                out.writeByte(OPERATION);
+                out.writeByte(operation.operation.ordinal());
+                writeValue(operation.parameters);
+            } else if (writeReferenceIfWritten(value)) {
+                return;
+            } else if (clazz == StreamEvent.class) {
+                out.writeByte(STREAM_EVENT);
+                writeStreamEvents((StreamEvent) value);
+            } else if (clazz == StateEvent.class) {
+                out.writeByte(STATE_EVENT);
+                writeStateEvents((StateEvent) value);
+            } else if (clazz == Object[].class) {
+                Object[] array = (Object[]) value;
+                out.writeByte(OBJECT_ARRAY);
+                register(value);
+                writeVarInt(array.length);
+                for (Object item : array) {
+                    writeValue(item);
+                }
+            } else if (clazz == ArrayList.class) {
+                writeCollection(ARRAY_LIST, (Collection<?>) value);
+            } else if (clazz == LinkedList.class) {
+                writeCollection(LINKED_LIST, (Collection<?>) value);
+            } else if (clazz == ArrayDeque.class) {
+                writeCollection(ARRAY_DEQUE, (Collection<?>) value);
+            } else if (clazz == HashSet.class) {
+                writeCollection(HASH_SET, (Collection<?>) value);
+            } else if (clazz == LinkedHashSet.class) {
+                writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+            } else if (clazz == TreeSet.class && ((TreeSet<?>) value).comparator() == null) {
+                writeCollection(TREE_SET, (Collection<?>) value);
+            } else if (clazz == HashMap.class) {
+                writeMap(HASH_MAP, (Map<?, ?>) value);
+            } else if (clazz == LinkedHashMap.class) {
+                writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+            } else if (clazz == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null) {
+                writeMap(TREE_MAP, (Map<?, ?>) value);
+            } else if (clazz == ConcurrentHashMap.class) {
+                writeMap(CONCURRENT_HASH_MAP, (Map<?, ?>) value);
+            } else if (clazz == SnapshotStateList.class) {
+                out.writeByte(SNAPSHOT_STATE_LIST);
+                register(value);
+                TreeMap<Long, SnapshotState> snapshotStates = ((SnapshotStateList) value).getSnapshotStates();
+                writeVarInt(snapshotStates.size());
+                for (Map.Entry<Long, SnapshotState> entry : snapshotStates.entrySet()) {
+                    writeVarLong(zigZag(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else if (clazz == SnapshotableStreamEventQueue.class) {
+                SnapshotableStreamEventQueue eventQueue = (SnapshotableStreamEventQueue) value;
+                out.writeByte(SNAPSHOTABLE_STREAM_EVENT_QUEUE);
+                register(value);
+                writeVarInt(eventQueue.getOperationChangeLogThreshold());
+                writeValue(eventQueue.getFirst());
+            } else if (clazz == IndexEventHolder.class) {
+                IndexEventHolder indexEventHolder = (IndexEventHolder) value;
+                out.writeByte(INDEX_EVENT_HOLDER);
+                register(value);
+                writeValue(indexEventHolder.getPrimaryKeyData());
+                writeValue(indexEventHolder.getIndexData());
+            } else {
+                out.writeByte(SERIALIZABLE);
+                register(value);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                ObjectOutputStream oos = new ObjectOutputStream(baos);
+                oos.writeObject(value);
+                oos.flush();
+                writeVarInt(baos.size());
+                baos.writeTo(out);
+            }
+        }
+
+        private void writeStreamEvents(StreamEvent streamEvent) throws IOException {
+            StreamEvent event = streamEvent;
+            while (true) {
+                register(event);
+                writeAttributes(event.getBeforeWindowData());
+                writeAttributes(event.getOnAfterWindowData());
+                writeAttributes(event.getOutputData());
+                out.writeByte(event.getType().ordinal());
+                writeVarLong(zigZag(event.getTimestamp()));
+                StreamEvent next = event.getNext();
+                if (next == null) {
+                    out.writeByte(END_OF_CHAIN);
+                    return;
+                }
+                Integer reference = references.get(next);
+                if (reference != null || next.getClass() != StreamEvent.class) {
+                    out.writeByte(NEXT_REFERENCE);
+                    writeValue(next);
+                    return;
+                }
+                out.writeByte(NEXT_IN_CHAIN);
+                event = next;
+            }
+        }
+
+        private void writeStateEvents(StateEvent stateEvent) throws IOException {
+            StateEvent event = stateEvent;
+            while (true) {
+                register(event);
+                StreamEvent[] streamEvents = event.getStreamEvents();
+                Object[] outputData = event.getOutputData();
+                writeVarInt(streamEvents.length);
+                writeVarInt(outputData == null ? 0 : outputData.length);
+                for (StreamEvent streamEvent : streamEvents) {
+                    writeValue(streamEvent);
+                }
+                if (outputData != null) {
+                    for (Object attribute : outputData) {
+                        writeValue(attribute);
+                    }
+                }
+                out.writeByte(event.getType().ordinal());
+                writeVarLong(zigZag(event.getTimestamp()));
+                writeVarLong(zigZag(event.getId()));
+                StateEvent next = event.getNext();
+                if (next == null) {
+                    out.writeByte(END_OF_CHAIN);
+                    return;
+                }
+                Integer reference = references.get(next);
+                if (reference != null || next.getClass() != StateEvent.class) {
+                    out.writeByte(NEXT_REFERENCE);
+                    writeValue(next);
+                    return;
+                }
+                out.writeByte(NEXT_IN_CHAIN);
+                event = next;
+            }
+        }
+
+        private void writeAttributes(Object[] attributes) throws IOException {
+            if (attributes == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(attributes.length + 1);
+            for (Object attribute : attributes) {
+                writeValue(attribute);
+            }
+        }
+
+        private void writeCollection(byte tag, Collection<?> collection) throws IOException {
+            out.writeByte(tag);
+            register(collection);
+            writeVarInt(collection.size());
+            for (Object item : collection) {
+                writeValue(item);
+            }
+        }
+
+        private void writeMap(byte tag, Map<?, ?> map) throws IOException {
+            out.writeByte(tag);
+            register(map);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private boolean writeReferenceIfWritten(Object value) throws IOException {
+            Integer reference = references.get(value);
+            if (reference == null) {
+                return false;
+            }
+            out.writeByte(REFERENCE);
+            writeVarInt(reference);
+            return true;
+        }
+
+        private void register(Object value) {
+            references.put(value, references.size());
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte(((int) value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static int zigZag(int value) {
+            return (value << 1) ^ (value >> 31);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * Reads values from the binary snapshot format, resolving references to already read objects.
+     */
+    private static class Decoder {
+        private final DataInputStream in;
+        private final List<Object> references = new ArrayList<>();
+
+        Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    return references.get(readVarInt());
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    return unZigZag(readVarInt());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case SHORT:
+                    return in.readShort();
+                case BYTE:
+                    return in.readByte();
+                case CHARACTER:
+                    return in.readChar();
+                case EVENT_TYPE:
+                    return EVENT_TYPES[in.readByte()];
+                case COMPARE_OPERATOR:
+                    return COMPARE_OPERATORS[in.readByte()];
+                case SNAPSHOT_STATE:
+                    boolean isIncrementalSnapshot = in.readBoolean();
+                    return new SnapshotState(readValue(), isIncrementalSnapshot);
+                case OPERATION:
+                    Operation.Operator operator = OPERATORS[in.readByte()];
+                    return new Operation(operator, readValue());
+                case STREAM_EVENT:
+                    return readStreamEvents();
+                case STATE_EVENT:
+                    return readStateEvents();
+                case OBJECT_ARRAY:
+                    Object[] array = new Object[readVarInt()];
+                    references.add(array);
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readValue();
+                    }
+                    return array;
+                case ARRAY_LIST: {
+                    int size = readVarInt();
+                    return readCollection(new ArrayList<>(size), size);
+                }
+                case LINKED_LIST:
+                    return readCollection(new LinkedList<>(), readVarInt());
+                case ARRAY_DEQUE: {
+                    int size = readVarInt();
+                    return readCollection(new ArrayDeque<>(Math.max(size, 1)), size);
+                }
+                case HASH_SET: {
+                    int size = readVarInt();
+                    return readCollection(new HashSet<>(capacityFor(size)), size);
+                }
+                case LINKED_HASH_SET: {
+                    int size = readVarInt();
+                    return readCollection(new LinkedHashSet<>(capacityFor(size)), size);
+                }
+                case TREE_SET:
+                    return readCollection(new TreeSet<>(), readVarInt());
+                case HASH_MAP: {
+                    int size = readVarInt();
+                    return readMap(new HashMap<>(capacityFor(size)), size);
+                }
+                case LINKED_HASH_MAP: {
+                    int size = readVarInt();
+                    return readMap(new LinkedHashMap<>(capacityFor(size)), size);
+                }
+                case TREE_MAP:
+                    return readMap(new TreeMap<>(), readVarInt());
+                case CONCURRENT_HASH_MAP: {
+                    int size = readVarInt();
+                    return readMap(new ConcurrentHashMap<>(capacityFor(size)), size);
+                }
+                case SNAPSHOT_STATE_LIST: {
+                    SnapshotStateList snapshotStateList = new SnapshotStateList();
+                    references.add(snapshotStateList);
+                    int size = readVarInt();
+                    for (int i = 0; i < size; i++) {
+                        long id = unZigZag(readVarLong());
+                        snapshotStateList.putSnapshotState(id, (SnapshotState) readValue());
+                    }
+                    return snapshotStateList;
+                }
+                case SNAPSHOTABLE_STREAM_EVENT_QUEUE: {
+                    int reference = reserveReference();
+                    SnapshotableStreamEventQueue eventQueue = new SnapshotableStreamEventQueue(null, readVarInt());
+                    references.set(reference, eventQueue);
+                    StreamEvent first = (StreamEvent) readValue();
+                    if (first != null) {
+                        eventQueue.add(first);
+                    }
+                    return eventQueue;
+                }
+                case INDEX_EVENT_HOLDER: {
+                    int reference = reserveReference();
+                    Map<Object, StreamEvent> primaryKeyData = (Map<Object, StreamEvent>) readValue();
+                    Map<String, TreeMap<Object, Set<StreamEvent>>> indexData =
+                            (Map<String, TreeMap<Object, Set<StreamEvent>>>) readValue();
+                    IndexEventHolder indexEventHolder = new IndexEventHolder(primaryKeyData, indexData);
+                    references.set(reference, indexEventHolder);
+                    return indexEventHolder;
+                }
+                case SERIALIZABLE: {
+                    int reference = reserveReference();
+                    byte[] bytes = new byte[readVarInt()];
+                    in.readFully(bytes);
+                    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+                    Object value = ois.readObject();
+                    references.set(reference, value);
+                    return value;
+                }
+                default:
+                    throw new StreamCorruptedException("Unknown binary snapshot value tag " + tag);
+            }
+        }
+
+        private StreamEvent readStreamEvents() throws IOException, ClassNotFoundException {
+            StreamEvent first = null;
+            StreamEvent previous = null;
+            while (true) {
+                StreamEvent event = new StreamEvent(0, 0, 0);
+                references.add(event);
+                event.setBeforeWindowData(readAttributes());
+                event.setOnAfterWindowData(readAttributes());
+                event.setOutputData(readAttributes());
+                event.setType(EVENT_TYPES[in.readByte()]);
+                event.setTimestamp(unZigZag(readVarLong()));
+                if (previous == null) {
+                    first = event;
+                } else {
+                    previous.setNext(event);
+                }
+                previous = event;
+                byte marker = in.readByte();
+                if (marker == NEXT_REFERENCE) {
+                    event.setNext((StreamEvent) readValue());
+                    return first;
+                } else if (marker == END_OF_CHAIN) {
+                    return first;
+                }
+            }
+        }
+
+        private StateEvent readStateEvents() throws IOException, ClassNotFoundException {
+            StateEvent first = null;
+            StateEvent previous = null;
+            while (true) {
+                int streamEventsSize = readVarInt();
+                int outputDataSize = readVarInt();
+                StateEvent event = new StateEvent(streamEventsSize, outputDataSize);
+                references.add(event);
+                for (int i = 0; i < streamEventsSize; i++) {
+                    event.setEvent(i, (StreamEvent) readValue());
+                }
+                for (int i = 0; i < outputDataSize; i++) {
+                    event.setOutputData(readValue(), i);
+                }
+                event.setType(EVENT_TYPES[in.readByte()]);
+                event.setTimestamp(unZigZag(readVarLong()));
+                event.setId(unZigZag(readVarLong()));
+                if (previous == null) {
+                    first = event;
+                } else {
+                    previous.setNext(event);
+                }
+                previous = event;
+                byte marker = in.readByte();
+                if (marker == NEXT_REFERENCE) {
+                    event.setNext((StateEvent) readValue());
+                    return first;
+                } else if (marker == END_OF_CHAIN) {
+                    return first;
+                }
+            }
+        }
+
+        private Object[] readAttributes() throws IOException, ClassNotFoundException {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            Object[] attributes = new Object[length];
+            for (int i = 0; i < length; i++) {
+                attributes[i] = readValue();
+            }
+            return attributes;
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection, int size)
+                throws IOException, ClassNotFoundException {
+            references.add(collection);
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+
+        private Map<Object, Object> readMap(Map<Object, Object> map, int size)
+                throws IOException, ClassNotFoundException {
+            references.add(map);
+            for (int i = 0; i < size; i++) {
+                Object key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        private int reserveReference() {
+            references.add(null);
+            return references.size() - 1;
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer in binary snapshot");
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length long in binary snapshot");
+        }
+
+        private static int unZigZag(int value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private static int capacityFor(int size) {
+            return Math.max((int) (size / 0.75f) + 1, 16);
+        }
+    }
+}
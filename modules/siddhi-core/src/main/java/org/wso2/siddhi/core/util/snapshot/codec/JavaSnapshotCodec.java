@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link SnapshotCodec} based on Java serialization. This was the only snapshot format before the introduction of
+ * snapshot codecs, hence this is always used to restore snapshots that carry the Java serialization stream header.
+ */
+public class JavaSnapshotCodec implements SnapshotCodec {
+
+    private static final int STREAM_MAGIC_FIRST_BYTE = 0xAC;
+    private static final int STREAM_MAGIC_SECOND_BYTE = 0xED;
+
+    public static boolean isJavaSerialized(byte[] snapshot) {
+        return snapshot.length >= 2 && (snapshot[0] & 0xFF) == STREAM_MAGIC_FIRST_BYTE
+                && (snapshot[1] & 0xFF) == STREAM_MAGIC_SECOND_BYTE;
+    }
+
+    @Override
+    public byte[] encode(Object state) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(state);
+        oos.flush();
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] snapshot) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(snapshot));
+        return ois.readObject();
+    }
+
+    @Override
+    public void encode(Object state, OutputStream outputStream) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(outputStream);
+        oos.writeObject(state);
+        oos.flush();
+    }
+
+    @Override
+    public Object decode(InputStream inputStream) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(inputStream);
+        return ois.readObject();
+    }
+}
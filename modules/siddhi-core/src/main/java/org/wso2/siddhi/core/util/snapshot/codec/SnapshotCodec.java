@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Interface for snapshot codecs. Snapshot codecs are used by
+ * {@link org.wso2.siddhi.core.util.snapshot.ByteSerializer} to convert the state of the processing elements into
+ * byte[] before handing them to the persistence stores, and back when restoring.
+ */
+public interface SnapshotCodec {
+
+    byte[] encode(Object state) throws IOException;
+
+    Object decode(byte[] snapshot) throws IOException, ClassNotFoundException;
+
+    /**
+     * Encode the state straight into the given stream. Codecs should override this when they can write the state
+     * without first materializing it as a byte[].
+     *
+     * @param state        state to encode
+     * @param outputStream stream to write the encoded state to, which is not closed by the codec
+     * @throws IOException when writing to the stream fails
+     */
+    default void encode(Object state, OutputStream outputStream) throws IOException {
+        outputStream.write(encode(state));
+    }
+
+    /**
+     * Decode a state from the given stream. The codec may read past the end of the encoded state, hence callers
+     * writing several states into the same stream have to delimit them.
+     *
+     * @param inputStream stream to read the encoded state from, which is not closed by the codec
+     * @return decoded state
+     * @throws IOException            when reading from the stream fails
+     * @throws ClassNotFoundException when a class of the state cannot be found
+     */
+    default Object decode(InputStream inputStream) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            baos.write(buffer, 0, read);
+        }
+        return decode(baos.toByteArray());
+    }
+
+}
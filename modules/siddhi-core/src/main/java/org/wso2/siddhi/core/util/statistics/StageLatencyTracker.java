@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.statistics;
+
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+
+import java.util.Arrays;
+
+/**
+ * Records the latency of a processing stage of the Siddhi App, such as the filter, window or selector of a query,
+ * into a {@link LatencyHistogram}.
+ * <p>
+ * Stages call each other on the same thread, hence the time of a stage is recorded as its self time, excluding the
+ * time spent in the stages it calls and in the sections marked via {@link #excludeIn()}. Only one in
+ * {@code samplingInterval} outermost calls are timed, and the stages called within a timed call are always timed, such
+ * that the self time of a timed stage is always known. Timestamps are read via {@link System#nanoTime()} only for the
+ * sampled calls, and the timing state is kept in a preallocated per thread stack.
+ */
+public class StageLatencyTracker {
+
+    private static final ThreadLocal<TimerStack> TIMER_STACK = ThreadLocal.withInitial(TimerStack::new);
+
+    private final String name;
+    private final Stage stage;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final SiddhiAppContext siddhiAppContext;
+    private final int samplingInterval;
+    // Not synchronized, as a lost update only shifts the sampled calls
+    private int calls;
+
+    public StageLatencyTracker(String name, Stage stage, SiddhiAppContext siddhiAppContext, int samplingInterval) {
+        this.name = name;
+        this.stage = stage;
+        this.siddhiAppContext = siddhiAppContext;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Mark the start of the stage. Calls returning true should be followed by a {@link #markOut()} on the same thread.
+     *
+     * @return true if the call is timed
+     */
+    public boolean markIn() {
+        if (!siddhiAppContext.isStatsEnabled()) {
+            return false;
+        }
+        TimerStack timerStack = TIMER_STACK.get();
+        if (timerStack.depth == 0 && samplingInterval > 1 && ++calls % samplingInterval != 0) {
+            return false;
+        }
+        timerStack.push();
+        return true;
+    }
+
+    /**
+     * Mark the end of the stage, and record its self time.
+     */
+    public void markOut() {
+        histogram.record(TIMER_STACK.get().pop());
+    }
+
+    /**
+     * Mark the start of a section whose time is not part of the self time of the enclosing stage, such as handing
+     * events over to callbacks.
+     *
+     * @return true if the section is within a timed stage, and hence {@link #excludeOut()} should be called at its end
+     */
+    public static boolean excludeIn() {
+        TimerStack timerStack = TIMER_STACK.get();
+        if (timerStack.depth == 0) {
+            return false;
+        }
+        timerStack.push();
+        return true;
+    }
+
+    /**
+     * Mark the end of a section started via {@link #excludeIn()}.
+     */
+    public static void excludeOut() {
+        TIMER_STACK.get().pop();
+    }
+
+    /**
+     * Start timing a stage whose end is marked on another thread, such as the time an event waits in a queue. Only
+     * one in {@code samplingInterval} calls are timed.
+     *
+     * @return the start time to be passed to {@link #recordSince(long)}, or 0 if the call is not timed
+     */
+    public long sampleStartTime() {
+        if (!siddhiAppContext.isStatsEnabled() || (samplingInterval > 1 && ++calls % samplingInterval != 0)) {
+            return 0L;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the latency of a stage started via {@link #sampleStartTime()}.
+     *
+     * @param startTime start time of the stage, where 0 denotes a stage that is not timed
+     */
+    public void recordSince(long startTime) {
+        if (startTime != 0L) {
+            histogram.record(System.nanoTime() - startTime);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Processing stages whose latency is tracked.
+     */
+    public enum Stage {
+        QUEUE("queue"),
+        FILTER("filter"),
+        WINDOW("window"),
+        JOIN("join"),
+        SELECTOR("selector"),
+        RATE_LIMITER("rateLimiter"),
+        SINK_MAPPER("sinkMapper");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Start times and nested times of the stages being timed on a thread.
+     */
+    private static class TimerStack {
+        private long[] startTimes = new long[16];
+        private long[] nestedTimes = new long[16];
+        private int depth;
+
+        private void push() {
+            if (depth == startTimes.length) {
+                startTimes = Arrays.copyOf(startTimes, depth * 2);
+                nestedTimes = Arrays.copyOf(nestedTimes, depth * 2);
+            }
+            nestedTimes[depth] = 0;
+            startTimes[depth++] = System.nanoTime();
+        }
+
+        /**
+         * @return self time of the stage, excluding the time of its nested stages
+         */
+        private long pop() {
+            long elapsedTime = System.nanoTime() - startTimes[--depth];
+            if (depth > 0) {
+                nestedTimes[depth - 1] += elapsedTime;
+            }
+            return elapsedTime - nestedTimes[depth];
+        }
+    }
+}
@@ -28,4 +28,13 @@ public interface StatisticsManager {
     void stopReporting();
 
     void cleanup();
+
+    /**
+     * Register the latency histogram of a processing stage, such that it is reported along with the other metrics.
+     *
+     * @param name             metric name of the stage
+     * @param latencyHistogram histogram of the stage latencies in nanoseconds
+     */
+    default void registerLatencyHistogram(String name, LatencyHistogram latencyHistogram) {
+    }
 }
@@ -19,10 +19,12 @@
 package org.wso2.siddhi.core.util.statistics.metrics;
 
 import com.codahale.metrics.ConsoleReporter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Reporter;
 import com.codahale.metrics.ScheduledReporter;
+import org.wso2.siddhi.core.util.statistics.LatencyHistogram;
 import org.wso2.siddhi.core.util.statistics.StatisticsManager;
 import org.wso2.siddhi.query.api.annotation.Element;
 
@@ -88,4 +90,17 @@ public class SiddhiStatisticsManager implements StatisticsManager {
     public void cleanup() {
 
     }
+
+    /**
+     * Register the count, mean, max and percentiles of the histogram as gauges, with values in nanoseconds.
+     */
+    @Override
+    public void registerLatencyHistogram(String name, LatencyHistogram latencyHistogram) {
+        metricRegistry.register(name + ".count", (Gauge<Long>) latencyHistogram::getCount);
+        metricRegistry.register(name + ".mean", (Gauge<Double>) latencyHistogram::getMean);
+        metricRegistry.register(name + ".max", (Gauge<Long>) latencyHistogram::getMax);
+        metricRegistry.register(name + ".p50", (Gauge<Long>) () -> latencyHistogram.getValueAtPercentile(50));
+        metricRegistry.register(name + ".p99", (Gauge<Long>) () -> latencyHistogram.getValueAtPercentile(99));
+        metricRegistry.register(name + ".p999", (Gauge<Long>) () -> latencyHistogram.getValueAtPercentile(99.9));
+    }
 }
@@ -23,29 +23,45 @@ import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.exception.NoSuchAttributeException;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 
-import java.text.MessageFormat;
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Template builder used by {@link org.wso2.siddhi.core.stream.output.sink.SinkMapper} to generate custom payload.
+ * <p>
+ * Text templates are compiled once into a sequence of literal and attribute segments, which are appended to a
+ * reusable per-thread {@link StringBuilder} when building the payload. Attributes are formatted the same way as
+ * {@link java.text.MessageFormat} formats its arguments, using formatters cached per thread.
  */
 public class TemplateBuilder {
     private static final Pattern DYNAMIC_PATTERN = Pattern.compile("(\\{\\{[^{}]*\\}\\})|[{}]");
-    private MessageFormat messageFormat;
+    private static final int MAX_RETAINED_BUILDER_CAPACITY = 64 * 1024;
     private boolean isObjectMessage = false;
     private int objectIndex = -1;
+    // Literal segments are Strings and attribute segments are the Integer positions of the attributes
+    private Object[] segments;
+    private Locale locale;
+    private char groupingSeparator;
+    private boolean isGroupedIntegralFormat;
+    private ThreadLocal<FormatContext> formatContext;
 
     public TemplateBuilder(StreamDefinition streamDefinition, String template) {
         parse(streamDefinition, template);
     }
 
     public static Map<String, Object> convert(Event event, Map<String, TemplateBuilder> converterMap) {
-        Map<String, Object> mapped = new HashMap<>();
+        Map<String, Object> mapped = new HashMap<>((int) (converterMap.size() / 0.75f) + 1);
         for (Map.Entry<String, TemplateBuilder> entry : converterMap.entrySet()) {
             mapped.put(entry.getKey(), entry.getValue().build(event));
         }
@@ -62,12 +78,27 @@ public class TemplateBuilder {
         return mapped;
     }
 
+    /**
+     * Builds the payloads of the given templates into a reusable array, where the payload of each template is placed
+     * at the index of the template.
+     *
+     * @param event            the event to build the payloads from
+     * @param templateBuilders the templates
+     * @param mapped           the array to place the payloads in, at least as long as the templates array
+     * @return the given array
+     */
+    public static Object[] convert(Event event, TemplateBuilder[] templateBuilders, Object[] mapped) {
+        for (int i = 0; i < templateBuilders.length; i++) {
+            mapped[i] = templateBuilders[i].build(event);
+        }
+        return mapped;
+    }
 
     public Object build(Event event) {
         if (isObjectMessage) {
             return event.getData()[objectIndex];
         } else {
-            return messageFormat.format(event.getData());
+            return build(event.getData());
         }
 
     }
@@ -76,9 +107,107 @@ public class TemplateBuilder {
         if (isObjectMessage) {
             return complexEvent.getOutputData()[objectIndex];
         } else {
-            return messageFormat.format(complexEvent.getOutputData());
+            return build(complexEvent.getOutputData());
+        }
+
+    }
+
+    /**
+     * Appends the text payload of the event to the given builder, letting mappers that combine several templates or
+     * events into one payload reuse their own builder.
+     *
+     * @param event   the event to build the payload from
+     * @param builder the builder to append the payload to
+     */
+    public void appendTo(Event event, StringBuilder builder) {
+        if (isObjectMessage) {
+            append(event.getData()[objectIndex], builder, formatContext.get());
+        } else {
+            appendTo(event.getData(), builder, formatContext.get());
         }
+    }
 
+    private String build(Object[] data) {
+        if (segments.length == 1) {
+            Object segment = segments[0];
+            if (segment instanceof String) {
+                return (String) segment;
+            } else if ((Integer) segment < data.length && data[(Integer) segment] instanceof String) {
+                // A template with a single attribute, such as the dynamic option '{{symbol}}', needs no copy
+                return (String) data[(Integer) segment];
+            }
+        }
+        FormatContext context = formatContext.get();
+        StringBuilder builder = context.builder;
+        builder.setLength(0);
+        appendTo(data, builder, context);
+        String payload = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_BUILDER_CAPACITY) {
+            context.builder = new StringBuilder();
+        }
+        return payload;
+    }
+
+    private void appendTo(Object[] data, StringBuilder builder, FormatContext context) {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                builder.append((String) segment);
+            } else {
+                int index = (Integer) segment;
+                if (index < data.length) {
+                    append(data[index], builder, context);
+                } else {
+                    builder.append('{').append(index).append('}');
+                }
+            }
+        }
+    }
+
+    private void append(Object value, StringBuilder builder, FormatContext context) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof String) {
+            builder.append((String) value);
+        } else if (value instanceof Number) {
+            if (isGroupedIntegralFormat && (value instanceof Long || value instanceof Integer ||
+                    value instanceof Short || value instanceof Byte)) {
+                appendGrouped(((Number) value).longValue(), builder);
+            } else {
+                format(context.getNumberFormat(locale), value, builder, context);
+            }
+        } else if (value instanceof Date) {
+            format(context.getDateFormat(locale), value, builder, context);
+        } else {
+            builder.append(value.toString());
+        }
+    }
+
+    private static void format(Format format, Object value, StringBuilder builder,
+                               FormatContext context) {
+        StringBuffer formatBuffer = context.formatBuffer;
+        formatBuffer.setLength(0);
+        format.format(value, formatBuffer, context.fieldPosition);
+        builder.append(formatBuffer);
+    }
+
+    /**
+     * Appends the value with its digits grouped in threes, as the integer format of the locale does.
+     */
+    private void appendGrouped(long value, StringBuilder builder) {
+        if (value > -1000 && value < 1000) {
+            builder.append(value);
+            return;
+        }
+        if (value < 0) {
+            builder.append('-');
+        }
+        String digits = value == Long.MIN_VALUE ? Long.toString(value).substring(1) :
+                Long.toString(Math.abs(value));
+        int firstGroupLength = digits.length() % 3 == 0 ? 3 : digits.length() % 3;
+        builder.append(digits, 0, firstGroupLength);
+        for (int i = firstGroupLength; i < digits.length(); i += 3) {
+            builder.append(groupingSeparator).append(digits, i, i + 3);
+        }
     }
 
     private void parse(StreamDefinition streamDefinition, String template) {
@@ -90,11 +219,14 @@ public class TemplateBuilder {
             if (template.matches("^`[^\\s]*`$")) {
                 template = template.replaceAll("^`|`$", "");
             }
-            this.messageFormat = parseTextMessage(streamDefinition, template);
+            this.segments = compile(parseTextMessage(streamDefinition, template));
         }
+        this.locale = Locale.getDefault(Locale.Category.FORMAT);
+        this.isGroupedIntegralFormat = detectIntegralFormat();
+        this.formatContext = ThreadLocal.withInitial(FormatContext::new);
     }
 
-    private MessageFormat parseTextMessage(StreamDefinition streamDefinition, String template) {
+    private String parseTextMessage(StreamDefinition streamDefinition, String template) {
         // note: currently we do not support arbitrary data to be mapped with dynamic options
         List<String> attributes = Arrays.asList(streamDefinition.getAttributeNameArray());
         StringBuffer result = new StringBuffer();
@@ -113,10 +245,86 @@ public class TemplateBuilder {
             }
         }
         m.appendTail(result);
-        return new MessageFormat(result.toString());
+        return result.toString();
+    }
+
+    /**
+     * Splits the pattern into segments following the quoting rules of {@link java.text.MessageFormat}, so that the
+     * payloads are the same as the ones formatted with it.
+     */
+    private static Object[] compile(String pattern) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean inQuote = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append(ch);
+                    i++;
+                } else {
+                    inQuote = !inQuote;
+                }
+            } else if (ch == '{' && !inQuote) {
+                int end = pattern.indexOf('}', i);
+                if (literal.length() > 0) {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
+                }
+                segments.add(Integer.valueOf(pattern.substring(i + 1, end)));
+                i = end;
+            } else {
+                literal.append(ch);
+            }
+        }
+        if (literal.length() > 0 || segments.isEmpty()) {
+            segments.add(literal.toString());
+        }
+        return segments.toArray();
+    }
+
+    /**
+     * Checks whether the integer format of the locale only differs from the plain digits by a grouping separator
+     * between every three digits, in which case integral values are formatted without the {@link NumberFormat}.
+     */
+    private boolean detectIntegralFormat() {
+        NumberFormat numberFormat = NumberFormat.getInstance(locale);
+        String formatted = numberFormat.format(-1234567L);
+        if (formatted.length() != 10 || formatted.charAt(2) != formatted.charAt(6)) {
+            return false;
+        }
+        groupingSeparator = formatted.charAt(2);
+        return formatted.equals("-1" + groupingSeparator + "234" + groupingSeparator + "567") &&
+                numberFormat.format(1234567L).equals(formatted.substring(1)) &&
+                numberFormat.format(0L).equals("0");
     }
 
     public boolean isObjectMessage() {
         return isObjectMessage;
     }
+
+    /**
+     * Per thread buffers and formatters, as {@link NumberFormat} and {@link DateFormat} are not thread safe.
+     */
+    private static class FormatContext {
+        private StringBuilder builder = new StringBuilder();
+        private final StringBuffer formatBuffer = new StringBuffer();
+        private final FieldPosition fieldPosition = new FieldPosition(0);
+        private NumberFormat numberFormat;
+        private DateFormat dateFormat;
+
+        private NumberFormat getNumberFormat(Locale locale) {
+            if (numberFormat == null) {
+                numberFormat = NumberFormat.getInstance(locale);
+            }
+            return numberFormat;
+        }
+
+        private DateFormat getDateFormat(Locale locale) {
+            if (dateFormat == null) {
+                dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            }
+            return dateFormat;
+        }
+    }
 }
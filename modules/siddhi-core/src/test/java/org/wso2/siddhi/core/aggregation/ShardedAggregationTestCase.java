@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.aggregation;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.SiddhiTestHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ShardedAggregationTestCase {
+
+    private static final Logger LOG = Logger.getLogger(ShardedAggregationTestCase.class);
+
+    private static final String STOCK_STREAM = "" +
+            "define stream stockStream (symbol string, price double, volume long, timestamp long);";
+
+    private static final String AGGREGATION = "" +
+            "@purge(enable='false') " +
+            "define aggregation stockAggregation " +
+            "from stockStream " +
+            "select symbol, avg(price) as avgPrice, sum(volume) as totalVolume, max(price) as maxPrice " +
+            "group by symbol " +
+            "aggregate by timestamp every sec...hour ;";
+
+    private List<Object[]> aggregate(String annotations, String perValue, boolean externalTime)
+            throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String aggregation = externalTime ? AGGREGATION : AGGREGATION.replace("aggregate by timestamp", "aggregate");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(STOCK_STREAM + annotations +
+                aggregation);
+        InputHandler stockStreamInputHandler = siddhiAppRuntime.getInputHandler("stockStream");
+        siddhiAppRuntime.start();
+
+        long startTime = 1496289950000L;
+        for (int batch = 0; batch < 20; batch++) {
+            Event[] events = new Event[500];
+            for (int i = 0; i < events.length; i++) {
+                int index = batch * events.length + i;
+                long timestamp = startTime + index * 13L;
+                events[i] = new Event(timestamp, new Object[]{"SYMBOL" + (index % 731), (double) (index % 97),
+                        (long) index, timestamp});
+            }
+            stockStreamInputHandler.send(events);
+        }
+        Thread.sleep(100);
+
+        long withinStart = externalTime ? startTime : System.currentTimeMillis() - 3600000L;
+        Event[] events = siddhiAppRuntime.query("from stockAggregation " +
+                "within " + withinStart + "L, " + (withinStart + 7200000L) + "L " +
+                "per \"" + perValue + "\"");
+        siddhiAppRuntime.shutdown();
+        List<Object[]> eventsOutputList = new ArrayList<>();
+        for (Event event : events) {
+            eventsOutputList.add(event.getData());
+        }
+        return eventsOutputList;
+    }
+
+    @Test
+    public void shardedAggregationTest1() throws InterruptedException {
+        LOG.info("shardedAggregationTest1: sharded aggregation on event time finds the same aggregates");
+        List<Object[]> expected = aggregate("", "seconds", true);
+        List<Object[]> sharded = aggregate("@Async(workers='4') ", "seconds", true);
+        AssertJUnit.assertEquals(10000, expected.size());
+        AssertJUnit.assertEquals(expected.size(), sharded.size());
+        AssertJUnit.assertTrue(SiddhiTestHelper.isUnsortedEventsMatch(sharded, expected));
+    }
+
+    @Test
+    public void shardedAggregationTest2() throws InterruptedException {
+        LOG.info("shardedAggregationTest2: sharded aggregation on event arrival time finds the same aggregates");
+        Map<String, Long> expected = totalVolumeBySymbol(aggregate("", "minutes", false));
+        Map<String, Long> sharded = totalVolumeBySymbol(aggregate("@Async(workers='3') ", "minutes", false));
+        // Events may arrive on both sides of a minute boundary, hence the per minute rows of a symbol are summed up
+        AssertJUnit.assertEquals(731, expected.size());
+        AssertJUnit.assertEquals(49995000L, expected.values().stream().mapToLong(Long::longValue).sum());
+        AssertJUnit.assertEquals(expected, sharded);
+    }
+
+    private Map<String, Long> totalVolumeBySymbol(List<Object[]> events) {
+        Map<String, Long> totalVolumes = new HashMap<>();
+        for (Object[] event : events) {
+            totalVolumes.merge((String) event[1], (Long) event[3], Long::sum);
+        }
+        return totalVolumes;
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void shardedAggregationTest3() {
+        LOG.info("shardedAggregationTest3: workers of aggregation cannot be zero");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        try {
+            siddhiManager.createSiddhiAppRuntime(STOCK_STREAM + "@Async(workers='0') " + AGGREGATION);
+        } finally {
+            siddhiManager.shutdown();
+        }
+    }
+}
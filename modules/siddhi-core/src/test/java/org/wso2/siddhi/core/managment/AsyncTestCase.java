@@ -33,6 +33,10 @@ import org.wso2.siddhi.core.util.EventPrinter;
 import org.wso2.siddhi.core.util.SiddhiTestHelper;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class AsyncTestCase {
@@ -400,4 +404,77 @@ public class AsyncTestCase {
         SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
 
     }
+
+    @Test
+    public void asyncTest9() throws InterruptedException {
+        log.info("async test 9");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                " " +
+                "@async(buffer.size='16', workers='4', batch.size.max='10', key='symbol')" +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[volume >= 0] " +
+                "select * " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        Map<Object, Integer> lastVolumes = new ConcurrentHashMap<>();
+        AtomicBoolean inOrder = new AtomicBoolean(true);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+
+            @Override
+            public void receive(Event[] events) {
+                threads.add(Thread.currentThread().getName());
+                for (Event event : events) {
+                    Integer lastVolume = lastVolumes.put(event.getData(0), (Integer) event.getData(2));
+                    if (lastVolume != null && lastVolume >= (Integer) event.getData(2)) {
+                        inOrder.set(false);
+                    }
+                    count.incrementAndGet();
+                }
+                eventArrived = true;
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < 1000; i++) {
+            inputHandler.send(new Object[]{"SYMBOL" + (i % 10), 55.6f, i});
+        }
+        SiddhiTestHelper.waitForEvents(100, 1000, count, 10000);
+        siddhiAppRuntime.shutdown();
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(1000, count.get());
+        AssertJUnit.assertEquals(10, lastVolumes.size());
+        AssertJUnit.assertTrue(inOrder.get());
+        log.info("Threads count:" + threads.size() + " threads:" + threads);
+        AssertJUnit.assertTrue(threads.size() > 1);
+
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void asyncTest10() throws InterruptedException {
+        log.info("async test 10");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                " " +
+                "@async(buffer.size='16', workers='2', key='company')" +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "select * " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.managment;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
+import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+public class IncrementalCompactionTestCase {
+    private static final Logger log = Logger.getLogger(IncrementalCompactionTestCase.class);
+    private static final int CHAIN_LENGTH = 3;
+    private String storageFilePath = "./target/incremental-compaction";
+    private volatile Long lastTotal;
+
+    @BeforeMethod
+    public void init() {
+        lastTotal = null;
+        delete(new File(storageFilePath));
+    }
+
+    @Test
+    public void incrementalCompactionTest1() throws Exception {
+        log.info("Incremental compaction test 1 - chains of window and table snapshots are compacted");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(storageFilePath));
+        String siddhiApp = "" +
+                "@app:name('incrementalCompactionTest1') " +
+                "@app:compaction(chain.length = '" + CHAIN_LENGTH + "') " +
+                "define stream StockStream (symbol string, volume long); " +
+                "define stream DeleteStream (symbol string); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(50) " +
+                "select sum(volume) as total " +
+                "insert into OutStream; " +
+                "" +
+                "@info(name = 'query2') " +
+                "from StockStream " +
+                "insert into StockTable; " +
+                "" +
+                "@info(name = 'query3') " +
+                "from DeleteStream " +
+                "delete StockTable " +
+                "   on StockTable.symbol == symbol; ";
+
+        SiddhiAppRuntime siddhiAppRuntime = createRuntime(siddhiManager, siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler deleteStream = siddhiAppRuntime.getInputHandler("DeleteStream");
+        siddhiAppRuntime.start();
+
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            stockStream.send(new Object[]{"S" + i, (long) i});
+            total += i;
+            if (i % 3 == 2) {
+                deleteStream.send(new Object[]{"S" + (i - 1)});
+            }
+            persist(siddhiAppRuntime);
+        }
+        AssertJUnit.assertEquals(Long.valueOf(total), lastTotal);
+        Thread.sleep(1000);
+        siddhiAppRuntime.shutdown();
+
+        Map<String, Integer> chainLengths = new HashMap<>();
+        File[] files = new File(storageFilePath + File.separator + "incrementalCompactionTest1").listFiles();
+        AssertJUnit.assertNotNull(files);
+        for (File file : files) {
+            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(file.getName());
+            if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
+                chainLengths.merge(snapshotInfo.getQueryName() + PersistenceConstants.REVISION_SEPARATOR +
+                        snapshotInfo.getElementId(), 1, Integer::sum);
+            }
+        }
+        AssertJUnit.assertFalse(chainLengths.isEmpty());
+        for (Map.Entry<String, Integer> entry : chainLengths.entrySet()) {
+            AssertJUnit.assertTrue("Snapshot chain of " + entry.getKey() + " has " + entry.getValue() + " revisions",
+                    entry.getValue() <= CHAIN_LENGTH + 2);
+        }
+
+        siddhiAppRuntime = createRuntime(siddhiManager, siddhiApp);
+        stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.restoreLastRevision();
+        siddhiAppRuntime.start();
+        AssertJUnit.assertEquals(7, siddhiAppRuntime.query("from StockTable select symbol").length);
+        stockStream.send(new Object[]{"S10", 10L});
+        AssertJUnit.assertEquals(Long.valueOf(total + 10), lastTotal);
+        AssertJUnit.assertEquals(8, siddhiAppRuntime.query("from StockTable select symbol").length);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void incrementalCompactionTest2() {
+        log.info("Incremental compaction test 2 - chain length must be positive");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:name('incrementalCompactionTest2') " +
+                "@app:compaction(chain.length = '0') " +
+                "define stream StockStream (symbol string, volume long); " +
+                "from StockStream#window.length(5) " +
+                "select sum(volume) as total " +
+                "insert into OutStream; ";
+        try {
+            siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        } finally {
+            siddhiManager.shutdown();
+        }
+    }
+
+    private SiddhiAppRuntime createRuntime(SiddhiManager siddhiManager, String siddhiApp) {
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                if (inEvents != null) {
+                    lastTotal = (Long) inEvents[inEvents.length - 1].getData(0);
+                }
+            }
+        });
+        return siddhiAppRuntime;
+    }
+
+    private void persist(SiddhiAppRuntime siddhiAppRuntime) throws Exception {
+        for (Future future : siddhiAppRuntime.persist().getIncrementalStateFuture()) {
+            future.get();
+        }
+        // revisions are identified by their time in milliseconds
+        Thread.sleep(5);
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.managment;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.statistics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LatencyBreakdownTestCase {
+    private static final Logger log = Logger.getLogger(LatencyBreakdownTestCase.class);
+    private AtomicInteger count;
+
+    @BeforeMethod
+    public void init() {
+        count = new AtomicInteger(0);
+    }
+
+    @Test
+    public void latencyBreakdownTest1() throws InterruptedException {
+        log.info("latency breakdown test 1");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:statistics(reporter = 'jmx', latency.breakdown = 'true') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price > 10]#window.length(5) " +
+                "select symbol, sum(volume) as totalVolume " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < 100; i++) {
+            inputHandler.send(new Object[]{"WSO2", 55.6f, 100});
+            inputHandler.send(new Object[]{"IBM", 5.6f, 100});
+        }
+
+        Map<String, LatencyHistogram> latencyHistograms = siddhiAppRuntime.getLatencyHistograms();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(100, count.get());
+        AssertJUnit.assertEquals(200, latencyHistograms.get("Queries.query1.filter").getCount());
+        AssertJUnit.assertEquals(100, latencyHistograms.get("Queries.query1.window").getCount());
+        AssertJUnit.assertEquals(100, latencyHistograms.get("Queries.query1.selector").getCount());
+        AssertJUnit.assertEquals(100, latencyHistograms.get("Queries.query1.rateLimiter").getCount());
+        AssertJUnit.assertTrue(latencyHistograms.get("Queries.query1.filter").getMax() > 0);
+    }
+
+    @Test
+    public void latencyBreakdownTest2() throws InterruptedException {
+        log.info("latency breakdown test 2");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:statistics(reporter = 'jmx', latency.breakdown = 'true', latency.sampling = '10') " +
+                "@async(buffer.size = '64') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "define stream twitterStream (user string, tweet string, company string); " +
+                "define window cseEventWindow (symbol string, price float, volume int) length(10); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "insert into cseEventWindow ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from twitterStream join cseEventWindow " +
+                "on cseEventWindow.symbol == twitterStream.company " +
+                "select cseEventWindow.symbol, twitterStream.tweet " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                count.addAndGet(events.length);
+            }
+        });
+
+        InputHandler cseEventStreamHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        InputHandler twitterStreamHandler = siddhiAppRuntime.getInputHandler("twitterStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < 100; i++) {
+            cseEventStreamHandler.send(new Object[]{"WSO2", 55.6f, 100});
+        }
+        Thread.sleep(500);
+        for (int i = 0; i < 100; i++) {
+            twitterStreamHandler.send(new Object[]{"User1", "Hello World", "WSO2"});
+        }
+
+        Map<String, LatencyHistogram> latencyHistograms = siddhiAppRuntime.getLatencyHistograms();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(1000, count.get());
+        long queueCount = latencyHistograms.get("Streams.cseEventStream.queue").getCount();
+        AssertJUnit.assertTrue(queueCount > 0 && queueCount < 100);
+        long joinCount = latencyHistograms.get("Queries.query2.join").getCount();
+        AssertJUnit.assertTrue(joinCount > 0 && joinCount < 100);
+    }
+
+    @Test
+    public void latencyBreakdownTest3() throws InterruptedException {
+        log.info("latency breakdown test 3");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:statistics(reporter = 'jmx') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price > 10] " +
+                "select * " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 55.6f, 100});
+        AssertJUnit.assertTrue(siddhiAppRuntime.getLatencyHistograms().isEmpty());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void latencyBreakdownTest4() {
+        log.info("latency breakdown test 4");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:statistics(reporter = 'jmx', latency.breakdown = 'true', latency.sampling = '0') " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "from cseEventStream[price > 10] " +
+                "select * " +
+                "insert into outputStream ;";
+        siddhiManager.createSiddhiAppRuntime(siddhiApp);
+    }
+
+    @Test
+    public void latencyHistogramTest() {
+        log.info("latency histogram test");
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            latencyHistogram.record(i * 1000L);
+        }
+        AssertJUnit.assertEquals(10000, latencyHistogram.getCount());
+        AssertJUnit.assertEquals(1000, latencyHistogram.getMin());
+        AssertJUnit.assertEquals(10000000, latencyHistogram.getMax());
+        long median = latencyHistogram.getValueAtPercentile(50);
+        AssertJUnit.assertTrue(Math.abs(median - 5000000) < 5000000 / 50);
+        long p99 = latencyHistogram.getValueAtPercentile(99);
+        AssertJUnit.assertTrue(Math.abs(p99 - 9900000) < 9900000 / 50);
+        latencyHistogram.reset();
+        AssertJUnit.assertEquals(0, latencyHistogram.getCount());
+    }
+}
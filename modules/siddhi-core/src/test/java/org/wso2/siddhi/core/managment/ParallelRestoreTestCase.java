@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.managment;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.PersistenceReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class ParallelRestoreTestCase {
+    private static final Logger log = Logger.getLogger(ParallelRestoreTestCase.class);
+    private static final String STORAGE_FOLDER = "./target/parallel-restore";
+    private static final int KEY_COUNT = 20;
+    private Map<String, Double> lastSums;
+
+    private final StreamCallback streamCallback = new StreamCallback() {
+        @Override
+        public void receive(Event[] events) {
+            for (Event event : events) {
+                lastSums.put((String) event.getData(0), (Double) event.getData(1));
+            }
+        }
+    };
+
+    @BeforeMethod
+    public void init() {
+        lastSums = new ConcurrentHashMap<>();
+        delete(new File(STORAGE_FOLDER));
+    }
+
+    private String siddhiApp(String restoreAnnotation) {
+        return "@app:name('parallelRestoreTest') " + restoreAnnotation + " " +
+                "define stream StockStream (symbol string, price double); " +
+                "partition with (symbol of StockStream) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(3) " +
+                "select symbol, sum(price) as total " +
+                "insert into OutStream; " +
+                "end ";
+    }
+
+    private SiddhiAppRuntime startRuntime(SiddhiManager siddhiManager, String siddhiApp) {
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStream", streamCallback);
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    private void sendInitialEvents(SiddhiAppRuntime siddhiAppRuntime) throws InterruptedException {
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        for (int price = 1; price <= 3; price++) {
+            for (int key = 0; key < KEY_COUNT; key++) {
+                inputHandler.send(new Object[]{"S" + key, (double) price});
+            }
+        }
+    }
+
+    private void assertRestored(SiddhiAppRuntime siddhiAppRuntime, int fromKey, int toKey)
+            throws InterruptedException {
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        lastSums.clear();
+        for (int key = fromKey; key < toKey; key++) {
+            inputHandler.send(new Object[]{"S" + key, 10.0});
+        }
+        for (int key = fromKey; key < toKey; key++) {
+            AssertJUnit.assertEquals("Restored sum of S" + key, 15.0, lastSums.get("S" + key));
+        }
+    }
+
+    private void await(PersistenceReference persistenceReference) throws InterruptedException,
+            ExecutionException {
+        if (persistenceReference.getFullStateFuture() != null) {
+            persistenceReference.getFullStateFuture().get();
+        } else {
+            for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                future.get();
+            }
+        }
+    }
+
+    @Test
+    public void parallelRestoreTest1() throws InterruptedException, ExecutionException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("parallel restore test 1 - partitioned state restored on several threads");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = siddhiApp("@app:restore(parallelism = '4')");
+
+        SiddhiAppRuntime siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        sendInitialEvents(siddhiAppRuntime);
+        await(siddhiAppRuntime.persist());
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restoreLastRevision();
+        assertRestored(siddhiAppRuntime, 0, KEY_COUNT);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "parallelRestoreTest1")
+    public void parallelRestoreTest2() throws InterruptedException, IOException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("parallel restore test 2 - streamed snapshot restored on several threads");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = siddhiApp("@app:restore(parallelism = '3')");
+
+        SiddhiAppRuntime siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        sendInitialEvents(siddhiAppRuntime);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        siddhiAppRuntime.snapshot(snapshot);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+        assertRestored(siddhiAppRuntime, 0, KEY_COUNT);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "parallelRestoreTest2")
+    public void parallelRestoreTest3() throws InterruptedException, ExecutionException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("parallel restore test 3 - incremental state restored on several threads");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(STORAGE_FOLDER));
+        String siddhiApp = siddhiApp("@app:restore(parallelism = '4')");
+
+        SiddhiAppRuntime siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        sendInitialEvents(siddhiAppRuntime);
+        await(siddhiAppRuntime.persist());
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restoreLastRevision();
+        assertRestored(siddhiAppRuntime, 0, KEY_COUNT);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "parallelRestoreTest3")
+    public void parallelRestoreTest4() throws InterruptedException, ExecutionException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("parallel restore test 4 - lazy restore of partition instances");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = siddhiApp("@app:restore(lazy = 'true')");
+
+        SiddhiAppRuntime siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        sendInitialEvents(siddhiAppRuntime);
+        await(siddhiAppRuntime.persist());
+        siddhiAppRuntime.shutdown();
+
+        // partition instances are restored as their keys arrive
+        siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restoreLastRevision();
+        assertRestored(siddhiAppRuntime, 0, KEY_COUNT / 2);
+
+        // the instances not seen since the restore are still part of the next snapshot
+        await(siddhiAppRuntime.persist());
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = startRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restoreLastRevision();
+        assertRestored(siddhiAppRuntime, KEY_COUNT / 2, KEY_COUNT);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "parallelRestoreTest4", expectedExceptions = SiddhiAppCreationException.class)
+    public void parallelRestoreTest5() {
+        log.info("parallel restore test 5 - invalid restore parallelism");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime(siddhiApp("@app:restore(parallelism = '0')"));
+    }
+
+    @Test(dependsOnMethods = "parallelRestoreTest5")
+    public void parallelRestoreTest6() throws InterruptedException, ExecutionException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("parallel restore test 6 - incremental aggregation state restored on several threads");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = "@app:name('parallelRestoreTest6') @app:restore(parallelism = '4') " +
+                "define stream StockStream (symbol string, price double, timestamp long); " +
+                "define aggregation StockAggregation " +
+                "from StockStream " +
+                "select symbol, sum(price) as total " +
+                "group by symbol " +
+                "aggregate by timestamp every sec...hour ;";
+        long timestamp = 1496289950000L;
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        for (int price = 1; price <= 3; price++) {
+            inputHandler.send(new Object[]{"WSO2", (double) price, timestamp + price * 100});
+            inputHandler.send(new Object[]{"IBM", (double) price * 10, timestamp + price * 100});
+        }
+        await(siddhiAppRuntime.persist());
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restoreLastRevision();
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        inputHandler.send(new Object[]{"WSO2", 4.0, timestamp + 400});
+        inputHandler.send(new Object[]{"IBM", 40.0, timestamp + 400});
+        Event[] events = siddhiAppRuntime.query("from StockAggregation " +
+                "within " + timestamp + "L, " + (timestamp + 3600000L) + "L " +
+                "per 'seconds' " +
+                "select symbol, total");
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertNotNull(events);
+        AssertJUnit.assertEquals(2, events.length);
+        for (Event event : events) {
+            if ("WSO2".equals(event.getData(0))) {
+                AssertJUnit.assertEquals(10.0, event.getData(1));
+            } else {
+                AssertJUnit.assertEquals(100.0, event.getData(1));
+            }
+        }
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -1119,4 +1119,72 @@ public class PersistenceTestCase {
 
         siddhiAppRuntime.shutdown();
     }
+
+    @Test(dependsOnMethods = "persistenceTest13")
+    public void persistenceTest14() throws InterruptedException, ExecutionException {
+        log.info("persistence test 14 - events received while the snapshot is persisted are not part of it");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(1000) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                eventArrived = true;
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        for (int i = 0; i < 500; i++) {
+            inputHandler.send(new Object[]{"IBM", 75.6f, 1});
+        }
+        AssertJUnit.assertEquals(new Long(500), lastValue);
+
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        AssertJUnit.assertTrue(siddhiAppRuntime.getLastSnapshotPauseTime() > 0);
+        for (int i = 0; i < 500; i++) {
+            inputHandler.send(new Object[]{"IBM", 75.6f, 1});
+        }
+        persistenceReference.getFullStateFuture().get();
+        AssertJUnit.assertEquals(new Long(1000), lastValue);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 1});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(1001, count);
+        AssertJUnit.assertEquals(new Long(501), lastValue);
+        AssertJUnit.assertEquals(true, eventArrived);
+    }
 }
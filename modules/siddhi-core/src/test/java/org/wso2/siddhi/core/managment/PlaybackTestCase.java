@@ -27,6 +27,7 @@ import org.wso2.siddhi.core.SiddhiManager;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.EventPrinter;
 import org.wso2.siddhi.query.compiler.exception.SiddhiParserException;
 
@@ -918,5 +919,54 @@ public class PlaybackTestCase {
         AssertJUnit.assertTrue(eventArrived);
         siddhiAppRuntime.shutdown();
     }
+
+    @Test(dependsOnMethods = {"playbackTest18"})
+    public void playbackTest19() throws InterruptedException {
+        log.info("Playback Test 19: Playback with partitioned time windows expiring far apart in time");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:playback " +
+                "define stream cseEventStream (symbol string, price float, volume int);" +
+                "" +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream#window.time(15 days) " +
+                "   select symbol, price " +
+                "   insert expired events into outputStream ;" +
+                "end ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                removeEventCount = removeEventCount + events.length;
+                eventArrived = true;
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            inputHandler.send(timestamp + i, new Object[]{"SYMBOL" + i, 700f, i});
+        }
+
+        timestamp += 24 * 60 * 60 * 1000L;   // 1 day passed
+        inputHandler.send(timestamp, new Object[]{"IBM", 60.5f, 1});
+        AssertJUnit.assertEquals(0, removeEventCount);
+
+        timestamp += 14 * 24 * 60 * 60 * 1000L + 500;   // 15 days and 500 milliseconds passed
+        inputHandler.send(timestamp, new Object[]{"WSO2", 60.5f, 1});
+        AssertJUnit.assertEquals(501, removeEventCount);
+
+        timestamp += 24 * 60 * 60 * 1000L;   // 16 days passed
+        inputHandler.send(timestamp, new Object[]{"ORACLE", 60.5f, 1});
+        AssertJUnit.assertEquals(1001, removeEventCount);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
 }
 
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.managment;
+
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.codec.BinarySnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.codec.JavaSnapshotCodec;
+import org.wso2.siddhi.core.util.snapshot.state.SnapshotState;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+public class SnapshotCodecTestCase {
+    private static final Logger log = Logger.getLogger(SnapshotCodecTestCase.class);
+    private int count;
+    private Long lastValue;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        lastValue = 0L;
+    }
+
+    @Test
+    public void snapshotCodecTest1() throws IOException, ClassNotFoundException {
+        log.info("snapshot codec test 1 - encode and decode events");
+
+        StreamEvent streamEvent1 = new StreamEvent(0, 1, 3);
+        streamEvent1.setOnAfterWindowData(new Object[]{1.5});
+        streamEvent1.setOutputData(new Object[]{"IBM", 75.6f, 100L});
+        streamEvent1.setTimestamp(1000L);
+        StreamEvent streamEvent2 = new StreamEvent(0, 0, 3);
+        streamEvent2.setOutputData(new Object[]{"WSO2", null, -10L});
+        streamEvent2.setTimestamp(1001L);
+        streamEvent2.setType(ComplexEvent.Type.EXPIRED);
+        streamEvent1.setNext(streamEvent2);
+
+        StateEvent stateEvent = new StateEvent(2, 1);
+        stateEvent.setEvent(0, streamEvent1);
+        stateEvent.setOutputData(true, 0);
+        stateEvent.setId(7L);
+
+        LinkedList<StateEvent> pendingStateEvents = new LinkedList<>();
+        pendingStateEvents.add(stateEvent);
+        Set<StreamEvent> eventSet = new HashSet<>();
+        eventSet.add(streamEvent2);
+        Map<String, Object> state = new HashMap<>();
+        state.put("ExpiredEventQueue", new SnapshotState(streamEvent1));
+        state.put("PendingStateEventList", pendingStateEvents);
+        state.put("EventSet", eventSet);
+
+        for (BinarySnapshotCodec codec : new BinarySnapshotCodec[]{new BinarySnapshotCodec(),
+                new BinarySnapshotCodec(true)}) {
+            byte[] snapshot = codec.encode(state);
+            AssertJUnit.assertTrue(BinarySnapshotCodec.isBinarySnapshot(snapshot));
+            AssertJUnit.assertFalse(JavaSnapshotCodec.isJavaSerialized(snapshot));
+
+            Map<String, Object> restoredState = (Map<String, Object>) codec.decode(snapshot);
+            StreamEvent restoredEvent = (StreamEvent) ((SnapshotState) restoredState.get("ExpiredEventQueue"))
+                    .getState();
+            AssertJUnit.assertEquals(streamEvent1, restoredEvent);
+            AssertJUnit.assertEquals(streamEvent2, restoredEvent.getNext());
+            AssertJUnit.assertEquals(ComplexEvent.Type.EXPIRED, restoredEvent.getNext().getType());
+
+            StateEvent restoredStateEvent = ((LinkedList<StateEvent>) restoredState.get("PendingStateEventList"))
+                    .getFirst();
+            AssertJUnit.assertEquals(7L, restoredStateEvent.getId());
+            AssertJUnit.assertEquals(true, restoredStateEvent.getOutputData()[0]);
+            AssertJUnit.assertNull(restoredStateEvent.getStreamEvent(1));
+            AssertJUnit.assertSame(restoredEvent, restoredStateEvent.getStreamEvent(0));
+            AssertJUnit.assertSame(restoredEvent.getNext(),
+                    ((Set<StreamEvent>) restoredState.get("EventSet")).iterator().next());
+        }
+    }
+
+    @Test(dependsOnMethods = "snapshotCodecTest1")
+    public void snapshotCodecTest2() throws InterruptedException {
+        log.info("snapshot codec test 2 - restoring Java serialized snapshots with the binary codec");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+        siddhiManager.setSnapshotCodec(new JavaSnapshotCodec());
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        AssertJUnit.assertEquals(new Long(200), lastValue);
+
+        //persisting with Java serialization
+        siddhiAppRuntime.persist();
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+
+        //restarting siddhi app with the binary codec
+        siddhiManager.setSnapshotCodec(new BinarySnapshotCodec());
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        AssertJUnit.assertEquals(new Long(300), lastValue);
+
+        //persisting and restoring with the binary codec
+        siddhiAppRuntime.persist();
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertEquals(new Long(400), lastValue);
+    }
+
+    @Test(dependsOnMethods = "snapshotCodecTest2")
+    public void snapshotCodecTest3() throws InterruptedException {
+        log.info("snapshot codec test 3 - compressed snapshot of an indexed table");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+        siddhiManager.setSnapshotCodec(new BinarySnapshotCodec(true));
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "@PrimaryKey('symbol') " +
+                "@Index('volume') " +
+                "define table StockTable ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"WSO2", 55.6f, 100L});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 200L});
+        inputHandler.send(new Object[]{"GOOG", 50.6f, 200L});
+
+        siddhiAppRuntime.persist();
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        Event[] events = siddhiAppRuntime.query("" +
+                "from StockTable " +
+                "on volume == 200L " +
+                "select symbol, price ");
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(2, events.length);
+
+        events = siddhiAppRuntime.query("" +
+                "from StockTable " +
+                "on symbol == 'WSO2' " +
+                "select volume ");
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(100L, events[0].getData(0));
+        siddhiAppRuntime.shutdown();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.managment;
+
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.persistence.FileSystemPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.util.PersistenceConstants;
+import org.wso2.siddhi.core.util.snapshot.ElementSnapshotStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamingPersistenceTestCase {
+    private static final Logger log = Logger.getLogger(StreamingPersistenceTestCase.class);
+    private static final String STORAGE_FOLDER = "./target/streaming-persistence";
+    private int count;
+    private Long lastValue;
+
+    private final String siddhiApp = "@app:name('streamingPersistenceTest') "
+            + "define stream cseEventStreamOne (symbol string, price float,volume int);"
+            + "partition with (price>=100 as 'large' or price<100 as 'small' of cseEventStreamOne) " +
+            "begin " +
+            "@info(name = 'query1') " +
+            "from cseEventStreamOne#window.length(4) " +
+            "select symbol,sum(price) as price " +
+            "group by symbol " +
+            "insert into OutStockStream;  " +
+            "end ";
+
+    private final StreamCallback streamCallback = new StreamCallback() {
+        @Override
+        public void receive(Event[] events) {
+            EventPrinter.print(events);
+            for (Event event : events) {
+                count++;
+                lastValue = ((Double) event.getData(1)).longValue();
+            }
+        }
+    };
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        lastValue = 0L;
+        delete(new File(STORAGE_FOLDER));
+    }
+
+    @Test
+    public void streamingPersistenceTest1() throws InterruptedException, IOException {
+        log.info("streaming persistence test 1 - partitioned state persisted to and restored from the file system");
+
+        FileSystemPersistenceStore persistenceStore = new FileSystemPersistenceStore();
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("location", STORAGE_FOLDER);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, configs);
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP, 3);
+        persistenceStore.setProperties(properties);
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStockStream", streamCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStreamOne");
+        siddhiAppRuntime.start();
+
+        for (int i = 0; i < 10; i++) {
+            inputHandler.send(new Object[]{"IBM", 95f + i, 100});
+            Thread.sleep(100);
+            siddhiAppRuntime.persist();
+        }
+        inputHandler.send(new Object[]{"IBM", 205f, 100});
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+
+        File[] revisions = new File(STORAGE_FOLDER + File.separator + "streamingPersistenceTest").listFiles();
+        AssertJUnit.assertNotNull(revisions);
+        AssertJUnit.assertEquals(3, revisions.length);
+        for (File revision : revisions) {
+            AssertJUnit.assertFalse(revision.getName().endsWith(PersistenceConstants.TEMP_FILE_SUFFIX));
+            AssertJUnit.assertTrue(ElementSnapshotStream.isElementSnapshot(Files.readAllBytes(revision.toPath())));
+        }
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStockStream", streamCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("cseEventStreamOne");
+        siddhiAppRuntime.start();
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed");
+        }
+
+        inputHandler.send(new Object[]{"IBM", 105f, 100});
+        Thread.sleep(500);
+        AssertJUnit.assertEquals(new Long(414), lastValue);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "streamingPersistenceTest1")
+    public void streamingPersistenceTest2() throws InterruptedException, IOException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("streaming persistence test 2 - snapshot streams and byte[] snapshots restored from streams");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStockStream", streamCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStreamOne");
+        siddhiAppRuntime.start();
+
+        for (int i = 0; i < 10; i++) {
+            inputHandler.send(new Object[]{"IBM", 95f + i, 100});
+        }
+        ByteArrayOutputStream snapshotStream = new ByteArrayOutputStream();
+        siddhiAppRuntime.snapshot(snapshotStream);
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+        AssertJUnit.assertTrue(ElementSnapshotStream.isElementSnapshot(snapshotStream.toByteArray()));
+        AssertJUnit.assertFalse(ElementSnapshotStream.isElementSnapshot(snapshot));
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStockStream", streamCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("cseEventStreamOne");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(new ByteArrayInputStream(snapshotStream.toByteArray()));
+        inputHandler.send(new Object[]{"IBM", 105f, 100});
+        AssertJUnit.assertEquals(new Long(414), lastValue);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("OutStockStream", streamCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("cseEventStreamOne");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(new ByteArrayInputStream(snapshot));
+        inputHandler.send(new Object[]{"IBM", 106f, 100});
+        AssertJUnit.assertEquals(new Long(415), lastValue);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(dependsOnMethods = "streamingPersistenceTest2")
+    public void streamingPersistenceTest3() throws IOException, ClassNotFoundException {
+        log.info("streaming persistence test 3 - element records spanning several chunks are read and skipped");
+
+        List<String> largeState = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            largeState.add("event-" + i);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ElementSnapshotStream.Writer writer = new ElementSnapshotStream.Writer(outputStream, null);
+        writer.writeElement("query1", "element1", "first");
+        writer.writeElement("query1", "element2", largeState);
+        writer.writeElement("query2", "element3", largeState);
+        writer.writeElement("query2", "element4", "last");
+        writer.finish();
+
+        ElementSnapshotStream.Reader reader = new ElementSnapshotStream.Reader(
+                new ByteArrayInputStream(outputStream.toByteArray()), null);
+        AssertJUnit.assertTrue(reader.next());
+        AssertJUnit.assertEquals("element1", reader.getElementId());
+        AssertJUnit.assertEquals("first", reader.readState());
+        AssertJUnit.assertTrue(reader.next());
+        AssertJUnit.assertEquals("element2", reader.getElementId());
+        AssertJUnit.assertTrue(reader.next());
+        AssertJUnit.assertEquals("query2", reader.getQueryName());
+        AssertJUnit.assertEquals(largeState, reader.readState());
+        AssertJUnit.assertTrue(reader.next());
+        AssertJUnit.assertEquals("last", reader.readState());
+        AssertJUnit.assertFalse(reader.next());
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.compiler.CompiledExpressionExecutor;
+import org.wso2.siddhi.core.executor.compiler.ExpressionCompiler;
+import org.wso2.siddhi.core.executor.condition.AndConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.NotConditionExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.compare.greaterthan
+        .GreaterThanCompareConditionExpressionExecutorDoubleDouble;
+import org.wso2.siddhi.core.executor.condition.compare.lessthan.LessThanCompareConditionExpressionExecutorIntLong;
+import org.wso2.siddhi.core.executor.math.add.AddExpressionExecutorDouble;
+import org.wso2.siddhi.core.executor.math.divide.DivideExpressionExecutorLong;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CompiledExpressionTestCase {
+    private static final Logger log = Logger.getLogger(CompiledExpressionTestCase.class);
+    private static final String STREAM_DEFINITION = "" +
+            "define stream cseEventStream (symbol string, price float, volume long, quantity int, weight double, " +
+            "active bool);";
+    private static final Object[][] EVENTS = {
+            {"WSO2", 55.6f, 100L, 5, 10.5, true},
+            {"IBM", 75.6f, 40L, 0, 3.25, false},
+            {"ORACLE", 45.6f, null, 2, 20.0, true},
+            {null, 80.1f, 120L, null, Double.NaN, null},
+            {"WSO2", null, 0L, -3, 0.0, false},
+            {"IBM", 100.5f, 2L, 4, -7.5, true},
+            {"GOOG", 75.6f, 75L, 75, 75.6, false}
+    };
+
+    private int count;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+    }
+
+    @Test
+    public void compiledExpressionTest1() throws InterruptedException {
+        log.info("compiledExpression test1");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[(price > 50 and (volume < 100 or quantity == 5) and not (weight >= 10.5)) " +
+                "   or symbol == 'ORACLE' or (active == false and quantity != 0 and volume / quantity < 0)] " +
+                "select symbol, quantity " +
+                "insert into outputStream;";
+
+        List<List<Object>> expected = runQuery(STREAM_DEFINITION + query);
+        List<List<Object>> compiled = runQuery("@app:compile " + STREAM_DEFINITION + query);
+        AssertJUnit.assertEquals(Arrays.asList(Arrays.asList("IBM", 0), Arrays.asList("ORACLE", 2),
+                Arrays.asList("IBM", 4)), expected);
+        AssertJUnit.assertEquals(expected, compiled);
+    }
+
+    @Test
+    public void compiledExpressionTest2() throws InterruptedException {
+        log.info("compiledExpression test2");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "select price * 2 + quantity as a, volume / quantity as b, weight % 3 as c, quantity / 0 as d, " +
+                "   price > volume as e, symbol != 'IBM' as f, active == true as g, (weight - price) * volume as h, " +
+                "   volume is null as i, not (quantity < 3) as j, quantity % 4 - volume as k, price / 0.0 as l, " +
+                "   weight == weight as m, weight != weight as n " +
+                "insert into outputStream;";
+
+        List<List<Object>> expected = runQuery(STREAM_DEFINITION + query);
+        List<List<Object>> compiled = runQuery("@app:compile('true') " + STREAM_DEFINITION + query);
+        AssertJUnit.assertEquals(EVENTS.length, expected.size());
+        AssertJUnit.assertEquals(Arrays.asList(116.2f, 20L, 1.5, null, false, true, true, -4509.999847412109,
+                false, true, -99L, null, true, false), expected.get(0));
+        AssertJUnit.assertEquals(Arrays.asList(null, null, Double.NaN, null, false, true, false, Double.NaN, false,
+                true, null, null, false, true), expected.get(3));
+        AssertJUnit.assertEquals(expected, compiled);
+    }
+
+    @Test
+    public void compiledExpressionTest3() throws InterruptedException {
+        log.info("compiledExpression test3");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[ifThenElse(quantity is null, false, quantity > 1) and " +
+                "   convert(volume, 'double') / 2 > 0] " +
+                "select symbol, sum(price) * 2 + quantity as total, " +
+                "   ifThenElse(quantity > 4, 'high', 'low') as level, count() + volume as counted, " +
+                "   convert(weight, 'int') * quantity as weighted " +
+                "insert into outputStream;";
+
+        List<List<Object>> expected = runQuery(STREAM_DEFINITION + query);
+        List<List<Object>> compiled = runQuery("@app:compile " + STREAM_DEFINITION + query);
+        AssertJUnit.assertEquals(3, expected.size());
+        AssertJUnit.assertEquals(expected, compiled);
+    }
+
+    @Test
+    public void compiledExpressionTest4() throws InterruptedException {
+        log.info("compiledExpression test4");
+
+        String query = "" +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream[price > 50 and quantity < 10]#window.length(2) " +
+                "   select symbol, sum(price * quantity) as value, max(weight + volume) as maxValue " +
+                "   insert into outputStream; " +
+                "end;";
+
+        List<List<Object>> expected = runQuery(STREAM_DEFINITION + query);
+        List<List<Object>> compiled = runQuery("@app:compile " + STREAM_DEFINITION + query);
+        AssertJUnit.assertEquals(3, expected.size());
+        AssertJUnit.assertEquals(expected, compiled);
+    }
+
+    @Test
+    public void compiledExpressionTest5() throws InterruptedException {
+        log.info("compiledExpression test5");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from every e1=cseEventStream[quantity >= 0] -> " +
+                "   e2=cseEventStream[symbol == e1.symbol and price > e1.price + 10] " +
+                "select e1.symbol as symbol, e2.price - e1.price as difference, e1.quantity * e2.volume as product " +
+                "insert into outputStream;";
+
+        List<List<Object>> expected = runQuery(STREAM_DEFINITION + query);
+        List<List<Object>> compiled = runQuery("@app:compile " + STREAM_DEFINITION + query);
+        AssertJUnit.assertEquals(1, expected.size());
+        AssertJUnit.assertEquals(expected, compiled);
+    }
+
+    @Test
+    public void compiledExpressionTest6() {
+        log.info("compiledExpression test6");
+
+        VariableExpressionExecutor price = new VariableExpressionExecutor(
+                new Attribute("price", Attribute.Type.DOUBLE), 0, 0);
+        price.setPosition(new int[]{2, 0});
+        VariableExpressionExecutor volume = new VariableExpressionExecutor(
+                new Attribute("volume", Attribute.Type.LONG), 0, 0);
+        volume.setPosition(new int[]{2, 1});
+        VariableExpressionExecutor quantity = new VariableExpressionExecutor(
+                new Attribute("quantity", Attribute.Type.INT), 0, 0);
+        quantity.setPosition(new int[]{0, 0});
+        ExpressionExecutor condition = new AndConditionExpressionExecutor(
+                new GreaterThanCompareConditionExpressionExecutorDoubleDouble(
+                        new AddExpressionExecutorDouble(price, new ConstantExpressionExecutor(1.5,
+                                Attribute.Type.DOUBLE)),
+                        new ConstantExpressionExecutor(10.0, Attribute.Type.DOUBLE)),
+                new NotConditionExpressionExecutor(new LessThanCompareConditionExpressionExecutorIntLong(quantity,
+                        new DivideExpressionExecutorLong(volume, quantity))));
+
+        ExpressionExecutor compiledCondition = ExpressionCompiler.compile(condition);
+        AssertJUnit.assertTrue(compiledCondition instanceof CompiledExpressionExecutor);
+        AssertJUnit.assertSame(condition, ExpressionCompiler.getSourceExecutor(compiledCondition));
+        AssertJUnit.assertEquals(Attribute.Type.BOOL, compiledCondition.getReturnType());
+        ExpressionExecutor clonedCondition = compiledCondition.cloneExecutor("key");
+        AssertJUnit.assertTrue(clonedCondition instanceof CompiledExpressionExecutor);
+        AssertJUnit.assertNotSame(compiledCondition, clonedCondition);
+
+        Object[][] data = {{9.0, 100L, 5}, {8.0, 100L, 5}, {9.0, 10L, 5}, {9.0, 100L, 0}, {null, 100L, 5},
+                {9.0, null, 5}, {9.0, 100L, null}, {Double.NaN, 10L, 5}};
+        for (Object[] values : data) {
+            StreamEvent streamEvent = new StreamEvent(1, 0, 2);
+            streamEvent.setBeforeWindowData(new Object[]{values[2]});
+            streamEvent.setOutputData(new Object[]{values[0], values[1]});
+            Object result = condition.execute(streamEvent);
+            AssertJUnit.assertEquals(Arrays.toString(values), result, compiledCondition.execute(streamEvent));
+            AssertJUnit.assertEquals(Arrays.toString(values), result, clonedCondition.execute(streamEvent));
+        }
+    }
+
+    @Test
+    public void compiledExpressionTest7() {
+        log.info("compiledExpression test7");
+
+        VariableExpressionExecutor price = new VariableExpressionExecutor(
+                new Attribute("price", Attribute.Type.DOUBLE), 0, 0);
+        price.setPosition(new int[]{2, 0});
+        ConstantExpressionExecutor constant = new ConstantExpressionExecutor(1.5, Attribute.Type.DOUBLE);
+
+        AssertJUnit.assertSame(price, ExpressionCompiler.compile(price));
+        AssertJUnit.assertSame(constant, ExpressionCompiler.compile(constant));
+
+        ExpressionExecutor sum = new AddExpressionExecutorDouble(price, constant);
+        ExpressionExecutor compiledSum = ExpressionCompiler.compile(sum);
+        AssertJUnit.assertTrue(compiledSum instanceof CompiledExpressionExecutor);
+        AssertJUnit.assertSame(compiledSum, ExpressionCompiler.compile(compiledSum));
+        StreamEvent streamEvent = new StreamEvent(0, 0, 1);
+        streamEvent.setOutputData(new Object[]{2.0});
+        AssertJUnit.assertEquals(3.5, compiledSum.execute(streamEvent));
+        streamEvent.setOutputData(new Object[]{null});
+        AssertJUnit.assertNull(compiledSum.execute(streamEvent));
+    }
+
+    private List<List<Object>> runQuery(String siddhiApp) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        List<List<Object>> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(Arrays.asList(event.getData()));
+                    count++;
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        for (Object[] event : EVENTS) {
+            inputHandler.send(event.clone());
+        }
+        Thread.sleep(100);
+        siddhiAppRuntime.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.NullFlag;
+import org.wso2.siddhi.core.executor.SharedExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.core.executor.condition.BoolConditionExpressionExecutor;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.parser.ExpressionParser;
+import org.wso2.siddhi.core.util.parser.helper.SharedExpressionHolder;
+import org.wso2.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.execution.query.Query;
+import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
+import org.wso2.siddhi.query.api.expression.AttributeFunction;
+import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.condition.And;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+import org.wso2.siddhi.query.api.expression.math.Multiply;
+import org.wso2.siddhi.query.compiler.SiddhiCompiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ExpressionOptimizationTestCase {
+    private static final Logger log = Logger.getLogger(ExpressionOptimizationTestCase.class);
+    private static final String STREAM_DEFINITION = "" +
+            "define stream cseEventStream (symbol string, price double, volume long);";
+
+    private List<List<Object>> outputs;
+
+    @BeforeMethod
+    public void init() {
+        outputs = new ArrayList<>();
+    }
+
+    @Test
+    public void constantFoldingTest1() {
+        log.info("constantFolding test1");
+
+        SiddhiAppContext siddhiAppContext = new SiddhiAppContext();
+        ExpressionExecutor executor = parse(Expression.multiply(Expression.value(2),
+                Expression.add(Expression.value(1), Expression.value(0.05))), siddhiAppContext);
+        AssertJUnit.assertTrue(executor instanceof ConstantExpressionExecutor);
+        AssertJUnit.assertEquals(Attribute.Type.DOUBLE, executor.getReturnType());
+        AssertJUnit.assertEquals(2.1, executor.execute(null));
+
+        executor = parse(Expression.divide(Expression.value(10), Expression.value(0)), siddhiAppContext);
+        AssertJUnit.assertTrue(executor instanceof ConstantExpressionExecutor);
+        AssertJUnit.assertNull(executor.execute(null));
+
+        executor = parse(Expression.and(Expression.compare(Expression.value(1), Compare.Operator.LESS_THAN,
+                Expression.value(2L)), Expression.not(Expression.value(false))), siddhiAppContext);
+        AssertJUnit.assertTrue(executor instanceof BoolConditionExpressionExecutor);
+        AssertJUnit.assertTrue(((BoolConditionExpressionExecutor) executor).getConditionExecutor()
+                instanceof ConstantExpressionExecutor);
+        AssertJUnit.assertEquals(Boolean.TRUE, executor.execute(null));
+
+        MetaStreamEvent metaStreamEvent = new MetaStreamEvent();
+        metaStreamEvent.addInputDefinition(SiddhiCompiler.parseStreamDefinition(STREAM_DEFINITION));
+        executor = ExpressionParser.parseExpression(Expression.multiply(Expression.variable("price"),
+                Expression.add(Expression.value(1), Expression.value(0.05))), metaStreamEvent,
+                SiddhiConstants.UNKNOWN_STATE, null, new ArrayList<VariableExpressionExecutor>(), siddhiAppContext,
+                false, 0, "query1");
+        AssertJUnit.assertFalse(executor instanceof ConstantExpressionExecutor);
+    }
+
+    @Test
+    public void constantFoldingTest2() throws InterruptedException {
+        log.info("constantFolding test2");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price > 10 * (1 + 0.5) and convert('true', 'bool')]#window.length(1 + 1) " +
+                "select symbol, price * (1 + 0.05) as price, convert('10', 'long') + volume as volume, " +
+                "   ifThenElse(2 > 1, 'yes', 'no') as flag " +
+                "insert all events into outputStream;";
+
+        runQuery(STREAM_DEFINITION + query, new Object[][]{
+                {"WSO2", 20.0, 5L},
+                {"IBM", 10.0, 7L},
+                {"ORACLE", 100.0, null},
+                {"GOOG", 30.0, 1L}
+        });
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 21.0, 15L, "yes"),
+                Arrays.asList("ORACLE", 105.0, null, "yes"),
+                Arrays.asList("WSO2", 21.0, 15L, "yes"),
+                Arrays.asList("GOOG", 31.5, 11L, "yes")), outputs);
+    }
+
+    @Test
+    public void sharedExpressionTest1() {
+        log.info("sharedExpression test1");
+
+        SiddhiAppContext siddhiAppContext = new SiddhiAppContext();
+        Query query = SiddhiCompiler.parseQuery("" +
+                "from cseEventStream[price * volume > 100 and symbol != 'IBM'] " +
+                "select symbol, price * volume as total, (price + 1) * 2 as a, (price + 1) * 2 as b, " +
+                "   sum(price * volume) as sum, convert(volume, 'double') as c, currentTimeMillis() + volume as d, " +
+                "   currentTimeMillis() + volume as e, 2 * 3 as f, 2 * 3 as g " +
+                "having a - 1 > b - 1 and a - 1 < 100 " +
+                "insert into outputStream;");
+        SharedExpressionHolder sharedExpressionHolder = SharedExpressionHolder.analyse(query, siddhiAppContext);
+        AssertJUnit.assertNotNull(sharedExpressionHolder);
+
+        Expression filter = ((SingleInputStream) query.getInputStream()).getStreamHandlers().get(0)
+                .getParameters()[0];
+        Compare compare = (Compare) ((And) filter)
+                .getLeftExpression();
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(filter));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(compare));
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(compare.getLeftExpression()));
+
+        List<Expression> selection = new ArrayList<>();
+        query.getSelector().getSelectionList().forEach(outputAttribute ->
+                selection.add(outputAttribute.getExpression()));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(selection.get(0)));
+        // price * volume is shared with the filter, including its occurrence within the aggregator
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(selection.get(1)));
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(
+                ((AttributeFunction) selection.get(4)).getParameters()[0]));
+        // (price + 1) * 2 is shared, but not price + 1, as it only occurs within the shared expression
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(selection.get(2)));
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(selection.get(3)));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(
+                ((Multiply) selection.get(2)).getLeftValue()));
+        // functions that are not deterministic and constants are not shared
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(selection.get(5)));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(selection.get(6)));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(selection.get(8)));
+
+        Expression having = query.getSelector().getHavingExpression();
+        Compare havingCompare = (Compare) ((And) having)
+                .getLeftExpression();
+        AssertJUnit.assertTrue(sharedExpressionHolder.isShared(havingCompare.getLeftExpression()));
+        AssertJUnit.assertFalse(sharedExpressionHolder.isShared(havingCompare.getRightExpression()));
+
+        AssertJUnit.assertNull(SharedExpressionHolder.analyse(SiddhiCompiler.parseQuery("" +
+                "from cseEventStream[price > 10] select symbol, price + 1 as a, price + 2 as b " +
+                "insert into outputStream;"), siddhiAppContext));
+    }
+
+    @Test
+    public void sharedExpressionTest2() throws InterruptedException {
+        log.info("sharedExpression test2");
+
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price * volume > 100]#window.length(2) " +
+                "select symbol, price * volume as total, price * volume + 1 as plusOne, " +
+                "   ifThenElse(price * volume > 200, 'high', 'low') as level " +
+                "having plusOne - 1 > 150 or plusOne - 1 < 120 " +
+                "insert all events into outputStream;";
+
+        runQuery(STREAM_DEFINITION + query, new Object[][]{
+                {"WSO2", 10.0, 20L},
+                {"IBM", null, 5L},
+                {"ORACLE", 5.0, 10L},
+                {"GOOG", 11.0, 10L},
+                {"MSFT", 30.0, 10L},
+                {"YHOO", 13.0, 10L}
+        });
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 200.0, 201.0, "low"),
+                Arrays.asList("GOOG", 110.0, 111.0, "low"),
+                Arrays.asList("WSO2", 200.0, 201.0, "low"),
+                Arrays.asList("MSFT", 300.0, 301.0, "high"),
+                Arrays.asList("GOOG", 110.0, 111.0, "low")), outputs);
+    }
+
+    @Test
+    public void sharedExpressionTest3() {
+        log.info("sharedExpression test3");
+
+        int[] evaluations = new int[1];
+        VariableExpressionExecutor variable = new VariableExpressionExecutor(
+                new Attribute("price", Attribute.Type.DOUBLE), 0, 0);
+        variable.getPosition()[SiddhiConstants.STREAM_ATTRIBUTE_TYPE_INDEX] = SiddhiConstants.OUTPUT_DATA_INDEX;
+        variable.getPosition()[SiddhiConstants.STREAM_ATTRIBUTE_INDEX_IN_TYPE] = 0;
+        ExpressionExecutor countingExecutor = new ExpressionExecutor() {
+            @Override
+            public Object execute(ComplexEvent event) {
+                evaluations[0]++;
+                return variable.execute(event);
+            }
+
+            @Override
+            public Attribute.Type getReturnType() {
+                return Attribute.Type.DOUBLE;
+            }
+
+            @Override
+            public ExpressionExecutor cloneExecutor(String key) {
+                return this;
+            }
+        };
+        SharedExpressionExecutor first = new SharedExpressionExecutor(countingExecutor, 1);
+        SharedExpressionExecutor second = (SharedExpressionExecutor) first.cloneExecutor("key");
+
+        StreamEvent event = new StreamEvent(0, 2, 1);
+        event.setOutputData(new Object[]{12.5});
+        AssertJUnit.assertEquals(12.5, first.execute(event));
+        AssertJUnit.assertEquals(12.5, second.execute(event));
+        NullFlag nullFlag = new NullFlag();
+        AssertJUnit.assertEquals(12.5, second.executeDouble(event, nullFlag));
+        AssertJUnit.assertFalse(nullFlag.isSet());
+        AssertJUnit.assertEquals(1, evaluations[0]);
+
+        event = new StreamEvent(0, 2, 1);
+        event.setOutputData(new Object[]{null});
+        AssertJUnit.assertNull(second.execute(event));
+        first.executeDouble(event, nullFlag);
+        AssertJUnit.assertTrue(nullFlag.isSet());
+        AssertJUnit.assertNull(event.getOnAfterWindowData()[0]);
+        AssertJUnit.assertNotNull(event.getOnAfterWindowData()[1]);
+        AssertJUnit.assertEquals(2, evaluations[0]);
+    }
+
+    @Test
+    public void sharedExpressionTest4() throws InterruptedException {
+        log.info("sharedExpression test4");
+
+        String query = "" +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream[price * 2 > 10]#window.length(1) " +
+                "   select symbol, price * 2 as doubled, sum(price * 2) as total, volume " +
+                "   insert all events into outputStream; " +
+                "end;";
+
+        runQuery(STREAM_DEFINITION + query, new Object[][]{
+                {"WSO2", 10.0, 1L},
+                {"IBM", 2.0, 2L},
+                {"IBM", 20.0, 3L},
+                {"WSO2", 15.0, 4L}
+        });
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 20.0, 20.0, 1L),
+                Arrays.asList("IBM", 40.0, 40.0, 3L),
+                Arrays.asList("WSO2", 20.0, null, 1L),
+                Arrays.asList("WSO2", 30.0, 30.0, 4L)), outputs);
+    }
+
+    @Test
+    public void sharedExpressionTest5() throws Exception {
+        log.info("sharedExpression test5");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = "@app:name('SharedExpressionTest') " + STREAM_DEFINITION +
+                "@info(name = 'query1') " +
+                "from cseEventStream[price * volume > 100]#window.length(2) " +
+                "select symbol, price * volume as total, price * volume + 1 as plusOne " +
+                "insert all events into outputStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = createRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.getInputHandler("cseEventStream").send(new Object[]{"WSO2", 10.0, 20L});
+        siddhiAppRuntime.getInputHandler("cseEventStream").send(new Object[]{"GOOG", 11.0, 10L});
+        siddhiAppRuntime.persist().getFuture().get();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = createRuntime(siddhiManager, siddhiApp);
+        siddhiAppRuntime.restoreLastRevision();
+        siddhiAppRuntime.getInputHandler("cseEventStream").send(new Object[]{"MSFT", 30.0, 10L});
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+
+        AssertJUnit.assertEquals(Arrays.asList(
+                Arrays.asList("WSO2", 200.0, 201.0),
+                Arrays.asList("GOOG", 110.0, 111.0),
+                Arrays.asList("WSO2", 200.0, 201.0),
+                Arrays.asList("MSFT", 300.0, 301.0)), outputs);
+    }
+
+    private ExpressionExecutor parse(Expression expression, SiddhiAppContext siddhiAppContext) {
+        return ExpressionParser.parseExpression(expression, new MetaStreamEvent(), SiddhiConstants.UNKNOWN_STATE,
+                null, new ArrayList<VariableExpressionExecutor>(), siddhiAppContext, false, 0, "query1");
+    }
+
+    private void runQuery(String siddhiApp, Object[][] events) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createRuntime(siddhiManager, siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        for (Object[] event : events) {
+            inputHandler.send(event);
+        }
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+
+    private SiddhiAppRuntime createRuntime(SiddhiManager siddhiManager, String siddhiApp) {
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(Arrays.asList(event.getData()));
+                }
+            }
+        });
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+}
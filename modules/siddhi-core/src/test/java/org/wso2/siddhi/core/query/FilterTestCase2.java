@@ -1754,4 +1754,48 @@ public class FilterTestCase2 {
 
     }
 
+    @Test
+    public void filterTest122() throws InterruptedException {
+        log.info("filter test122 - math expressions with null values and zero divisors");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "define stream cseEventStream (symbol string, price float, volume long, " +
+                "quantity int);";
+        String query = "@info(name = 'query1') " +
+                "from cseEventStream[price * volume > 1000 and volume / quantity != 3 and (quantity + 1) % 2 == 0] " +
+                "select symbol " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    AssertJUnit.assertEquals("WSO2", inEvent.getData(0));
+                }
+                count = count + inEvents.length;
+                eventArrived = true;
+            }
+
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 10f, 90L, 1});
+        inputHandler.send(new Object[]{"IBM", null, 200L, 1});
+        inputHandler.send(new Object[]{"IBM", 10f, 300L, 0});
+        inputHandler.send(new Object[]{"IBM", 10f, 300L, 100});
+        inputHandler.send(new Object[]{"IBM", 10f, 300L, null});
+        inputHandler.send(new Object[]{"IBM", 10f, 300L, 2});
+        inputHandler.send(new Object[]{"WSO2", 10f, 200L, 1});
+        Thread.sleep(100);
+        AssertJUnit.assertEquals(1, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+
+    }
+
 }
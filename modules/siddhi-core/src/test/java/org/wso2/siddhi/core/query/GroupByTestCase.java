@@ -28,6 +28,9 @@ import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class GroupByTestCase {
     private static final Logger log = Logger.getLogger(GroupByTestCase.class);
     private volatile int count;
@@ -144,4 +147,64 @@ public class GroupByTestCase {
 
         siddhiAppRuntime.shutdown();
     }
+
+    @Test
+    public void testGroupByQuery3() throws InterruptedException {
+        log.info("GroupBy test3");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:name('GroupByTest3') " +
+                "" +
+                "define stream cseEventStream (symbol string, exchange string, volume long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream " +
+                "select symbol, exchange, sum(volume) as totalVolume " +
+                "   group by symbol, exchange " +
+                "insert into outputStream;" +
+                "";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+
+        log.info("Running : " + siddhiAppRuntime.getName());
+
+        final Map<String, Long> totalVolumes = new HashMap<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    totalVolumes.put(event.getData(0) + "|" + event.getData(1), (Long) event.getData(2));
+                }
+                count = count + inEvents.length;
+                eventArrived = true;
+            }
+
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", "NYSE", 100L});
+        inputHandler.send(new Object[]{"IBM", "NASDAQ", 200L});
+        inputHandler.send(new Object[]{"IBM", null, 300L});
+        inputHandler.send(new Object[]{"IBM", "NYSE", 100L});
+        inputHandler.send(new Object[]{"WSO2", "NYSE", 400L});
+        inputHandler.send(new Object[]{"IBM", null, 300L});
+        inputHandler.send(new Object[]{"IBM", "NASDAQ", 200L});
+        Thread.sleep(100);
+
+        AssertJUnit.assertEquals(7, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(4, totalVolumes.size());
+        AssertJUnit.assertEquals(Long.valueOf(200L), totalVolumes.get("IBM|NYSE"));
+        AssertJUnit.assertEquals(Long.valueOf(400L), totalVolumes.get("IBM|NASDAQ"));
+        AssertJUnit.assertEquals(Long.valueOf(600L), totalVolumes.get("IBM|null"));
+        AssertJUnit.assertEquals(Long.valueOf(400L), totalVolumes.get("WSO2|NYSE"));
+
+        siddhiAppRuntime.shutdown();
+    }
 }
@@ -31,6 +31,9 @@ import org.wso2.siddhi.core.util.EventPrinter;
 import org.wso2.siddhi.core.util.SiddhiTestHelper;
 import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class JoinTestCase {
@@ -932,4 +935,61 @@ public class JoinTestCase {
             siddhiAppRuntime.shutdown();
         }
     }
+
+    @Test
+    public void joinTest21() throws InterruptedException {
+        log.info("Join test21");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream cseEventStream (symbol string, price float, volume long); " +
+                "define stream checkStream (symbol string, minVolume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from checkStream unidirectional join cseEventStream#window.length(3) " +
+                "on cseEventStream.symbol == checkStream.symbol and cseEventStream.volume > checkStream.minVolume " +
+                "select checkStream.symbol as symbol, cseEventStream.price " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        try {
+            List<Object[]> inEventsList = new ArrayList<>();
+            siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timestamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            inEventsList.add(event.getData());
+                        }
+                        inEventCount.addAndGet(inEvents.length);
+                    }
+                }
+            });
+            InputHandler cseEventStreamHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+            InputHandler checkStreamHandler = siddhiAppRuntime.getInputHandler("checkStream");
+            siddhiAppRuntime.start();
+            cseEventStreamHandler.send(new Object[]{"IBM", 10f, 100L});
+            cseEventStreamHandler.send(new Object[]{"WSO2", 20f, 200L});
+            cseEventStreamHandler.send(new Object[]{"IBM", 30f, 300L});
+            checkStreamHandler.send(new Object[]{"IBM", 60L});
+            cseEventStreamHandler.send(new Object[]{"IBM", 40f, 50L});
+            cseEventStreamHandler.send(new Object[]{"IBM", 50f, 500L});
+            checkStreamHandler.send(new Object[]{"IBM", 60L});
+            checkStreamHandler.send(new Object[]{"WSO2", 0L});
+            checkStreamHandler.send(new Object[]{"ORCL", 0L});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"IBM", 10f},
+                    new Object[]{"IBM", 30f},
+                    new Object[]{"IBM", 30f},
+                    new Object[]{"IBM", 50f}
+            );
+            SiddhiTestHelper.waitForEvents(100, 4, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 4, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
 }
@@ -30,6 +30,11 @@ import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.EventPrinter;
 import org.wso2.siddhi.core.util.SiddhiTestHelper;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PartitionTestCase2 {
@@ -673,4 +678,216 @@ public class PartitionTestCase2 {
 
         }
     }
+
+    @Test
+    public void partitionPurgeTest() throws InterruptedException {
+        log.info("Partition purge test");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "@app:name('partitionPurgeTest') " +
+                "define stream StockStream (symbol string, price float, volume int); " +
+                "@purge(enable='true', interval='1 sec', idle.period='1 sec') " +
+                "partition with (symbol of StockStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from StockStream " +
+                "   select symbol, count() as eventCount " +
+                "   insert into OutStockStream; " +
+                "end ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        List<Object[]> outputs = Collections.synchronizedList(new ArrayList<>());
+        siddhiAppRuntime.addCallback("OutStockStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    outputs.add(event.getData());
+                    count.incrementAndGet();
+                }
+                eventArrived = true;
+            }
+        });
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        for (int i = 0; i < 25; i++) {
+            Thread.sleep(100);
+            inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        }
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        SiddhiTestHelper.waitForEvents(100, 30, count, 60000);
+
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(30, count.get());
+        AssertJUnit.assertEquals(2L, outputs.get(2)[1]);
+        AssertJUnit.assertEquals(1L, outputs.get(28)[1]);
+        AssertJUnit.assertEquals(27L, outputs.get(29)[1]);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void partitionPurgeValidationTest() throws InterruptedException {
+        log.info("Partition purge validation test");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "@app:name('partitionPurgeValidationTest') " +
+                "define stream StockStream (symbol string, price float, volume int); " +
+                "@purge(enable='true', interval='1 sec') " +
+                "partition with (symbol of StockStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from StockStream " +
+                "   select symbol, count() as eventCount " +
+                "   insert into OutStockStream; " +
+                "end ";
+
+        siddhiManager.createSiddhiAppRuntime(siddhiApp);
+    }
+
+    @Test
+    public void partitionLanesTest() throws InterruptedException {
+        log.info("Partition lanes test");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "@app:name('partitionLanesTest') " +
+                "define stream StockStream (symbol string, sequence long); " +
+                "@Async(workers='4', buffer.size='16') " +
+                "partition with (symbol of StockStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from StockStream " +
+                "   select symbol, sequence " +
+                "   insert into #InnerStream; " +
+                "" +
+                "   @info(name = 'query2') " +
+                "   from #InnerStream " +
+                "   select symbol, sequence, count() as eventCount " +
+                "   insert into OutStockStream; " +
+                "end ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        AtomicInteger outOfOrderCount = new AtomicInteger(0);
+        siddhiAppRuntime.addCallback("OutStockStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    if ((Long) event.getData(1) + 1 != (Long) event.getData(2)) {
+                        outOfOrderCount.incrementAndGet();
+                    }
+                    count.incrementAndGet();
+                }
+                eventArrived = true;
+            }
+        });
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        for (long sequence = 0; sequence < 100; sequence++) {
+            Event[] events = new Event[20];
+            for (int key = 0; key < 20; key++) {
+                events[key] = new Event(System.currentTimeMillis(), new Object[]{"SYMBOL" + key, sequence});
+            }
+            inputHandler.send(events);
+        }
+        SiddhiTestHelper.waitForEvents(100, 2000, count, 60000);
+
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(2000, count.get());
+        AssertJUnit.assertEquals(0, outOfOrderCount.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void partitionLanesTest2() throws InterruptedException {
+        log.info("Partition lanes test 2");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "@app:name('partitionLanesTest2') " +
+                "define stream StockStream (symbol string, price int); " +
+                "define stream CheckStream (threshold int); " +
+                "@Async(workers='4', buffer.size='16') " +
+                "partition with (symbol of StockStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from StockStream#window.length(1) join CheckStream#window.length(1) " +
+                "   on StockStream.price > CheckStream.threshold " +
+                "   select symbol, price " +
+                "   insert into OutStockStream; " +
+                "end ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        AtomicInteger outputCount = new AtomicInteger(0);
+        siddhiAppRuntime.addCallback("OutStockStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                outputCount.addAndGet(events.length);
+            }
+        });
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler checkStream = siddhiAppRuntime.getInputHandler("CheckStream");
+        siddhiAppRuntime.start();
+        for (int key = 0; key < 20; key++) {
+            stockStream.send(new Object[]{"SYMBOL" + key, key});
+        }
+        Thread.sleep(500);
+        checkStream.send(new Object[]{9});
+        SiddhiTestHelper.waitForEvents(100, 10, outputCount, 60000);
+
+        AssertJUnit.assertEquals(10, outputCount.get());
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void partitionLanesTest3() throws InterruptedException {
+        log.info("Partition lanes test 3");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "@app:name('partitionLanesTest3') " +
+                "define stream StockStream (symbol string, price int); " +
+                "define stream TradeStream (symbol string, price int); " +
+                "@Async(workers='4', buffer.size='16') " +
+                "partition with (symbol of StockStream, symbol of TradeStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from every e1=StockStream -> e2=TradeStream[price == e1.price] " +
+                "   select e1.symbol as symbol, e2.price as price " +
+                "   insert into OutStockStream; " +
+                "end ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        AtomicInteger outputCount = new AtomicInteger(0);
+        Map<String, List<Integer>> pricesBySymbol = new ConcurrentHashMap<>();
+        siddhiAppRuntime.addCallback("OutStockStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    pricesBySymbol.computeIfAbsent((String) event.getData(0), k -> new ArrayList<>())
+                            .add((Integer) event.getData(1));
+                }
+                outputCount.addAndGet(events.length);
+            }
+        });
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler tradeStream = siddhiAppRuntime.getInputHandler("TradeStream");
+        siddhiAppRuntime.start();
+        // The trade of each stock is only matched if the events of a key are processed in order across the streams
+        for (int price = 0; price < 50; price++) {
+            for (int key = 0; key < 20; key++) {
+                stockStream.send(new Object[]{"SYMBOL" + key, price});
+                tradeStream.send(new Object[]{"SYMBOL" + key, price});
+            }
+        }
+        SiddhiTestHelper.waitForEvents(100, 1000, outputCount, 60000);
+
+        AssertJUnit.assertEquals(1000, outputCount.get());
+        for (List<Integer> prices : pricesBySymbol.values()) {
+            for (int i = 0; i < prices.size(); i++) {
+                AssertJUnit.assertEquals(i, (int) prices.get(i));
+            }
+        }
+        siddhiAppRuntime.shutdown();
+    }
 }
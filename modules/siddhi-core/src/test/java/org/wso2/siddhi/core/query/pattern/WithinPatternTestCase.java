@@ -29,6 +29,9 @@ import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 public class WithinPatternTestCase {
 
@@ -209,5 +212,64 @@ public class WithinPatternTestCase {
         siddhiAppRuntime.shutdown();
     }
 
+    @Test
+    public void testQuery4() throws InterruptedException {
+        log.info("testPatternWithin4 - OUT 2");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String streams = "" +
+                "define stream Stream1 (symbol string, price float, volume int); " +
+                "define stream Stream2 (symbol string, price float, volume int); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from every e1=Stream1[price>20] -> e2=Stream2[symbol==e1.symbol and price>e1.price] within 1 sec " +
+                "select e1.symbol as symbol1, e2.price as price2 " +
+                "insert into OutputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+
+        List<Object[]> received = new ArrayList<Object[]>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    inEventCount = inEventCount + inEvents.length;
+                    for (Event event : inEvents) {
+                        received.add(event.getData());
+                    }
+                }
+                if (removeEvents != null) {
+                    removeEventCount = removeEventCount + removeEvents.length;
+                }
+                eventArrived = true;
+            }
+
+        });
+
+        InputHandler stream1 = siddhiAppRuntime.getInputHandler("Stream1");
+        InputHandler stream2 = siddhiAppRuntime.getInputHandler("Stream2");
+
+        siddhiAppRuntime.start();
+
+        stream1.send(new Object[]{"WSO2", 55.6f, 100});
+        Thread.sleep(1500);
+        stream1.send(new Object[]{"GOOG", 54f, 100});
+        stream1.send(new Object[]{"IBM", 50f, 100});
+        stream2.send(new Object[]{"IBM", 55f, 100});
+        stream2.send(new Object[]{"WSO2", 60f, 100});
+        stream2.send(new Object[]{"GOOG", 53f, 100});
+        stream2.send(new Object[]{"GOOG", 55f, 100});
+        Thread.sleep(500);
+
+        AssertJUnit.assertEquals("Number of success events", 2, inEventCount);
+        AssertJUnit.assertEquals("Number of remove events", 0, removeEventCount);
+        AssertJUnit.assertEquals("Event arrived", true, eventArrived);
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 55f}, received.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{"GOOG", 55f}, received.get(1));
+
+        siddhiAppRuntime.shutdown();
+    }
 
 }
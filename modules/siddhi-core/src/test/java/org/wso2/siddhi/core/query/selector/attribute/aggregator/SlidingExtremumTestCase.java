@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.query.output.callback.QueryCallback;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.persistence.InMemoryPersistenceStore;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class SlidingExtremumTestCase {
+    private static final Logger log = Logger.getLogger(SlidingExtremumTestCase.class);
+    private List<Object[]> outputs;
+
+    @BeforeMethod
+    public void init() {
+        outputs = new ArrayList<>();
+    }
+
+    @Test
+    public void slidingExtremumTest1() {
+        log.info("slidingExtremum Test #1: double extremum against a linear scan of the window");
+
+        Random random = new Random(7);
+        DoubleSlidingExtremum max = new DoubleSlidingExtremum(true);
+        DoubleSlidingExtremum min = new DoubleSlidingExtremum(false);
+        LinkedList<Double> window = new LinkedList<>();
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || window.isEmpty()) {
+                double value = random.nextInt(50) / 2.0;
+                window.addLast(value);
+                max.add(value);
+                min.add(value);
+            } else if (operation < 9) {
+                double value = window.removeFirst();
+                AssertJUnit.assertTrue(max.remove(value));
+                AssertJUnit.assertTrue(min.remove(value));
+            } else {
+                Double value = window.get(random.nextInt(window.size()));
+                window.removeFirstOccurrence(value);
+                AssertJUnit.assertTrue(max.remove(value));
+                AssertJUnit.assertTrue(min.remove(value));
+            }
+            AssertJUnit.assertEquals(window.size(), max.size());
+            if (!window.isEmpty()) {
+                double expectedMax = Double.NEGATIVE_INFINITY;
+                double expectedMin = Double.POSITIVE_INFINITY;
+                for (double value : window) {
+                    expectedMax = Math.max(expectedMax, value);
+                    expectedMin = Math.min(expectedMin, value);
+                }
+                AssertJUnit.assertEquals(expectedMax, max.get());
+                AssertJUnit.assertEquals(expectedMin, min.get());
+            }
+        }
+        AssertJUnit.assertFalse(max.remove(100.0));
+    }
+
+    @Test
+    public void slidingExtremumTest2() {
+        log.info("slidingExtremum Test #2: long extremum keeps values beyond double precision");
+
+        LongSlidingExtremum max = new LongSlidingExtremum(true);
+        for (int i = 0; i < 1000; i++) {
+            max.add(Long.MAX_VALUE - 1000 + i);
+        }
+        AssertJUnit.assertEquals(Long.MAX_VALUE - 1, max.get());
+        for (int i = 0; i < 999; i++) {
+            AssertJUnit.assertTrue(max.remove(Long.MAX_VALUE - 1000 + i));
+        }
+        AssertJUnit.assertEquals(1, max.size());
+        AssertJUnit.assertEquals(Long.MAX_VALUE - 1, max.get());
+        AssertJUnit.assertTrue(max.remove(Long.MAX_VALUE - 1));
+        AssertJUnit.assertTrue(max.isEmpty());
+    }
+
+    @Test
+    public void slidingExtremumTest3() throws InterruptedException {
+        log.info("slidingExtremum Test #3: max and min over a length window per group");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream cseEventStream (symbol string, price int, volume float);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(6) " +
+                "select symbol, max(price) as maxPrice, min(volume) as minVolume " +
+                "group by symbol " +
+                "insert into outputStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    outputs.add(event.getData());
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        int[] prices = {3, 5, 3, 1, 0};
+        float[] volumes = {3f, 1f, 3f, 5f, 6f};
+        for (int i = 0; i < prices.length; i++) {
+            inputHandler.send(new Object[]{"IBM", prices[i], volumes[i]});
+            inputHandler.send(new Object[]{"WSO2", prices[i] + 10, volumes[i] + 10});
+        }
+        Thread.sleep(100);
+        siddhiAppRuntime.shutdown();
+
+        int[] expectedMax = {3, 5, 5, 5, 3};
+        float[] expectedMin = {3f, 1f, 1f, 1f, 3f};
+        AssertJUnit.assertEquals(10, outputs.size());
+        for (int i = 0; i < expectedMax.length; i++) {
+            AssertJUnit.assertEquals(expectedMax[i], outputs.get(2 * i)[1]);
+            AssertJUnit.assertEquals(expectedMin[i], outputs.get(2 * i)[2]);
+            AssertJUnit.assertEquals(expectedMax[i] + 10, outputs.get(2 * i + 1)[1]);
+            AssertJUnit.assertEquals(expectedMin[i] + 10, outputs.get(2 * i + 1)[2]);
+        }
+    }
+
+    @Test
+    public void slidingExtremumTest4() throws InterruptedException {
+        log.info("slidingExtremum Test #4: max over a sort window, which does not expire in arrival order");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream cseEventStream (symbol string, price double);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.sort(2, price, 'asc') " +
+                "select max(price) as maxPrice " +
+                "insert all events into outputStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (removeEvents != null) {
+                    outputs.add(removeEvents[removeEvents.length - 1].getData());
+                } else {
+                    outputs.add(inEvents[inEvents.length - 1].getData());
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 5.0});
+        inputHandler.send(new Object[]{"IBM", 1.0});
+        inputHandler.send(new Object[]{"IBM", 3.0});
+        inputHandler.send(new Object[]{"IBM", 2.0});
+        Thread.sleep(100);
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, outputs.size());
+        AssertJUnit.assertEquals(5.0, outputs.get(1)[0]);
+        AssertJUnit.assertEquals(3.0, outputs.get(2)[0]);
+        AssertJUnit.assertEquals(2.0, outputs.get(3)[0]);
+    }
+
+    @Test
+    public void slidingExtremumTest5() throws Exception {
+        log.info("slidingExtremum Test #5: max and min window state is persisted and restored");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = "" +
+                "@app:name('slidingExtremumTest5') " +
+                "define stream cseEventStream (symbol string, price long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(3) " +
+                "select max(price) as maxPrice, min(price) as minPrice " +
+                "insert into outputStream;";
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event event : inEvents) {
+                    outputs.add(event.getData());
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"IBM", 9L});
+        inputHandler.send(new Object[]{"IBM", 4L});
+        inputHandler.send(new Object[]{"IBM", 7L});
+        siddhiAppRuntime.persist().getFuture().get();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restoreLastRevision();
+        inputHandler.send(new Object[]{"IBM", 5L});
+        inputHandler.send(new Object[]{"IBM", 6L});
+        Thread.sleep(100);
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(5, outputs.size());
+        AssertJUnit.assertEquals(7L, outputs.get(3)[0]);
+        AssertJUnit.assertEquals(4L, outputs.get(3)[1]);
+        AssertJUnit.assertEquals(7L, outputs.get(4)[0]);
+        AssertJUnit.assertEquals(5L, outputs.get(4)[1]);
+    }
+
+    @Test
+    public void slidingExtremumTest6() {
+        log.info("slidingExtremum Test #6: buffers stay bounded when values are never removed");
+
+        Random random = new Random(11);
+        DoubleSlidingExtremum max = new DoubleSlidingExtremum(true);
+        LongSlidingExtremum min = new LongSlidingExtremum(false);
+        double expectedMax = Double.NEGATIVE_INFINITY;
+        long expectedMin = Long.MAX_VALUE;
+        for (int i = 0; i < 1000000; i++) {
+            double doubleValue = random.nextDouble();
+            long longValue = random.nextLong();
+            max.add(doubleValue);
+            min.add(longValue);
+            expectedMax = Math.max(expectedMax, doubleValue);
+            expectedMin = Math.min(expectedMin, longValue);
+            AssertJUnit.assertTrue(max.capacity() <= 4 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY);
+            AssertJUnit.assertTrue(min.capacity() <= 4 * LongSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY);
+        }
+        AssertJUnit.assertEquals(1000000, max.size());
+        AssertJUnit.assertEquals(expectedMax, max.get());
+        AssertJUnit.assertEquals(expectedMin, min.get());
+    }
+
+    @Test
+    public void slidingExtremumTest7() {
+        log.info("slidingExtremum Test #7: window first expiring after more values than are buffered");
+
+        Random random = new Random(13);
+        DoubleSlidingExtremum max = new DoubleSlidingExtremum(true);
+        DoubleSlidingExtremum min = new DoubleSlidingExtremum(false);
+        LinkedList<Double> window = new LinkedList<>();
+        for (int i = 0; i < 3 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY; i++) {
+            double value = random.nextInt(1000);
+            window.addLast(value);
+            max.add(value);
+            min.add(value);
+        }
+        for (int i = 0; i < 10000; i++) {
+            double expired = window.removeFirst();
+            AssertJUnit.assertTrue(max.remove(expired));
+            AssertJUnit.assertTrue(min.remove(expired));
+            double value = random.nextInt(1000);
+            window.addLast(value);
+            max.add(value);
+            min.add(value);
+            AssertJUnit.assertEquals(window.size(), max.size());
+            if (i % 100 == 0) {
+                double expectedMax = Double.NEGATIVE_INFINITY;
+                double expectedMin = Double.POSITIVE_INFINITY;
+                for (double windowValue : window) {
+                    expectedMax = Math.max(expectedMax, windowValue);
+                    expectedMin = Math.min(expectedMin, windowValue);
+                }
+                AssertJUnit.assertEquals(expectedMax, max.get());
+                AssertJUnit.assertEquals(expectedMin, min.get());
+            }
+        }
+    }
+
+    @Test
+    public void slidingExtremumTest8() {
+        log.info("slidingExtremum Test #8: buffers stay bounded again once a window having expiries is cleared");
+
+        DoubleSlidingExtremum max = new DoubleSlidingExtremum(true);
+        LongSlidingExtremum min = new LongSlidingExtremum(false);
+        max.add(1.0);
+        min.add(1L);
+        AssertJUnit.assertTrue(max.remove(1.0));
+        AssertJUnit.assertTrue(min.remove(1L));
+        max.clear();
+        min.clear();
+        for (int i = 0; i < 10 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY; i++) {
+            max.add(i);
+            min.add(-i);
+            AssertJUnit.assertTrue(max.capacity() <= 4 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY);
+            AssertJUnit.assertTrue(min.capacity() <= 4 * LongSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY);
+        }
+        AssertJUnit.assertEquals(10 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY, max.size());
+        AssertJUnit.assertEquals(10 * DoubleSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY - 1.0, max.get());
+        AssertJUnit.assertEquals(1 - 10L * LongSlidingExtremum.MAX_VALUES_BEFORE_EXPIRY, min.get());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+import org.wso2.siddhi.core.util.EventPrinter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SumAttributeAggregatorTestCase {
+    private static final Logger log = Logger.getLogger(SumAttributeAggregatorTestCase.class);
+
+    @Test
+    public void sumAggregatorTest1() throws InterruptedException {
+        log.info("sumAggregator Test #1: Sum of a long expression with null values");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "define stream cseEventStream (symbol string, volume long, quantity int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(2) " +
+                "select sum(volume * quantity) as total " +
+                "insert into outputStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        List<Object> totals = new ArrayList<>();
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    totals.add(event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 100L, 2});
+        inputHandler.send(new Object[]{"WSO2", null, 3});
+        inputHandler.send(new Object[]{"WSO2", 10L, 5});
+        inputHandler.send(new Object[]{"WSO2", 20L, null});
+        inputHandler.send(new Object[]{"WSO2", 1L, 1});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Arrays.asList(200L, 200L, 50L, 50L, 1L), totals);
+    }
+
+    @Test
+    public void sumAggregatorTest2() throws InterruptedException {
+        log.info("sumAggregator Test #2: Sum of a double expression with null values and zero divisors");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "define stream cseEventStream (symbol string, price double, quantity int);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.length(2) " +
+                "select sum(price / quantity) as total " +
+                "insert into outputStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        List<Object> totals = new ArrayList<>();
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    totals.add(event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 10.0, 4});
+        inputHandler.send(new Object[]{"WSO2", 10.0, 0});
+        inputHandler.send(new Object[]{"WSO2", 3.0, 2});
+        inputHandler.send(new Object[]{"WSO2", null, 1});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Arrays.asList(2.5, 2.5, 1.5, 1.5), totals);
+    }
+}
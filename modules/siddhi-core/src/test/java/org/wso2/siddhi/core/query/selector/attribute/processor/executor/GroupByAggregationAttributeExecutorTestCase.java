@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.processor.executor;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.config.SiddhiContext;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.SumAttributeAggregator;
+import org.wso2.siddhi.core.util.ElementIdGenerator;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.snapshot.SnapshotService;
+import org.wso2.siddhi.core.util.timestamp.TimestampGeneratorImpl;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class GroupByAggregationAttributeExecutorTestCase {
+    private static final Logger log = Logger.getLogger(GroupByAggregationAttributeExecutorTestCase.class);
+
+    private SiddhiAppContext siddhiAppContext;
+    private SumAttributeAggregator sumAttributeAggregator;
+
+    @BeforeMethod
+    public void init() {
+        siddhiAppContext = new SiddhiAppContext();
+        siddhiAppContext.setSiddhiContext(new SiddhiContext());
+        siddhiAppContext.setElementIdGenerator(new ElementIdGenerator(siddhiAppContext.getName()));
+        siddhiAppContext.setSnapshotService(new SnapshotService(siddhiAppContext));
+        siddhiAppContext.setTimestampGenerator(new TimestampGeneratorImpl(siddhiAppContext));
+        sumAttributeAggregator = new SumAttributeAggregator();
+        sumAttributeAggregator.initAggregator(new ExpressionExecutor[]{new ConstantExpressionExecutor(1L,
+                Attribute.Type.LONG)}, siddhiAppContext, null);
+    }
+
+    @Test
+    public void restoreLegacyStateTest1() {
+        log.info("restoreLegacyStateTest1: group states of snapshots with String group keys are restored");
+
+        Map<String, Object> legacyState = new HashMap<>();
+        legacyState.put("WSO2" + SiddhiConstants.KEY_DELIMITER, sumState(2));
+        legacyState.put("IBM" + SiddhiConstants.KEY_DELIMITER, sumState(5));
+
+        GroupByAggregationAttributeExecutor executor = createExecutor();
+        executor.restoreState(legacyState);
+        AssertJUnit.assertEquals(3L, execute(executor, "WSO2"));
+        AssertJUnit.assertEquals(1L, execute(executor, "ORACLE"));
+        AssertJUnit.assertEquals(4L, execute(executor, "WSO2"));
+
+        // Group states that are not yet converted to typed keys are kept by the next snapshots
+        GroupByAggregationAttributeExecutor restoredExecutor = createExecutor();
+        restoredExecutor.restoreState(executor.currentState());
+        AssertJUnit.assertEquals(6L, execute(restoredExecutor, "IBM"));
+        AssertJUnit.assertEquals(5L, execute(restoredExecutor, "WSO2"));
+        AssertJUnit.assertEquals(2L, execute(restoredExecutor, "ORACLE"));
+    }
+
+    private GroupByAggregationAttributeExecutor createExecutor() {
+        return new GroupByAggregationAttributeExecutor(sumAttributeAggregator, new ExpressionExecutor[0], null,
+                siddhiAppContext, "query1");
+    }
+
+    private Map<String, Object> sumState(int events) {
+        AttributeAggregator attributeAggregator = sumAttributeAggregator.cloneAggregator("legacy");
+        for (int i = 0; i < events; i++) {
+            attributeAggregator.process(new StreamEvent(0, 0, 0));
+        }
+        return attributeAggregator.currentState();
+    }
+
+    private Object execute(GroupByAggregationAttributeExecutor executor, Object key) {
+        GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(key);
+        try {
+            return executor.execute(new StreamEvent(0, 0, 0));
+        } finally {
+            GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
+        }
+    }
+}
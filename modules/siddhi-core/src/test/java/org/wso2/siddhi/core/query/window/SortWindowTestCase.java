@@ -32,6 +32,9 @@ import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.util.EventPrinter;
 import org.wso2.siddhi.core.util.SiddhiTestHelper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class SortWindowTestCase {
@@ -223,4 +226,44 @@ public class SortWindowTestCase {
         SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
     }
 
+    @Test
+    public void sortWindowTest7() throws InterruptedException {
+        log.info("sortWindowTest7");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume long);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.sort(3, price, 'asc') " +
+                "select volume " +
+                "insert expired events into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        List<Object> expiredVolumes = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (removeEvents != null) {
+                    for (Event event : removeEvents) {
+                        expiredVolumes.add(event.getData(0));
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"WSO2", 5f, 1L});
+        inputHandler.send(new Object[]{"WSO2", 3f, 2L});
+        inputHandler.send(new Object[]{"WSO2", 5f, 3L});
+        inputHandler.send(new Object[]{"WSO2", 1f, 4L});
+        inputHandler.send(new Object[]{"WSO2", 5f, 5L});
+        inputHandler.send(new Object[]{"WSO2", 2f, 6L});
+        inputHandler.send(new Object[]{"WSO2", 4f, 7L});
+        AssertJUnit.assertEquals(Arrays.asList(3L, 5L, 1L, 7L), expiredVolumes);
+        siddhiAppRuntime.shutdown();
+    }
+
 }
@@ -29,6 +29,12 @@ import org.wso2.siddhi.core.query.output.callback.QueryCallback;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.core.util.SiddhiTestHelper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TimeWindowTestCase {
     private static final Logger log = Logger.getLogger(TimeWindowTestCase.class);
@@ -221,4 +227,53 @@ public class TimeWindowTestCase {
         SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
     }
 
+    @Test
+    public void timeWindowTest7() throws InterruptedException {
+        log.info("timeWindow test7: expiring partitioned windows fed concurrently");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "" +
+                "partition with (symbol of cseEventStream) " +
+                "begin " +
+                "   @info(name = 'query1') " +
+                "   from cseEventStream#window.time(5 milliseconds) " +
+                "   select symbol,price,volume " +
+                "   insert expired events into outputStream ;" +
+                "end ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        AtomicInteger expiredEventCount = new AtomicInteger(0);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                expiredEventCount.addAndGet(events.length);
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            String symbol = "SYMBOL" + thread + "-";
+            executorService.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    inputHandler.send(new Object[]{symbol + i, 700f, i});
+                    if (i % 50 == 0) {
+                        Thread.sleep(3);
+                    }
+                }
+                return null;
+            });
+        }
+        executorService.shutdown();
+        AssertJUnit.assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+        SiddhiTestHelper.waitForEvents(100, 4000, expiredEventCount, 10000);
+
+        AssertJUnit.assertEquals(4000, expiredEventCount.get());
+        siddhiAppRuntime.shutdown();
+    }
+
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.store;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.PreparedStoreQuery;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.exception.StoreQueryCreationException;
+import org.wso2.siddhi.core.query.StoreQueryPlanCache;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.util.EventPrinter;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.execution.query.StoreQuery;
+import org.wso2.siddhi.query.compiler.SiddhiCompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PreparedStoreQueryTestCase {
+
+    private static final Logger log = Logger.getLogger(PreparedStoreQueryTestCase.class);
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(SiddhiManager siddhiManager) throws InterruptedException {
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"ORACLE", 57.6f, 300L});
+        return siddhiAppRuntime;
+    }
+
+    @Test
+    public void preparedStoreQueryTest1() throws InterruptedException {
+        log.info("Prepared store query test 1");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                "from StockTable " +
+                "on symbol == ? " +
+                "select symbol, volume ");
+
+        Event[] events = preparedStoreQuery.execute("WSO2");
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(100L, events[0].getData(1));
+
+        events = preparedStoreQuery.execute("IBM");
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(200L, events[0].getData(1));
+
+        events = preparedStoreQuery.execute("GOOGLE");
+        AssertJUnit.assertTrue(events == null || events.length == 0);
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void preparedStoreQueryTest2() throws InterruptedException {
+        log.info("Prepared store query test 2");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                "from StockTable " +
+                "on price > ? " +
+                "select sum(volume) * ? as totalVolume ");
+
+        Event[] events = preparedStoreQuery.execute(56f, 2L);
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(1000L, events[0].getData(0));
+
+        events = preparedStoreQuery.execute(60f, 3L);
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(600L, events[0].getData(0));
+
+        events = preparedStoreQuery.execute(50, 1);
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(600L, events[0].getData(0));
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void preparedStoreQueryTest3() throws InterruptedException {
+        log.info("Prepared store query test 3");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+
+        PreparedStoreQuery updateQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                "update StockTable " +
+                "set StockTable.volume = ? " +
+                "on StockTable.symbol == ? ");
+        updateQuery.execute(150L, "WSO2");
+        PreparedStoreQuery deleteQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                "delete StockTable " +
+                "on StockTable.volume > ? ");
+        deleteQuery.execute(250L);
+
+        Event[] events = siddhiAppRuntime.query("" +
+                "from StockTable " +
+                "select symbol, volume " +
+                "order by symbol ");
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(2, events.length);
+        AssertJUnit.assertEquals("IBM", events[0].getData(0));
+        AssertJUnit.assertEquals("WSO2", events[1].getData(0));
+        AssertJUnit.assertEquals(150L, events[1].getData(1));
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void preparedStoreQueryTest4() throws Exception {
+        log.info("Prepared store query test 4");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                "from StockTable " +
+                "on symbol == ? " +
+                "select symbol, sum(volume) as totalVolume ");
+
+        String[] symbols = new String[]{"WSO2", "IBM", "ORACLE"};
+        long[] volumes = new long[]{100L, 200L, 300L};
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executorService.submit(() -> {
+                    for (int j = 0; j < 3000; j++) {
+                        Event[] events = preparedStoreQuery.execute(symbols[j % 3]);
+                        if (events.length != 1 || !events[0].getData(1).equals(volumes[j % 3])) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                AssertJUnit.assertTrue(result.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void preparedStoreQueryTest5() throws InterruptedException {
+        log.info("Prepared store query test 5");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                    "from StockTable " +
+                    "on symbol == ? and price > ? ");
+            preparedStoreQuery.execute("WSO2");
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void preparedStoreQueryTest6() throws InterruptedException {
+        log.info("Prepared store query test 6");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareStoreQuery("" +
+                    "from StockTable " +
+                    "on symbol == ? ");
+            preparedStoreQuery.execute("WSO2", 10);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void preparedStoreQueryTest7() {
+        log.info("Prepared store query test 7");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "" +
+                "from StockStream[symbol == ?] " +
+                "insert into OutputStream ;";
+        siddhiManager.createSiddhiAppRuntime(siddhiApp);
+    }
+
+    @Test
+    public void storeQueryPlanCacheTest() {
+        log.info("Store query plan cache test");
+        StoreQueryPlanCache storeQueryPlanCache = new StoreQueryPlanCache(2);
+        Attribute.Type[] stringParameter = new Attribute.Type[]{Attribute.Type.STRING};
+        StoreQuery storeQuery1 = SiddhiCompiler.parseStoreQuery("from StockTable on symbol == ? ");
+        StoreQuery storeQuery2 = SiddhiCompiler.parseStoreQuery("from StockTable on price > 10 ");
+        StoreQuery storeQuery3 = SiddhiCompiler.parseStoreQuery("from StockTable on price > 20 ");
+
+        StoreQueryPlanCache.Plan plan1 = storeQueryPlanCache.getPlan(storeQuery1, stringParameter);
+        AssertJUnit.assertSame(plan1, storeQueryPlanCache.getPlan(
+                SiddhiCompiler.parseStoreQuery("from StockTable on symbol == ? "), stringParameter));
+        AssertJUnit.assertNotSame(plan1, storeQueryPlanCache.getPlan(storeQuery1,
+                new Attribute.Type[]{Attribute.Type.INT}));
+
+        storeQueryPlanCache.getPlan(storeQuery1, stringParameter);
+        storeQueryPlanCache.getPlan(storeQuery2, new Attribute.Type[0]);
+        AssertJUnit.assertEquals(2, storeQueryPlanCache.size());
+        AssertJUnit.assertSame(plan1, storeQueryPlanCache.getPlan(storeQuery1, stringParameter));
+        StoreQueryPlanCache.Plan plan3 = storeQueryPlanCache.getPlan(storeQuery3, new Attribute.Type[0]);
+        AssertJUnit.assertEquals(2, storeQueryPlanCache.size());
+        AssertJUnit.assertSame(plan1, storeQueryPlanCache.getPlan(storeQuery1, stringParameter));
+        AssertJUnit.assertSame(plan3, storeQueryPlanCache.getPlan(storeQuery3, new Attribute.Type[0]));
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.transport;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.sink.Sink;
+import org.wso2.siddhi.core.util.transport.InMemoryBroker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BufferedSinkTestCase {
+    private static final Logger log = Logger.getLogger(BufferedSinkTestCase.class);
+    private List<Long> received = new CopyOnWriteArrayList<>();
+    private InMemoryBroker.Subscriber subscriber;
+
+    @BeforeMethod
+    public void init() {
+        received.clear();
+        subscriber = new InMemoryBroker.Subscriber() {
+            @Override
+            public void onMessage(Object msg) {
+                Event[] events = msg instanceof Event[] ? (Event[]) msg : new Event[]{(Event) msg};
+                for (Event event : events) {
+                    received.add((Long) event.getData(2));
+                }
+            }
+
+            @Override
+            public String getTopic() {
+                return "Buffered";
+            }
+        };
+        InMemoryBroker.subscribe(subscriber);
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        InMemoryBroker.unsubscribe(subscriber);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(SiddhiManager siddhiManager, String buffer) {
+        return createSiddhiAppRuntime(siddhiManager, "passThrough", buffer);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(SiddhiManager siddhiManager, String mapper, String buffer) {
+        String siddhiApp = "" +
+                "define stream FooStream (symbol string, price float, volume long); " +
+                "@sink(type='testBatchingInMemory', topic='Buffered', @map(type='" + mapper + "'), " + buffer + ") " +
+                "define stream BarStream (symbol string, price float, volume long); " +
+                "" +
+                "from FooStream " +
+                "select * " +
+                "insert into BarStream; ";
+        return siddhiManager.createSiddhiAppRuntime(siddhiApp);
+    }
+
+    private static List<Long> sequence(int count) {
+        List<Long> sequence = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            sequence.add(i);
+        }
+        return sequence;
+    }
+
+    private static void send(InputHandler inputHandler, int from, int to) throws InterruptedException {
+        for (long i = from; i < to; i++) {
+            inputHandler.send(new Object[]{"WSO2", 55.6f, i});
+        }
+    }
+
+    private static void waitFor(List<Long> received, int count, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void bufferedSinkTest1() throws InterruptedException {
+        log.info("Test buffered sink publishing batches of events");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager,
+                "@buffer(size='64', batch='10', linger='1 sec')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        siddhiAppRuntime.start();
+
+        send(fooStream, 0, 25);
+        waitFor(received, 25, 5000);
+
+        AssertJUnit.assertEquals(sequence(25), received);
+        AssertJUnit.assertEquals(Arrays.asList(10, 10, 5), TestBatchingInMemorySink.batchSizes);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void bufferedSinkTest2() throws InterruptedException {
+        log.info("Test buffered sink retaining the events while reconnecting");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager, "@buffer(size='64')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        siddhiAppRuntime.start();
+
+        send(fooStream, 0, 3);
+        waitFor(received, 3, 5000);
+        TestBatchingInMemorySink.fail = true;
+        send(fooStream, 3, 10);
+        Thread.sleep(500);
+        AssertJUnit.assertEquals(3, received.size());
+        TestBatchingInMemorySink.fail = false;
+        waitFor(received, 10, 10000);
+
+        AssertJUnit.assertEquals(sequence(10), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void bufferedSinkTest3() throws InterruptedException {
+        log.info("Test buffered sink spilling the events to disk while reconnecting");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager,
+                "@buffer(size='2', batch='1', overflow='spill')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        Sink sink = siddhiAppRuntime.getSinks().iterator().next().get(0);
+        TestBatchingInMemorySink.fail = true;
+        siddhiAppRuntime.start();
+
+        send(fooStream, 0, 20);
+        Thread.sleep(500);
+        AssertJUnit.assertEquals(0, received.size());
+        // One event is held by the worker while it waits for the sink to reconnect
+        AssertJUnit.assertEquals(19, sink.getBuffer().getBufferedEvents());
+        TestBatchingInMemorySink.fail = false;
+        waitFor(received, 20, 10000);
+
+        AssertJUnit.assertEquals(sequence(20), received);
+        AssertJUnit.assertEquals(0, sink.getBuffer().getBufferedEvents());
+        send(fooStream, 20, 25);
+        waitFor(received, 25, 5000);
+        AssertJUnit.assertEquals(sequence(25), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void bufferedSinkTest4() throws InterruptedException {
+        log.info("Test buffered sink dropping the events when full");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager,
+                "@buffer(size='4', batch='1', overflow='drop')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        TestBatchingInMemorySink.fail = true;
+        siddhiAppRuntime.start();
+
+        send(fooStream, 0, 20);
+        Thread.sleep(500);
+        TestBatchingInMemorySink.fail = false;
+        waitFor(received, 5, 10000);
+        Thread.sleep(200);
+
+        // The event held by the worker and the ones fitting in the buffer are published, in order
+        AssertJUnit.assertTrue(received.size() >= 4 && received.size() <= 5);
+        for (int i = 1; i < received.size(); i++) {
+            AssertJUnit.assertTrue(received.get(i - 1) < received.get(i));
+        }
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void bufferedSinkTest5() throws InterruptedException {
+        log.info("Test buffered sink blocking the producer when full");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager,
+                "@buffer(size='4', batch='1', overflow='block')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        TestBatchingInMemorySink.fail = true;
+        siddhiAppRuntime.start();
+
+        AtomicInteger sent = new AtomicInteger(0);
+        Thread producer = new Thread(() -> {
+            try {
+                for (long i = 0; i < 10; i++) {
+                    fooStream.send(new Object[]{"WSO2", 55.6f, i});
+                    sent.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(500);
+        AssertJUnit.assertTrue(sent.get() < 10);
+        TestBatchingInMemorySink.fail = false;
+        producer.join(10000);
+        waitFor(received, 10, 10000);
+
+        AssertJUnit.assertEquals(10, sent.get());
+        AssertJUnit.assertEquals(sequence(10), received);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void bufferedSinkTest6() {
+        log.info("Test buffered sink with a batch greater than the buffer");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        createSiddhiAppRuntime(siddhiManager, "@buffer(size='10', batch='100')");
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void bufferedSinkTest7() {
+        log.info("Test buffered sink with an invalid overflow policy");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        createSiddhiAppRuntime(siddhiManager, "@buffer(overflow='wait')");
+    }
+
+    @Test
+    public void bufferedSinkTest8() throws InterruptedException {
+        log.info("Test buffered sink dropping the batch failing to map and publishing the following events");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager, "testFailing",
+                "@buffer(size='2', batch='1', overflow='block')");
+        InputHandler fooStream = siddhiAppRuntime.getInputHandler("FooStream");
+        siddhiAppRuntime.start();
+
+        AtomicInteger sent = new AtomicInteger(0);
+        Thread producer = new Thread(() -> {
+            try {
+                fooStream.send(new Object[]{"WSO2", 55.6f, -1L});
+                sent.incrementAndGet();
+                for (long i = 0; i < 10; i++) {
+                    fooStream.send(new Object[]{"WSO2", 55.6f, i});
+                    sent.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(10000);
+        waitFor(received, 10, 10000);
+
+        AssertJUnit.assertEquals(11, sent.get());
+        AssertJUnit.assertEquals(sequence(10), received);
+        siddhiAppRuntime.shutdown();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.transport;
+
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.NoSuchAttributeException;
+import org.wso2.siddhi.core.util.transport.TemplateBuilder;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.text.MessageFormat;
+import java.util.Date;
+
+public class TemplateBuilderTestCase {
+    private static final Logger log = Logger.getLogger(TemplateBuilderTestCase.class);
+    private StreamDefinition streamDefinition;
+    private Object[][] events;
+
+    @BeforeMethod
+    public void init() {
+        streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.DOUBLE)
+                .attribute("volume", Attribute.Type.LONG)
+                .attribute("count", Attribute.Type.INT)
+                .attribute("active", Attribute.Type.BOOL)
+                .attribute("time", Attribute.Type.OBJECT);
+        events = new Object[][]{
+                {"WSO2", 55.6, 100L, 7, true, new Date(1500000000000L)},
+                {"IBM", 1234567.891234, -9876543210L, -1000, false, null},
+                {null, -0.0005, Long.MIN_VALUE, Integer.MAX_VALUE, null, "text"},
+                {"quote's", 75.6f, 999L, 1000, true, 12.5f}
+        };
+    }
+
+    private void assertSameAsMessageFormat(String template, String messageFormatPattern) {
+        TemplateBuilder templateBuilder = new TemplateBuilder(streamDefinition, template);
+        MessageFormat messageFormat = new MessageFormat(messageFormatPattern);
+        for (Object[] data : events) {
+            String expected = messageFormat.format(data);
+            AssertJUnit.assertEquals(expected, templateBuilder.build(new Event(0, data)));
+            StringBuilder builder = new StringBuilder("prefix:");
+            templateBuilder.appendTo(new Event(0, data), builder);
+            AssertJUnit.assertEquals("prefix:" + expected, builder.toString());
+        }
+    }
+
+    @Test
+    public void templateBuilderTest1() {
+        log.info("Test text template with attributes of all types");
+
+        assertSameAsMessageFormat("{{symbol}},{{price}},{{volume}},{{count}},{{active}},{{time}}",
+                "{0},{1},{2},{3},{4},{5}");
+        assertSameAsMessageFormat("Stock {{symbol}} traded {{volume}} at {{price}}.",
+                "Stock {0} traded {2} at {1}.");
+    }
+
+    @Test
+    public void templateBuilderTest2() {
+        log.info("Test JSON template with literal braces");
+
+        assertSameAsMessageFormat("{\"symbol\":\"{{symbol}}\", \"volume\":{{volume}}}",
+                "' {' \"symbol\":\"{0}\", \"volume\":{2}' }' ");
+    }
+
+    @Test
+    public void templateBuilderTest3() {
+        log.info("Test templates with quotes and without attributes");
+
+        assertSameAsMessageFormat("it''s {{symbol}}", "it''s {0}");
+        assertSameAsMessageFormat("it's '{{symbol}}' now", "it's '{0}' now");
+        assertSameAsMessageFormat("no attributes", "no attributes");
+        assertSameAsMessageFormat("`{{symbol}}`", "{0}");
+    }
+
+    @Test
+    public void templateBuilderTest4() {
+        log.info("Test single attribute templates");
+
+        TemplateBuilder objectTemplate = new TemplateBuilder(streamDefinition, "volume");
+        AssertJUnit.assertTrue(objectTemplate.isObjectMessage());
+        AssertJUnit.assertEquals(100L, objectTemplate.build(new Event(0, events[0])));
+
+        TemplateBuilder symbolTemplate = new TemplateBuilder(streamDefinition, "{{symbol}}");
+        AssertJUnit.assertFalse(symbolTemplate.isObjectMessage());
+        AssertJUnit.assertSame(events[0][0], symbolTemplate.build(new Event(0, events[0])));
+        assertSameAsMessageFormat("{{symbol}}", "{0}");
+        assertSameAsMessageFormat("{{volume}}", "{2}");
+    }
+
+    @Test(expectedExceptions = NoSuchAttributeException.class)
+    public void templateBuilderTest5() {
+        log.info("Test template with an attribute not in the stream");
+
+        new TemplateBuilder(streamDefinition, "{{symbol}} {{name}}");
+    }
+}
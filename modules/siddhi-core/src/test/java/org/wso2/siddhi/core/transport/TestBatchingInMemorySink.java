@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.transport;
+
+import org.wso2.siddhi.annotation.Example;
+import org.wso2.siddhi.annotation.Extension;
+import org.wso2.siddhi.annotation.Parameter;
+import org.wso2.siddhi.annotation.util.DataType;
+import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
+import org.wso2.siddhi.core.stream.output.sink.InMemorySink;
+import org.wso2.siddhi.core.util.transport.DynamicOptions;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Extension(
+        name = "testBatchingInMemory",
+        namespace = "sink",
+        description = "In-memory sink for testing buffered sinks, which records the sizes of the published batches " +
+                "and can be made to fail",
+        parameters = @Parameter(name = "topic", type = DataType.STRING, description = "Event will be delivered to all" +
+                "the subscribers of the same topic"),
+        examples = @Example(
+                syntax = "@sink(type='testBatchingInMemory', topic='Foo', @map(type='passThrough'), " +
+                        "@buffer(size='1024', batch='100', linger='5 ms'))\n" +
+                        "define stream BarStream (symbol string, price float, volume long)",
+                description = "In this example BarStream publishes the events in batches of up to 100 events."
+        )
+)
+public class TestBatchingInMemorySink extends InMemorySink {
+    public static List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    public static volatile boolean fail;
+
+    public TestBatchingInMemorySink() {
+        batchSizes.clear();
+        fail = false;
+    }
+
+    @Override
+    public void connect() throws ConnectionUnavailableException {
+        if (fail) {
+            throw new ConnectionUnavailableException("Connection unavailable during connection");
+        }
+        super.connect();
+    }
+
+    @Override
+    public void publish(List<Object> payloads, List<DynamicOptions> transportOptions)
+            throws ConnectionUnavailableException {
+        if (fail) {
+            throw new ConnectionUnavailableException("Connection unavailable during publishing");
+        }
+        batchSizes.add(payloads.size());
+        super.publish(payloads, transportOptions);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.transport;
+
+import org.wso2.siddhi.annotation.Example;
+import org.wso2.siddhi.annotation.Extension;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.stream.output.sink.PassThroughSinkMapper;
+import org.wso2.siddhi.core.stream.output.sink.SinkListener;
+import org.wso2.siddhi.core.util.transport.OptionHolder;
+import org.wso2.siddhi.core.util.transport.TemplateBuilder;
+
+import java.util.Map;
+
+@Extension(
+        name = "testFailing",
+        namespace = "sinkMapper",
+        description = "Pass-through mapper for testing sinks, which fails to map events having a negative last " +
+                "attribute",
+        examples = @Example(
+                syntax = "@sink(type='inMemory', topic='Foo', @map(type='testFailing'))\n" +
+                        "define stream BarStream (symbol string, price float, volume long)",
+                description = "In this example BarStream fails to map the events having a negative volume."
+        )
+)
+public class TestFailingSinkMapper extends PassThroughSinkMapper {
+
+    @Override
+    public void mapAndSend(Event[] events, OptionHolder optionHolder,
+                           Map<String, TemplateBuilder> payloadTemplateBuilderMap, SinkListener sinkListener) {
+        for (Event event : events) {
+            validate(event);
+        }
+        super.mapAndSend(events, optionHolder, payloadTemplateBuilderMap, sinkListener);
+    }
+
+    @Override
+    public void mapAndSend(Event event, OptionHolder optionHolder,
+                           Map<String, TemplateBuilder> payloadTemplateBuilderMap, SinkListener sinkListener) {
+        validate(event);
+        super.mapAndSend(event, optionHolder, payloadTemplateBuilderMap, sinkListener);
+    }
+
+    private static void validate(Event event) {
+        Object[] data = event.getData();
+        if (((Number) data[data.length - 1]).longValue() < 0) {
+            throw new SiddhiAppRuntimeException("Unable to map event " + event);
+        }
+    }
+}
@@ -470,9 +470,14 @@ math_operation
     |math_operation OR math_operation             #or_math_operation
     |function_operation                           #basic_math_operation
     |constant_value                               #basic_math_operation
+    |parameter                                    #basic_math_operation
     |attribute_reference                          #basic_math_operation
     ;
 
+parameter
+    : '?'
+    ;
+
 function_operation
     : (function_namespace ':')? function_id '(' attribute_list?  ')'
     ;
@@ -75,6 +75,7 @@ import org.wso2.siddhi.query.api.execution.query.selection.OutputAttribute;
 import org.wso2.siddhi.query.api.execution.query.selection.Selector;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Parameter;
 import org.wso2.siddhi.query.api.expression.Variable;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
 import org.wso2.siddhi.query.api.expression.constant.BoolConstant;
@@ -101,6 +102,7 @@ import java.util.Set;
 public class SiddhiQLBaseVisitorImpl extends SiddhiQLBaseVisitor {
 
     private Set<String> activeStreams = new HashSet<String>();
+    private int parameterCount = 0;
 
     /**
      * {@inheritDoc}
@@ -2161,6 +2163,8 @@ public class SiddhiQLBaseVisitorImpl extends SiddhiQLBaseVisitor {
             return visit(ctx.attribute_reference());
         } else if (ctx.constant_value() != null) {
             return visit(ctx.constant_value());
+        } else if (ctx.parameter() != null) {
+            return visit(ctx.parameter());
         } else if (ctx.null_check() != null) {
             return visit(ctx.null_check());
         } else if (ctx.function_operation() != null) {
@@ -2544,6 +2548,19 @@ public class SiddhiQLBaseVisitorImpl extends SiddhiQLBaseVisitor {
         return constant;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Parameters are indexed in the order they are visited, which is the order they appear in the query.</p>
+     *
+     * @param ctx
+     */
+    @Override
+    public Parameter visitParameter(@NotNull SiddhiQLParser.ParameterContext ctx) {
+        Parameter parameter = Expression.parameter(parameterCount++);
+        populateQueryContext(parameter, ctx);
+        return parameter;
+    }
+
     /**
      * {@inheritDoc}
      * <p>The default implementation returns the result of calling
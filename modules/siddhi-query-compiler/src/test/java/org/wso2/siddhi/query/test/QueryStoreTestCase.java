@@ -165,6 +165,30 @@ public class QueryStoreTestCase {
 
     }
 
-}
+    @Test
+    public void test5() {
+        StoreQuery query = SiddhiCompiler.parseStoreQuery("" +
+                "from StockTable " +
+                "on symbol == ? and price > ? " +
+                "select symbol, price * ? as value ;"
+        );
+        AssertJUnit.assertNotNull(query);
 
+        StoreQuery api = StoreQuery.query().
+                from(
+                        InputStore.store("StockTable").
+                                on(Expression.and(
+                                        Expression.compare(Expression.variable("symbol"),
+                                                Compare.Operator.EQUAL, Expression.parameter(0)),
+                                        Expression.compare(Expression.variable("price"),
+                                                Compare.Operator.GREATER_THAN, Expression.parameter(1))))).
+                select(
+                        Selector.selector().
+                                select(Expression.variable("symbol")).
+                                select("value", Expression.multiply(Expression.variable("price"),
+                                        Expression.parameter(2)))
+                );
+        AssertJUnit.assertEquals(api, query);
+    }
 
+}